@@ -0,0 +1,87 @@
+package Benchmarks;
+
+import Api.JsonParser;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+// Compares two JMH JSON result files (-rf json) and exits non-zero when any benchmark
+// got slower than the allowed percentage, or when a baseline benchmark is missing from
+// the current results (renamed, deleted or failed to run).
+//   java -cp benchmarks.jar Benchmarks.BenchmarkGate baseline.json current.json [maxRegressionPercent]
+// Only time-per-operation modes (avgt, sample, ss) are compared; lower is better.
+public class BenchmarkGate {
+    private static final double DEFAULT_MAX_REGRESSION_PERCENT = 10.0;
+    private static final Set<String> TIME_MODES = Set.of("avgt", "sample", "ss");
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: BenchmarkGate <baseline.json> <current.json> [maxRegressionPercent]");
+            System.exit(2);
+        }
+        double maxRegression = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_MAX_REGRESSION_PERCENT;
+        Map<String, Double> baseline = readScores(Path.of(args[0]));
+        Map<String, Double> current = readScores(Path.of(args[1]));
+
+        int regressions = 0;
+        for (Map.Entry<String, Double> entry : current.entrySet()) {
+            Double before = baseline.get(entry.getKey());
+            if (before == null || before <= 0) {
+                System.out.printf("NEW   %-70s %12.3f%n", entry.getKey(), entry.getValue());
+                continue;
+            }
+            double changePercent = (entry.getValue() - before) / before * 100;
+            boolean regressed = changePercent > maxRegression;
+            if (regressed) {
+                regressions++;
+            }
+            System.out.printf("%-5s %-70s %12.3f -> %12.3f (%+.1f%%)%n",
+                    regressed ? "FAIL" : "OK", entry.getKey(), before, entry.getValue(), changePercent);
+        }
+        int missing = 0;
+        for (String name : baseline.keySet()) {
+            if (!current.containsKey(name)) {
+                missing++;
+                System.out.printf("MISS  %s%n", name);
+            }
+        }
+
+        if (regressions > 0) {
+            System.err.printf("%d benchmark(s) regressed by more than %.1f%%%n", regressions, maxRegression);
+        }
+        if (missing > 0) {
+            System.err.printf("%d baseline benchmark(s) missing from the current results%n", missing);
+        }
+        if (regressions > 0 || missing > 0) {
+            System.exit(1);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Double> readScores(Path file) throws Exception {
+        Object parsed = JsonParser.parse(Files.readString(file));
+        if (!(parsed instanceof List<?> runs)) {
+            throw new IllegalArgumentException(file + " is not a JMH JSON result file");
+        }
+        Map<String, Double> scores = new TreeMap<>();
+        for (Object run : runs) {
+            Map<String, Object> result = (Map<String, Object>) run;
+            if (!TIME_MODES.contains(String.valueOf(result.get("mode")))) {
+                continue;
+            }
+            Map<String, Object> metric = (Map<String, Object>) result.get("primaryMetric");
+            scores.put(key(result), ((Number) metric.get("score")).doubleValue());
+        }
+        return scores;
+    }
+    @SuppressWarnings("unchecked")
+    private static String key(Map<String, Object> result) {
+        StringBuilder key = new StringBuilder(String.valueOf(result.get("benchmark")));
+        Object params = result.get("params");
+        if (params instanceof Map<?, ?> map) {
+            new TreeMap<>((Map<String, Object>) map).forEach((name, value) -> key.append(':').append(name).append('=').append(value));
+        }
+        return key.toString();
+    }
+}
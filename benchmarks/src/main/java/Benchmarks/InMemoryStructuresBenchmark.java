@@ -0,0 +1,65 @@
+package Benchmarks;
+
+import Core.AdmissionController;
+import Core.IdempotencyCache;
+import Core.TableHoldManager;
+import Exceptions.AdmissionRejectedException;
+import Utils.TimingWheel;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.concurrent.TimeUnit;
+
+// The in-process availability structures: table holds (and the timing wheel behind
+// them), the idempotency cache and the admission limiter.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InMemoryStructuresBenchmark {
+    private static final LocalDate DATE = LocalDate.of(2026, 10, 24);
+    private static final LocalTime TIME = LocalTime.of(19, 30);
+
+    private TimingWheel wheel;
+    private TableHoldManager holds;
+    private IdempotencyCache idempotencyCache;
+    private AdmissionController admission;
+
+    @Setup
+    public void setUp() {
+        wheel = new TimingWheel(100, TimeUnit.MILLISECONDS);
+        holds = TableHoldManager.getInstance();
+        idempotencyCache = new IdempotencyCache();
+        for (int i = 0; i < 5_000; i++) {
+            idempotencyCache.put("RESERVATION", i % 100 + 1, "key-" + i, null, i);
+            holds.placeHold(1_000 + i, DATE, TIME, i);
+        }
+        admission = new AdmissionController();
+    }
+
+    @Benchmark
+    public boolean timingWheelScheduleAndCancel() {
+        return wheel.schedule(() -> {}, 3, TimeUnit.MINUTES).cancel();
+    }
+    @Benchmark
+    public boolean holdPlaceAndRelease() {
+        boolean placed = holds.placeHold(7, DATE, TIME, 42);
+        holds.releaseHold(7, DATE, TIME, 42);
+        return placed;
+    }
+    @Benchmark
+    public boolean holdLookup() {
+        return holds.isHeldByOther(2_500, DATE, TIME, 42);
+    }
+    @Benchmark
+    public IdempotencyCache.Entry idempotencyHit() {
+        return idempotencyCache.get("RESERVATION", 1, "key-2500");
+    }
+    @Benchmark
+    public void admissionAcquireRelease() throws AdmissionRejectedException {
+        admission.acquire(AdmissionController.OperationClass.AVAILABILITY).onSuccess();
+    }
+}
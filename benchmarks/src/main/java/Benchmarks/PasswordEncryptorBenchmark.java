@@ -0,0 +1,37 @@
+package Benchmarks;
+
+import Exceptions.AuthenticationException;
+import Security.PasswordEncryptor;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PasswordEncryptorBenchmark {
+    private String salt;
+    private String hash;
+
+    @Setup
+    public void setUp() throws AuthenticationException {
+        salt = PasswordEncryptor.generateSalt();
+        hash = PasswordEncryptor.hashPassword("Sup3r$ecret!", salt);
+    }
+
+    @Benchmark
+    public String hashPassword() throws AuthenticationException {
+        return PasswordEncryptor.hashPassword("Sup3r$ecret!", salt);
+    }
+    @Benchmark
+    public boolean verifyPassword() throws AuthenticationException {
+        return PasswordEncryptor.verifyPassword("Sup3r$ecret!", salt, hash);
+    }
+    @Benchmark
+    public String generateSalt() {
+        return PasswordEncryptor.generateSalt();
+    }
+}
@@ -0,0 +1,58 @@
+package Benchmarks;
+
+import Database.DatabaseManager;
+import Models.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ResultSetMapperBenchmark {
+    private ResultSet customerRow;
+    private ResultSet managerRow;
+    private ResultSet tableRow;
+    private ResultSet reservationRow;
+    private ResultSet waitlistRow;
+
+    @Setup
+    public void setUp() throws SQLException {
+        customerRow = StubResultSets.customer();
+        managerRow = StubResultSets.manager();
+        tableRow = StubResultSets.table();
+        reservationRow = StubResultSets.reservation();
+        waitlistRow = StubResultSets.waitlist();
+    }
+
+    @Benchmark
+    public Customer mapCustomer() throws SQLException {
+        customerRow.absolute(1);
+        return DatabaseManager.mapResultSetToCustomer(customerRow);
+    }
+    @Benchmark
+    public Manager mapManager() throws SQLException {
+        managerRow.absolute(1);
+        return DatabaseManager.mapResultSetToManager(managerRow);
+    }
+    @Benchmark
+    public Table mapTable() throws SQLException {
+        tableRow.absolute(1);
+        return DatabaseManager.mapResultSetToTable(tableRow);
+    }
+    @Benchmark
+    public Reservation mapReservation() throws SQLException {
+        reservationRow.absolute(1);
+        return DatabaseManager.mapResultSetToReservation(reservationRow);
+    }
+    @Benchmark
+    public Waitlist mapWaitlist() throws SQLException {
+        waitlistRow.absolute(1);
+        return DatabaseManager.mapResultSetToWaitlist(waitlistRow);
+    }
+}
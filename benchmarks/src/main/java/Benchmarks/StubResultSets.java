@@ -0,0 +1,108 @@
+package Benchmarks;
+
+import javax.sql.rowset.CachedRowSet;
+import javax.sql.rowset.RowSetMetaDataImpl;
+import javax.sql.rowset.RowSetProvider;
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+// In-memory ResultSets shaped like the rows DatabaseManager reads, so the mappers can
+// be measured without a database. CachedRowSet is the JDK's disconnected ResultSet.
+final class StubResultSets {
+    private StubResultSets() {}
+
+    static ResultSet customer() throws SQLException {
+        return build(new Column[]{
+                new Column("CustomerID", Types.INTEGER, 42),
+                new Column("FirstName", Types.VARCHAR, "Ada"),
+                new Column("LastName", Types.VARCHAR, "Lovelace"),
+                new Column("Email", Types.VARCHAR, "ada@example.com"),
+                new Column("PhoneNumber", Types.VARCHAR, "+441234567890"),
+                new Column("RegistrationDate", Types.TIMESTAMP, Timestamp.valueOf(LocalDateTime.of(2024, 1, 5, 18, 30))),
+                new Column("LastVisitDate", Types.TIMESTAMP, Timestamp.valueOf(LocalDateTime.of(2026, 9, 1, 20, 0))),
+                new Column("TotalVisits", Types.INTEGER, 17),
+                new Column("PreferredCuisine", Types.VARCHAR, "Italian"),
+                new Column("Allergies", Types.VARCHAR, "Peanuts")
+        });
+    }
+    static ResultSet manager() throws SQLException {
+        return build(new Column[]{
+                new Column("ManagerID", Types.INTEGER, 3),
+                new Column("FirstName", Types.VARCHAR, "Grace"),
+                new Column("LastName", Types.VARCHAR, "Hopper"),
+                new Column("Email", Types.VARCHAR, "grace@example.com"),
+                new Column("PhoneNumber", Types.VARCHAR, "+15550100100"),
+                new Column("IsActive", Types.BIT, true),
+                new Column("CreatedDate", Types.TIMESTAMP, Timestamp.valueOf(LocalDateTime.of(2023, 3, 1, 9, 0))),
+                new Column("LastModifiedDate", Types.TIMESTAMP, Timestamp.valueOf(LocalDateTime.of(2026, 2, 1, 9, 0)))
+        });
+    }
+    static ResultSet table() throws SQLException {
+        return build(new Column[]{
+                new Column("TableID", Types.INTEGER, 12),
+                new Column("CategoryID", Types.INTEGER, 2),
+                new Column("TableNumber", Types.VARCHAR, "T12"),
+                new Column("Capacity", Types.INTEGER, 4),
+                new Column("Status", Types.VARCHAR, "Available"),
+                new Column("Location", Types.VARCHAR, "Patio"),
+                new Column("HasWindow", Types.BIT, true),
+                new Column("IsPrivate", Types.BIT, false),
+                new Column("LastModifiedBy", Types.INTEGER, 3),
+                new Column("LastModifiedDate", Types.TIMESTAMP, Timestamp.valueOf(LocalDateTime.of(2026, 10, 1, 12, 0))),
+                new Column("CategoryName", Types.VARCHAR, "Standard"),
+                new Column("MinCapacity", Types.INTEGER, 2),
+                new Column("MaxCapacity", Types.INTEGER, 4),
+                new Column("Description", Types.VARCHAR, "Four-top by the garden")
+        });
+    }
+    static ResultSet reservation() throws SQLException {
+        return build(new Column[]{
+                new Column("ReservationID", Types.INTEGER, 1001),
+                new Column("CustomerID", Types.INTEGER, 42),
+                new Column("TableID", Types.INTEGER, 12),
+                new Column("ReservationDate", Types.DATE, Date.valueOf(LocalDate.of(2026, 10, 24))),
+                new Column("ReservationTime", Types.TIME, Time.valueOf(LocalTime.of(19, 30))),
+                new Column("PartySize", Types.INTEGER, 4),
+                new Column("Status", Types.VARCHAR, "Confirmed"),
+                new Column("SpecialRequests", Types.VARCHAR, "Birthday cake"),
+                new Column("EstimatedDuration", Types.INTEGER, 120)
+        });
+    }
+    static ResultSet waitlist() throws SQLException {
+        return build(new Column[]{
+                new Column("WaitlistID", Types.INTEGER, 77),
+                new Column("CustomerID", Types.INTEGER, 42),
+                new Column("RequestedDate", Types.DATE, Date.valueOf(LocalDate.of(2026, 10, 24))),
+                new Column("RequestedTime", Types.TIME, Time.valueOf(LocalTime.of(20, 0))),
+                new Column("PartySize", Types.INTEGER, 2),
+                new Column("Status", Types.VARCHAR, "ACTIVE"),
+                new Column("QueuePosition", Types.INTEGER, 3),
+                new Column("WaitTime", Types.INTEGER, 45)
+        });
+    }
+
+    private record Column(String name, int type, Object value) {}
+
+    private static ResultSet build(Column[] columns) throws SQLException {
+        RowSetMetaDataImpl metaData = new RowSetMetaDataImpl();
+        metaData.setColumnCount(columns.length);
+        for (int i = 0; i < columns.length; i++) {
+            metaData.setColumnName(i + 1, columns[i].name());
+            metaData.setColumnLabel(i + 1, columns[i].name());
+            metaData.setColumnType(i + 1, columns[i].type());
+        }
+
+        CachedRowSet rowSet = RowSetProvider.newFactory().createCachedRowSet();
+        rowSet.setMetaData(metaData);
+        rowSet.moveToInsertRow();
+        for (int i = 0; i < columns.length; i++) {
+            rowSet.updateObject(i + 1, columns[i].value());
+        }
+        rowSet.insertRow();
+        rowSet.moveToCurrentRow();
+        rowSet.beforeFirst();
+        return rowSet;
+    }
+}
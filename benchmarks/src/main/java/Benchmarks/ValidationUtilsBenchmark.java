@@ -0,0 +1,41 @@
+package Benchmarks;
+
+import Utils.ValidationUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ValidationUtilsBenchmark {
+    @State(Scope.Thread)
+    public static class EmailInput {
+        @Param({"ada.lovelace@example.com", "not-an-email"})
+        public String email;
+    }
+
+    @Benchmark
+    public boolean isValidEmail(EmailInput input) {
+        return ValidationUtils.isValidEmail(input.email);
+    }
+    @Benchmark
+    public boolean isValidPhone() {
+        return ValidationUtils.isValidPhone("+1-234-567-8901");
+    }
+    @Benchmark
+    public boolean isValidName() {
+        return ValidationUtils.isValidName("Ada Augusta Lovelace");
+    }
+    @Benchmark
+    public boolean isValidPassword() {
+        return ValidationUtils.isValidPassword("Sup3r$ecret!");
+    }
+    @Benchmark
+    public String trimToMaxLength() {
+        return ValidationUtils.trimToMaxLength("Ada Augusta Lovelace, Countess of Lovelace", ValidationUtils.MAX_NAME_LENGTH);
+    }
+}
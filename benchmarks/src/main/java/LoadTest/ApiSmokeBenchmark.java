@@ -0,0 +1,93 @@
+package LoadTest;
+
+import Api.ApiServer;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+// Local requests-per-second smoke test for the HTTP API.
+//   java -cp benchmarks/target/benchmarks.jar LoadTest.ApiSmokeBenchmark [baseUrl|local] [path] [concurrency] [seconds]
+// With "local" (the default) an in-process server is started and /api/health is measured,
+// which isolates the HTTP + codec overhead from the database.
+public class ApiSmokeBenchmark {
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 && !args[0].equals("local") ? args[0] : null;
+        String path = args.length > 1 ? args[1] : "/api/health";
+        int concurrency = args.length > 2 ? Integer.parseInt(args[2]) : 64;
+        int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+
+        ApiServer localServer = null;
+        if (baseUrl == null) {
+            localServer = new ApiServer(0);
+            localServer.start();
+            baseUrl = "http://localhost:" + localServer.getPort();
+        }
+
+        try {
+            run(URI.create(baseUrl + path), concurrency, Duration.ofSeconds(seconds));
+        } finally {
+            if (localServer != null) {
+                localServer.close();
+            }
+        }
+    }
+
+    private static void run(URI uri, int concurrency, Duration duration) throws InterruptedException {
+        HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(uri).GET().build();
+
+        // Warm up the JIT and the connection pool before measuring
+        runLoad(client, request, concurrency, System.nanoTime() + Duration.ofSeconds(2).toNanos());
+
+        long start = System.nanoTime();
+        Result result = runLoad(client, request, concurrency, start + duration.toNanos());
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("Target:      %s%n", uri);
+        System.out.printf("Concurrency: %d%n", concurrency);
+        System.out.printf("Requests:    %d (%d errors)%n", result.requests, result.errors);
+        System.out.printf("Throughput:  %.0f req/s%n", result.requests / elapsedSeconds);
+        System.out.printf("Mean:        %.3f ms%n", result.requests == 0 ? 0.0 : result.totalNanos / 1e6 / result.requests);
+    }
+
+    private static Result runLoad(HttpClient client, HttpRequest request, int concurrency, long deadline)
+            throws InterruptedException {
+        LongAdder requests = new LongAdder();
+        LongAdder errors = new LongAdder();
+        LongAdder totalNanos = new LongAdder();
+        List<Thread> workers = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            workers.add(Thread.ofVirtual().start(() -> {
+                while (System.nanoTime() < deadline) {
+                    long begin = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() >= 500) {
+                            errors.increment();
+                        }
+                    } catch (Exception e) {
+                        errors.increment();
+                    }
+                    totalNanos.add(System.nanoTime() - begin);
+                    requests.increment();
+                }
+            }));
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return new Result(requests.sum(), errors.sum(), totalNanos.sum());
+    }
+
+    private record Result(long requests, long errors, long totalNanos) {}
+}
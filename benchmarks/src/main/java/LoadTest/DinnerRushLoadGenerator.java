@@ -0,0 +1,200 @@
+package LoadTest;
+
+import Exceptions.AuthenticationException;
+import Exceptions.ReservationException;
+import Models.Table;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Closed-loop dinner-rush load generator. Each simulated diner is a virtual thread that
+// logs in, then searches, books, cancels and churns the waitlist with exponential think
+// time. Every -Dload.burstSeconds all diners log in again at once to model login bursts.
+//   java LoadTest.DinnerRushLoadGenerator [local|sql]
+// Tunables (system properties): load.users, load.seconds, load.warmupSeconds,
+// load.thinkMillis, load.burstSeconds, load.days, load.mix, load.reportSeconds,
+// load.local.roundTripMicros (local only), db.url, db.dialect and db.pool.size (sql only).
+// -Ddb.dialect=h2 runs the sql target against an in-process H2 database.
+public class DinnerRushLoadGenerator {
+    private static final int USERS = Integer.getInteger("load.users", 200);
+    private static final int SECONDS = Integer.getInteger("load.seconds", 60);
+    private static final int WARMUP_SECONDS = Integer.getInteger("load.warmupSeconds", 10);
+    private static final int REPORT_SECONDS = Integer.getInteger("load.reportSeconds", 5);
+    private static final long THINK_NANOS = TimeUnit.MILLISECONDS.toNanos(Long.getLong("load.thinkMillis", 100));
+    private static final long BURST_NANOS = TimeUnit.SECONDS.toNanos(Integer.getInteger("load.burstSeconds", 30));
+
+    private final LoadTarget target;
+    private final WorkloadModel workload;
+    private final LatencyReport report = new LatencyReport();
+    private final AtomicLong loginEpoch = new AtomicLong();
+    private volatile boolean running = true;
+
+    DinnerRushLoadGenerator(LoadTarget target, WorkloadModel workload) {
+        this.target = target;
+        this.workload = workload;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String mode = args.length > 0 ? args[0] : "local";
+        WorkloadModel workload = new WorkloadModel(System.getProperty("load.mix", WorkloadModel.DEFAULT_MIX),
+                Integer.getInteger("load.days", 7));
+        try (LoadTarget target = switch (mode) {
+            case "local" -> new InMemoryTarget();
+            case "sql" -> new ReservationSystemTarget();
+            default -> throw new IllegalArgumentException("Target must be 'local' or 'sql'");
+        }) {
+            new DinnerRushLoadGenerator(target, workload).run();
+        }
+    }
+
+    void run() throws Exception {
+        System.out.printf("Target: %s%nDiners: %d, warm-up %ds, measure %ds, think %dms%n",
+                target.describe(), USERS, WARMUP_SECONDS, SECONDS, TimeUnit.NANOSECONDS.toMillis(THINK_NANOS));
+        target.prepare(USERS);
+
+        List<Thread> diners = new ArrayList<>(USERS);
+        for (int user = 0; user < USERS; user++) {
+            int id = user;
+            diners.add(Thread.ofVirtual().name("diner-" + id).start(() -> dine(id)));
+        }
+
+        long start = System.nanoTime();
+        long warmupEnd = start + TimeUnit.SECONDS.toNanos(WARMUP_SECONDS);
+        long end = warmupEnd + TimeUnit.SECONDS.toNanos(SECONDS);
+        long nextBurst = start + BURST_NANOS;
+        long measureStart = warmupEnd;
+        boolean warmingUp = WARMUP_SECONDS > 0;
+        long lastReport = start;
+        long tickMillis = BURST_NANOS > 0
+                ? Math.min(TimeUnit.SECONDS.toMillis(REPORT_SECONDS), TimeUnit.NANOSECONDS.toMillis(BURST_NANOS))
+                : TimeUnit.SECONDS.toMillis(REPORT_SECONDS);
+
+        while (System.nanoTime() < end) {
+            Thread.sleep(tickMillis);
+            long now = System.nanoTime();
+            if (BURST_NANOS > 0 && now >= nextBurst) {
+                loginEpoch.incrementAndGet();
+                nextBurst += BURST_NANOS;
+            }
+            if (warmingUp && now >= warmupEnd) {
+                report.reset();
+                measureStart = now;
+                lastReport = now;
+                warmingUp = false;
+                System.out.println("Warm-up complete, measuring");
+                continue;
+            }
+            if (now - lastReport >= TimeUnit.SECONDS.toNanos(REPORT_SECONDS)) {
+                long completed = report.sample();
+                System.out.printf("%s%6.0fs  %8.1f ops/s%n", warmingUp ? "[warm-up] " : "",
+                        (now - start) / 1e9, completed / ((now - lastReport) / 1e9));
+                lastReport = now;
+            }
+        }
+
+        running = false;
+        double measured = (System.nanoTime() - measureStart) / 1e9;
+        for (Thread diner : diners) {
+            diner.join();
+        }
+        report.print(measured);
+    }
+
+    private void dine(int user) {
+        List<Integer> reservations = new ArrayList<>();
+        List<Integer> waitlistEntries = new ArrayList<>();
+        long seenEpoch = -1;
+        int customerId = -1;
+
+        while (running) {
+            if (customerId < 0 || seenEpoch != loginEpoch.get()) {
+                seenEpoch = loginEpoch.get();
+                customerId = timed(WorkloadModel.Operation.LOGIN, () -> target.login(user), -1);
+                if (customerId < 0) {
+                    think();
+                    continue;
+                }
+            }
+            int diner = customerId;
+            LocalDate date = workload.nextDate();
+            LocalTime time = workload.nextTime();
+            int partySize = workload.nextPartySize();
+
+            switch (workload.nextOperation()) {
+                case SEARCH -> timed(WorkloadModel.Operation.SEARCH,
+                        () -> target.searchAvailability(diner, partySize, date, time), null);
+                case BOOK -> {
+                    List<Table> tables = timed(WorkloadModel.Operation.SEARCH,
+                            () -> target.searchAvailability(diner, partySize, date, time), null);
+                    if (tables != null && !tables.isEmpty()) {
+                        Table table = tables.get(ThreadLocalRandom.current().nextInt(tables.size()));
+                        addIfPresent(reservations, timed(WorkloadModel.Operation.BOOK,
+                                () -> target.book(diner, table.getTableID(), date, time, partySize), null));
+                    } else if (tables != null) {
+                        // Sold out: the diner joins the waitlist instead
+                        addIfPresent(waitlistEntries, timed(WorkloadModel.Operation.WAITLIST_JOIN,
+                                () -> target.joinWaitlist(diner, date, time, partySize), null));
+                    }
+                }
+                case CANCEL -> {
+                    if (!reservations.isEmpty()) {
+                        int reservationId = reservations.remove(ThreadLocalRandom.current().nextInt(reservations.size()));
+                        timed(WorkloadModel.Operation.CANCEL, () -> {
+                            target.cancel(reservationId);
+                            return Boolean.TRUE;
+                        }, null);
+                    }
+                }
+                case WAITLIST_JOIN -> addIfPresent(waitlistEntries, timed(WorkloadModel.Operation.WAITLIST_JOIN,
+                        () -> target.joinWaitlist(diner, date, time, partySize), null));
+                case WAITLIST_LEAVE -> {
+                    if (!waitlistEntries.isEmpty()) {
+                        int waitlistId = waitlistEntries.remove(0);
+                        timed(WorkloadModel.Operation.WAITLIST_LEAVE, () -> {
+                            target.leaveWaitlist(waitlistId);
+                            return Boolean.TRUE;
+                        }, null);
+                    }
+                }
+                default -> { }
+            }
+            think();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Call<T> {
+        T call() throws Exception;
+    }
+
+    private <T> T timed(WorkloadModel.Operation operation, Call<T> call, T onFailure) {
+        long begin = System.nanoTime();
+        try {
+            T result = call.call();
+            report.recordSuccess(operation, System.nanoTime() - begin);
+            return result;
+        } catch (ReservationException | AuthenticationException e) {
+            report.recordRejected(operation, System.nanoTime() - begin);
+        } catch (Exception e) {
+            report.recordError(operation);
+        }
+        return onFailure;
+    }
+    private void think() {
+        long nanos = workload.nextThinkNanos(THINK_NANOS);
+        if (nanos > 0) {
+            LockSupport.parkNanos(nanos);
+        }
+    }
+    private static void addIfPresent(List<Integer> ids, Integer id) {
+        if (id != null) {
+            ids.add(id);
+        }
+    }
+}
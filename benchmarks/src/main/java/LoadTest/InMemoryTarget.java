@@ -0,0 +1,133 @@
+package LoadTest;
+
+import Exceptions.AuthenticationException;
+import Exceptions.ReservationException;
+import Models.Table;
+import Security.PasswordEncryptor;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+// Local stand-in for the SQL backend: the same operations over in-memory state, with a
+// simulated round trip (-Dload.local.roundTripMicros) for every query the real code issues.
+// Password checks run the real PasswordEncryptor so login CPU cost is representative.
+class InMemoryTarget implements LoadTarget {
+    private static final long ROUND_TRIP_NANOS =
+            TimeUnit.MICROSECONDS.toNanos(Long.getLong("load.local.roundTripMicros", 500));
+    private static final int RESERVATION_MINUTES = 120;
+    private static final int[] TABLE_CAPACITIES = {2, 2, 2, 2, 2, 2, 2, 2, 2, 2,
+            4, 4, 4, 4, 4, 4, 4, 4, 4, 4, 4, 4, 6, 6, 6, 6, 6, 8, 8, 8};
+
+    private final List<Table> tables = new ArrayList<>();
+    private final Map<Integer, Credentials> credentials = new ConcurrentHashMap<>();
+    private final Map<Integer, Booking> reservations = new HashMap<>();
+    private final Map<TableDay, List<LocalTime>> bookedTimes = new HashMap<>();
+    private final Map<Integer, Boolean> waitlist = new ConcurrentHashMap<>();
+    private final AtomicInteger reservationIds = new AtomicInteger();
+    private final AtomicInteger waitlistIds = new AtomicInteger();
+
+    private record Credentials(String salt, String hash) {}
+    private record TableDay(int tableId, LocalDate date) {}
+    private record Booking(TableDay tableDay, LocalTime time) {}
+
+    InMemoryTarget() {
+        for (int i = 0; i < TABLE_CAPACITIES.length; i++) {
+            Table table = new Table("T" + (i + 1), TABLE_CAPACITIES[i], 1);
+            table.setTableID(i + 1);
+            tables.add(table);
+        }
+    }
+
+    @Override
+    public String describe() {
+        return "local in-memory stand-in (" + TimeUnit.NANOSECONDS.toMicros(ROUND_TRIP_NANOS) + "us per query)";
+    }
+    @Override
+    public void prepare(int users) throws AuthenticationException {
+        for (int user = 0; user < users; user++) {
+            String salt = PasswordEncryptor.generateSalt();
+            credentials.put(user, new Credentials(salt, PasswordEncryptor.hashPassword(ReservationSystemTarget.PASSWORD, salt)));
+        }
+    }
+    @Override
+    public int login(int user) throws AuthenticationException {
+        roundTrips(5); // lock check, salt, credential check, reset attempts, profile
+        Credentials stored = credentials.get(user);
+        if (stored == null || !PasswordEncryptor.verifyPassword(ReservationSystemTarget.PASSWORD, stored.salt(), stored.hash())) {
+            throw new AuthenticationException("Invalid username or password");
+        }
+        return user + 1;
+    }
+    @Override
+    public List<Table> searchAvailability(int customerId, int partySize, LocalDate date, LocalTime time) {
+        roundTrips(1);
+        List<Table> available = new ArrayList<>();
+        synchronized (reservations) {
+            for (Table table : tables) {
+                if (table.getCapacity() >= partySize && isFree(table.getTableID(), date, time)) {
+                    available.add(table);
+                }
+            }
+        }
+        return available;
+    }
+    @Override
+    public int book(int customerId, int tableId, LocalDate date, LocalTime time, int partySize) throws ReservationException {
+        roundTrips(3); // concurrent validation lookups count once, then idempotency + insert
+        synchronized (reservations) {
+            if (!isFree(tableId, date, time)) {
+                throw new ReservationException("Table not available for selected time");
+            }
+            int id = reservationIds.incrementAndGet();
+            TableDay tableDay = new TableDay(tableId, date);
+            reservations.put(id, new Booking(tableDay, time));
+            bookedTimes.computeIfAbsent(tableDay, key -> new ArrayList<>()).add(time);
+            return id;
+        }
+    }
+    @Override
+    public void cancel(int reservationId) {
+        roundTrips(1);
+        synchronized (reservations) {
+            Booking booking = reservations.remove(reservationId);
+            if (booking != null) {
+                bookedTimes.get(booking.tableDay()).remove(booking.time());
+            }
+        }
+    }
+    @Override
+    public int joinWaitlist(int customerId, LocalDate date, LocalTime time, int partySize) {
+        roundTrips(3); // queue position, idempotency, insert
+        int id = waitlistIds.incrementAndGet();
+        waitlist.put(id, Boolean.TRUE);
+        return id;
+    }
+    @Override
+    public void leaveWaitlist(int waitlistId) {
+        roundTrips(1);
+        waitlist.remove(waitlistId);
+    }
+
+    private boolean isFree(int tableId, LocalDate date, LocalTime time) {
+        List<LocalTime> booked = bookedTimes.get(new TableDay(tableId, date));
+        if (booked == null) {
+            return true;
+        }
+        for (LocalTime other : booked) {
+            if (Math.abs(other.toSecondOfDay() - time.toSecondOfDay()) < RESERVATION_MINUTES * 60) {
+                return false;
+            }
+        }
+        return true;
+    }
+    private static void roundTrips(int count) {
+        if (ROUND_TRIP_NANOS > 0) {
+            LockSupport.parkNanos(ROUND_TRIP_NANOS * count);
+        }
+    }
+}
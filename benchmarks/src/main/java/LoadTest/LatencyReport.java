@@ -0,0 +1,89 @@
+package LoadTest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Per-operation latency histograms (HdrHistogram, microsecond resolution up to one minute)
+// plus outcome counters. Recorders are lock-free for writers; the reporter thread drains
+// them into cumulative histograms.
+class LatencyReport {
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private final Map<WorkloadModel.Operation, Stats> stats = new EnumMap<>(WorkloadModel.Operation.class);
+
+    private static final class Stats {
+        private final Recorder recorder = new Recorder(HIGHEST_TRACKABLE_MICROS, 3);
+        private final Histogram total = new Histogram(HIGHEST_TRACKABLE_MICROS, 3);
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private Histogram interval;
+    }
+
+    LatencyReport() {
+        for (WorkloadModel.Operation operation : WorkloadModel.Operation.values()) {
+            stats.put(operation, new Stats());
+        }
+    }
+
+    void recordSuccess(WorkloadModel.Operation operation, long nanos) {
+        stats.get(operation).recorder.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(nanos), HIGHEST_TRACKABLE_MICROS));
+    }
+    void recordRejected(WorkloadModel.Operation operation, long nanos) {
+        recordSuccess(operation, nanos);
+        stats.get(operation).rejected.increment();
+    }
+    void recordError(WorkloadModel.Operation operation) {
+        stats.get(operation).errors.increment();
+    }
+
+    // Drains the recorders; returns the number of operations completed since the last call
+    synchronized long sample() {
+        long count = 0;
+        for (Stats stat : stats.values()) {
+            stat.interval = stat.recorder.getIntervalHistogram(stat.interval);
+            stat.total.add(stat.interval);
+            count += stat.interval.getTotalCount();
+        }
+        return count;
+    }
+    synchronized void reset() {
+        sample();
+        for (Stats stat : stats.values()) {
+            stat.total.reset();
+            stat.rejected.reset();
+            stat.errors.reset();
+        }
+    }
+
+    synchronized void print(double elapsedSeconds) {
+        sample();
+        System.out.printf("%n%-15s %9s %9s %9s %10s %9s %9s %9s %9s%n",
+                "Operation", "Count", "Rejected", "Errors", "Ops/s", "p50 ms", "p99 ms", "p999 ms", "Max ms");
+        long allCount = 0;
+        for (Map.Entry<WorkloadModel.Operation, Stats> entry : stats.entrySet()) {
+            Histogram histogram = entry.getValue().total;
+            long count = histogram.getTotalCount();
+            allCount += count;
+            if (count == 0 && entry.getValue().errors.sum() == 0) {
+                continue;
+            }
+            System.out.printf("%-15s %9d %9d %9d %10.1f %9.2f %9.2f %9.2f %9.2f%n",
+                    entry.getKey(), count, entry.getValue().rejected.sum(), entry.getValue().errors.sum(),
+                    count / elapsedSeconds,
+                    millis(histogram.getValueAtPercentile(50)),
+                    millis(histogram.getValueAtPercentile(99)),
+                    millis(histogram.getValueAtPercentile(99.9)),
+                    millis(histogram.getMaxValue()));
+        }
+        System.out.printf("%-15s %9d %31.1f%n", "TOTAL", allCount, allCount / elapsedSeconds);
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}
@@ -0,0 +1,24 @@
+package LoadTest;
+
+import Models.Table;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+// The operations a simulated diner performs. Implementations throw ReservationException or
+// AuthenticationException for business rejections (slot taken, bad password); anything else
+// is counted as an error.
+interface LoadTarget extends AutoCloseable {
+    String describe();
+    void prepare(int users) throws Exception;
+    int login(int user) throws Exception;
+    List<Table> searchAvailability(int customerId, int partySize, LocalDate date, LocalTime time) throws Exception;
+    int book(int customerId, int tableId, LocalDate date, LocalTime time, int partySize) throws Exception;
+    void cancel(int reservationId) throws Exception;
+    int joinWaitlist(int customerId, LocalDate date, LocalTime time, int partySize) throws Exception;
+    void leaveWaitlist(int waitlistId) throws Exception;
+
+    @Override
+    default void close() throws Exception {}
+}
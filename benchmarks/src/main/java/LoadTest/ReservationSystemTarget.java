@@ -0,0 +1,112 @@
+package LoadTest;
+
+import Core.ReservationManager;
+import Database.DatabaseConfig;
+import Database.DatabaseManager;
+import Exceptions.AuthenticationException;
+import Models.*;
+import Security.AuthenticationManager;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.UUID;
+
+// Drives the real ReservationManager / AuthenticationManager against the SQL backend
+// configured by -Ddb.url / -Ddb.dialect. Load-test accounts are loaduser<N> and are registered on demand.
+class ReservationSystemTarget implements LoadTarget {
+    static final String USERNAME_PREFIX = "loaduser";
+    static final String PASSWORD = System.getProperty("load.password", "LoadTest#2024");
+
+    private final ReservationManager reservationManager = new ReservationManager();
+    private final AuthenticationManager authManager = new AuthenticationManager();
+    private final DatabaseManager dbManager = DatabaseManager.getInstance();
+
+    @Override
+    public String describe() {
+        return "SQL backend (" + DatabaseConfig.getDialect().name() + ", " + DatabaseConfig.getUrl() + ")";
+    }
+    @Override
+    public void prepare(int users) throws Exception {
+        int registered = 0;
+        for (int user = 0; user < users; user++) {
+            try {
+                if (dbManager.getCustomerSalt(username(user)) == null) {
+                    Customer customer = new Customer("Load", "Tester", username(user) + "@loadtest.example.com",
+                            String.format("+1%09d", user));
+                    authManager.registerCustomer(customer, username(user), PASSWORD);
+                    registered++;
+                }
+            } finally {
+                dbManager.closeConnection();
+            }
+        }
+        if (registered > 0) {
+            System.out.printf("Registered %d load-test customers%n", registered);
+        }
+    }
+    @Override
+    public int login(int user) throws AuthenticationException {
+        try {
+            return authManager.authenticateCustomer(username(user), PASSWORD).getCustomerID();
+        } finally {
+            dbManager.closeConnection();
+        }
+    }
+    @Override
+    public List<Table> searchAvailability(int customerId, int partySize, LocalDate date, LocalTime time) throws Exception {
+        try {
+            return reservationManager.getAvailableTables(partySize, date, time, customerId);
+        } finally {
+            dbManager.closeConnection();
+        }
+    }
+    @Override
+    public int book(int customerId, int tableId, LocalDate date, LocalTime time, int partySize) throws Exception {
+        try {
+            reservationManager.holdTable(tableId, date, time, customerId);
+            Reservation reservation = new Reservation(customerId, tableId, date, time, partySize);
+            return reservationManager.createReservation(reservation, UUID.randomUUID().toString());
+        } catch (Exception e) {
+            reservationManager.releaseTableHold(tableId, date, time, customerId);
+            throw e;
+        } finally {
+            dbManager.closeConnection();
+        }
+    }
+    @Override
+    public void cancel(int reservationId) throws Exception {
+        try {
+            reservationManager.cancelReservation(reservationId);
+        } finally {
+            dbManager.closeConnection();
+        }
+    }
+    @Override
+    public int joinWaitlist(int customerId, LocalDate date, LocalTime time, int partySize) throws Exception {
+        try {
+            int position = dbManager.getHighestQueuePosition(date, time) + 1;
+            Waitlist entry = new Waitlist(customerId, date, time, partySize, position);
+            return reservationManager.addToWaitlist(entry, UUID.randomUUID().toString());
+        } finally {
+            dbManager.closeConnection();
+        }
+    }
+    @Override
+    public void leaveWaitlist(int waitlistId) throws Exception {
+        try {
+            reservationManager.removeFromWaitlist(waitlistId);
+        } finally {
+            dbManager.closeConnection();
+        }
+    }
+
+    @Override
+    public void close() {
+        DatabaseConfig.shutdown();
+    }
+
+    private static String username(int user) {
+        return USERNAME_PREFIX + user;
+    }
+}
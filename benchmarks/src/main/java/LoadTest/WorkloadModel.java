@@ -0,0 +1,85 @@
+package LoadTest;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.concurrent.ThreadLocalRandom;
+
+// What a dinner-rush diner does next. The operation mix comes from -Dload.mix
+// (e.g. "search=55,book=15,cancel=8,waitlistJoin=12,waitlistLeave=10"); requested times
+// are skewed toward the 7-8 pm peak and party sizes toward couples and four-tops.
+class WorkloadModel {
+    enum Operation { LOGIN, SEARCH, BOOK, CANCEL, WAITLIST_JOIN, WAITLIST_LEAVE }
+
+    static final String DEFAULT_MIX = "search=55,book=15,cancel=8,waitlistJoin=12,waitlistLeave=10";
+
+    private static final LocalTime[] SLOTS = {
+            LocalTime.of(17, 0), LocalTime.of(17, 30), LocalTime.of(18, 0), LocalTime.of(18, 30),
+            LocalTime.of(19, 0), LocalTime.of(19, 30), LocalTime.of(20, 0), LocalTime.of(20, 30),
+            LocalTime.of(21, 0), LocalTime.of(21, 30)};
+    private static final int[] SLOT_WEIGHTS = {2, 4, 7, 11, 20, 20, 14, 10, 7, 5};
+    private static final int[] PARTY_SIZES = {1, 2, 3, 4, 5, 6, 8};
+    private static final int[] PARTY_WEIGHTS = {4, 45, 10, 28, 5, 6, 2};
+
+    private final Operation[] mixOperations = {
+            Operation.SEARCH, Operation.BOOK, Operation.CANCEL, Operation.WAITLIST_JOIN, Operation.WAITLIST_LEAVE};
+    private final int[] mixWeights = new int[mixOperations.length];
+    private final int days;
+
+    WorkloadModel(String mix, int days) {
+        for (String part : mix.split(",")) {
+            String[] pair = part.trim().split("=");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Invalid mix entry: " + part);
+            }
+            mixWeights[indexOf(pair[0].trim())] = Integer.parseInt(pair[1].trim());
+        }
+        if (days <= 0) {
+            throw new IllegalArgumentException("Days must be greater than 0");
+        }
+        this.days = days;
+    }
+
+    Operation nextOperation() {
+        return mixOperations[pick(mixWeights)];
+    }
+    LocalTime nextTime() {
+        return SLOTS[pick(SLOT_WEIGHTS)];
+    }
+    int nextPartySize() {
+        return PARTY_SIZES[pick(PARTY_WEIGHTS)];
+    }
+    LocalDate nextDate() {
+        return LocalDate.now().plusDays(1 + ThreadLocalRandom.current().nextInt(days));
+    }
+    // Exponentially distributed think time with the given mean
+    long nextThinkNanos(long meanNanos) {
+        if (meanNanos <= 0) {
+            return 0;
+        }
+        return (long) (-Math.log(1 - ThreadLocalRandom.current().nextDouble()) * meanNanos);
+    }
+
+    private int indexOf(String name) {
+        for (int i = 0; i < mixOperations.length; i++) {
+            String camel = mixOperations[i].name().toLowerCase().replace("_", "");
+            if (camel.equalsIgnoreCase(name.replace("_", ""))) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown operation in mix: " + name);
+    }
+    private static int pick(int[] weights) {
+        int total = 0;
+        for (int weight : weights) {
+            total += weight;
+        }
+        int roll = ThreadLocalRandom.current().nextInt(total);
+        for (int i = 0; i < weights.length; i++) {
+            roll -= weights[i];
+            if (roll < 0) {
+                return i;
+            }
+        }
+        return weights.length - 1;
+    }
+}
@@ -0,0 +1,175 @@
+package Api;
+
+import Database.DatabaseManager;
+import Models.*;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
+
+// Hand-written request/response codecs for the HTTP API.
+public final class ApiCodecs {
+    private ApiCodecs() {}
+
+    // Encoders
+    public static void writeTable(JsonWriter json, Table table) {
+        json.beginObject()
+                .field("tableId", table.getTableID())
+                .field("tableNumber", table.getTableNumber())
+                .field("capacity", table.getCapacity())
+                .field("status", table.getStatus())
+                .field("location", table.getLocation())
+                .field("hasWindow", table.isHasWindow())
+                .field("isPrivate", table.isPrivate())
+                .field("category", table.getCategoryName())
+                .endObject();
+    }
+    public static void writeReservation(JsonWriter json, Reservation reservation) {
+        json.beginObject()
+                .field("reservationId", reservation.getReservationID())
+                .field("customerId", reservation.getCustomerID())
+                .field("tableId", reservation.getTableID())
+                .field("date", reservation.getReservationDate())
+                .field("time", reservation.getReservationTime())
+                .field("partySize", reservation.getPartySize())
+                .field("status", reservation.getStatus())
+                .field("specialRequests", reservation.getSpecialRequests())
+                .field("estimatedDuration", reservation.getEstimatedDuration())
+                .endObject();
+    }
+    public static void writeWaitlist(JsonWriter json, Waitlist entry) {
+        json.beginObject()
+                .field("waitlistId", entry.getWaitlistID())
+                .field("customerId", entry.getCustomerID())
+                .field("date", entry.getRequestedDate())
+                .field("time", entry.getRequestedTime())
+                .field("partySize", entry.getPartySize())
+                .field("status", entry.getStatus())
+                .field("queuePosition", entry.getQueuePosition())
+                .field("waitTime", entry.getWaitTime())
+                .endObject();
+    }
+    public static void writeCustomer(JsonWriter json, Customer customer) {
+        json.beginObject()
+                .field("customerId", customer.getCustomerID())
+                .field("firstName", customer.getFirstName())
+                .field("lastName", customer.getLastName())
+                .field("email", customer.getEmail())
+                .field("phoneNumber", customer.getPhoneNumber())
+                .field("totalVisits", customer.getTotalVisits())
+                .endObject();
+    }
+    public static String tables(List<Table> tables) {
+        JsonWriter json = new JsonWriter(64 + tables.size() * 160).beginArray();
+        for (Table table : tables) {
+            writeTable(json, table);
+        }
+        return json.endArray().toString();
+    }
+    public static String reservations(List<Reservation> reservations) {
+        JsonWriter json = new JsonWriter(64 + reservations.size() * 200).beginArray();
+        for (Reservation reservation : reservations) {
+            writeReservation(json, reservation);
+        }
+        return json.endArray().toString();
+    }
+    public static String waitlist(List<Waitlist> entries) {
+        JsonWriter json = new JsonWriter(64 + entries.size() * 160).beginArray();
+        for (Waitlist entry : entries) {
+            writeWaitlist(json, entry);
+        }
+        return json.endArray().toString();
+    }
+    public static String batchOutcomes(List<DatabaseManager.BatchOutcome> outcomes) {
+        JsonWriter json = new JsonWriter(64 + outcomes.size() * 64).beginArray();
+        for (DatabaseManager.BatchOutcome outcome : outcomes) {
+            json.beginObject()
+                    .field("row", outcome.row())
+                    .field("status", outcome.status());
+            if (outcome.status() == DatabaseManager.BatchStatus.CREATED) {
+                json.field("id", outcome.id());
+            } else {
+                json.field("error", outcome.message());
+            }
+            json.endObject();
+        }
+        return json.endArray().toString();
+    }
+    public static String error(int status, String message) {
+        return new JsonWriter().beginObject()
+                .field("status", status)
+                .field("error", message)
+                .endObject().toString();
+    }
+
+    // Decoders
+    public static Reservation readReservation(Map<String, Object> body) {
+        Reservation reservation = new Reservation(
+                requireInt(body, "customerId"),
+                requireInt(body, "tableId"),
+                requireDate(body, "date"),
+                requireTime(body, "time"),
+                requireInt(body, "partySize"));
+        reservation.setSpecialRequests(optionalString(body, "specialRequests"));
+        return reservation;
+    }
+    public static Waitlist readWaitlist(Map<String, Object> body) {
+        return new Waitlist(
+                requireInt(body, "customerId"),
+                requireDate(body, "date"),
+                requireTime(body, "time"),
+                requireInt(body, "partySize"),
+                1);
+    }
+
+    // Field helpers
+    public static int requireInt(Map<String, Object> body, String name) {
+        Object value = body.get(name);
+        if (value instanceof Long l && l >= Integer.MIN_VALUE && l <= Integer.MAX_VALUE) {
+            return l.intValue();
+        }
+        if (value instanceof String s) {
+            return parseInt(s, name);
+        }
+        throw new IllegalArgumentException("Field '" + name + "' must be an integer");
+    }
+    public static String requireString(Map<String, Object> body, String name) {
+        Object value = body.get(name);
+        if (!(value instanceof String s) || s.isBlank()) {
+            throw new IllegalArgumentException("Field '" + name + "' is required");
+        }
+        return s;
+    }
+    public static String optionalString(Map<String, Object> body, String name) {
+        Object value = body.get(name);
+        return value == null ? null : value.toString();
+    }
+    public static LocalDate requireDate(Map<String, Object> body, String name) {
+        return parseDate(requireString(body, name), name);
+    }
+    public static LocalTime requireTime(Map<String, Object> body, String name) {
+        return parseTime(requireString(body, name), name);
+    }
+    public static int parseInt(String value, String name) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Parameter '" + name + "' must be an integer");
+        }
+    }
+    public static LocalDate parseDate(String value, String name) {
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Parameter '" + name + "' must be YYYY-MM-DD");
+        }
+    }
+    public static LocalTime parseTime(String value, String name) {
+        try {
+            return LocalTime.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Parameter '" + name + "' must be HH:mm");
+        }
+    }
+}
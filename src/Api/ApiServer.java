@@ -0,0 +1,741 @@
+package Api;
+
+import Core.*;
+import Database.BookingIndex;
+import Database.BookingJournal;
+import Database.ConnectionTracker;
+import Database.DatabaseManager;
+import Database.SlowQueryLog;
+import Database.VisitCounterBuffer;
+import Events.BookingActivity;
+import Events.EventBus;
+import Exceptions.*;
+import Metrics.MetricsRegistry;
+import Metrics.Timer;
+import Models.*;
+import Security.*;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static Core.AdmissionController.OperationClass.*;
+
+// Embedded HTTP/JSON front end for ReservationManager. Each exchange is handled on a
+// virtual thread and the work itself goes through the RequestExecutor, so timeouts
+// and the connection cap apply exactly as they do for the async service.
+// Listens on -Dapi.bindAddress (loopback unless set). Apart from /api/health and
+// /api/login every route needs "Authorization: Bearer <token>" from a login; customers
+// only see and change their own bookings, everything else is manager-only.
+public class ApiServer implements AutoCloseable {
+    private static final int MAX_BODY_BYTES = 64 * 1024;
+    private static final String BIND_ADDRESS = System.getProperty("api.bindAddress", "127.0.0.1");
+
+    private final HttpServer server;
+    private final RequestExecutor executor;
+    private final ReservationManager reservationManager;
+    private final AuthenticationManager authManager;
+    private final SessionManager sessions = new SessionManager();
+    private final LoginThrottle loginThrottle = new LoginThrottle();
+
+    static {
+        // Headers and body are written separately; without TCP_NODELAY every
+        // keep-alive response waits out the client's delayed ACK (~40 ms)
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        Response handle(Request request) throws Exception;
+    }
+    // session is null for an anonymous caller on a public route; stale is set when any
+    // read made for the request was answered from a snapshot
+    private record Request(String method, String path, Map<String, String> query,
+                           String body, String idempotencyKey, String client, SessionManager.Session session,
+                           AtomicBoolean stale) {}
+    private record Response(int status, String body) {}
+
+    public ApiServer(int port) throws IOException {
+        this(port, new RequestExecutor(), new ReservationManager(), new AuthenticationManager());
+    }
+    public ApiServer(int port, RequestExecutor executor, ReservationManager reservationManager,
+                     AuthenticationManager authManager) throws IOException {
+        this.executor = executor;
+        this.reservationManager = reservationManager;
+        this.authManager = authManager;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getByName(BIND_ADDRESS), port), 1024);
+        this.server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        registerRoutes();
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : Integer.getInteger("api.port", 8080);
+        ApiServer server = new ApiServer(port);
+        if (BookingIndex.isEnabled()) {
+            BookingIndex.getInstance().start();
+        }
+        if (LifecycleScheduler.isEnabled()) {
+            LifecycleScheduler.getInstance().start();
+        }
+        BookingActivity.getInstance().start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.close();
+            LifecycleScheduler.shutdown();
+            VisitCounterBuffer.shutdown();
+            BookingIndex.shutdown();
+            EventBus.shutdown();
+        }));
+        server.start();
+        System.out.println("Reservation API listening on " + BIND_ADDRESS + ":" + server.getPort());
+    }
+
+    public void start() {
+        server.start();
+    }
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.close();
+    }
+
+    // Routes
+    private void registerRoutes() {
+        publicRoute("/api/health", request -> ok(DatabaseManager.isDegraded() ? "{\"status\":\"DEGRADED\"}" : "{\"status\":\"UP\"}"));
+        route("/api/tables/available", this::availableTables);
+        route("/api/holds", this::holds);
+        route("/api/reservations", this::reservations);
+        route("/api/waitlist", this::waitlist);
+        route("/api/reports", this::reports);
+        publicRoute("/api/login", this::login);
+        route("/api/metrics", this::metrics);
+    }
+
+    private Response availableTables(Request request) throws Exception {
+        requireMethod(request, "GET");
+        int partySize = ApiCodecs.parseInt(requireParam(request, "partySize"), "partySize");
+        LocalDate date = ApiCodecs.parseDate(requireParam(request, "date"), "date");
+        LocalTime time = ApiCodecs.parseTime(requireParam(request, "time"), "time");
+        int customerId = ApiCodecs.parseInt(request.query().getOrDefault("customerId", "0"), "customerId");
+        if (customerId != 0) {
+            requireCustomer(request, customerId);
+        }
+        List<Table> tables = execute(request, AVAILABILITY,
+                () -> reservationManager.getAvailableTables(partySize, date, time, customerId),
+                AsyncReservationService.AVAILABILITY_TIMEOUT);
+        return ok(ApiCodecs.tables(tables));
+    }
+    private Response holds(Request request) throws Exception {
+        Map<String, Object> body = JsonParser.parseObject(request.body());
+        int tableId = ApiCodecs.requireInt(body, "tableId");
+        LocalDate date = ApiCodecs.requireDate(body, "date");
+        LocalTime time = ApiCodecs.requireTime(body, "time");
+        int customerId = ApiCodecs.requireInt(body, "customerId");
+        requireCustomer(request, customerId);
+        switch (request.method()) {
+            case "POST" -> reservationManager.holdTable(tableId, date, time, customerId);
+            case "DELETE" -> reservationManager.releaseTableHold(tableId, date, time, customerId);
+            default -> throw new UnsupportedOperationException(request.method());
+        }
+        return new Response(204, null);
+    }
+    private Response reservations(Request request) throws Exception {
+        String[] segments = subPath(request, "/api/reservations");
+        if (segments.length == 0 && request.method().equals("GET")) {
+            String customerParam = request.query().get("customerId");
+            if (customerParam == null) {
+                requireManager(request);
+            } else {
+                requireCustomer(request, ApiCodecs.parseInt(customerParam, "customerId"));
+            }
+            List<Reservation> reservations = customerParam == null
+                    ? execute(request, REPORT, reservationManager::getActiveReservations,
+                            AsyncReservationService.REPORT_TIMEOUT)
+                    : execute(request, AVAILABILITY, () -> reservationManager.getCustomerReservations(
+                            ApiCodecs.parseInt(customerParam, "customerId"), includeArchived(request)),
+                            AsyncReservationService.AVAILABILITY_TIMEOUT);
+            return ok(ApiCodecs.reservations(reservations));
+        }
+        if (segments.length == 0 && request.method().equals("POST")) {
+            Reservation reservation = ApiCodecs.readReservation(JsonParser.parseObject(request.body()));
+            requireCustomer(request, reservation.getCustomerID());
+            int reservationId = execute(request, BOOKING,
+                    () -> reservationManager.createReservation(reservation, request.idempotencyKey()),
+                    AsyncReservationService.BOOKING_TIMEOUT);
+            return new Response(201, new JsonWriter().beginObject()
+                    .field("reservationId", reservationId).endObject().toString());
+        }
+        if (segments.length == 1 && segments[0].equals("batch") && request.method().equals("POST")) {
+            requireManager(request);
+            List<Reservation> batch = new ArrayList<>();
+            for (Map<String, Object> row : JsonParser.parseObjectArray(request.body())) {
+                batch.add(ApiCodecs.readReservation(row));
+            }
+            List<DatabaseManager.BatchOutcome> outcomes = execute(request, REPORT,
+                    () -> reservationManager.createReservations(batch), AsyncReservationService.REPORT_TIMEOUT);
+            return ok(ApiCodecs.batchOutcomes(outcomes));
+        }
+        if (segments.length == 1 && request.method().equals("DELETE")
+                || segments.length == 2 && segments[1].equals("cancel") && request.method().equals("POST")) {
+            int reservationId = ApiCodecs.parseInt(segments[0], "reservationId");
+            execute(request, BOOKING, () -> {
+                requireOwnReservation(request, reservationId);
+                reservationManager.cancelReservation(reservationId);
+                return null;
+            }, AsyncReservationService.BOOKING_TIMEOUT);
+            return new Response(204, null);
+        }
+        throw new UnsupportedOperationException(request.method() + " " + request.path());
+    }
+    private Response waitlist(Request request) throws Exception {
+        String[] segments = subPath(request, "/api/waitlist");
+        if (segments.length == 0 && request.method().equals("GET")) {
+            String customerParam = request.query().get("customerId");
+            if (customerParam == null) {
+                requireManager(request);
+            } else {
+                requireCustomer(request, ApiCodecs.parseInt(customerParam, "customerId"));
+            }
+            List<Waitlist> entries = execute(request, WAITLIST, reservationManager::getActiveWaitlist,
+                    AsyncReservationService.WAITLIST_TIMEOUT);
+            if (customerParam != null) {
+                int customerId = ApiCodecs.parseInt(customerParam, "customerId");
+                entries = entries.stream().filter(e -> e.getCustomerID() == customerId).toList();
+            }
+            return ok(ApiCodecs.waitlist(entries));
+        }
+        if (segments.length == 0 && request.method().equals("POST")) {
+            Waitlist entry = ApiCodecs.readWaitlist(JsonParser.parseObject(request.body()));
+            requireCustomer(request, entry.getCustomerID());
+            int waitlistId = execute(request, WAITLIST,
+                    () -> reservationManager.addToWaitlist(entry, request.idempotencyKey()),
+                    AsyncReservationService.WAITLIST_TIMEOUT);
+            return new Response(201, new JsonWriter().beginObject()
+                    .field("waitlistId", waitlistId).endObject().toString());
+        }
+        if (segments.length == 1 && segments[0].equals("batch") && request.method().equals("POST")) {
+            requireManager(request);
+            List<Waitlist> batch = new ArrayList<>();
+            for (Map<String, Object> row : JsonParser.parseObjectArray(request.body())) {
+                batch.add(ApiCodecs.readWaitlist(row));
+            }
+            List<DatabaseManager.BatchOutcome> outcomes = execute(request, REPORT,
+                    () -> reservationManager.addAllToWaitlist(batch), AsyncReservationService.REPORT_TIMEOUT);
+            return ok(ApiCodecs.batchOutcomes(outcomes));
+        }
+        if (segments.length == 1 && request.method().equals("DELETE")) {
+            int waitlistId = ApiCodecs.parseInt(segments[0], "waitlistId");
+            execute(request, WAITLIST, () -> {
+                requireOwnWaitlistEntry(request, waitlistId);
+                reservationManager.removeFromWaitlist(waitlistId);
+                return null;
+            }, AsyncReservationService.WAITLIST_TIMEOUT);
+            return new Response(204, null);
+        }
+        throw new UnsupportedOperationException(request.method() + " " + request.path());
+    }
+    private Response reports(Request request) throws Exception {
+        requireMethod(request, "GET");
+        requireManager(request);
+        String[] segments = subPath(request, "/api/reports");
+        if (segments.length != 1) {
+            throw new UnsupportedOperationException("GET " + request.path());
+        }
+        LocalDate date = ApiCodecs.parseDate(requireParam(request, "date"), "date");
+        Duration timeout = AsyncReservationService.REPORT_TIMEOUT;
+        switch (segments[0]) {
+            case "daily" -> {
+                List<Reservation> reservations = includeArchived(request)
+                        ? execute(request, REPORT, () -> reservationManager.getReservationHistoryByDate(date), timeout)
+                        : execute(request, REPORT, () -> reservationManager.getReservationsByDate(date), timeout);
+                return ok(ApiCodecs.reservations(reservations));
+            }
+            case "utilization" -> {
+                Map<Table, Integer> utilization = execute(request, REPORT,
+                        () -> reservationManager.getTableUtilization(date), timeout);
+                JsonWriter json = new JsonWriter().beginArray();
+                for (Map.Entry<Table, Integer> entry : utilization.entrySet()) {
+                    json.beginObject()
+                            .field("tableId", entry.getKey().getTableID())
+                            .field("tableNumber", entry.getKey().getTableNumber())
+                            .field("reservations", entry.getValue())
+                            .endObject();
+                }
+                return ok(json.endArray().toString());
+            }
+            case "waitlist" -> {
+                List<Waitlist> entries = execute(request, REPORT, reservationManager::getActiveWaitlist, timeout);
+                long totalWait = 0;
+                for (Waitlist entry : entries) {
+                    totalWait += entry.getWaitTime();
+                }
+                return ok(new JsonWriter().beginObject()
+                        .field("date", date)
+                        .field("totalWaiting", entries.size())
+                        .field("averageWaitMinutes", entries.isEmpty() ? 0 : totalWait / entries.size())
+                        .endObject().toString());
+            }
+            case "activity" -> {
+                if (!EventBus.isEnabled()) {
+                    throw new UnsupportedOperationException("Event bus is disabled");
+                }
+                BookingActivity.DailyActivity activity = BookingActivity.getInstance().getActivity(date);
+                return ok(new JsonWriter().beginObject()
+                        .field("date", date)
+                        .field("reservationsCreated", activity.reservationsCreated())
+                        .field("covers", activity.covers())
+                        .field("completed", activity.completed())
+                        .field("cancelled", activity.cancelled())
+                        .field("tableStatusChanges", activity.tableStatusChanges())
+                        .field("waitlistAdded", activity.waitlistAdded())
+                        .field("waitlistSeated", activity.waitlistSeated())
+                        .field("waitlistExpired", activity.waitlistExpired())
+                        .field("waitlistRemoved", activity.waitlistRemoved())
+                        .endObject().toString());
+            }
+            default -> throw new UnsupportedOperationException("GET " + request.path());
+        }
+    }
+    private Response login(Request request) throws Exception {
+        String[] segments = subPath(request, "/api/login");
+        if (segments.length == 0 && request.method().equals("DELETE")) {
+            requireSession(request);
+            sessions.close(request.session().token());
+            return new Response(204, null);
+        }
+        requireMethod(request, "POST");
+        boolean customerLogin = segments.length == 1 && segments[0].equals("customer");
+        if (!customerLogin && !(segments.length == 1 && segments[0].equals("manager"))) {
+            throw new UnsupportedOperationException("POST " + request.path());
+        }
+        long retryAfter = loginThrottle.retryAfterSeconds(request.client());
+        if (retryAfter > 0) {
+            throw new LoginThrottledException(retryAfter);
+        }
+        Map<String, Object> body = JsonParser.parseObject(request.body());
+        String username = ApiCodecs.requireString(body, "username");
+        String password = ApiCodecs.requireString(body, "password");
+        try {
+            if (customerLogin) {
+                Customer customer = execute(request, LOGIN, () -> authManager.authenticateCustomer(username, password),
+                        AsyncReservationService.LOGIN_TIMEOUT);
+                loginThrottle.recordSuccess(request.client());
+                SessionManager.Session session = sessions.open(SessionManager.Role.CUSTOMER, customer.getCustomerID());
+                JsonWriter json = new JsonWriter().beginObject()
+                        .field("token", session.token())
+                        .field("expiresInSeconds", sessions.getTtlSeconds())
+                        .name("customer");
+                ApiCodecs.writeCustomer(json, customer);
+                return ok(json.endObject().toString());
+            }
+            Manager manager = execute(request, LOGIN, () -> authManager.authenticateManager(username, password),
+                    AsyncReservationService.LOGIN_TIMEOUT);
+            loginThrottle.recordSuccess(request.client());
+            SessionManager.Session session = sessions.open(SessionManager.Role.MANAGER, manager.getManagerID());
+            return ok(new JsonWriter().beginObject()
+                    .field("token", session.token())
+                    .field("expiresInSeconds", sessions.getTtlSeconds())
+                    .field("managerId", manager.getManagerID())
+                    .field("name", manager.getFullName())
+                    .endObject().toString());
+        } catch (AuthenticationException e) {
+            // A database outage is not a wrong password
+            if (DatabaseManager.isTransientFailure(e)) {
+                throw e;
+            }
+            loginThrottle.recordFailure(request.client());
+            // One answer for every rejection, so the response never tells which usernames exist
+            throw new AuthenticationException("Invalid username or password", e);
+        }
+    }
+
+    private Response metrics(Request request) throws Exception {
+        requireMethod(request, "GET");
+        requireManager(request);
+        String[] segments = subPath(request, "/api/metrics");
+        if (segments.length == 1 && segments[0].equals("queries")) {
+            return queryMetrics();
+        }
+        if (segments.length == 1 && segments[0].equals("connections")) {
+            return connectionMetrics();
+        }
+        if (segments.length == 1 && segments[0].equals("journal")) {
+            return journalMetrics();
+        }
+        if (segments.length == 1 && segments[0].equals("index")) {
+            return indexMetrics();
+        }
+        if (segments.length == 1 && segments[0].equals("lifecycle")) {
+            return lifecycleMetrics();
+        }
+        if (segments.length == 1 && segments[0].equals("visits")) {
+            return visitMetrics();
+        }
+        if (segments.length == 1 && segments[0].equals("events")) {
+            return eventMetrics();
+        }
+        if (segments.length != 0) {
+            throw new UnsupportedOperationException("GET " + request.path());
+        }
+        JsonWriter json = new JsonWriter().beginArray();
+        for (Timer timer : MetricsRegistry.getInstance().getTimers()) {
+            if (timer.getCount() == 0) {
+                continue;
+            }
+            json.beginObject()
+                    .field("component", timer.getComponent())
+                    .field("operation", timer.getOperation())
+                    .field("count", timer.getCount())
+                    .field("failures", timer.getFailureCount())
+                    .field("meanMillis", timer.getMeanMillis())
+                    .field("p50Millis", timer.getP50Millis())
+                    .field("p99Millis", timer.getP99Millis())
+                    .field("p999Millis", timer.getP999Millis())
+                    .field("maxMillis", timer.getMaxMillis())
+                    .endObject();
+        }
+        return ok(json.endArray().toString());
+    }
+    private Response queryMetrics() {
+        JsonWriter json = new JsonWriter().beginArray();
+        for (SlowQueryLog.Summary summary : SlowQueryLog.getInstance().getSummaries()) {
+            json.beginObject()
+                    .field("fingerprint", summary.fingerprint())
+                    .field("count", summary.count())
+                    .field("failures", summary.failures())
+                    .field("p50Millis", summary.p50Millis())
+                    .field("p99Millis", summary.p99Millis())
+                    .field("p999Millis", summary.p999Millis())
+                    .field("maxMillis", summary.maxMillis())
+                    .endObject();
+        }
+        return ok(json.endArray().toString());
+    }
+
+    private Response connectionMetrics() {
+        ConnectionTracker tracker = ConnectionTracker.getInstance();
+        return ok(new JsonWriter().beginObject()
+                .field("live", tracker.getLiveConnections())
+                .field("peak", tracker.getPeakConnections())
+                .field("idle", tracker.getIdleConnections())
+                .field("borrowed", tracker.getBorrowedCount())
+                .field("returned", tracker.getReturnedCount())
+                .field("leaked", tracker.getLeakedCount())
+                .field("longHeld", tracker.getLongHeldCount())
+                .field("oldestLeaseMillis", tracker.getOldestLeaseMillis())
+                .endObject().toString());
+    }
+    private Response journalMetrics() {
+        if (!BookingJournal.isEnabled()) {
+            throw new UnsupportedOperationException("Booking journal is disabled");
+        }
+        BookingJournal journal = BookingJournal.getInstance();
+        return ok(new JsonWriter().beginObject()
+                .field("pending", journal.getPendingCount())
+                .field("pendingBytes", journal.getPendingBytes())
+                .field("appended", journal.getAppendedCount())
+                .field("replayed", journal.getReplayedCount())
+                .field("syncs", journal.getSyncCount())
+                .field("conflicts", journal.getConflictCount())
+                .field("conflictFile", journal.getConflictFile().toString())
+                .field("blocked", journal.getBlockedReason())
+                .endObject().toString());
+    }
+    private Response indexMetrics() {
+        if (!BookingIndex.isEnabled()) {
+            throw new UnsupportedOperationException("Booking index is disabled");
+        }
+        BookingIndex index = BookingIndex.getInstance();
+        return ok(new JsonWriter().beginObject()
+                .field("loaded", index.isLoaded())
+                .field("caughtUp", index.isCaughtUp())
+                .field("fromSnapshot", index.isLoadedFromSnapshot())
+                .field("loadMillis", index.getLastLoadMillis())
+                .field("deltaRows", index.getLastDeltaRows())
+                .field("tables", index.getTableCount())
+                .field("reservations", index.getReservationCount())
+                .field("waitlist", index.getWaitlistCount())
+                .field("snapshotsWritten", index.getSnapshotsWritten())
+                .field("snapshotBytes", index.getLastSnapshotBytes())
+                .endObject().toString());
+    }
+    private Response lifecycleMetrics() {
+        LifecycleScheduler scheduler = LifecycleScheduler.getInstance();
+        return ok(new JsonWriter().beginObject()
+                .field("enabled", LifecycleScheduler.isEnabled())
+                .field("sweeps", scheduler.getSweepCount())
+                .field("failedSweeps", scheduler.getFailedSweepCount())
+                .field("completedReservations", scheduler.getCompletedReservations())
+                .field("lapsedReservations", scheduler.getLapsedReservations())
+                .field("customersUpdated", scheduler.getCustomersUpdated())
+                .field("tablesReleased", scheduler.getTablesReleased())
+                .field("expiredWaitlistEntries", scheduler.getExpiredWaitlistEntries())
+                .field("purgedIdempotencyKeys", scheduler.getPurgedIdempotencyKeys())
+                .field("lastSweepMillis", scheduler.getLastSweepMillis())
+                .field("lastSweepRows", scheduler.getLastSweepRows())
+                .endObject().toString());
+    }
+    private Response visitMetrics() {
+        if (!VisitCounterBuffer.isEnabled()) {
+            throw new UnsupportedOperationException("Visit buffering is disabled");
+        }
+        VisitCounterBuffer buffer = VisitCounterBuffer.getInstance();
+        return ok(new JsonWriter().beginObject()
+                .field("recorded", buffer.getRecordedCount())
+                .field("flushed", buffer.getFlushedCount())
+                .field("flushes", buffer.getFlushCount())
+                .field("failedFlushes", buffer.getFailedFlushCount())
+                .field("replayedFlushes", buffer.getReplayedFlushCount())
+                .field("quarantinedFlushes", buffer.getQuarantinedFlushCount())
+                .field("bufferedCustomers", buffer.getBufferedCustomers())
+                .endObject().toString());
+    }
+    private Response eventMetrics() {
+        if (!EventBus.isEnabled()) {
+            throw new UnsupportedOperationException("Event bus is disabled");
+        }
+        EventBus bus = EventBus.getInstance();
+        JsonWriter json = new JsonWriter().beginObject()
+                .field("capacity", bus.getCapacity())
+                .field("published", bus.getPublishedCount())
+                .field("dropped", bus.getDroppedCount())
+                .name("subscribers").beginArray();
+        for (EventBus.SubscriptionStats stats : bus.getSubscriptions()) {
+            json.beginObject()
+                    .field("name", stats.name())
+                    .field("delivered", stats.delivered())
+                    .field("batches", stats.batches())
+                    .field("maxBatch", stats.maxBatch())
+                    .field("lag", stats.lag())
+                    .field("failures", stats.failures())
+                    .endObject();
+        }
+        return ok(json.endArray().endObject().toString());
+    }
+
+    // Plumbing
+    private void route(String prefix, Handler handler) {
+        server.createContext(prefix, exchange -> dispatch(exchange, handler, false));
+    }
+    private void publicRoute(String prefix, Handler handler) {
+        server.createContext(prefix, exchange -> dispatch(exchange, handler, true));
+    }
+    private void dispatch(HttpExchange exchange, Handler handler, boolean open) throws IOException {
+        Response response;
+        AtomicBoolean stale = new AtomicBoolean();
+        try {
+            Request request = new Request(
+                    exchange.getRequestMethod().toUpperCase(Locale.ROOT),
+                    exchange.getRequestURI().getPath(),
+                    parseQuery(exchange.getRequestURI().getRawQuery()),
+                    readBody(exchange),
+                    exchange.getRequestHeaders().getFirst("Idempotency-Key"),
+                    exchange.getRemoteAddress().getAddress().getHostAddress(),
+                    sessions.find(bearerToken(exchange)),
+                    stale);
+            if (!open) {
+                requireSession(request);
+            }
+            response = handler.handle(request);
+        } catch (Exception e) {
+            int status = statusFor(e);
+            response = new Response(status, ApiCodecs.error(status, messageFor(e)));
+            if (e instanceof LoginThrottledException throttled) {
+                exchange.getResponseHeaders().set("Retry-After", Long.toString(throttled.getRetryAfterSeconds()));
+            } else if (status == 401) {
+                exchange.getResponseHeaders().set("WWW-Authenticate", "Bearer");
+            }
+        } catch (StackOverflowError e) {
+            // Still answer the exchange; otherwise the client waits until it times out
+            response = new Response(500, ApiCodecs.error(500, "Request too complex"));
+        }
+        send(exchange, response, stale.get());
+    }
+    // Runs the operation on the executor and notes on the request whether any of its reads
+    // came from a snapshot, which has to be checked on the worker thread that made them
+    private <T> T execute(Request request, AdmissionController.OperationClass operationClass,
+                          RequestExecutor.Operation<T> operation, Duration timeout) throws Exception {
+        return executor.execute(operationClass, () -> {
+            try {
+                return operation.execute();
+            } finally {
+                if (DatabaseManager.takeStaleRead()) {
+                    request.stale().set(true);
+                }
+            }
+        }, timeout);
+    }
+    private static int statusFor(Exception e) {
+        if (e instanceof IllegalArgumentException) {
+            return 400;
+        }
+        if (e instanceof LoginThrottledException) {
+            return 429;
+        }
+        // Only an outage or a timeout is worth retrying; the rest is about the request itself.
+        // Checked before 401, since a login that could not reach the database wraps the outage.
+        if (DatabaseManager.isTransientFailure(e)) {
+            return 503;
+        }
+        if (e instanceof AuthenticationException) {
+            return 401;
+        }
+        if (e instanceof AccessDeniedException) {
+            return 403;
+        }
+        if (e instanceof UnsupportedOperationException) {
+            return 404;
+        }
+        if (e instanceof ReservationException) {
+            return 409;
+        }
+        if (e instanceof AdmissionRejectedException) {
+            return 503;
+        }
+        if (e instanceof TimeoutException) {
+            return 504;
+        }
+        if (e instanceof ValidationException) {
+            return 400;
+        }
+        if (e instanceof RecordNotFoundException) {
+            return 404;
+        }
+        if (e instanceof ConflictException) {
+            return 409;
+        }
+        return 500;
+    }
+    private static String messageFor(Exception e) {
+        if (e instanceof TimeoutException) {
+            return "Request timed out";
+        }
+        if (e instanceof UnsupportedOperationException) {
+            return "No route for " + e.getMessage();
+        }
+        return e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
+    }
+    private static void send(HttpExchange exchange, Response response, boolean stale) throws IOException {
+        try (exchange) {
+            if (response.body() == null) {
+                exchange.sendResponseHeaders(response.status(), -1);
+                return;
+            }
+            byte[] bytes = response.body().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            if (response.status() == 503) {
+                exchange.getResponseHeaders().set("Retry-After", "1");
+            } else if (response.status() == 200 && stale) {
+                // Reads are being answered from snapshots taken before the outage
+                exchange.getResponseHeaders().set("Warning", "110 - \"Database unavailable, response may be stale\"");
+            }
+            exchange.sendResponseHeaders(response.status(), bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+    private static String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] bytes = in.readNBytes(MAX_BODY_BYTES + 1);
+            if (bytes.length > MAX_BODY_BYTES) {
+                throw new IllegalArgumentException("Request body too large");
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            query.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return query;
+    }
+    private static String requireParam(Request request, String name) {
+        String value = request.query().get(name);
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("Query parameter '" + name + "' is required");
+        }
+        return value;
+    }
+    // ?includeArchived=true adds rows already moved to the reservation archive
+    private static boolean includeArchived(Request request) {
+        return Boolean.parseBoolean(request.query().get("includeArchived"));
+    }
+    private static void requireMethod(Request request, String method) {
+        if (!request.method().equals(method)) {
+            throw new UnsupportedOperationException(request.method() + " " + request.path());
+        }
+    }
+    private static String bearerToken(HttpExchange exchange) {
+        String header = exchange.getRequestHeaders().getFirst("Authorization");
+        if (header == null || !header.regionMatches(true, 0, "Bearer ", 0, 7)) {
+            return null;
+        }
+        return header.substring(7).trim();
+    }
+    private static void requireSession(Request request) throws AuthenticationException {
+        if (request.session() == null) {
+            throw new AuthenticationException("Login required");
+        }
+    }
+    private static void requireManager(Request request) throws AccessDeniedException {
+        if (!request.session().isManager()) {
+            throw new AccessDeniedException("Manager login required");
+        }
+    }
+    // Managers may act for any customer; a customer only for themself
+    private static void requireCustomer(Request request, int customerId) throws AccessDeniedException {
+        SessionManager.Session session = request.session();
+        if (!session.isManager() && session.userId() != customerId) {
+            throw new AccessDeniedException("Not allowed for customer " + customerId);
+        }
+    }
+    // Called on the worker thread. getCustomerWaitlistEntries returns every active entry,
+    // so each row's owner is checked here rather than trusting the lookup to filter
+    private void requireOwnReservation(Request request, int reservationId) throws Exception {
+        int customerId = request.session().userId();
+        if (!request.session().isManager() && !reservationManager.isCustomerReservation(customerId, reservationId)) {
+            throw new AccessDeniedException("Reservation " + reservationId + " is not yours");
+        }
+    }
+    private void requireOwnWaitlistEntry(Request request, int waitlistId) throws Exception {
+        int customerId = request.session().userId();
+        if (!request.session().isManager() && !reservationManager.isCustomerWaitlistEntry(customerId, waitlistId)) {
+            throw new AccessDeniedException("Waitlist entry " + waitlistId + " is not yours");
+        }
+    }
+    private static String[] subPath(Request request, String prefix) {
+        String rest = request.path().substring(prefix.length());
+        if (rest.startsWith("/")) {
+            rest = rest.substring(1);
+        }
+        return rest.isEmpty() ? new String[0] : rest.split("/");
+    }
+    private static Response ok(String body) {
+        return new Response(200, body);
+    }
+}
@@ -0,0 +1,204 @@
+package Api;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Recursive-descent JSON parser producing Map / List / String / Long / Double /
+// Boolean / null. Request codecs read fields from the map by name. Nesting is capped at
+// MAX_DEPTH so a body of nothing but '[' is a parse error rather than a stack overflow.
+public class JsonParser {
+    private static final int MAX_DEPTH = 64;
+    private final String json;
+    private int pos;
+    private int depth;
+
+    private JsonParser(String json) {
+        this.json = json;
+    }
+
+    public static Object parse(String json) {
+        JsonParser parser = new JsonParser(json);
+        parser.skipWhitespace();
+        Object value = parser.readValue();
+        parser.skipWhitespace();
+        if (parser.pos != json.length()) {
+            throw parser.error("Unexpected trailing content");
+        }
+        return value;
+    }
+    @SuppressWarnings("unchecked")
+    public static Map<String, Object> parseObject(String json) {
+        Object value = parse(json);
+        if (!(value instanceof Map)) {
+            throw new IllegalArgumentException("Expected a JSON object");
+        }
+        return (Map<String, Object>) value;
+    }
+    @SuppressWarnings("unchecked")
+    public static List<Map<String, Object>> parseObjectArray(String json) {
+        Object value = parse(json);
+        if (!(value instanceof List<?> list) || !list.stream().allMatch(item -> item instanceof Map)) {
+            throw new IllegalArgumentException("Expected a JSON array of objects");
+        }
+        return (List<Map<String, Object>>) value;
+    }
+
+    private Object readValue() {
+        if (pos >= json.length()) {
+            throw error("Unexpected end of input");
+        }
+        char c = json.charAt(pos);
+        return switch (c) {
+            case '{', '[' -> readNested(c);
+            case '"' -> readString();
+            case 't' -> readLiteral("true", Boolean.TRUE);
+            case 'f' -> readLiteral("false", Boolean.FALSE);
+            case 'n' -> readLiteral("null", null);
+            default -> readNumber();
+        };
+    }
+    private Object readNested(char open) {
+        if (++depth > MAX_DEPTH) {
+            throw error("Nesting deeper than " + MAX_DEPTH);
+        }
+        Object value = open == '{' ? readObject() : readArray();
+        depth--;
+        return value;
+    }
+    private Map<String, Object> readObject() {
+        Map<String, Object> object = new LinkedHashMap<>();
+        pos++;
+        skipWhitespace();
+        if (peek() == '}') {
+            pos++;
+            return object;
+        }
+        while (true) {
+            skipWhitespace();
+            if (peek() != '"') {
+                throw error("Expected field name");
+            }
+            String name = readString();
+            skipWhitespace();
+            expect(':');
+            skipWhitespace();
+            object.put(name, readValue());
+            skipWhitespace();
+            char next = next();
+            if (next == '}') {
+                return object;
+            }
+            if (next != ',') {
+                throw error("Expected ',' or '}'");
+            }
+        }
+    }
+    private List<Object> readArray() {
+        List<Object> array = new ArrayList<>();
+        pos++;
+        skipWhitespace();
+        if (peek() == ']') {
+            pos++;
+            return array;
+        }
+        while (true) {
+            skipWhitespace();
+            array.add(readValue());
+            skipWhitespace();
+            char next = next();
+            if (next == ']') {
+                return array;
+            }
+            if (next != ',') {
+                throw error("Expected ',' or ']'");
+            }
+        }
+    }
+    private String readString() {
+        expect('"');
+        StringBuilder sb = new StringBuilder();
+        while (true) {
+            char c = next();
+            if (c == '"') {
+                return sb.toString();
+            }
+            if (c != '\\') {
+                sb.append(c);
+                continue;
+            }
+            char escaped = next();
+            switch (escaped) {
+                case '"', '\\', '/' -> sb.append(escaped);
+                case 'b' -> sb.append('\b');
+                case 'f' -> sb.append('\f');
+                case 'n' -> sb.append('\n');
+                case 'r' -> sb.append('\r');
+                case 't' -> sb.append('\t');
+                case 'u' -> {
+                    if (pos + 4 > json.length()) {
+                        throw error("Invalid unicode escape");
+                    }
+                    sb.append((char) Integer.parseInt(json.substring(pos, pos + 4), 16));
+                    pos += 4;
+                }
+                default -> throw error("Invalid escape character");
+            }
+        }
+    }
+    private Object readNumber() {
+        int start = pos;
+        boolean decimal = false;
+        while (pos < json.length()) {
+            char c = json.charAt(pos);
+            if (c == '.' || c == 'e' || c == 'E') {
+                decimal = true;
+            } else if (!(c == '-' || c == '+' || Character.isDigit(c))) {
+                break;
+            }
+            pos++;
+        }
+        if (start == pos) {
+            throw error("Unexpected character");
+        }
+        String number = json.substring(start, pos);
+        try {
+            return decimal ? (Object) Double.parseDouble(number) : (Object) Long.parseLong(number);
+        } catch (NumberFormatException e) {
+            throw error("Invalid number");
+        }
+    }
+    private Object readLiteral(String literal, Object value) {
+        if (!json.startsWith(literal, pos)) {
+            throw error("Unexpected token");
+        }
+        pos += literal.length();
+        return value;
+    }
+
+    private void skipWhitespace() {
+        while (pos < json.length() && Character.isWhitespace(json.charAt(pos))) {
+            pos++;
+        }
+    }
+    private char peek() {
+        if (pos >= json.length()) {
+            throw error("Unexpected end of input");
+        }
+        return json.charAt(pos);
+    }
+    private char next() {
+        char c = peek();
+        pos++;
+        return c;
+    }
+    private void expect(char expected) {
+        if (next() != expected) {
+            throw error("Expected '" + expected + "'");
+        }
+    }
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException("Invalid JSON at position " + pos + ": " + message);
+    }
+}
@@ -0,0 +1,125 @@
+package Api;
+
+// Minimal streaming JSON writer. Callers emit fields explicitly, so no reflection
+// or annotation scanning is involved in encoding a response.
+public class JsonWriter {
+    private final StringBuilder out;
+    private boolean needsComma;
+
+    public JsonWriter() {
+        this(256);
+    }
+    public JsonWriter(int capacity) {
+        this.out = new StringBuilder(capacity);
+    }
+
+    public JsonWriter beginObject() {
+        separator();
+        out.append('{');
+        needsComma = false;
+        return this;
+    }
+    public JsonWriter endObject() {
+        out.append('}');
+        needsComma = true;
+        return this;
+    }
+    public JsonWriter beginArray() {
+        separator();
+        out.append('[');
+        needsComma = false;
+        return this;
+    }
+    public JsonWriter endArray() {
+        out.append(']');
+        needsComma = true;
+        return this;
+    }
+    public JsonWriter name(String name) {
+        separator();
+        writeString(name);
+        out.append(':');
+        needsComma = false;
+        return this;
+    }
+
+    public JsonWriter value(String value) {
+        separator();
+        if (value == null) {
+            out.append("null");
+        } else {
+            writeString(value);
+        }
+        needsComma = true;
+        return this;
+    }
+    public JsonWriter value(long value) {
+        separator();
+        out.append(value);
+        needsComma = true;
+        return this;
+    }
+    public JsonWriter value(double value) {
+        separator();
+        out.append(value);
+        needsComma = true;
+        return this;
+    }
+    public JsonWriter value(boolean value) {
+        separator();
+        out.append(value);
+        needsComma = true;
+        return this;
+    }
+    public JsonWriter value(Object value) {
+        return value(value == null ? null : value.toString());
+    }
+
+    public JsonWriter field(String name, String value) {
+        return name(name).value(value);
+    }
+    public JsonWriter field(String name, long value) {
+        return name(name).value(value);
+    }
+    public JsonWriter field(String name, double value) {
+        return name(name).value(value);
+    }
+    public JsonWriter field(String name, boolean value) {
+        return name(name).value(value);
+    }
+    public JsonWriter field(String name, Object value) {
+        return name(name).value(value);
+    }
+
+    private void separator() {
+        if (needsComma) {
+            out.append(',');
+        }
+    }
+    private void writeString(String value) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+                }
+            }
+        }
+        out.append('"');
+    }
+
+    @Override
+    public String toString() {
+        return out.toString();
+    }
+}
@@ -0,0 +1,170 @@
+package Core;
+
+import Exceptions.AdmissionRejectedException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Per-operation-class concurrency limits that adapt to observed latency (Vegas-style
+// growth, AIMD back-off on timeouts/failures). Lower-priority classes are shed first:
+// each class may only be admitted while total load is below its share of capacity.
+public class AdmissionController {
+    private static AdmissionController instance;
+
+    public enum OperationClass {
+        AVAILABILITY(1.0, 4, 200),
+        LOGIN(0.95, 4, 100),
+        BOOKING(0.9, 4, 100),
+        WAITLIST(0.85, 2, 50),
+        REPORT(0.5, 1, 10);
+
+        private final double maxGlobalLoad;
+        private final int initialLimit;
+        private final int maxLimit;
+
+        OperationClass(double maxGlobalLoad, int initialLimit, int maxLimit) {
+            this.maxGlobalLoad = maxGlobalLoad;
+            this.initialLimit = initialLimit;
+            this.maxLimit = maxLimit;
+        }
+    }
+
+    private final Map<OperationClass, AdaptiveLimit> limits = new EnumMap<>(OperationClass.class);
+
+    public AdmissionController() {
+        for (OperationClass operationClass : OperationClass.values()) {
+            limits.put(operationClass, new AdaptiveLimit(operationClass.initialLimit, operationClass.maxLimit));
+        }
+    }
+    public static AdmissionController getInstance() {
+        if (instance == null) {
+            synchronized (AdmissionController.class) {
+                if (instance == null) {
+                    instance = new AdmissionController();
+                }
+            }
+        }
+        return instance;
+    }
+
+    // Admission
+    public Permit acquire(OperationClass operationClass) throws AdmissionRejectedException {
+        AdaptiveLimit limit = limits.get(operationClass);
+        if (globalLoad() >= operationClass.maxGlobalLoad || !limit.tryAcquire()) {
+            limit.rejected.increment();
+            throw new AdmissionRejectedException("Server busy: " + operationClass.name().toLowerCase() +
+                    " requests are being shed, please retry shortly");
+        }
+        return new Permit(limit);
+    }
+    private double globalLoad() {
+        int inflight = 0;
+        double capacity = 0;
+        for (AdaptiveLimit limit : limits.values()) {
+            inflight += limit.inflight.get();
+            capacity += limit.limit;
+        }
+        return capacity == 0 ? 1.0 : inflight / capacity;
+    }
+
+    // Statistics
+    public int getLimit(OperationClass operationClass) {
+        return (int) limits.get(operationClass).limit;
+    }
+    public int getInflight(OperationClass operationClass) {
+        return limits.get(operationClass).inflight.get();
+    }
+    public long getRejectedCount(OperationClass operationClass) {
+        return limits.get(operationClass).rejected.sum();
+    }
+
+    public static final class Permit {
+        private final AdaptiveLimit limit;
+        private final long startNanos = System.nanoTime();
+        private final int inflightAtStart;
+        private boolean released;
+
+        private Permit(AdaptiveLimit limit) {
+            this.limit = limit;
+            this.inflightAtStart = limit.inflight.get();
+        }
+
+        // The operation completed normally; its latency feeds the limit.
+        public void onSuccess() {
+            release(false);
+        }
+        // The operation timed out or the backend failed: back off multiplicatively.
+        public void onDropped() {
+            release(true);
+        }
+        // The operation failed for reasons unrelated to load (bad input, conflicts).
+        public void onIgnore() {
+            if (!released) {
+                released = true;
+                limit.inflight.decrementAndGet();
+            }
+        }
+        private void release(boolean dropped) {
+            if (released) {
+                return;
+            }
+            released = true;
+            limit.inflight.decrementAndGet();
+            limit.onSample(System.nanoTime() - startNanos, inflightAtStart, dropped);
+        }
+    }
+
+    private static final class AdaptiveLimit {
+        private static final double BACKOFF_RATIO = 0.9;
+        private static final int MIN_RTT_RESET_SAMPLES = 1_000;
+
+        private final int maxLimit;
+        private final AtomicInteger inflight = new AtomicInteger();
+        private final LongAdder rejected = new LongAdder();
+        private volatile double limit;
+        private long minRttNanos;
+        private int samplesSinceReset;
+
+        private AdaptiveLimit(int initialLimit, int maxLimit) {
+            this.limit = initialLimit;
+            this.maxLimit = maxLimit;
+        }
+
+        private boolean tryAcquire() {
+            while (true) {
+                int current = inflight.get();
+                if (current >= (int) limit) {
+                    return false;
+                }
+                if (inflight.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+            }
+        }
+        private synchronized void onSample(long rttNanos, int inflightAtStart, boolean dropped) {
+            if (dropped) {
+                limit = Math.max(1, limit * BACKOFF_RATIO);
+                return;
+            }
+            // Periodically forget the floor so a permanently slower backend re-baselines
+            if (++samplesSinceReset >= MIN_RTT_RESET_SAMPLES) {
+                samplesSinceReset = 0;
+                minRttNanos = 0;
+            }
+            if (minRttNanos == 0 || rttNanos < minRttNanos) {
+                minRttNanos = rttNanos;
+            }
+
+            double queueSize = limit * (1 - (double) minRttNanos / Math.max(rttNanos, 1));
+            double logLimit = Math.max(1, Math.log10(limit));
+            double alpha = 3 * logLimit;
+            double beta = 6 * logLimit;
+            if (queueSize < alpha && inflightAtStart * 2 >= limit) {
+                limit = Math.min(maxLimit, limit + logLimit);
+            } else if (queueSize > beta) {
+                limit = Math.max(1, limit - logLimit);
+            }
+        }
+    }
+}
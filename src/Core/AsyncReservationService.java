@@ -0,0 +1,92 @@
+package Core;
+
+import Models.*;
+import Security.*;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+import static Core.AdmissionController.OperationClass.*;
+
+// Async variants of the ReservationManager / AuthenticationManager operations.
+// Every call runs on a virtual thread from the RequestExecutor with its own timeout.
+public class AsyncReservationService implements AutoCloseable {
+    public static final Duration AVAILABILITY_TIMEOUT = Duration.ofSeconds(2);
+    public static final Duration BOOKING_TIMEOUT = Duration.ofSeconds(5);
+    public static final Duration WAITLIST_TIMEOUT = Duration.ofSeconds(5);
+    public static final Duration LOGIN_TIMEOUT = Duration.ofSeconds(3);
+    public static final Duration REPORT_TIMEOUT = Duration.ofSeconds(30);
+
+    private final RequestExecutor executor;
+    private final ReservationManager reservationManager;
+    private final AuthenticationManager authManager;
+
+    public AsyncReservationService() {
+        this(new RequestExecutor(), new ReservationManager(), new AuthenticationManager());
+    }
+    public AsyncReservationService(RequestExecutor executor, ReservationManager reservationManager,
+                                   AuthenticationManager authManager) {
+        this.executor = executor;
+        this.reservationManager = reservationManager;
+        this.authManager = authManager;
+    }
+
+    // Reservations
+    public CompletableFuture<List<Table>> getAvailableTablesAsync(int partySize, LocalDate date, LocalTime time, int customerId) {
+        return executor.submit(AVAILABILITY, () -> reservationManager.getAvailableTables(partySize, date, time, customerId),
+                AVAILABILITY_TIMEOUT);
+    }
+    public CompletableFuture<Integer> createReservationAsync(Reservation reservation, String idempotencyKey) {
+        return executor.submit(BOOKING, () -> reservationManager.createReservation(reservation, idempotencyKey),
+                BOOKING_TIMEOUT);
+    }
+    public CompletableFuture<Void> cancelReservationAsync(int reservationId) {
+        return executor.submit(BOOKING, () -> {
+            reservationManager.cancelReservation(reservationId);
+            return null;
+        }, BOOKING_TIMEOUT);
+    }
+    public CompletableFuture<List<Reservation>> getCustomerReservationsAsync(int customerId) {
+        return executor.submit(AVAILABILITY, () -> reservationManager.getCustomerReservations(customerId), AVAILABILITY_TIMEOUT);
+    }
+    public CompletableFuture<List<Reservation>> getActiveReservationsAsync() {
+        return executor.submit(REPORT, reservationManager::getActiveReservations, REPORT_TIMEOUT);
+    }
+
+    // Waitlist
+    public CompletableFuture<Integer> addToWaitlistAsync(Waitlist entry, String idempotencyKey) {
+        return executor.submit(WAITLIST, () -> reservationManager.addToWaitlist(entry, idempotencyKey), WAITLIST_TIMEOUT);
+    }
+    public CompletableFuture<Void> removeFromWaitlistAsync(int waitlistId) {
+        return executor.submit(WAITLIST, () -> {
+            reservationManager.removeFromWaitlist(waitlistId);
+            return null;
+        }, WAITLIST_TIMEOUT);
+    }
+    public CompletableFuture<List<Waitlist>> getWaitlistAsync(int customerId) {
+        return executor.submit(WAITLIST, () -> reservationManager.getCustomerWaitlistEntries(customerId), WAITLIST_TIMEOUT);
+    }
+
+    // Authentication
+    public CompletableFuture<Customer> authenticateCustomerAsync(String username, String password) {
+        return executor.submit(LOGIN, () -> authManager.authenticateCustomer(username, password), LOGIN_TIMEOUT);
+    }
+    public CompletableFuture<Manager> authenticateManagerAsync(String username, String password) {
+        return executor.submit(LOGIN, () -> authManager.authenticateManager(username, password), LOGIN_TIMEOUT);
+    }
+    public CompletableFuture<Void> registerCustomerAsync(Customer customer, String username, String password) {
+        return executor.submit(LOGIN, () -> {
+            authManager.registerCustomer(customer, username, password);
+            return null;
+        }, LOGIN_TIMEOUT);
+    }
+
+    public RequestExecutor getExecutor() {
+        return executor;
+    }
+
+    @Override
+    public void close() {
+        executor.close();
+    }
+}
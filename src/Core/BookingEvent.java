@@ -0,0 +1,26 @@
+package Core;
+
+import jdk.jfr.*;
+
+// One reservation attempt through ReservationManager.createReservation, end to end.
+// Nested RestaurantReservationSystem.* database events on the same thread show where
+// the time went.
+@Name("RestaurantReservationSystem.Booking")
+@Label("Booking")
+@Category({"Restaurant Reservation System", "Reservations"})
+@StackTrace(false)
+public class BookingEvent extends Event {
+    @Label("Customer ID")
+    public int customerId;
+    @Label("Table ID")
+    public int tableId;
+    @Label("Party Size")
+    public int partySize;
+    @Label("Reservation ID")
+    public int reservationId;
+    @Label("Idempotent Replay")
+    public boolean replayed;
+    @Label("Outcome")
+    @Description("BOOKED, or JOURNALED when accepted locally during a database outage")
+    public String outcome;
+}
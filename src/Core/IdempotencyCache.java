@@ -0,0 +1,60 @@
+package Core;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Bounded, expiring map of idempotency key -> generated ID. Acts as the fast path
+// in front of the IdempotencyKeys table so a retry costs no database round trip.
+public class IdempotencyCache {
+    public static final int DEFAULT_MAX_ENTRIES = 10_000;
+    public static final Duration DEFAULT_TTL = Duration.ofHours(24);
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final LinkedHashMap<String, Entry> entries;
+
+    public IdempotencyCache() {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_TTL);
+    }
+    public IdempotencyCache(int maxEntries, Duration ttl) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("Max entries must be greater than 0");
+        }
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttl.toMillis();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > IdempotencyCache.this.maxEntries;
+            }
+        };
+    }
+
+    // Keys are scoped to the customer that sent them; the caller compares the request hash
+    public synchronized Entry get(String operation, int customerId, String key) {
+        String cacheKey = cacheKey(operation, customerId, key);
+        Entry entry = entries.get(cacheKey);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt < System.currentTimeMillis()) {
+            entries.remove(cacheKey);
+            return null;
+        }
+        return entry;
+    }
+    public synchronized void put(String operation, int customerId, String key, String requestHash, int resultId) {
+        entries.put(cacheKey(operation, customerId, key),
+                new Entry(resultId, requestHash, System.currentTimeMillis() + ttlMillis));
+    }
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private static String cacheKey(String operation, int customerId, String key) {
+        return operation + ':' + customerId + ':' + key;
+    }
+
+    public record Entry(int resultId, String requestHash, long expiresAt) {}
+}
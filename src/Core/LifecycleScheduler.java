@@ -0,0 +1,224 @@
+package Core;
+
+import Database.BookingJournal;
+import Database.DatabaseManager;
+import Exceptions.DatabaseConnectionException;
+import Logging.Logger;
+import Metrics.MetricsRegistry;
+import Metrics.Timer;
+import Metrics.Timers;
+import java.time.LocalDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Moves reservations and waitlist entries along without a manager clicking through them.
+// On a fixed cadence it closes reservations whose start + estimated duration has passed
+// (CONFIRMED to COMPLETED with the visit counted, unconfirmed PENDING to CANCELLED) and
+// expires ACTIVE waitlist entries past their requested time plus a grace period. Each
+// pass is a handful of set-based statements per batch (DatabaseManager's lifecycle
+// operations), repeated until a batch comes back short. About once an hour it also drops
+// idempotency keys past their retention. Totals and the last sweep are published over
+// JMX and /api/metrics/lifecycle.
+public class LifecycleScheduler implements LifecycleSchedulerMBean {
+    private static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("scheduler.enabled", "true"));
+    private static final long INTERVAL_SECONDS = Long.getLong("scheduler.intervalSeconds", 60);
+    // One batch is one IN list, which DatabaseManager caps at 1000 IDs
+    private static final int BATCH_SIZE = Math.min(Integer.getInteger("scheduler.batchSize", 500), 1_000);
+    private static final int WAITLIST_GRACE_MINUTES = Integer.getInteger("scheduler.waitlistGraceMinutes", 30);
+    // How long a client may retry with the same Idempotency-Key
+    private static final long IDEMPOTENCY_RETENTION_HOURS = Long.getLong("scheduler.idempotencyRetentionHours", 168);
+    private static final long IDEMPOTENCY_PURGE_MILLIS = TimeUnit.HOURS.toMillis(1);
+    private static final Logger log = Logger.get(LifecycleScheduler.class);
+    private static LifecycleScheduler instance;
+
+    // Metrics
+    private static final Timers TIMERS = MetricsRegistry.timers("LifecycleScheduler");
+
+    private final DatabaseManager dbManager;
+    private final LongAdder sweeps = new LongAdder();
+    private final LongAdder failedSweeps = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder lapsed = new LongAdder();
+    private final LongAdder customersUpdated = new LongAdder();
+    private final LongAdder tablesReleased = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder purgedKeys = new LongAdder();
+    private long nextPurgeMillis;
+    private volatile long lastSweepMillis;
+    private volatile int lastSweepRows;
+    private ScheduledExecutorService ticker;
+
+    private LifecycleScheduler() {
+        this.dbManager = DatabaseManager.getInstance();
+        MetricsRegistry.getInstance().registerMBean(this, "type=LifecycleScheduler");
+    }
+    public static LifecycleScheduler getInstance() {
+        if (instance == null) {
+            synchronized (LifecycleScheduler.class) {
+                if (instance == null) {
+                    instance = new LifecycleScheduler();
+                }
+            }
+        }
+        return instance;
+    }
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    // Lifecycle
+    public synchronized void start() {
+        if (ticker != null) {
+            return;
+        }
+        ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "lifecycle-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Fixed rate; a sweep that overruns delays the next one rather than overlapping it
+        ticker.scheduleAtFixedRate(this::sweepNow, INTERVAL_SECONDS, INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+    public static void shutdown() {
+        LifecycleScheduler scheduler = instance;
+        if (scheduler != null) {
+            synchronized (scheduler) {
+                if (scheduler.ticker != null) {
+                    scheduler.ticker.shutdownNow();
+                    scheduler.ticker = null;
+                }
+            }
+        }
+    }
+
+    // Sweeping
+    // Runs both sweeps on the calling thread; never throws, so the schedule keeps going
+    @Override
+    public synchronized void sweepNow() {
+        if (DatabaseManager.isDegraded()) {
+            return;
+        }
+        long begin = System.nanoTime();
+        LocalDateTime now = LocalDateTime.now();
+        int rows = 0;
+        try {
+            rows += sweepReservations(now);
+            rows += sweepWaitlist(now);
+            rows += purgeIdempotencyKeys(now);
+            sweeps.increment();
+        } catch (DatabaseConnectionException | RuntimeException e) {
+            failedSweeps.increment();
+            log.atWarn().message("Lifecycle sweep failed").error(e).log();
+        } finally {
+            dbManager.closeConnection();
+            lastSweepMillis = (System.nanoTime() - begin) / 1_000_000;
+            lastSweepRows = rows;
+        }
+    }
+    private int sweepReservations(LocalDateTime now) throws DatabaseConnectionException {
+        return TIMERS.time("reservationSweep", () -> {
+            int closedCompleted = 0;
+            int closedLapsed = 0;
+            int customers = 0;
+            int tables = 0;
+            DatabaseManager.ClosedReservations batch;
+            do {
+                batch = dbManager.closeFinishedReservations(now, BATCH_SIZE);
+                closedCompleted += batch.completed();
+                closedLapsed += batch.lapsed();
+                customers += batch.customersVisited();
+                tables += batch.tablesReleased();
+            } while (batch.total() >= BATCH_SIZE);
+            completed.add(closedCompleted);
+            lapsed.add(closedLapsed);
+            customersUpdated.add(customers);
+            tablesReleased.add(tables);
+            if (closedCompleted + closedLapsed > 0) {
+                log.atInfo().message("Reservations closed")
+                        .with("completed", closedCompleted)
+                        .with("lapsed", closedLapsed)
+                        .with("customersVisited", customers)
+                        .with("tablesReleased", tables)
+                        .log();
+            }
+            return closedCompleted + closedLapsed;
+        });
+    }
+    private int sweepWaitlist(LocalDateTime now) throws DatabaseConnectionException {
+        return TIMERS.time("waitlistSweep", () -> {
+            int total = 0;
+            int batch;
+            do {
+                batch = dbManager.expireStaleWaitlist(now, WAITLIST_GRACE_MINUTES, BATCH_SIZE);
+                total += batch;
+            } while (batch >= BATCH_SIZE);
+            expired.add(total);
+            if (total > 0) {
+                log.atInfo().message("Waitlist entries expired").with("expired", total).log();
+            }
+            return total;
+        });
+    }
+
+    private int purgeIdempotencyKeys(LocalDateTime now) throws DatabaseConnectionException {
+        if (System.currentTimeMillis() < nextPurgeMillis) {
+            return 0;
+        }
+        return TIMERS.time("idempotencyPurge", () -> {
+            // Provisional-ID mappings stay while the journal still has records to replay
+            boolean journalDrained = !BookingJournal.isEnabled() || BookingJournal.getInstance().getPendingCount() == 0;
+            int purged = dbManager.purgeIdempotencyKeys(now.minusHours(IDEMPOTENCY_RETENTION_HOURS), journalDrained);
+            nextPurgeMillis = System.currentTimeMillis() + IDEMPOTENCY_PURGE_MILLIS;
+            purgedKeys.add(purged);
+            if (purged > 0) {
+                log.atInfo().message("Idempotency keys purged").with("purged", purged)
+                        .with("journalMappings", journalDrained).log();
+            }
+            return purged;
+        });
+    }
+
+    // Statistics
+    @Override
+    public long getSweepCount() {
+        return sweeps.sum();
+    }
+    @Override
+    public long getFailedSweepCount() {
+        return failedSweeps.sum();
+    }
+    @Override
+    public long getCompletedReservations() {
+        return completed.sum();
+    }
+    @Override
+    public long getLapsedReservations() {
+        return lapsed.sum();
+    }
+    @Override
+    public long getCustomersUpdated() {
+        return customersUpdated.sum();
+    }
+    @Override
+    public long getTablesReleased() {
+        return tablesReleased.sum();
+    }
+    @Override
+    public long getExpiredWaitlistEntries() {
+        return expired.sum();
+    }
+    @Override
+    public long getPurgedIdempotencyKeys() {
+        return purgedKeys.sum();
+    }
+    @Override
+    public long getLastSweepMillis() {
+        return lastSweepMillis;
+    }
+    @Override
+    public int getLastSweepRows() {
+        return lastSweepRows;
+    }
+}
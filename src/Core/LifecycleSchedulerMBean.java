@@ -0,0 +1,15 @@
+package Core;
+
+public interface LifecycleSchedulerMBean {
+    long getSweepCount();
+    long getFailedSweepCount();
+    long getCompletedReservations();
+    long getLapsedReservations();
+    long getCustomersUpdated();
+    long getTablesReleased();
+    long getExpiredWaitlistEntries();
+    long getPurgedIdempotencyKeys();
+    long getLastSweepMillis();
+    int getLastSweepRows();
+    void sweepNow();
+}
@@ -0,0 +1,134 @@
+package Core;
+
+import Database.*;
+import Exceptions.*;
+import java.time.Duration;
+import java.util.concurrent.*;
+
+// Runs each request on its own virtual thread. Blocking JDBC calls park the virtual
+// thread instead of a carrier, and a semaphore caps how many requests hold a
+// database connection at once so thousands of callers share a small pool.
+public class RequestExecutor implements AutoCloseable {
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(5);
+    private static final int DEFAULT_MAX_CONNECTIONS = DatabaseConfig.getPoolSize();
+
+    private final ExecutorService executor;
+    private final Semaphore connectionPermits;
+    private final DatabaseManager dbManager;
+    private final AdmissionController admissionController;
+
+    @FunctionalInterface
+    public interface Operation<T> {
+        T execute() throws Exception;
+    }
+
+    public RequestExecutor() {
+        this(DEFAULT_MAX_CONNECTIONS);
+    }
+    public RequestExecutor(int maxConnections) {
+        if (maxConnections <= 0) {
+            throw new IllegalArgumentException("Max connections must be greater than 0");
+        }
+        this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("request-", 0).factory());
+        this.connectionPermits = new Semaphore(maxConnections, true);
+        this.dbManager = DatabaseManager.getInstance();
+        this.admissionController = AdmissionController.getInstance();
+    }
+
+    public <T> CompletableFuture<T> submit(Operation<T> operation) {
+        return submit(operation, DEFAULT_TIMEOUT);
+    }
+    public <T> CompletableFuture<T> submit(Operation<T> operation, Duration timeout) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Future<?> task = executor.submit(() -> run(operation, result));
+        result.orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS)
+                .whenComplete((value, error) -> {
+                    if (error instanceof TimeoutException) {
+                        task.cancel(true);
+                    }
+                });
+        return result;
+    }
+    // Admission-controlled variant: rejected immediately when the class is over its limit
+    public <T> CompletableFuture<T> submit(AdmissionController.OperationClass operationClass,
+                                           Operation<T> operation, Duration timeout) {
+        AdmissionController.Permit permit;
+        try {
+            permit = admissionController.acquire(operationClass);
+        } catch (AdmissionRejectedException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        CompletableFuture<T> result = submit(operation, timeout);
+        result.whenComplete((value, error) -> {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause == null) {
+                permit.onSuccess();
+            } else if (cause instanceof TimeoutException || DatabaseManager.isTransientFailure(cause)) {
+                // Only overload and outages shrink the limit; a rejected or conflicting
+                // request says nothing about how much the database can take
+                permit.onDropped();
+            } else {
+                permit.onIgnore();
+            }
+        });
+        return result;
+    }
+    public <T> T execute(AdmissionController.OperationClass operationClass,
+                         Operation<T> operation, Duration timeout) throws Exception {
+        return await(submit(operationClass, operation, timeout));
+    }
+    public <T> T execute(Operation<T> operation, Duration timeout) throws Exception {
+        return await(submit(operation, timeout));
+    }
+    private static <T> T await(CompletableFuture<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private <T> void run(Operation<T> operation, CompletableFuture<T> result) {
+        if (result.isDone()) {
+            return;
+        }
+        try {
+            connectionPermits.acquire();
+        } catch (InterruptedException e) {
+            result.completeExceptionally(new CancellationException("Request cancelled while waiting for a connection"));
+            return;
+        }
+        try {
+            result.complete(operation.execute());
+        } catch (Throwable t) {
+            result.completeExceptionally(t);
+        } finally {
+            // Virtual threads are never reused, so release the thread's cached connection
+            dbManager.closeConnection();
+            connectionPermits.release();
+        }
+    }
+
+    public int getAvailableConnections() {
+        return connectionPermits.availablePermits();
+    }
+    public int getQueuedRequests() {
+        return connectionPermits.getQueueLength();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -3,112 +3,591 @@ package Core;
 import Database.*;
 import Models.*;
 import Exceptions.*;
+import Logging.Logger;
+import Metrics.MetricsRegistry;
+import Metrics.Timer;
+import Metrics.Timers;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
 import java.time.*;
 
 public class ReservationManager {
     private final DatabaseManager dbManager;
+    private final TableHoldManager holdManager;
+    private final BookingJournal journal;
+    private static final IdempotencyCache idempotencyCache = new IdempotencyCache();
+    private static final Logger log = Logger.get(ReservationManager.class);
+
+    // Metrics
+    private static final Timers TIMERS = MetricsRegistry.timers("ReservationManager");
 
     public ReservationManager() {
         this.dbManager = DatabaseManager.getInstance();
+        this.holdManager = TableHoldManager.getInstance();
+        this.journal = BookingJournal.isEnabled() ? BookingJournal.getInstance() : null;
     }
 
     // Reservation Management
-    public void createReservation(Reservation reservation) throws DatabaseConnectionException, ReservationException {
-        if (!isTableAvailable(reservation.getTableID(),
-                reservation.getReservationDate(),
-                reservation.getReservationTime())) {
+    public int createReservation(Reservation reservation) throws DatabaseConnectionException, ReservationException {
+        return createReservation(reservation, null);
+    }
+    public int createReservation(Reservation reservation, String idempotencyKey) throws DatabaseConnectionException, ReservationException {
+        Timer timer = TIMERS.get("createReservation");
+        long start = timer.start();
+        BookingEvent event = new BookingEvent();
+        event.begin();
+        try {
+            String requestHash = DatabaseManager.requestHash(reservation);
+            Integer existingId = lookupIdempotentResult(DatabaseManager.IDEMPOTENT_RESERVATION,
+                    reservation.getCustomerID(), idempotencyKey, requestHash);
+            if (existingId != null) {
+                reservation.setReservationID(existingId);
+                event.replayed = true;
+                event.outcome = "BOOKED";
+                return existingId;
+            }
+
+            // Before the journaling try, so a booking that could never be written is refused
+            // now instead of being accepted and dropped at replay
+            DatabaseManager.validateReservation(reservation);
+            if (holdManager.isHeldByOther(reservation.getTableID(), reservation.getReservationDate(),
+                    reservation.getReservationTime(), reservation.getCustomerID())) {
+                throw new ReservationException("Table is currently held by another customer");
+            }
+            int reservationId;
+            try {
+                validateBooking(reservation);
+                reservationId = dbManager.createReservation(reservation, idempotencyKey);
+                event.outcome = "BOOKED";
+            } catch (DatabaseUnavailableException e) {
+                // Accept the booking locally; it is checked for conflicts when replayed
+                if (journal == null) {
+                    throw e;
+                }
+                reservationId = journal.journalReservation(reservation, idempotencyKey);
+                event.outcome = "JOURNALED";
+            }
+            reservation.setReservationID(reservationId);
+            if (idempotencyKey != null) {
+                idempotencyCache.put(DatabaseManager.IDEMPOTENT_RESERVATION, reservation.getCustomerID(),
+                        idempotencyKey, requestHash, reservationId);
+            }
+            holdManager.releaseHold(reservation.getTableID(), reservation.getReservationDate(),
+                    reservation.getReservationTime(), reservation.getCustomerID());
+            return reservationId;
+        } catch (Throwable t) {
+            timer.failed();
+            event.outcome = t instanceof ReservationException || t instanceof ValidationException ? "REJECTED" : "FAILED";
+            throw t;
+        } finally {
+            timer.stop(start);
+            commitBookingEvent(event, reservation);
+        }
+    }
+    private static void commitBookingEvent(BookingEvent event, Reservation reservation) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.customerId = reservation.getCustomerID();
+            event.tableId = reservation.getTableID();
+            event.partySize = reservation.getPartySize();
+            event.reservationId = reservation.getReservationID();
+            event.commit();
+        }
+    }
+    // Both booking checks in one round trip on the request's own connection
+    private void validateBooking(Reservation reservation) throws DatabaseConnectionException, ReservationException {
+        DatabaseManager.BookingCheck check = dbManager.checkBooking(reservation.getCustomerID(),
+                reservation.getTableID(), reservation.getReservationDate(), reservation.getReservationTime());
+        if (!check.tableFree()) {
             throw new ReservationException("Table not available for selected time");
         }
-        dbManager.createReservation(reservation);
+        if (!check.customerExists()) {
+            throw new ReservationException("Customer not found");
+        }
     }
+    public BookingContext prepareBooking(int customerId, int partySize, LocalDate date, LocalTime time) throws DatabaseConnectionException, ReservationException {
+        Timer timer = TIMERS.get("prepareBooking");
+        long start = timer.start();
+        try {
+            try (StructuredScope scope = new StructuredScope()) {
+                StructuredScope.Subtask<Customer> customer = scope.fork(() -> dbManager.getCustomerById(customerId));
+                StructuredScope.Subtask<List<Table>> tables = scope.fork(() -> getAvailableTables(partySize, date, time, customerId));
+                StructuredScope.Subtask<Integer> waitlistPosition = scope.fork(() -> dbManager.getHighestQueuePosition(date, time) + 1);
+                joinScope(scope);
+
+                if (customer.get() == null) {
+                    throw new ReservationException("Customer not found");
+                }
+                return new BookingContext(customer.get(), tables.get(), waitlistPosition.get());
+            }
+        } catch (Throwable t) {
+            timer.failed();
+            throw t;
+        } finally {
+            timer.stop(start);
+        }
+    }
+    private void joinScope(StructuredScope scope) throws DatabaseConnectionException, ReservationException {
+        try {
+            scope.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DatabaseConnectionException("Booking lookups interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof DatabaseConnectionException dce) {
+                throw dce;
+            }
+            if (cause instanceof ReservationException re) {
+                throw re;
+            }
+            if (cause instanceof RuntimeException rte) {
+                throw rte;
+            }
+            throw new DatabaseConnectionException("Booking lookup failed: " + cause.getMessage(), cause);
+        }
+    }
+    public record BookingContext(Customer customer, List<Table> availableTables, int nextWaitlistPosition) {}
+
     public List<Reservation> getCustomerReservations(int customerId) throws DatabaseConnectionException {
-        return dbManager.getReservationsByCustomer(customerId);
+        return TIMERS.time("getCustomerReservations", () -> {
+            return dbManager.getReservationsByCustomer(customerId);
+        });
+    }
+    // Includes reservations already moved to the monthly archive tables
+    public List<Reservation> getCustomerReservations(int customerId, boolean includeArchived) throws DatabaseConnectionException {
+        if (!includeArchived) {
+            return getCustomerReservations(customerId);
+        }
+        return TIMERS.time("getCustomerHistory", () -> {
+            return dbManager.getReservationHistoryByCustomer(customerId);
+        });
     }
     public List<Reservation> getActiveReservations() throws DatabaseConnectionException {
-        return dbManager.getActiveReservations();
+        return TIMERS.time("getActiveReservations", () -> {
+            return dbManager.getActiveReservations();
+        });
     }
     public void cancelReservation(int reservationId) throws DatabaseConnectionException {
-        dbManager.updateReservationStatus(reservationId, Reservation.ReservationStatus.CANCELLED);
+        TIMERS.run("cancelReservation", () -> {
+            updateStatusOrJournal(reservationId, Reservation.ReservationStatus.CANCELLED);
+        });
     }
 
     // Waitlist Management
-    public void addToWaitlist(Waitlist entry) throws DatabaseConnectionException {
-        dbManager.createWaitlistEntry(entry);
+    public int addToWaitlist(Waitlist entry) throws DatabaseConnectionException {
+        return addToWaitlist(entry, null);
+    }
+    public int addToWaitlist(Waitlist entry, String idempotencyKey) throws DatabaseConnectionException {
+        return TIMERS.time("addToWaitlist", () -> {
+            String requestHash = DatabaseManager.requestHash(entry);
+            Integer existingId = lookupIdempotentResult(DatabaseManager.IDEMPOTENT_WAITLIST, entry.getCustomerID(),
+                    idempotencyKey, requestHash);
+            if (existingId != null) {
+                entry.setWaitlistID(existingId);
+                return existingId;
+            }
+
+            int waitlistId;
+            try {
+                waitlistId = dbManager.createWaitlistEntry(entry, idempotencyKey);
+            } catch (DatabaseUnavailableException e) {
+                if (journal == null) {
+                    throw e;
+                }
+                waitlistId = journal.journalWaitlistEntry(entry, idempotencyKey);
+            }
+            entry.setWaitlistID(waitlistId);
+            if (idempotencyKey != null) {
+                idempotencyCache.put(DatabaseManager.IDEMPOTENT_WAITLIST, entry.getCustomerID(), idempotencyKey,
+                        requestHash, waitlistId);
+            }
+            return waitlistId;
+        });
     }
     public void removeFromWaitlist(int waitlistId) throws DatabaseConnectionException {
-        dbManager.updateWaitlistStatus(waitlistId, Waitlist.WaitlistStatus.EXPIRED);
+        TIMERS.run("removeFromWaitlist", () -> {
+            updateWaitlistStatusOrJournal(waitlistId, Waitlist.WaitlistStatus.EXPIRED);
+        });
     }
     public void seatFromWaitlist(int waitlistId) throws DatabaseConnectionException {
-        dbManager.updateWaitlistStatus(waitlistId, Waitlist.WaitlistStatus.SEATED);
+        TIMERS.run("seatFromWaitlist", () -> {
+            updateWaitlistStatusOrJournal(waitlistId, Waitlist.WaitlistStatus.SEATED);
+        });
     }
     public List<Waitlist> getCustomerWaitlistEntries(int customerId) throws DatabaseConnectionException {
-        return dbManager.getActiveWaitlist();
+        return TIMERS.time("getCustomerWaitlistEntries", () -> {
+            return dbManager.getActiveWaitlist();
+        });
     }
 
     // Table Availability
     public List<Table> getAvailableTables(int partySize, LocalDate date, LocalTime time) throws DatabaseConnectionException {
-        LocalDateTime dateTime = LocalDateTime.of(date, time);
-        return dbManager.getAvailableTables(partySize, dateTime);
+        return getAvailableTables(partySize, date, time, 0);
     }
-    private boolean isTableAvailable(int tableId, LocalDate date, LocalTime time) throws DatabaseConnectionException {
-        return dbManager.checkTableAvailability(tableId, date, time);
+    public List<Table> getAvailableTables(int partySize, LocalDate date, LocalTime time, int customerId) throws DatabaseConnectionException {
+        return TIMERS.time("getAvailableTables", () -> {
+            LocalDateTime dateTime = LocalDateTime.of(date, time);
+            List<Table> tables = new ArrayList<>(dbManager.getAvailableTables(partySize, dateTime));
+            tables.removeIf(table -> holdManager.isHeldByOther(table.getTableID(), date, time, customerId));
+            return tables;
+        });
     }
 
-    // Report Generation
-    public void generateDailyReservationReport(LocalDate date) throws DatabaseConnectionException, InvalidStatusException {
-        List<Reservation> reservations = dbManager.getReservationsByDate(date);
-        System.out.println("\n=== Daily Reservation Report ===");
-        System.out.println("Date: " + date);
-        System.out.println("Total Reservations: " + reservations.size());
+    // Table Holds
+    public void holdTable(int tableId, LocalDate date, LocalTime time, int customerId) throws ReservationException {
+        TIMERS.run("holdTable", () -> {
+            if (!holdManager.placeHold(tableId, date, time, customerId)) {
+                throw new ReservationException("Table is currently held by another customer");
+            }
+        });
+    }
+    public void releaseTableHold(int tableId, LocalDate date, LocalTime time, int customerId) {
+        TIMERS.run("releaseTableHold", () -> {
+            holdManager.releaseHold(tableId, date, time, customerId);
+        });
+    }
+
+    // Bulk Ingestion
+    // Rows are validated in memory against the booking index (or one read of the active
+    // reservations in the batch's date range when it is not loaded), each other, the
+    // customer and table lists and current holds; only rows that pass reach the database.
+    // Outcomes are in input order.
+    public List<DatabaseManager.BatchOutcome> createReservations(List<Reservation> reservations) throws DatabaseConnectionException {
+        return TIMERS.time("createReservations", () -> {
+            if (reservations.isEmpty()) {
+                return List.of();
+            }
+            Set<Integer> customerIds = new HashSet<>();
+            LocalDate firstDate = LocalDate.MAX;
+            LocalDate lastDate = LocalDate.MIN;
+            for (Reservation reservation : reservations) {
+                customerIds.add(reservation.getCustomerID());
+                firstDate = reservation.getReservationDate().isBefore(firstDate) ? reservation.getReservationDate() : firstDate;
+                lastDate = reservation.getReservationDate().isAfter(lastDate) ? reservation.getReservationDate() : lastDate;
+            }
+            Set<Integer> knownCustomers = dbManager.findExistingCustomerIds(customerIds);
+            Set<Integer> knownTables = new HashSet<>();
+            for (Table table : dbManager.getAllTables()) {
+                knownTables.add(table.getTableID());
+            }
+            Set<Slot> bookedTables = new HashSet<>();
+            Set<Slot> bookedCustomers = new HashSet<>();
+            for (Reservation existing : loadedIndex() != null
+                    ? loadedIndex().getActiveReservations() : dbManager.getActiveReservationsBetween(firstDate, lastDate)) {
+                bookedTables.add(new Slot(existing.getTableID(), existing.getReservationDate(), existing.getReservationTime()));
+                bookedCustomers.add(new Slot(existing.getCustomerID(), existing.getReservationDate(), existing.getReservationTime()));
+            }
+
+            DatabaseManager.BatchOutcome[] outcomes = new DatabaseManager.BatchOutcome[reservations.size()];
+            List<Reservation> accepted = new ArrayList<>();
+            List<Integer> acceptedRows = new ArrayList<>();
+            for (int row = 0; row < reservations.size(); row++) {
+                Reservation reservation = reservations.get(row);
+                Slot table = new Slot(reservation.getTableID(), reservation.getReservationDate(), reservation.getReservationTime());
+                Slot customer = new Slot(reservation.getCustomerID(), reservation.getReservationDate(), reservation.getReservationTime());
+                String rejection;
+                if (!knownCustomers.contains(reservation.getCustomerID())) {
+                    rejection = "Customer not found";
+                } else if (!knownTables.contains(reservation.getTableID())) {
+                    rejection = "Table not found";
+                } else if (holdManager.isHeldByOther(reservation.getTableID(), reservation.getReservationDate(),
+                        reservation.getReservationTime(), reservation.getCustomerID())) {
+                    rejection = "Table is currently held by another customer";
+                } else if (!bookedTables.add(table)) {
+                    rejection = "Table not available for selected time";
+                } else if (!bookedCustomers.add(customer)) {
+                    rejection = "Customer already has a reservation at this time";
+                } else {
+                    accepted.add(reservation);
+                    acceptedRows.add(row);
+                    continue;
+                }
+                outcomes[row] = DatabaseManager.BatchOutcome.rejected(row, rejection);
+            }
+
+            List<DatabaseManager.BatchOutcome> written = dbManager.createReservations(accepted);
+            for (int i = 0; i < written.size(); i++) {
+                Reservation reservation = accepted.get(i);
+                DatabaseManager.BatchOutcome outcome = written.get(i).atRow(acceptedRows.get(i));
+                outcomes[outcome.row()] = outcome;
+                if (outcome.status() == DatabaseManager.BatchStatus.CREATED) {
+                    reservation.setReservationID(outcome.id());
+                    holdManager.releaseHold(reservation.getTableID(), reservation.getReservationDate(),
+                            reservation.getReservationTime(), reservation.getCustomerID());
+                }
+            }
+            logBatch("reservations", outcomes);
+            return Arrays.asList(outcomes);
+        });
+    }
+    public List<DatabaseManager.BatchOutcome> addAllToWaitlist(List<Waitlist> entries) throws DatabaseConnectionException {
+        return TIMERS.time("addAllToWaitlist", () -> {
+            Set<Integer> customerIds = new HashSet<>();
+            for (Waitlist entry : entries) {
+                customerIds.add(entry.getCustomerID());
+            }
+            Set<Integer> knownCustomers = dbManager.findExistingCustomerIds(customerIds);
+            Set<Slot> waiting = new HashSet<>();
+            for (Waitlist existing : loadedIndex() != null
+                    ? loadedIndex().getActiveWaitlist() : dbManager.getActiveWaitlist()) {
+                waiting.add(new Slot(existing.getCustomerID(), existing.getRequestedDate(), existing.getRequestedTime()));
+            }
+
+            DatabaseManager.BatchOutcome[] outcomes = new DatabaseManager.BatchOutcome[entries.size()];
+            List<Waitlist> accepted = new ArrayList<>();
+            List<Integer> acceptedRows = new ArrayList<>();
+            for (int row = 0; row < entries.size(); row++) {
+                Waitlist entry = entries.get(row);
+                if (!knownCustomers.contains(entry.getCustomerID())) {
+                    outcomes[row] = DatabaseManager.BatchOutcome.rejected(row, "Customer not found");
+                } else if (!waiting.add(new Slot(entry.getCustomerID(), entry.getRequestedDate(), entry.getRequestedTime()))) {
+                    outcomes[row] = DatabaseManager.BatchOutcome.rejected(row, "Customer is already waiting for this time");
+                } else {
+                    accepted.add(entry);
+                    acceptedRows.add(row);
+                }
+            }
 
-        for (Reservation res : reservations) {
-            System.out.printf("Time: %s | Table: %d | Party: %d | Status: %s%n",
-                    res.getReservationTime(), res.getTableID(),
-                    res.getPartySize(), res.getStatus());
+            List<DatabaseManager.BatchOutcome> written = dbManager.createWaitlistEntries(accepted);
+            for (int i = 0; i < written.size(); i++) {
+                DatabaseManager.BatchOutcome outcome = written.get(i).atRow(acceptedRows.get(i));
+                outcomes[outcome.row()] = outcome;
+                if (outcome.status() == DatabaseManager.BatchStatus.CREATED) {
+                    accepted.get(i).setWaitlistID(outcome.id());
+                }
+            }
+            logBatch("waitlist", outcomes);
+            return Arrays.asList(outcomes);
+        });
+    }
+    private record Slot(int id, LocalDate date, LocalTime time) {}
+    private static BookingIndex loadedIndex() {
+        return BookingIndex.isEnabled() && BookingIndex.getInstance().isLoaded() ? BookingIndex.getInstance() : null;
+    }
+    private static void logBatch(String kind, DatabaseManager.BatchOutcome[] outcomes) {
+        int created = 0;
+        int rejected = 0;
+        for (DatabaseManager.BatchOutcome outcome : outcomes) {
+            switch (outcome.status()) {
+                case CREATED -> created++;
+                case REJECTED -> rejected++;
+                default -> { }
+            }
         }
+        log.atInfo().message("Bulk ingestion finished").with("kind", kind).with("rows", outcomes.length)
+                .with("created", created).with("rejected", rejected)
+                .with("failed", outcomes.length - created - rejected).log();
     }
-    public void generateTableUtilizationReport(LocalDate date) throws DatabaseConnectionException {
-        List<Table> tables = dbManager.getAllTables();
-        System.out.println("\n=== Table Utilization Report ===");
-        System.out.println("Date: " + date);
 
-        for (Table table : tables) {
-            int reservationCount = dbManager.getTableReservationCount(table.getTableID(), date);
-            System.out.printf("Table %s: %d reservations%n",
-                    table.getTableNumber(), reservationCount);
+    // Idempotency
+    private Integer lookupIdempotentResult(String operation, int customerId, String idempotencyKey, String requestHash)
+            throws DatabaseConnectionException {
+        if (idempotencyKey == null) {
+            return null;
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > 64) {
+            throw new IllegalArgumentException("Idempotency key must be 1-64 characters");
+        }
+        IdempotencyCache.Entry cached = idempotencyCache.get(operation, customerId, idempotencyKey);
+        if (cached != null) {
+            if (!Objects.equals(cached.requestHash(), requestHash)) {
+                throw new ConflictException("Idempotency key " + idempotencyKey +
+                        " was already used for a different request");
+            }
+            return cached.resultId();
+        }
+        Integer storedId;
+        try {
+            storedId = dbManager.findIdempotentResult(operation, customerId, idempotencyKey, requestHash);
+        } catch (DatabaseUnavailableException e) {
+            if (journal == null) {
+                throw e;
+            }
+            // Replay de-duplicates journaled mutations by the same key
+            return null;
+        }
+        if (storedId != null) {
+            idempotencyCache.put(operation, customerId, idempotencyKey, requestHash, storedId);
         }
+        return storedId;
     }
-    public void updateReservationStatus(int reservationId, Reservation.ReservationStatus newStatus) throws DatabaseConnectionException {
+
+    // Outage Journaling
+    private void updateStatusOrJournal(int reservationId, Reservation.ReservationStatus status)
+            throws DatabaseConnectionException {
+        try {
+            if (reservationId < 0) {
+                if (journal == null) {
+                    throw new RecordNotFoundException("Unknown reservation " + reservationId);
+                }
+                if (journal.isPending(reservationId)) {
+                    // Provisional ID of a booking that is still waiting in the journal
+                    throw new DatabaseUnavailableException("Reservation not yet replayed", null);
+                }
+                reservationId = resolveProvisional(DatabaseManager.IDEMPOTENT_JOURNAL_RESERVATION, reservationId,
+                        "reservation");
+            }
+            dbManager.updateReservationStatus(reservationId, status);
+        } catch (DatabaseUnavailableException e) {
+            if (journal == null) {
+                throw e;
+            }
+            journal.journalReservationStatus(reservationId, status);
+        }
+    }
+    private void updateWaitlistStatusOrJournal(int waitlistId, Waitlist.WaitlistStatus status)
+            throws DatabaseConnectionException {
         try {
-            if (reservationId <= 0) {
-                throw new IllegalArgumentException("Invalid reservation ID");
+            if (waitlistId < 0) {
+                if (journal == null) {
+                    throw new RecordNotFoundException("Unknown waitlist entry " + waitlistId);
+                }
+                if (journal.isPending(waitlistId)) {
+                    throw new DatabaseUnavailableException("Waitlist entry not yet replayed", null);
+                }
+                waitlistId = resolveProvisional(DatabaseManager.IDEMPOTENT_JOURNAL_WAITLIST, waitlistId,
+                        "waitlist entry");
             }
-            if (newStatus == null) {
-                throw new IllegalArgumentException("Reservation status cannot be null");
+            dbManager.updateWaitlistStatus(waitlistId, status);
+        } catch (DatabaseUnavailableException e) {
+            if (journal == null) {
+                throw e;
             }
-            dbManager.updateReservationStatus(reservationId, newStatus);
-        } catch (DatabaseConnectionException e) {
-            System.err.println("Failed to update reservation status: " + e.getMessage());
-            throw e;
+            journal.journalWaitlistStatus(waitlistId, status);
+        }
+    }
+    // Ownership
+    // A provisional ID belongs to the customer who journaled it until replay, after which
+    // it is checked through the database ID it was given
+    public boolean isCustomerReservation(int customerId, int reservationId) throws DatabaseConnectionException {
+        return TIMERS.time("isCustomerReservation", () -> {
+            Integer id = ownedId(DatabaseManager.IDEMPOTENT_JOURNAL_RESERVATION, customerId, reservationId);
+            return id != null && (id < 0 || getCustomerReservations(customerId).stream()
+                    .anyMatch(r -> r.getReservationID() == id));
+        });
+    }
+    public boolean isCustomerWaitlistEntry(int customerId, int waitlistId) throws DatabaseConnectionException {
+        return TIMERS.time("isCustomerWaitlistEntry", () -> {
+            Integer id = ownedId(DatabaseManager.IDEMPOTENT_JOURNAL_WAITLIST, customerId, waitlistId);
+            return id != null && (id < 0 || getCustomerWaitlistEntries(customerId).stream()
+                    .anyMatch(w -> w.getWaitlistID() == id && w.getCustomerID() == customerId));
+        });
+    }
+    // The ID to look up in the database, the provisional ID itself when the journal already
+    // shows it is the customer's, or null when it is not theirs
+    private Integer ownedId(String operation, int customerId, int id) throws DatabaseConnectionException {
+        if (id >= 0) {
+            return id;
+        }
+        if (journal == null) {
+            return null;
         }
+        Integer owner = journal.pendingOwner(id);
+        if (owner != null) {
+            return owner == customerId ? id : null;
+        }
+        return dbManager.findIdempotentResult(operation, journal.provisionalKey(id));
+    }
+    // Database ID a replayed booking got for its provisional ID
+    private int resolveProvisional(String operation, int provisionalId, String what)
+            throws DatabaseConnectionException {
+        Integer resolved = dbManager.findIdempotentResult(operation, journal.provisionalKey(provisionalId));
+        if (resolved == null) {
+            throw new RecordNotFoundException("Unknown " + what + " " + provisionalId);
+        }
+        return resolved;
+    }
+
+    // Report Generation
+    public List<Reservation> getReservationsByDate(LocalDate date) throws InvalidStatusException {
+        return TIMERS.time("getReservationsByDate", () -> {
+            return dbManager.getReservationsByDate(date);
+        });
+    }
+    public List<Reservation> getReservationHistoryByDate(LocalDate date) throws DatabaseConnectionException {
+        return TIMERS.time("getReservationHistoryByDate", () -> {
+            return dbManager.getReservationHistoryByDate(date);
+        });
+    }
+    public Map<Table, Integer> getTableUtilization(LocalDate date) throws DatabaseConnectionException {
+        return TIMERS.time("getTableUtilization", () -> {
+            Map<Table, Integer> utilization = new LinkedHashMap<>();
+            for (Table table : dbManager.getAllTables()) {
+                utilization.put(table, dbManager.getTableReservationCount(table.getTableID(), date));
+            }
+            return utilization;
+        });
+    }
+    public void generateDailyReservationReport(LocalDate date) throws DatabaseConnectionException, InvalidStatusException {
+        TIMERS.run("generateDailyReservationReport", () -> {
+            List<Reservation> reservations = getReservationsByDate(date);
+            System.out.println("\n=== Daily Reservation Report ===");
+            System.out.println("Date: " + date);
+            System.out.println("Total Reservations: " + reservations.size());
+
+            for (Reservation res : reservations) {
+                System.out.printf("Time: %s | Table: %d | Party: %d | Status: %s%n",
+                        res.getReservationTime(), res.getTableID(),
+                        res.getPartySize(), res.getStatus());
+            }
+        });
+    }
+    public void generateTableUtilizationReport(LocalDate date) throws DatabaseConnectionException {
+        TIMERS.run("generateTableUtilizationReport", () -> {
+            Map<Table, Integer> utilization = getTableUtilization(date);
+            System.out.println("\n=== Table Utilization Report ===");
+            System.out.println("Date: " + date);
+
+            for (Map.Entry<Table, Integer> entry : utilization.entrySet()) {
+                System.out.printf("Table %s: %d reservations%n",
+                        entry.getKey().getTableNumber(), entry.getValue());
+            }
+        });
+    }
+    public void updateReservationStatus(int reservationId, Reservation.ReservationStatus newStatus) throws DatabaseConnectionException {
+        TIMERS.run("updateReservationStatus", () -> {
+            try {
+                if (reservationId <= 0) {
+                    throw new IllegalArgumentException("Invalid reservation ID");
+                }
+                if (newStatus == null) {
+                    throw new IllegalArgumentException("Reservation status cannot be null");
+                }
+                updateStatusOrJournal(reservationId, newStatus);
+            } catch (DatabaseConnectionException e) {
+                log.atWarn().message("Failed to update reservation status")
+                        .with("reservationId", reservationId)
+                        .with("status", newStatus)
+                        .error(e)
+                        .log();
+                throw e;
+            }
+        });
+    }
+    public List<Waitlist> getActiveWaitlist() throws DatabaseConnectionException {
+        return TIMERS.time("getActiveWaitlist", () -> {
+            return dbManager.getActiveWaitlist();
+        });
     }
     public void generateWaitlistReport(LocalDate date) throws DatabaseConnectionException {
-        List<Waitlist> waitlist = dbManager.getActiveWaitlist();
-        System.out.println("\n=== Waitlist Report ===");
-        System.out.println("Date: " + date);
-        System.out.println("Total Waiting: " + waitlist.size());
+        TIMERS.run("generateWaitlistReport", () -> {
+            List<Waitlist> waitlist = getActiveWaitlist();
+            System.out.println("\n=== Waitlist Report ===");
+            System.out.println("Date: " + date);
+            System.out.println("Total Waiting: " + waitlist.size());
 
-        int totalWaitTime = 0;
-        for (Waitlist entry : waitlist) {
-            totalWaitTime += entry.getWaitTime();
-            System.out.printf("Position: %d | Party Size: %d | Wait Time: %d mins%n",
-                    entry.getQueuePosition(), entry.getPartySize(), entry.getWaitTime());
-        }
+            int totalWaitTime = 0;
+            for (Waitlist entry : waitlist) {
+                totalWaitTime += entry.getWaitTime();
+                System.out.printf("Position: %d | Party Size: %d | Wait Time: %d mins%n",
+                        entry.getQueuePosition(), entry.getPartySize(), entry.getWaitTime());
+            }
 
-        if (!waitlist.isEmpty()) {
-            System.out.printf("Average Wait Time: %d minutes%n", totalWaitTime / waitlist.size());
-        }
+            if (!waitlist.isEmpty()) {
+                System.out.printf("Average Wait Time: %d minutes%n", totalWaitTime / waitlist.size());
+            }
+        });
     }
 
 
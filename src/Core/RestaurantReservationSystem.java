@@ -1,6 +1,8 @@
 package Core;
 
 import Database.*;
+import Events.BookingActivity;
+import Events.EventBus;
 import Security.*;
 import UI.ConsoleInterface;
 import java.util.Scanner;
@@ -18,6 +20,16 @@ public class RestaurantReservationSystem {
         this.authManager = new AuthenticationManager();
         this.scanner = new Scanner(System.in);
         this.consoleInterface = new ConsoleInterface(scanner, dbManager, authManager);
+        if (BookingIndex.isEnabled()) {
+            BookingIndex.getInstance().start();
+        }
+        if (ReservationArchiver.isEnabled()) {
+            ReservationArchiver.getInstance().start();
+        }
+        if (LifecycleScheduler.isEnabled()) {
+            LifecycleScheduler.getInstance().start();
+        }
+        BookingActivity.getInstance().start();
     }
     public static void main(String[] args) {
         try {
@@ -45,8 +57,17 @@ public class RestaurantReservationSystem {
                 }
             } catch (Exception e) {
                 System.out.println("Error: " + e.getMessage());
+            } finally {
+                dbManager.closeConnection();
             }
         }
+        LifecycleScheduler.shutdown();
+        ReservationArchiver.shutdown();
+        VisitCounterBuffer.shutdown();
+        dbManager.closeConnection();
+        BookingIndex.shutdown();
+        EventBus.shutdown();
+        DatabaseConfig.shutdown();
         System.out.println("Thank you for using the Restaurant Reservation System. Goodbye!");
     }
     private void displayMainMenu() {
@@ -0,0 +1,108 @@
+package Core;
+
+import Database.DatabaseConfig;
+import Database.DatabaseManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+// Fork/join scope in the spirit of StructuredTaskScope.ShutdownOnFailure (still a
+// preview API): every fork runs on its own virtual thread, the first failure cancels
+// the siblings, and close() never lets a fork outlive the scope. Forks across all scopes
+// share -Ddb.pool.size permits, so fan-out cannot borrow connections without bound. These
+// are separate from RequestExecutor's permits: a request that holds one while waiting
+// for its forks must not starve them.
+public class StructuredScope implements AutoCloseable {
+    private static final Semaphore forkPermits = new Semaphore(DatabaseConfig.getPoolSize(), true);
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final List<Future<?>> forks = new ArrayList<>();
+    private final Object lock = new Object();
+    private int running;
+    private Throwable failure;
+    private boolean closed;
+
+    public final class Subtask<T> {
+        private volatile T value;
+        private volatile boolean done;
+
+        public T get() {
+            if (!done) {
+                throw new IllegalStateException("Subtask has not completed successfully");
+            }
+            return value;
+        }
+    }
+
+    public <T> Subtask<T> fork(Callable<T> task) {
+        Subtask<T> subtask = new Subtask<>();
+        synchronized (lock) {
+            if (closed) {
+                throw new IllegalStateException("Scope is closed");
+            }
+            running++;
+            forks.add(executor.submit(() -> {
+                boolean permitted = false;
+                try {
+                    forkPermits.acquire();
+                    permitted = true;
+                    subtask.value = task.call();
+                    subtask.done = true;
+                } catch (Throwable t) {
+                    fail(t);
+                } finally {
+                    if (permitted) {
+                        // Each fork borrowed its own pooled connection on this virtual thread
+                        DatabaseManager.getInstance().closeConnection();
+                        forkPermits.release();
+                    }
+                    synchronized (lock) {
+                        running--;
+                        lock.notifyAll();
+                    }
+                }
+            }));
+        }
+        return subtask;
+    }
+
+    // Wait until every fork has finished or one of them has failed.
+    public void join() throws InterruptedException, ExecutionException {
+        synchronized (lock) {
+            while (running > 0 && failure == null) {
+                lock.wait();
+            }
+            if (failure != null) {
+                throw new ExecutionException(failure);
+            }
+        }
+    }
+
+    private void fail(Throwable t) {
+        synchronized (lock) {
+            if (failure != null) {
+                return;
+            }
+            failure = t;
+            lock.notifyAll();
+        }
+        cancelAll();
+    }
+    private void cancelAll() {
+        List<Future<?>> snapshot;
+        synchronized (lock) {
+            snapshot = new ArrayList<>(forks);
+        }
+        for (Future<?> fork : snapshot) {
+            fork.cancel(true);
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (lock) {
+            closed = true;
+        }
+        cancelAll();
+        executor.close();
+    }
+}
@@ -0,0 +1,82 @@
+package Core;
+
+import Utils.TimingWheel;
+import java.time.*;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+public class TableHoldManager {
+    public static final Duration DEFAULT_HOLD_DURATION = Duration.ofMinutes(3);
+    private static TableHoldManager instance;
+
+    private final Map<SlotKey, Hold> holds = new ConcurrentHashMap<>();
+    private final TimingWheel wheel;
+    private final Duration holdDuration;
+
+    private TableHoldManager(Duration holdDuration) {
+        this.holdDuration = holdDuration;
+        this.wheel = new TimingWheel(100, TimeUnit.MILLISECONDS);
+        this.wheel.start();
+    }
+    public static TableHoldManager getInstance() {
+        if (instance == null) {
+            synchronized (TableHoldManager.class) {
+                if (instance == null) {
+                    instance = new TableHoldManager(DEFAULT_HOLD_DURATION);
+                }
+            }
+        }
+        return instance;
+    }
+
+    // Hold Management
+    public boolean placeHold(int tableId, LocalDate date, LocalTime time, int customerId) {
+        SlotKey key = new SlotKey(tableId, date, time);
+        Hold[] placed = new Hold[1];
+        holds.compute(key, (k, existing) -> {
+            if (existing != null && existing.customerId != customerId) {
+                return existing;
+            }
+            if (existing != null) {
+                existing.timeout.cancel();
+            }
+            Hold hold = new Hold(customerId);
+            hold.timeout = wheel.schedule(() -> holds.remove(k, hold),
+                    holdDuration.toMillis(), TimeUnit.MILLISECONDS);
+            placed[0] = hold;
+            return hold;
+        });
+        return placed[0] != null;
+    }
+    public void releaseHold(int tableId, LocalDate date, LocalTime time, int customerId) {
+        holds.computeIfPresent(new SlotKey(tableId, date, time), (k, existing) -> {
+            if (existing.customerId != customerId) {
+                return existing;
+            }
+            existing.timeout.cancel();
+            return null;
+        });
+    }
+    public boolean isHeldByOther(int tableId, LocalDate date, LocalTime time, int customerId) {
+        Hold hold = holds.get(new SlotKey(tableId, date, time));
+        return hold != null && hold.customerId != customerId;
+    }
+    public int getActiveHoldCount() {
+        return holds.size();
+    }
+    public Duration getHoldDuration() {
+        return holdDuration;
+    }
+
+    private record SlotKey(int tableId, LocalDate date, LocalTime time) {}
+
+    private static final class Hold {
+        private final int customerId;
+        private TimingWheel.Timeout timeout;
+
+        private Hold(int customerId) {
+            this.customerId = customerId;
+        }
+    }
+}
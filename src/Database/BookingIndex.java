@@ -0,0 +1,377 @@
+package Database;
+
+import Exceptions.DatabaseConnectionException;
+import Logging.Logger;
+import Models.*;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+// In-memory index of the tables, upcoming active reservations and active waitlist, kept
+// current by DatabaseManager after each successful write. It answers slot checks and
+// degraded reads without touching SQL Server. Startup maps the last snapshot
+// (-Ddb.index.snapshotFile) and catches up with a delta: rows above the snapshot's ID
+// high-water marks, tables modified since, and the narrow list of still-active IDs at
+// or below the marks, which drops rows closed or deleted in the meantime. Without a
+// snapshot the same catch-up from zero is the full load.
+public class BookingIndex {
+    private static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("db.index.enabled", "true"));
+    private static final Path SNAPSHOT_FILE = Path.of(System.getProperty("db.index.snapshotFile", "booking-index.snap"));
+    private static final long SNAPSHOT_INTERVAL_MILLIS = Long.getLong("db.index.snapshotIntervalMillis", 60_000);
+    private static final Logger log = Logger.get(BookingIndex.class);
+    private static BookingIndex instance;
+
+    private final Map<Integer, Table> tables = new ConcurrentHashMap<>();
+    private final Map<Integer, Reservation> reservations = new ConcurrentHashMap<>();
+    private final Map<String, Integer> bookedSlots = new ConcurrentHashMap<>();
+    private final Map<Integer, Waitlist> waitlist = new ConcurrentHashMap<>();
+    private final AtomicInteger tableHighWater = new AtomicInteger();
+    private final AtomicInteger reservationHighWater = new AtomicInteger();
+    private final AtomicInteger waitlistHighWater = new AtomicInteger();
+    private volatile LocalDateTime tablesModifiedAt;
+    private final AtomicLong changes = new AtomicLong();
+    private final LongAdder snapshotsWritten = new LongAdder();
+
+    private volatile boolean loaded;
+    private volatile boolean caughtUp;
+    private volatile boolean loadedFromSnapshot;
+    private volatile long lastLoadMillis;
+    private volatile long lastDeltaRows;
+    private volatile long lastSnapshotBytes;
+    private long snapshotChanges = -1;
+    private Thread maintainer;
+
+    private BookingIndex() {}
+    public static BookingIndex getInstance() {
+        if (instance == null) {
+            synchronized (BookingIndex.class) {
+                if (instance == null) {
+                    instance = new BookingIndex();
+                }
+            }
+        }
+        return instance;
+    }
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    // Lifecycle
+    // Loads the snapshot and catches up; if the database is unavailable the snapshot
+    // alone is served and the catch-up is retried in the background
+    public synchronized void start() {
+        if (maintainer != null) {
+            return;
+        }
+        long begin = System.nanoTime();
+        loadSnapshot();
+        try {
+            catchUp();
+        } catch (DatabaseConnectionException e) {
+            log.atWarn().message("Booking index catch-up failed, will retry")
+                    .with("fromSnapshot", loadedFromSnapshot)
+                    .error(e)
+                    .log();
+        } finally {
+            DatabaseManager.getInstance().closeConnection();
+        }
+        lastLoadMillis = (System.nanoTime() - begin) / 1_000_000;
+        log.atInfo().message("Booking index loaded")
+                .with("fromSnapshot", loadedFromSnapshot)
+                .with("caughtUp", caughtUp)
+                .with("tables", tables.size())
+                .with("reservations", reservations.size())
+                .with("waitlist", waitlist.size())
+                .with("deltaRows", lastDeltaRows)
+                .with("millis", lastLoadMillis)
+                .log();
+
+        maintainer = new Thread(this::maintainLoop, "booking-index-snapshot");
+        maintainer.setDaemon(true);
+        maintainer.start();
+    }
+    // Final snapshot on the way out, so the next start only needs a small delta
+    public static void shutdown() {
+        BookingIndex index = instance;
+        if (index != null && index.loaded) {
+            index.writeSnapshotIfChanged();
+        }
+    }
+    private void loadSnapshot() {
+        IndexSnapshot.Contents snapshot;
+        try {
+            snapshot = IndexSnapshot.read(SNAPSHOT_FILE);
+        } catch (IOException e) {
+            log.atWarn().message("Ignoring unreadable booking index snapshot")
+                    .with("file", SNAPSHOT_FILE)
+                    .error(e)
+                    .log();
+            return;
+        }
+        if (snapshot == null) {
+            return;
+        }
+        LocalDate today = LocalDate.now();
+        for (Table table : snapshot.tables()) {
+            tables.put(table.getTableID(), table);
+        }
+        for (Reservation reservation : snapshot.reservations()) {
+            if (!reservation.getReservationDate().isBefore(today)) {
+                putReservation(reservation);
+            }
+        }
+        for (Waitlist entry : snapshot.waitlist()) {
+            if (!entry.getRequestedDate().isBefore(today)) {
+                waitlist.put(entry.getWaitlistID(), entry);
+            }
+        }
+        tableHighWater.set(snapshot.tableHighWater());
+        reservationHighWater.set(snapshot.reservationHighWater());
+        waitlistHighWater.set(snapshot.waitlistHighWater());
+        tablesModifiedAt = snapshot.tablesModifiedAt();
+        snapshotChanges = changes.get();
+        loadedFromSnapshot = true;
+        loaded = true;
+    }
+    private void catchUp() throws DatabaseConnectionException {
+        DatabaseManager dbManager = DatabaseManager.getInstance();
+        // Marks are read before querying; later writes land above them via write-through
+        int tablesUpTo = tableHighWater.get();
+        int reservationsUpTo = reservationHighWater.get();
+        int waitlistUpTo = waitlistHighWater.get();
+        LocalDate today = LocalDate.now();
+
+        List<Table> changedTables = dbManager.getTablesChangedSince(tablesModifiedAt, tablesUpTo);
+        Set<Integer> liveTables = tablesUpTo > 0 ? dbManager.getTableIds(tablesUpTo) : Set.of();
+        List<Reservation> newReservations = dbManager.getActiveReservationsAfter(reservationsUpTo, today);
+        Set<Integer> liveReservations = reservationsUpTo > 0
+                ? dbManager.getActiveReservationIds(reservationsUpTo, today) : Set.of();
+        List<Waitlist> newWaitlist = dbManager.getActiveWaitlistAfter(waitlistUpTo);
+        Set<Integer> liveWaitlist = waitlistUpTo > 0 ? dbManager.getActiveWaitlistIds(waitlistUpTo) : Set.of();
+
+        long removed = 0;
+        removed += retainLive(tables, tablesUpTo, liveTables, table -> {});
+        removed += retainLive(reservations, reservationsUpTo, liveReservations, this::unbookSlot);
+        removed += retainLive(waitlist, waitlistUpTo, liveWaitlist, entry -> {});
+        for (Table table : changedTables) {
+            tableSaved(table);
+        }
+        for (Reservation reservation : newReservations) {
+            reservationSaved(reservation);
+        }
+        for (Waitlist entry : newWaitlist) {
+            waitlistSaved(entry);
+        }
+        lastDeltaRows = changedTables.size() + newReservations.size() + newWaitlist.size() + removed;
+        loaded = true;
+        caughtUp = true;
+    }
+    private static <V> long retainLive(Map<Integer, V> rows, int upTo, Set<Integer> live,
+                                       Consumer<V> onRemove) {
+        long removed = 0;
+        for (Integer id : new ArrayList<>(rows.keySet())) {
+            if (id <= upTo && !live.contains(id)) {
+                V row = rows.remove(id);
+                if (row != null) {
+                    onRemove.accept(row);
+                    removed++;
+                }
+            }
+        }
+        return removed;
+    }
+    private void maintainLoop() {
+        while (true) {
+            try {
+                Thread.sleep(SNAPSHOT_INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (!caughtUp && !DatabaseManager.isDegraded()) {
+                try {
+                    catchUp();
+                    log.atInfo().message("Booking index caught up").with("deltaRows", lastDeltaRows).log();
+                } catch (DatabaseConnectionException e) {
+                    log.atDebug().message("Booking index catch-up still failing").error(e).log();
+                } finally {
+                    DatabaseManager.getInstance().closeConnection();
+                }
+            }
+            if (loaded) {
+                writeSnapshotIfChanged();
+            }
+        }
+    }
+
+    // Snapshots
+    private synchronized void writeSnapshotIfChanged() {
+        long current = changes.get();
+        if (current == snapshotChanges) {
+            return;
+        }
+        // Marks first: anything written while copying is above them and comes back in the delta
+        IndexSnapshot.Contents contents = new IndexSnapshot.Contents(System.currentTimeMillis(),
+                tableHighWater.get(), reservationHighWater.get(), waitlistHighWater.get(), tablesModifiedAt,
+                new ArrayList<>(tables.values()), new ArrayList<>(reservations.values()),
+                new ArrayList<>(waitlist.values()));
+        try {
+            lastSnapshotBytes = IndexSnapshot.write(SNAPSHOT_FILE, contents);
+            snapshotChanges = current;
+            snapshotsWritten.increment();
+        } catch (IOException e) {
+            log.atWarn().message("Failed to write booking index snapshot")
+                    .with("file", SNAPSHOT_FILE)
+                    .error(e)
+                    .log();
+        }
+    }
+
+    // Write-through from DatabaseManager once a write succeeded; the index takes ownership
+    // of the objects handed in, so DatabaseManager passes copies of caller-owned models
+    void tableSaved(Table table) {
+        tables.put(table.getTableID(), table);
+        tableHighWater.accumulateAndGet(table.getTableID(), Math::max);
+        LocalDateTime modified = table.getLastModifiedDate();
+        if (modified != null && (tablesModifiedAt == null || modified.isAfter(tablesModifiedAt))) {
+            tablesModifiedAt = modified;
+        }
+        changes.incrementAndGet();
+    }
+    void tableStatusChanged(int tableId, Table.TableStatus status) {
+        Table table = tables.get(tableId);
+        if (table != null) {
+            table.setStatus(status);
+            changes.incrementAndGet();
+        }
+    }
+    void reservationSaved(Reservation reservation) {
+        reservationHighWater.accumulateAndGet(reservation.getReservationID(), Math::max);
+        if (isActive(reservation.getStatus()) && !reservation.getReservationDate().isBefore(LocalDate.now())) {
+            putReservation(reservation);
+        }
+        changes.incrementAndGet();
+    }
+    void reservationStatusChanged(int reservationId, Reservation.ReservationStatus status) {
+        Reservation reservation = reservations.get(reservationId);
+        if (reservation == null) {
+            return;
+        }
+        if (isActive(status)) {
+            reservation.setStatus(status);
+        } else {
+            reservations.remove(reservationId);
+            unbookSlot(reservation);
+        }
+        changes.incrementAndGet();
+    }
+    void waitlistSaved(Waitlist entry) {
+        waitlistHighWater.accumulateAndGet(entry.getWaitlistID(), Math::max);
+        if (entry.getStatus() == Waitlist.WaitlistStatus.ACTIVE) {
+            waitlist.put(entry.getWaitlistID(), entry);
+        }
+        changes.incrementAndGet();
+    }
+    void waitlistStatusChanged(int waitlistId, Waitlist.WaitlistStatus status) {
+        if (status == Waitlist.WaitlistStatus.ACTIVE) {
+            return;
+        }
+        waitlistRemoved(waitlistId);
+    }
+    void waitlistRemoved(int waitlistId) {
+        if (waitlist.remove(waitlistId) != null) {
+            changes.incrementAndGet();
+        }
+    }
+    void waitTimeChanged(int waitlistId, int waitTime) {
+        Waitlist entry = waitlist.get(waitlistId);
+        if (entry != null) {
+            entry.setWaitTime(waitTime);
+            changes.incrementAndGet();
+        }
+    }
+    private void putReservation(Reservation reservation) {
+        reservations.put(reservation.getReservationID(), reservation);
+        bookedSlots.put(slotKey(reservation.getTableID(), reservation.getReservationDate(),
+                reservation.getReservationTime()), reservation.getReservationID());
+    }
+    // Only while the slot still points at this reservation; a rebooking keeps it
+    private void unbookSlot(Reservation reservation) {
+        bookedSlots.remove(slotKey(reservation.getTableID(), reservation.getReservationDate(),
+                reservation.getReservationTime()), reservation.getReservationID());
+    }
+
+    // Queries
+    public boolean isLoaded() {
+        return loaded;
+    }
+    public boolean isSlotBooked(int tableId, LocalDate date, LocalTime time) {
+        return bookedSlots.containsKey(slotKey(tableId, date, time));
+    }
+    // Same rules as DatabaseManager.getAvailableTables, smallest tables first
+    public List<Table> getAvailableTables(int partySize, LocalDate date, LocalTime time) {
+        List<Table> available = new ArrayList<>();
+        for (Table table : tables.values()) {
+            if (table.getCapacity() >= partySize && table.getStatus() == Table.TableStatus.AVAILABLE
+                    && !isSlotBooked(table.getTableID(), date, time)) {
+                available.add(table);
+            }
+        }
+        available.sort(Comparator.comparingInt(Table::getCapacity));
+        return available;
+    }
+    public List<Reservation> getActiveReservations() {
+        List<Reservation> active = new ArrayList<>(reservations.values());
+        active.sort(Comparator.comparing(Reservation::getReservationDate)
+                .thenComparing(Reservation::getReservationTime));
+        return active;
+    }
+    public List<Waitlist> getActiveWaitlist() {
+        List<Waitlist> active = new ArrayList<>(waitlist.values());
+        active.sort(Comparator.comparingInt(Waitlist::getQueuePosition));
+        return active;
+    }
+
+    // Statistics
+    public boolean isCaughtUp() {
+        return caughtUp;
+    }
+    public boolean isLoadedFromSnapshot() {
+        return loadedFromSnapshot;
+    }
+    public long getLastLoadMillis() {
+        return lastLoadMillis;
+    }
+    public long getLastDeltaRows() {
+        return lastDeltaRows;
+    }
+    public long getSnapshotsWritten() {
+        return snapshotsWritten.sum();
+    }
+    public long getLastSnapshotBytes() {
+        return lastSnapshotBytes;
+    }
+    public int getTableCount() {
+        return tables.size();
+    }
+    public int getReservationCount() {
+        return reservations.size();
+    }
+    public int getWaitlistCount() {
+        return waitlist.size();
+    }
+
+    private static boolean isActive(Reservation.ReservationStatus status) {
+        return status == Reservation.ReservationStatus.PENDING || status == Reservation.ReservationStatus.CONFIRMED;
+    }
+    private static String slotKey(int tableId, LocalDate date, LocalTime time) {
+        return tableId + "@" + date + "T" + time;
+    }
+}
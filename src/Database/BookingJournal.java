@@ -0,0 +1,667 @@
+package Database;
+
+import Exceptions.*;
+import Logging.Logger;
+import Models.*;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32C;
+
+// Append-only, memory-mapped journal of reservation and waitlist mutations accepted while
+// the database is unavailable. Each record is [int length][int crc32c][byte type][payload];
+// appends copy into the mapping under a short lock and a flusher thread forces everything
+// written so far in one call, so concurrent bookings share an fsync. A replay thread
+// applies pending records in order once DatabaseManager is reachable again, and the
+// header keeps the replayed offset so a restart resumes where replay stopped.
+// Provisional IDs are never reused within one journal file. When a journaled booking is
+// replayed, its database ID is stored in the idempotency store under provisionalKey(id),
+// so clients can keep using the provisional ID after the journal drains or the process
+// restarts, until the idempotency keys are purged.
+public class BookingJournal {
+    private static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("db.journal.enabled", "true"));
+    private static final int MAGIC = 0x52524A31; // "RRJ1"
+    private static final int HEADER_SIZE = 64;
+    private static final int REPLAYED_OFFSET = 8;
+    private static final int JOURNAL_ID_OFFSET = 16;
+    private static final int NEXT_PROVISIONAL_OFFSET = 24;
+    private static final int RECORD_HEADER_SIZE = 9;
+    private static final int MAX_PAYLOAD = 2_048;
+    private static final int MAX_CONFLICTS = 256;
+    private static final long REPLAY_INTERVAL_MILLIS = Long.getLong("db.journal.replayIntervalMillis", 1_000);
+    private static final Path CONFLICT_FILE = Path.of(System.getProperty("db.journal.conflictFile",
+            "booking-journal-conflicts.log"));
+    private static final Logger log = Logger.get(BookingJournal.class);
+    private static final ThreadLocal<ByteBuffer> scratch =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocate(MAX_PAYLOAD));
+    private static BookingJournal instance;
+
+    public enum RecordType { CREATE_RESERVATION, UPDATE_RESERVATION_STATUS, CREATE_WAITLIST, UPDATE_WAITLIST_STATUS }
+
+    public sealed interface Mutation permits ReservationCreated, ReservationStatusChanged, WaitlistCreated, WaitlistStatusChanged {}
+    public record ReservationCreated(String idempotencyKey, int provisionalId, Reservation reservation) implements Mutation {}
+    public record ReservationStatusChanged(int reservationId, Reservation.ReservationStatus status) implements Mutation {}
+    public record WaitlistCreated(String idempotencyKey, int provisionalId, Waitlist entry) implements Mutation {}
+    public record WaitlistStatusChanged(int waitlistId, Waitlist.WaitlistStatus status) implements Mutation {}
+    public record Conflict(Mutation mutation, String reason) {}
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final String keyPrefix = "journal-" + Long.toString(System.currentTimeMillis(), 36) + "-";
+    private final AtomicInteger nextProvisionalId = new AtomicInteger();
+    // Identifies this journal file in provisional keys, so a recreated file cannot map its
+    // provisional IDs onto an older file's bookings
+    private String journalId;
+    private final Set<String> pendingSlots = ConcurrentHashMap.newKeySet();
+    private final Map<Integer, String> provisionalSlots = new ConcurrentHashMap<>();
+    // Provisional ID -> customer, until the record that created it is replayed
+    private final Map<Integer, Integer> pendingProvisionalOwners = new ConcurrentHashMap<>();
+    // Only touched by the replay thread
+    private boolean replayPaused;
+    private long blockedPosition = -1;
+    private volatile String blockedReason;
+    private final Deque<Conflict> conflicts = new ArrayDeque<>();
+    private final LongAdder conflictCount = new LongAdder();
+    private final AtomicLong pendingRecords = new AtomicLong();
+    private final LongAdder appended = new LongAdder();
+    private final LongAdder replayed = new LongAdder();
+    private final LongAdder syncs = new LongAdder();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition dirty = lock.newCondition();
+    private final Condition synced = lock.newCondition();
+    // Positions only grow; the mapping offset is position - base, and base moves forward
+    // whenever a fully replayed journal starts over at the front of the file
+    private long base;
+    private long writePosition;
+    private long durablePosition;
+    private long replayedPosition;
+
+    private BookingJournal(Path file, int capacity) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        recover();
+
+        Thread flusher = new Thread(this::flushLoop, "booking-journal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+        Thread replayer = new Thread(this::replayLoop, "booking-journal-replay");
+        replayer.setDaemon(true);
+        replayer.start();
+    }
+    public static BookingJournal getInstance() {
+        if (instance == null) {
+            synchronized (BookingJournal.class) {
+                if (instance == null) {
+                    try {
+                        instance = new BookingJournal(Path.of(System.getProperty("db.journal.file", "booking-journal.dat")),
+                                Integer.getInteger("db.journal.sizeBytes", 16 * 1024 * 1024));
+                    } catch (IOException e) {
+                        throw new IllegalStateException("Failed to open booking journal", e);
+                    }
+                }
+            }
+        }
+        return instance;
+    }
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    // Journaling
+    // Returns a negative provisional ID that stays valid for status changes until replay
+    public int journalReservation(Reservation reservation, String idempotencyKey)
+            throws ReservationException, DatabaseUnavailableException {
+        String slot = slotKey(reservation.getTableID(), reservation.getReservationDate(), reservation.getReservationTime());
+        if (BookingIndex.isEnabled() && BookingIndex.getInstance().isSlotBooked(reservation.getTableID(),
+                reservation.getReservationDate(), reservation.getReservationTime())) {
+            throw new ReservationException("Table already booked for that time");
+        }
+        if (!pendingSlots.add(slot)) {
+            throw new ReservationException("Table already booked for that time");
+        }
+        int provisionalId = -nextProvisionalId.incrementAndGet();
+        String key = idempotencyKey != null ? idempotencyKey : keyPrefix + -provisionalId;
+        try {
+            appendDurably(new ReservationCreated(key, provisionalId, reservation));
+        } catch (DatabaseUnavailableException e) {
+            pendingSlots.remove(slot);
+            throw e;
+        }
+        provisionalSlots.put(provisionalId, slot);
+        pendingProvisionalOwners.put(provisionalId, reservation.getCustomerID());
+        return provisionalId;
+    }
+    public void journalReservationStatus(int reservationId, Reservation.ReservationStatus status)
+            throws DatabaseUnavailableException {
+        appendDurably(new ReservationStatusChanged(reservationId, status));
+        if (status == Reservation.ReservationStatus.CANCELLED && reservationId < 0) {
+            // A booking taken and cancelled during the same outage frees its slot right away
+            String slot = provisionalSlots.remove(reservationId);
+            if (slot != null) {
+                pendingSlots.remove(slot);
+            }
+        }
+    }
+    public int journalWaitlistEntry(Waitlist entry, String idempotencyKey) throws DatabaseUnavailableException {
+        int provisionalId = -nextProvisionalId.incrementAndGet();
+        String key = idempotencyKey != null ? idempotencyKey : keyPrefix + -provisionalId;
+        appendDurably(new WaitlistCreated(key, provisionalId, entry));
+        pendingProvisionalOwners.put(provisionalId, entry.getCustomerID());
+        return provisionalId;
+    }
+    // True while the record that created this provisional ID has not been replayed; a
+    // status change for it must then be journaled behind it
+    public boolean isPending(int provisionalId) {
+        return pendingProvisionalOwners.containsKey(provisionalId);
+    }
+    // Customer who made a not yet replayed provisional booking; null once it is replayed
+    public Integer pendingOwner(int provisionalId) {
+        return pendingProvisionalOwners.get(provisionalId);
+    }
+    // Idempotency key under which replay stores the database ID for a provisional ID
+    public String provisionalKey(int provisionalId) {
+        return journalId + ":" + -provisionalId;
+    }
+    public void journalWaitlistStatus(int waitlistId, Waitlist.WaitlistStatus status) throws DatabaseUnavailableException {
+        appendDurably(new WaitlistStatusChanged(waitlistId, status));
+    }
+    private void appendDurably(Mutation mutation) throws DatabaseUnavailableException {
+        long end = append(mutation);
+        try {
+            awaitDurable(end);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DatabaseUnavailableException("Interrupted while syncing booking journal", e);
+        }
+    }
+    long append(Mutation mutation) throws DatabaseUnavailableException {
+        ByteBuffer payload = scratch.get().clear();
+        RecordType type = encode(mutation, payload);
+        payload.flip();
+        CRC32C crc = new CRC32C();
+        crc.update((byte) type.ordinal());
+        crc.update(payload.duplicate());
+        int length = payload.remaining();
+
+        lock.lock();
+        try {
+            int position = (int) (writePosition - base);
+            // Keep room for the zero length that marks the end of the journal
+            if (position + RECORD_HEADER_SIZE + length + 4 > buffer.capacity()) {
+                throw new DatabaseUnavailableException("Booking journal is full", null);
+            }
+            buffer.putInt(position, length);
+            buffer.putInt(position + 4, (int) crc.getValue());
+            buffer.put(position + 8, (byte) type.ordinal());
+            buffer.put(position + RECORD_HEADER_SIZE, payload, 0, length);
+            buffer.putInt(position + RECORD_HEADER_SIZE + length, 0);
+            writePosition += RECORD_HEADER_SIZE + length;
+            pendingRecords.incrementAndGet();
+            appended.increment();
+            dirty.signal();
+            return writePosition;
+        } finally {
+            lock.unlock();
+        }
+    }
+    void awaitDurable(long position) throws InterruptedException {
+        lock.lock();
+        try {
+            while (durablePosition < position) {
+                synced.await();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Group fsync
+    private void flushLoop() {
+        while (true) {
+            int offset;
+            int length;
+            long target;
+            lock.lock();
+            try {
+                while (writePosition == durablePosition) {
+                    dirty.awaitUninterruptibly();
+                }
+                offset = (int) (durablePosition - base);
+                // Also covers the end marker written after the last record
+                length = (int) Math.min(buffer.capacity() - offset, writePosition - durablePosition + 4);
+                target = writePosition;
+            } finally {
+                lock.unlock();
+            }
+            buffer.force(offset, length);
+            syncs.increment();
+            lock.lock();
+            try {
+                durablePosition = target;
+                synced.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // Replay
+    private void replayLoop() {
+        DatabaseManager dbManager = DatabaseManager.getInstance();
+        while (true) {
+            try {
+                Thread.sleep(REPLAY_INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            // No degraded check here: with the breaker open the first borrow is rejected cheaply,
+            // and once it allows a probe this replay is what closes it again
+            if (pendingRecords.get() == 0) {
+                continue;
+            }
+            try {
+                replayPending(dbManager);
+            } catch (RuntimeException e) {
+                log.atError().message("Booking journal replay failed").error(e).log();
+            } finally {
+                dbManager.closeConnection();
+            }
+        }
+    }
+    private void replayPending(DatabaseManager dbManager) {
+        int position;
+        int end;
+        lock.lock();
+        try {
+            // Only the replay thread moves base, so these offsets stay valid below
+            position = (int) (replayedPosition - base);
+            end = (int) (durablePosition - base);
+        } finally {
+            lock.unlock();
+        }
+        while (position < end) {
+            int length = buffer.getInt(position);
+            Mutation mutation = decode(RecordType.values()[buffer.get(position + 8)],
+                    buffer.slice(position + RECORD_HEADER_SIZE, length));
+            try {
+                apply(dbManager, mutation);
+            } catch (ValidationException | RecordNotFoundException | ConflictException e) {
+                // The database answered and said no; retrying will not change that
+                recordConflict(mutation, e.getMessage());
+            } catch (DatabaseConnectionException | RuntimeException e) {
+                if (DatabaseManager.isTransientFailure(e)) {
+                    if (!replayPaused) {
+                        replayPaused = true;
+                        log.atInfo().message("Booking journal replay paused, database unavailable").log();
+                    }
+                } else if (blockedPosition != base + position) {
+                    // Anything else is retried from the same record, in order, until it
+                    // applies or an operator steps in; logged once per record
+                    blockedPosition = base + position;
+                    blockedReason = e.getMessage();
+                    log.atError().message("Booking journal replay blocked")
+                            .with("mutation", describe(mutation))
+                            .error(e)
+                            .log();
+                }
+                return;
+            }
+            blockedPosition = -1;
+            blockedReason = null;
+            if (mutation instanceof ReservationCreated created) {
+                Reservation r = created.reservation();
+                pendingSlots.remove(slotKey(r.getTableID(), r.getReservationDate(), r.getReservationTime()));
+                provisionalSlots.remove(created.provisionalId());
+            }
+            pendingProvisionalOwners.remove(provisionalId(mutation));
+            position += RECORD_HEADER_SIZE + length;
+            if (markReplayed(RECORD_HEADER_SIZE + length)) {
+                position = HEADER_SIZE;
+                end = HEADER_SIZE;
+            }
+            pendingRecords.decrementAndGet();
+            replayed.increment();
+        }
+        replayPaused = false;
+        log.atInfo().message("Booking journal replayed").with("records", replayed.sum()).log();
+    }
+    private void apply(DatabaseManager dbManager, Mutation mutation) throws DatabaseConnectionException {
+        switch (mutation) {
+            case ReservationCreated created -> {
+                Reservation reservation = created.reservation();
+                Integer existingId = dbManager.findIdempotentResult(DatabaseManager.IDEMPOTENT_RESERVATION,
+                        reservation.getCustomerID(), created.idempotencyKey(), DatabaseManager.requestHash(reservation));
+                if (existingId == null) {
+                    // Both were unchecked when the booking was journaled
+                    DatabaseManager.BookingCheck check = dbManager.checkBooking(reservation.getCustomerID(),
+                            reservation.getTableID(), reservation.getReservationDate(), reservation.getReservationTime());
+                    if (!check.customerExists()) {
+                        throw new RecordNotFoundException("Customer " + reservation.getCustomerID() + " not found");
+                    }
+                    if (!check.tableFree()) {
+                        throw new ConflictException("Table " + reservation.getTableID() +
+                                " was booked while the database was unavailable");
+                    }
+                    existingId = dbManager.createReservation(reservation, created.idempotencyKey());
+                }
+                dbManager.recordIdempotentResult(DatabaseManager.IDEMPOTENT_JOURNAL_RESERVATION,
+                        provisionalKey(created.provisionalId()), existingId);
+            }
+            case ReservationStatusChanged changed -> dbManager.updateReservationStatus(
+                    resolve(dbManager, DatabaseManager.IDEMPOTENT_JOURNAL_RESERVATION, changed.reservationId()),
+                    changed.status());
+            case WaitlistCreated created -> {
+                int customerId = created.entry().getCustomerID();
+                Integer existingId = dbManager.findIdempotentResult(DatabaseManager.IDEMPOTENT_WAITLIST, customerId,
+                        created.idempotencyKey(), DatabaseManager.requestHash(created.entry()));
+                if (existingId == null) {
+                    if (!dbManager.findExistingCustomerIds(Set.of(customerId)).contains(customerId)) {
+                        throw new RecordNotFoundException("Customer " + customerId + " not found");
+                    }
+                    existingId = dbManager.createWaitlistEntry(created.entry(), created.idempotencyKey());
+                }
+                dbManager.recordIdempotentResult(DatabaseManager.IDEMPOTENT_JOURNAL_WAITLIST,
+                        provisionalKey(created.provisionalId()), existingId);
+            }
+            case WaitlistStatusChanged changed -> dbManager.updateWaitlistStatus(
+                    resolve(dbManager, DatabaseManager.IDEMPOTENT_JOURNAL_WAITLIST, changed.waitlistId()),
+                    changed.status());
+        }
+    }
+    private int resolve(DatabaseManager dbManager, String operation, int id) throws DatabaseConnectionException {
+        if (id >= 0) {
+            return id;
+        }
+        Integer resolved = dbManager.findIdempotentResult(operation, provisionalKey(id));
+        if (resolved == null) {
+            throw new RecordNotFoundException("Provisional ID " + id + " was never assigned a database ID");
+        }
+        return resolved;
+    }
+    // Conflicts are dropped from the journal, so each one is also appended to the conflict
+    // file for an operator to settle by hand; the in-memory list only feeds the metrics
+    private void recordConflict(Mutation mutation, String reason) {
+        log.atError().message("Journaled mutation conflicts with database state")
+                .with("mutation", describe(mutation))
+                .with("reason", reason)
+                .with("file", CONFLICT_FILE)
+                .log();
+        try {
+            Files.writeString(CONFLICT_FILE, Instant.now() + "\t" + describe(mutation) + "\t" + reason + "\n",
+                    StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.SYNC);
+        } catch (IOException e) {
+            log.atError().message("Failed to write journal conflict file")
+                    .with("file", CONFLICT_FILE)
+                    .error(e)
+                    .log();
+        }
+        conflictCount.increment();
+        synchronized (conflicts) {
+            if (conflicts.size() == MAX_CONFLICTS) {
+                conflicts.removeFirst();
+            }
+            conflicts.addLast(new Conflict(mutation, reason));
+        }
+    }
+    // Returns true when the journal was fully drained and starts over at the front
+    private boolean markReplayed(int recordSize) {
+        lock.lock();
+        try {
+            replayedPosition += recordSize;
+            boolean drained = replayedPosition == writePosition && durablePosition == writePosition;
+            if (drained) {
+                buffer.putInt(HEADER_SIZE, 0);
+                base = writePosition - HEADER_SIZE;
+            }
+            buffer.putLong(REPLAYED_OFFSET, replayedPosition - base);
+            // Records before the replayed offset are gone after a restart, so the header is
+            // what keeps their provisional IDs from being handed out again
+            buffer.putInt(NEXT_PROVISIONAL_OFFSET, nextProvisionalId.get());
+            buffer.force(0, HEADER_SIZE + 4);
+            return drained;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Recovery
+    private void recover() {
+        if (buffer.getInt(0) != MAGIC) {
+            buffer.putInt(0, MAGIC);
+            buffer.putLong(REPLAYED_OFFSET, HEADER_SIZE);
+            buffer.putInt(HEADER_SIZE, 0);
+            buffer.force(0, HEADER_SIZE + 4);
+        }
+        if (buffer.getLong(JOURNAL_ID_OFFSET) == 0) {
+            buffer.putLong(JOURNAL_ID_OFFSET, new SecureRandom().nextLong() & Long.MAX_VALUE | 1);
+            buffer.force(0, HEADER_SIZE);
+        }
+        journalId = Long.toString(buffer.getLong(JOURNAL_ID_OFFSET), 36);
+        nextProvisionalId.set(buffer.getInt(NEXT_PROVISIONAL_OFFSET));
+        replayedPosition = buffer.getLong(REPLAYED_OFFSET);
+        long position = HEADER_SIZE;
+        // Stop at the end marker, or at a record torn by a crash mid-append
+        while (position + RECORD_HEADER_SIZE <= buffer.capacity()) {
+            int length = buffer.getInt((int) position);
+            if (length <= 0 || length > MAX_PAYLOAD || position + RECORD_HEADER_SIZE + length > buffer.capacity()) {
+                break;
+            }
+            CRC32C crc = new CRC32C();
+            crc.update(buffer.get((int) position + 8));
+            crc.update(buffer.slice((int) position + RECORD_HEADER_SIZE, length));
+            if ((int) crc.getValue() != buffer.getInt((int) position + 4)) {
+                log.atWarn().message("Discarding torn booking journal record").with("position", position).log();
+                break;
+            }
+            if (position >= replayedPosition) {
+                Mutation mutation = decode(RecordType.values()[buffer.get((int) position + 8)],
+                        buffer.slice((int) position + RECORD_HEADER_SIZE, length));
+                if (mutation instanceof ReservationCreated created) {
+                    Reservation r = created.reservation();
+                    String slot = slotKey(r.getTableID(), r.getReservationDate(), r.getReservationTime());
+                    pendingSlots.add(slot);
+                    provisionalSlots.put(created.provisionalId(), slot);
+                }
+                switch (mutation) {
+                    case ReservationCreated created -> pendingProvisionalOwners.put(created.provisionalId(),
+                            created.reservation().getCustomerID());
+                    case WaitlistCreated created -> pendingProvisionalOwners.put(created.provisionalId(),
+                            created.entry().getCustomerID());
+                    default -> { }
+                }
+                pendingRecords.incrementAndGet();
+                nextProvisionalId.accumulateAndGet(-provisionalId(mutation), Math::max);
+            }
+            position += RECORD_HEADER_SIZE + length;
+        }
+        buffer.putInt((int) position, 0);
+        writePosition = durablePosition = position;
+        replayedPosition = Math.min(replayedPosition, position);
+        if (replayedPosition < writePosition) {
+            log.atInfo().message("Booking journal has pending records")
+                    .with("bytes", writePosition - replayedPosition)
+                    .log();
+        }
+    }
+    private static String describe(Mutation mutation) {
+        return switch (mutation) {
+            case ReservationCreated c -> "CREATE_RESERVATION provisionalId=" + c.provisionalId() +
+                    " customer=" + c.reservation().getCustomerID() + " table=" + c.reservation().getTableID() +
+                    " date=" + c.reservation().getReservationDate() + " time=" + c.reservation().getReservationTime() +
+                    " partySize=" + c.reservation().getPartySize() + " key=" + c.idempotencyKey();
+            case ReservationStatusChanged c -> "UPDATE_RESERVATION_STATUS reservation=" + c.reservationId() +
+                    " status=" + c.status();
+            case WaitlistCreated c -> "CREATE_WAITLIST provisionalId=" + c.provisionalId() +
+                    " customer=" + c.entry().getCustomerID() + " date=" + c.entry().getRequestedDate() +
+                    " time=" + c.entry().getRequestedTime() + " partySize=" + c.entry().getPartySize() +
+                    " key=" + c.idempotencyKey();
+            case WaitlistStatusChanged c -> "UPDATE_WAITLIST_STATUS waitlist=" + c.waitlistId() + " status=" + c.status();
+        };
+    }
+    private static int provisionalId(Mutation mutation) {
+        return switch (mutation) {
+            case ReservationCreated created -> created.provisionalId();
+            case WaitlistCreated created -> created.provisionalId();
+            default -> 0;
+        };
+    }
+
+    // Encoding
+    private static RecordType encode(Mutation mutation, ByteBuffer out) throws DatabaseUnavailableException {
+        try {
+            switch (mutation) {
+                case ReservationCreated created -> {
+                    Reservation r = created.reservation();
+                    putString(out, created.idempotencyKey());
+                    out.putInt(created.provisionalId());
+                    out.putInt(r.getCustomerID());
+                    out.putInt(r.getTableID());
+                    out.putLong(r.getReservationDate().toEpochDay());
+                    out.putInt(r.getReservationTime().toSecondOfDay());
+                    out.putInt(r.getPartySize());
+                    out.putInt(r.getEstimatedDuration());
+                    putString(out, r.getSpecialRequests());
+                    return RecordType.CREATE_RESERVATION;
+                }
+                case ReservationStatusChanged changed -> {
+                    out.putInt(changed.reservationId());
+                    putString(out, changed.status().name());
+                    return RecordType.UPDATE_RESERVATION_STATUS;
+                }
+                case WaitlistCreated created -> {
+                    Waitlist w = created.entry();
+                    putString(out, created.idempotencyKey());
+                    out.putInt(created.provisionalId());
+                    out.putInt(w.getCustomerID());
+                    out.putLong(w.getRequestedDate().toEpochDay());
+                    out.putInt(w.getRequestedTime().toSecondOfDay());
+                    out.putInt(w.getPartySize());
+                    putString(out, w.getStatus().name());
+                    out.putInt(w.getWaitTime());
+                    return RecordType.CREATE_WAITLIST;
+                }
+                case WaitlistStatusChanged changed -> {
+                    out.putInt(changed.waitlistId());
+                    putString(out, changed.status().name());
+                    return RecordType.UPDATE_WAITLIST_STATUS;
+                }
+            }
+        } catch (BufferOverflowException e) {
+            throw new DatabaseUnavailableException("Booking too large for the journal", e);
+        }
+    }
+    private static Mutation decode(RecordType type, ByteBuffer in) {
+        return switch (type) {
+            case CREATE_RESERVATION -> {
+                String key = getString(in);
+                int provisionalId = in.getInt();
+                Reservation r = new Reservation();
+                r.setCustomerID(in.getInt());
+                r.setTableID(in.getInt());
+                r.setReservationDate(LocalDate.ofEpochDay(in.getLong()));
+                r.setReservationTime(LocalTime.ofSecondOfDay(in.getInt()));
+                r.setPartySize(in.getInt());
+                r.setEstimatedDuration(in.getInt());
+                r.setSpecialRequests(getString(in));
+                yield new ReservationCreated(key, provisionalId, r);
+            }
+            case UPDATE_RESERVATION_STATUS -> {
+                int id = in.getInt();
+                yield new ReservationStatusChanged(id, Reservation.ReservationStatus.valueOf(getString(in)));
+            }
+            case CREATE_WAITLIST -> {
+                String key = getString(in);
+                int provisionalId = in.getInt();
+                Waitlist w = new Waitlist();
+                w.setCustomerID(in.getInt());
+                w.setRequestedDate(LocalDate.ofEpochDay(in.getLong()));
+                w.setRequestedTime(LocalTime.ofSecondOfDay(in.getInt()));
+                w.setPartySize(in.getInt());
+                w.setStatus(Waitlist.WaitlistStatus.valueOf(getString(in)));
+                w.setWaitTime(in.getInt());
+                yield new WaitlistCreated(key, provisionalId, w);
+            }
+            case UPDATE_WAITLIST_STATUS -> {
+                int id = in.getInt();
+                yield new WaitlistStatusChanged(id, Waitlist.WaitlistStatus.valueOf(getString(in)));
+            }
+        };
+    }
+    private static void putString(ByteBuffer out, String value) {
+        if (value == null) {
+            out.putShort((short) -1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.putShort((short) bytes.length);
+        out.put(bytes);
+    }
+    private static String getString(ByteBuffer in) {
+        int length = in.getShort();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    private static String slotKey(int tableId, LocalDate date, LocalTime time) {
+        return tableId + "@" + date + "T" + time;
+    }
+
+    // Statistics
+    public long getPendingCount() {
+        return pendingRecords.get();
+    }
+    public long getPendingBytes() {
+        lock.lock();
+        try {
+            return writePosition - replayedPosition;
+        } finally {
+            lock.unlock();
+        }
+    }
+    public long getAppendedCount() {
+        return appended.sum();
+    }
+    public long getReplayedCount() {
+        return replayed.sum();
+    }
+    public long getSyncCount() {
+        return syncs.sum();
+    }
+    public long getConflictCount() {
+        return conflictCount.sum();
+    }
+    // Why replay is stuck on its next record, or null when it is not
+    public String getBlockedReason() {
+        return blockedReason;
+    }
+    public Path getConflictFile() {
+        return CONFLICT_FILE;
+    }
+    // The most recent conflicts since startup; the conflict file has all of them
+    public List<Conflict> getConflicts() {
+        synchronized (conflicts) {
+            return new ArrayList<>(conflicts);
+        }
+    }
+}
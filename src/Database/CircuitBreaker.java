@@ -0,0 +1,118 @@
+package Database;
+
+import Logging.Logger;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+// Stops callers from queueing behind connect timeouts while the database is down.
+// After failureThreshold consecutive connection failures the breaker opens and
+// acquirePermission() fails immediately; once openMillis has passed a single probe is
+// let through (half-open) and its outcome closes or re-opens the breaker.
+public class CircuitBreaker {
+    private static final Logger log = Logger.get(CircuitBreaker.class);
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    // Thrown instead of attempting a connection while the breaker is open
+    public static final class OpenException extends SQLTransientConnectionException {
+        private OpenException(String message) {
+            super(message, "08001");
+        }
+    }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openNanos;
+    // State and the time it opened change together, so a failed trip can never move the
+    // open time of a trip that won
+    private record Status(State state, long openedAtNanos) {}
+    private static final Status CLOSED = new Status(State.CLOSED, 0);
+    private static final Status HALF_OPEN = new Status(State.HALF_OPEN, 0);
+
+    private final AtomicReference<Status> status = new AtomicReference<>(CLOSED);
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicBoolean probeInFlight = new AtomicBoolean();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder trips = new LongAdder();
+
+    public CircuitBreaker(String name, int failureThreshold, long openMillis) {
+        if (failureThreshold <= 0 || openMillis <= 0) {
+            throw new IllegalArgumentException("Failure threshold and open time must be greater than 0");
+        }
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMillis);
+    }
+
+    // Permission
+    public void acquirePermission() throws OpenException {
+        Status current = status.get();
+        if (current.state() == State.CLOSED) {
+            return;
+        }
+        if (current.state() == State.OPEN) {
+            if (System.nanoTime() - current.openedAtNanos() < openNanos) {
+                throw reject();
+            }
+            status.compareAndSet(current, HALF_OPEN);
+        }
+        if (!probeInFlight.compareAndSet(false, true)) {
+            throw reject();
+        }
+    }
+    public void onSuccess() {
+        if (consecutiveFailures.get() != 0) {
+            consecutiveFailures.set(0);
+        }
+        if (status.get().state() != State.CLOSED) {
+            status.set(CLOSED);
+            probeInFlight.set(false);
+            log.atInfo().message("Circuit closed").with("breaker", name).log();
+        }
+    }
+    // Returns true when this failure tripped the breaker open
+    public boolean onFailure() {
+        State current = status.get().state();
+        if (current == State.HALF_OPEN) {
+            trip(current);
+            probeInFlight.set(false);
+            return true;
+        }
+        return consecutiveFailures.incrementAndGet() >= failureThreshold && trip(State.CLOSED);
+    }
+    private boolean trip(State from) {
+        Status current = status.get();
+        if (current.state() != from || !status.compareAndSet(current, new Status(State.OPEN, System.nanoTime()))) {
+            return false;
+        }
+        trips.increment();
+        log.atWarn().message("Circuit opened")
+                .with("breaker", name)
+                .with("consecutiveFailures", consecutiveFailures.get())
+                .with("openMillis", TimeUnit.NANOSECONDS.toMillis(openNanos))
+                .log();
+        return true;
+    }
+    private OpenException reject() {
+        rejected.increment();
+        return new OpenException(name + " is unavailable (circuit open)");
+    }
+
+    // Statistics
+    public State getState() {
+        return status.get().state();
+    }
+    public boolean isClosed() {
+        return status.get().state() == State.CLOSED;
+    }
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+    public long getTripCount() {
+        return trips.sum();
+    }
+}
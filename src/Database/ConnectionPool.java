@@ -0,0 +1,147 @@
+package Database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+
+// Keeps idle physical connections around so short-lived (virtual) threads don't pay
+// a full SQL Server login per request. Borrowed connections are proxies whose
+// close() hands the physical connection back instead of closing it. Each borrow is
+// tracked as a lease by the ConnectionTracker for leak and hold-time reporting.
+class ConnectionPool {
+    private static final long VALIDATE_AFTER_IDLE_MILLIS = 30_000;
+
+    @FunctionalInterface
+    interface ConnectionFactory {
+        Connection open() throws SQLException;
+    }
+
+    private final ConnectionFactory factory;
+    private final BlockingDeque<IdleConnection> idle;
+    private final ConnectionTracker tracker;
+
+    ConnectionPool(ConnectionFactory factory, int maxIdle) {
+        this.factory = factory;
+        this.idle = new LinkedBlockingDeque<>(maxIdle);
+        this.tracker = ConnectionTracker.getInstance();
+    }
+
+    Connection borrow() throws SQLException {
+        JdbcEvents.ConnectionAcquire event = new JdbcEvents.ConnectionAcquire();
+        event.begin();
+        try {
+            IdleConnection candidate;
+            while ((candidate = idle.pollFirst()) != null) {
+                Connection physical = candidate.connection;
+                boolean stale = System.currentTimeMillis() - candidate.idleSince > VALIDATE_AFTER_IDLE_MILLIS;
+                event.validated |= stale;
+                if (!physical.isClosed() && (!stale || physical.isValid(2))) {
+                    return wrap(physical);
+                }
+                closeQuietly(physical);
+            }
+            event.newConnection = true;
+            return wrap(factory.open());
+        } finally {
+            event.idleConnections = idle.size();
+            event.commit();
+        }
+    }
+    private void release(Connection physical) {
+        try {
+            if (physical.isClosed()) {
+                return;
+            }
+            if (!physical.getAutoCommit()) {
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+            if (!idle.offerFirst(new IdleConnection(physical, System.currentTimeMillis()))) {
+                physical.close();
+            }
+        } catch (SQLException e) {
+            closeQuietly(physical);
+        }
+    }
+    int getIdleCount() {
+        return idle.size();
+    }
+    void closeIdle() {
+        IdleConnection candidate;
+        while ((candidate = idle.pollFirst()) != null) {
+            closeQuietly(candidate.connection);
+        }
+    }
+
+    private Connection wrap(Connection physical) {
+        ConnectionTracker.Lease lease = tracker.open(physical);
+        Connection proxy = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new PooledHandler(physical, lease));
+        tracker.watch(proxy, lease);
+        return proxy;
+    }
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+            // Connection is being discarded anyway
+        }
+    }
+
+    private record IdleConnection(Connection connection, long idleSince) {}
+
+    private final class PooledHandler implements InvocationHandler {
+        private final Connection physical;
+        private final ConnectionTracker.Lease lease;
+        private boolean returned;
+
+        private PooledHandler(Connection physical, ConnectionTracker.Lease lease) {
+            this.physical = physical;
+            this.lease = lease;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    if (!returned) {
+                        returned = true;
+                        tracker.close(lease);
+                        release(physical);
+                    }
+                    return null;
+                }
+                case "isClosed" -> {
+                    return returned || physical.isClosed();
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "PooledConnection[" + physical + "]";
+                }
+                default -> {
+                    if (returned) {
+                        throw new SQLException("Connection has been returned to the pool");
+                    }
+                    if (method.getName().startsWith("prepare") || method.getName().equals("createStatement")) {
+                        return TracingStatements.prepare(physical, method, args);
+                    }
+                    try {
+                        return method.invoke(physical, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                }
+            }
+        }
+    }
+}
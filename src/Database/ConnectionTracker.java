@@ -0,0 +1,233 @@
+package Database;
+
+import Logging.Logger;
+import Metrics.MetricsRegistry;
+import java.lang.ref.Cleaner;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Lifecycle bookkeeping for borrowed pool connections. Every borrow opens a lease that
+// records the owner thread, the borrow time and (unless -Ddb.leak.captureStacks=false)
+// the borrow stack. A daemon thread warns once about leases held longer than
+// -Ddb.leak.thresholdMillis, and a Cleaner reports proxies that became unreachable
+// without close() and closes their physical connection. Published over JMX as
+// RestaurantReservationSystem:type=ConnectionTracker.
+public class ConnectionTracker implements ConnectionTrackerMBean {
+    private static final long THRESHOLD_MILLIS = Long.getLong("db.leak.thresholdMillis", 30_000);
+    private static final boolean CAPTURE_STACKS =
+            Boolean.parseBoolean(System.getProperty("db.leak.captureStacks", "true"));
+    private static final Logger log = Logger.get(ConnectionTracker.class);
+    private static final Cleaner cleaner = Cleaner.create();
+    private static ConnectionTracker instance;
+
+    private final Set<Lease> live = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger liveCount = new AtomicInteger();
+    private final AtomicInteger peak = new AtomicInteger();
+    private final AtomicLong nextId = new AtomicLong();
+    private final LongAdder borrowed = new LongAdder();
+    private final LongAdder returned = new LongAdder();
+    private final LongAdder leaked = new LongAdder();
+    private final LongAdder longHeld = new LongAdder();
+
+    private ConnectionTracker() {
+        Thread checker = new Thread(this::checkLoop, "connection-leak-detector");
+        checker.setDaemon(true);
+        checker.start();
+        MetricsRegistry.getInstance().registerMBean(this, "type=ConnectionTracker");
+    }
+    public static ConnectionTracker getInstance() {
+        if (instance == null) {
+            synchronized (ConnectionTracker.class) {
+                if (instance == null) {
+                    instance = new ConnectionTracker();
+                }
+            }
+        }
+        return instance;
+    }
+
+    // Lease lifecycle
+    Lease open(Connection physical) {
+        Thread owner = Thread.currentThread();
+        Lease lease = new Lease(nextId.incrementAndGet(), owner.getName(), System.currentTimeMillis(), physical,
+                CAPTURE_STACKS ? new Throwable("Connection borrowed by " + owner.getName()) : null);
+        live.add(lease);
+        peak.accumulateAndGet(liveCount.incrementAndGet(), Math::max);
+        borrowed.increment();
+        return lease;
+    }
+    // Called once the proxy exists; the cleaning action only references the lease
+    void watch(Connection proxy, Lease lease) {
+        lease.cleanable = cleaner.register(proxy, lease);
+    }
+    void close(Lease lease) {
+        if (lease.closed.compareAndSet(false, true)) {
+            forget(lease);
+            returned.increment();
+            if (lease.cleanable != null) {
+                lease.cleanable.clean();
+            }
+        }
+    }
+    private void onUnreachable(Lease lease) {
+        if (!lease.closed.compareAndSet(false, true)) {
+            return;
+        }
+        forget(lease);
+        leaked.increment();
+        log.atError().message("Connection dropped without close")
+                .with("lease", lease.id)
+                .with("owner", lease.owner)
+                .with("heldMillis", lease.ageMillis(System.currentTimeMillis()))
+                .with("borrowedAt", lease.borrowFrame())
+                .error(lease.borrowSite)
+                .log();
+        try {
+            // Its transaction state is unknown, so it cannot go back to the pool
+            lease.physical.close();
+        } catch (SQLException ignored) {
+            // Connection is being discarded anyway
+        }
+    }
+    private void forget(Lease lease) {
+        live.remove(lease);
+        liveCount.decrementAndGet();
+    }
+
+    // Long-held detection
+    private void checkLoop() {
+        long interval = Math.max(1_000, Math.min(THRESHOLD_MILLIS / 2, 10_000));
+        while (true) {
+            try {
+                Thread.sleep(interval);
+            } catch (InterruptedException e) {
+                return;
+            }
+            long now = System.currentTimeMillis();
+            for (Lease lease : live) {
+                if (!lease.warned && lease.ageMillis(now) > THRESHOLD_MILLIS) {
+                    lease.warned = true;
+                    longHeld.increment();
+                    log.atWarn().message("Connection held past threshold")
+                            .with("lease", lease.id)
+                            .with("owner", lease.owner)
+                            .with("heldMillis", lease.ageMillis(now))
+                            .with("thresholdMillis", THRESHOLD_MILLIS)
+                            .with("borrowedAt", lease.borrowFrame())
+                            .log();
+                }
+            }
+        }
+    }
+
+    // MBean
+    @Override
+    public int getLiveConnections() {
+        return liveCount.get();
+    }
+    @Override
+    public int getPeakConnections() {
+        return peak.get();
+    }
+    @Override
+    public int getIdleConnections() {
+        return DatabaseConfig.getIdleConnectionCount();
+    }
+    @Override
+    public long getBorrowedCount() {
+        return borrowed.sum();
+    }
+    @Override
+    public long getReturnedCount() {
+        return returned.sum();
+    }
+    @Override
+    public long getLeakedCount() {
+        return leaked.sum();
+    }
+    @Override
+    public long getLongHeldCount() {
+        return longHeld.sum();
+    }
+    @Override
+    public long getOldestLeaseMillis() {
+        long now = System.currentTimeMillis();
+        long oldest = 0;
+        for (Lease lease : live) {
+            oldest = Math.max(oldest, lease.ageMillis(now));
+        }
+        return oldest;
+    }
+    @Override
+    public long getThresholdMillis() {
+        return THRESHOLD_MILLIS;
+    }
+    @Override
+    public String dump() {
+        long now = System.currentTimeMillis();
+        List<Lease> leases = new ArrayList<>(live);
+        leases.sort(Comparator.comparingLong(lease -> lease.borrowedAtMillis));
+        StringBuilder out = new StringBuilder(String.format("%-8s %-30s %12s  %s%n",
+                "Lease", "Owner", "Held ms", "Borrowed at"));
+        for (Lease lease : leases) {
+            out.append(String.format("%-8d %-30s %12d  %s%n",
+                    lease.id, lease.owner, lease.ageMillis(now), lease.borrowFrame()));
+        }
+        return out.toString();
+    }
+    @Override
+    public void resetPeak() {
+        peak.set(liveCount.get());
+    }
+
+    static final class Lease implements Runnable {
+        private final long id;
+        private final String owner;
+        private final long borrowedAtMillis;
+        private final Connection physical;
+        private final Throwable borrowSite;
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile boolean warned;
+        private Cleaner.Cleanable cleanable;
+
+        private Lease(long id, String owner, long borrowedAtMillis, Connection physical, Throwable borrowSite) {
+            this.id = id;
+            this.owner = owner;
+            this.borrowedAtMillis = borrowedAtMillis;
+            this.physical = physical;
+            this.borrowSite = borrowSite;
+        }
+
+        @Override
+        public void run() {
+            getInstance().onUnreachable(this);
+        }
+        private long ageMillis(long now) {
+            return now - borrowedAtMillis;
+        }
+        // First frame outside the pool plumbing, i.e. the code that asked for the connection
+        private String borrowFrame() {
+            if (borrowSite == null) {
+                return "unknown";
+            }
+            for (StackTraceElement frame : borrowSite.getStackTrace()) {
+                String className = frame.getClassName();
+                if (className.startsWith("java.") || className.startsWith("jdk.")
+                        || className.equals(ConnectionTracker.class.getName())
+                        || className.equals(ConnectionPool.class.getName())
+                        || className.equals(DatabaseConfig.class.getName())
+                        || frame.getMethodName().equals("getConnection")) {
+                    continue;
+                }
+                return className + "." + frame.getMethodName() + ":" + frame.getLineNumber();
+            }
+            return "unknown";
+        }
+    }
+}
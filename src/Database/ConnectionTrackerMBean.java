@@ -0,0 +1,15 @@
+package Database;
+
+public interface ConnectionTrackerMBean {
+    int getLiveConnections();
+    int getPeakConnections();
+    int getIdleConnections();
+    long getBorrowedCount();
+    long getReturnedCount();
+    long getLeakedCount();
+    long getLongHeldCount();
+    long getOldestLeaseMillis();
+    long getThresholdMillis();
+    String dump();
+    void resetPeak();
+}
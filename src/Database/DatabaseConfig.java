@@ -1,17 +1,100 @@
 package Database;
 
+import Logging.Logger;
 import com.microsoft.sqlserver.jdbc.SQLServerDriver;
 
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.sql.Statement;
 
 public class DatabaseConfig {
-    private static final String DB_URL = "jdbc:sqlserver://DESKTOP-C3O7KLG\\SQLEXPRESS;databaseName=RestaurantReservationSystem;integratedSecurity=true;encrypt=false;";
+    private static final Logger log = Logger.get(DatabaseConfig.class);
+    // -Ddb.url wins; otherwise the dialect builds one from -Ddb.host and -Ddb.name
+    private static final SqlDialect dialect = SqlDialect.select(System.getProperty("db.dialect"), System.getProperty("db.url"));
+    private static final String DB_URL = System.getProperty("db.url", dialect.defaultUrl(
+            System.getProperty("db.host", "DESKTOP-C3O7KLG\\SQLEXPRESS"),
+            System.getProperty("db.name", "RestaurantReservationSystem")));
+    private static final boolean INIT_SCHEMA = Boolean.parseBoolean(System.getProperty("db.initSchema", "true"));
+    private static volatile boolean schemaReady;
+    private static final int POOL_SIZE =
+            Integer.getInteger("db.pool.size", Math.max(4, Runtime.getRuntime().availableProcessors() * 2));
+    private static final ConnectionPool pool = new ConnectionPool(DatabaseConfig::openConnection, POOL_SIZE);
+    private static final CircuitBreaker breaker = new CircuitBreaker("Database",
+            Integer.getInteger("db.breaker.failureThreshold", 3), Long.getLong("db.breaker.openMillis", 10_000));
+
+    static {
+        try {
+            DriverManager.registerDriver(new SQLServerDriver());
+        } catch (SQLException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
 
     public static Connection getConnection() throws SQLException {
-        DriverManager.registerDriver(new SQLServerDriver());
-        return DriverManager.getConnection(DB_URL);
+        breaker.acquirePermission();
+        try {
+            Connection connection = pool.borrow();
+            breaker.onSuccess();
+            return connection;
+        } catch (SQLException e) {
+            onConnectionLost();
+            throw e;
+        }
+    }
+    // Also reported by DatabaseManager when an established connection breaks mid-query
+    static void onConnectionLost() {
+        if (breaker.onFailure()) {
+            // Idle connections are most likely dead too; don't let the probe pick one
+            pool.closeIdle();
+        }
+    }
+    public static SqlDialect getDialect() {
+        return dialect;
+    }
+    public static String getUrl() {
+        return DB_URL;
+    }
+    public static CircuitBreaker getCircuitBreaker() {
+        return breaker;
+    }
+    public static boolean isDegraded() {
+        return !breaker.isClosed();
+    }
+    public static int getPoolSize() {
+        return POOL_SIZE;
+    }
+    public static int getIdleConnectionCount() {
+        return pool.getIdleCount();
+    }
+    public static void shutdown() {
+        pool.closeIdle();
+    }
+    private static Connection openConnection() throws SQLException {
+        Connection connection = DriverManager.getConnection(DB_URL);
+        if (!schemaReady) {
+            try {
+                initSchema(connection);
+            } catch (SQLException e) {
+                connection.close();
+                throw e;
+            }
+        }
+        return connection;
+    }
+    private static synchronized void initSchema(Connection connection) throws SQLException {
+        if (schemaReady) {
+            return;
+        }
+        if (INIT_SCHEMA && !dialect.schemaStatements().isEmpty()) {
+            try (Statement statement = connection.createStatement()) {
+                for (String ddl : dialect.schemaStatements()) {
+                    statement.execute(ddl);
+                }
+            }
+            log.atInfo().message("Schema initialized").with("dialect", dialect.name()).with("url", DB_URL).log();
+        }
+        schemaReady = true;
     }
 
-}
\ No newline at end of file
+}
@@ -1,16 +1,66 @@
 package Database;
 
 import Models.*;
+import Events.DomainEvent;
+import Events.EventBus;
 import Exceptions.*;
+import Logging.Logger;
+import Metrics.MetricsRegistry;
+import Metrics.Timer;
+import Metrics.Timers;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.sql.*;
 import java.sql.Date;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
 import java.time.*;
 import static Utils.ValidationUtils.*;
 
 public class DatabaseManager {
     private static ThreadLocal<Connection> connectionHolder = new ThreadLocal<>();
     private static DatabaseManager instance;
+    private static final Logger log = Logger.get(DatabaseManager.class);
+    private static final ReadSnapshotCache snapshots = new ReadSnapshotCache();
+    private static final SqlDialect dialect = DatabaseConfig.getDialect();
+    // Null when batch inserts read their IDs from getGeneratedKeys instead
+    private static final InsertOutputDialect insertOutput = dialect instanceof InsertOutputDialect output ? output : null;
+    private static final int MAX_DEADLOCK_RETRIES = Integer.getInteger("db.tx.deadlockRetries", 3);
+    // Work each open inTransaction on this thread holds back until it commits (event
+    // publishing and BookingIndex updates), innermost first
+    private static final ThreadLocal<Deque<List<Runnable>>> pendingActions = ThreadLocal.withInitial(ArrayDeque::new);
+
+    // Transaction Template
+    public enum Propagation {
+        REQUIRED,       // join the thread's open transaction, or start one
+        REQUIRES_NEW,   // suspend the thread's connection and commit independently
+        NESTED          // savepoint inside the open transaction, or start one
+    }
+    public enum Isolation {
+        DEFAULT(-1),
+        READ_UNCOMMITTED(Connection.TRANSACTION_READ_UNCOMMITTED),
+        READ_COMMITTED(Connection.TRANSACTION_READ_COMMITTED),
+        REPEATABLE_READ(Connection.TRANSACTION_REPEATABLE_READ),
+        SERIALIZABLE(Connection.TRANSACTION_SERIALIZABLE),
+        SNAPSHOT(-1);   // level supplied by the dialect
+
+        private final int level;
+
+        Isolation(int level) {
+            this.level = level;
+        }
+    }
+    @FunctionalInterface
+    public interface TransactionWork<T> {
+        T execute(Connection conn) throws SQLException, DatabaseConnectionException;
+    }
+
+    // Metrics
+    private static final Timers TIMERS = MetricsRegistry.timers("DatabaseManager");
 
 
     //            Database Instance
@@ -25,8 +75,10 @@ public class DatabaseManager {
                 connectionHolder.set(conn);
             }
             return conn;
+        } catch (CircuitBreaker.OpenException e) {
+            throw new DatabaseUnavailableException(e.getMessage(), e);
         } catch (SQLException e) {
-            throw new DatabaseConnectionException("Connection failed", e);
+            throw new DatabaseUnavailableException("Connection failed", e);
         }
     }
     public static DatabaseManager getInstance() {
@@ -42,41 +94,311 @@ public class DatabaseManager {
 
     // Transaction Management
     public void beginTransaction() throws DatabaseConnectionException {
+        TIMERS.run("beginTransaction", () -> {
+            try {
+                getConnection().setAutoCommit(false);
+            } catch (SQLException e) {
+                throw new DatabaseConnectionException("Failed to start transaction", e);
+            }
+        });
+    }
+    public void commitTransaction() throws DatabaseConnectionException {
+        TIMERS.run("commitTransaction", () -> {
+            Connection conn = null;
+            try {
+                conn = getConnection();
+                conn.commit();
+                conn.setAutoCommit(true);
+            } catch (SQLException e) {
+                throw new DatabaseConnectionException("Commit failed", e);
+            }
+        });
+    }
+    public void rollbackTransaction() throws DatabaseConnectionException {
+        TIMERS.run("rollbackTransaction", () -> {
+            Connection conn = null;
+            try {
+                conn = getConnection();
+                conn.rollback();
+                conn.setAutoCommit(true);
+            } catch (SQLException e) {
+                throw new DatabaseConnectionException("Rollback failed", e);
+            }
+        });
+    }
+    private void rollbackTransaction(Connection conn) {
+        if (conn != null) {
+            try {
+                conn.rollback();
+            } catch (SQLException ex) {
+                log.atError().message("Transaction rollback failed").with("sqlState", ex.getSQLState()).error(ex).log();
+            }
+        }
+    }
+
+    // Runs work in one transaction on the thread's connection. Only the outermost
+    // transaction commits, and it is re-run when SQL Server picks it as a deadlock victim,
+    // so work must not have side effects outside the database.
+    public <T> T inTransaction(TransactionWork<T> work) throws DatabaseConnectionException {
+        return inTransaction(Propagation.REQUIRED, Isolation.DEFAULT, work);
+    }
+    public <T> T inTransaction(Propagation propagation, Isolation isolation, TransactionWork<T> work)
+            throws DatabaseConnectionException {
+        return TIMERS.time("inTransaction", () -> {
+            if (propagation == Propagation.REQUIRES_NEW) {
+                return inSuspendedTransaction(isolation, work);
+            }
+            Connection conn = getConnection();
+            if (!isTransactionActive(conn)) {
+                return runWithDeadlockRetry(conn, isolation, work);
+            }
+            if (propagation == Propagation.NESTED) {
+                return runInSavepoint(conn, work);
+            }
+            try {
+                return work.execute(conn);
+            } catch (SQLException e) {
+                throw new DatabaseConnectionException("Transaction failed: " + e.getMessage(), e);
+            }
+        });
+    }
+    private <T> T inSuspendedTransaction(Isolation isolation, TransactionWork<T> work) throws DatabaseConnectionException {
+        Connection suspended = connectionHolder.get();
+        Connection conn;
         try {
-            getConnection().setAutoCommit(false);
+            conn = DatabaseConfig.getConnection();
+        } catch (CircuitBreaker.OpenException e) {
+            throw new DatabaseUnavailableException(e.getMessage(), e);
         } catch (SQLException e) {
-            throw new DatabaseConnectionException("Failed to start transaction", e);
+            throw new DatabaseUnavailableException("Connection failed", e);
+        }
+        connectionHolder.set(conn);
+        try {
+            return runWithDeadlockRetry(conn, isolation, work);
+        } finally {
+            try {
+                conn.close();
+            } catch (SQLException e) {
+                log.atWarn().message("Connection close failed").error(e).log();
+            }
+            if (suspended != null) {
+                connectionHolder.set(suspended);
+            } else {
+                connectionHolder.remove();
+            }
         }
     }
-    public void commitTransaction() throws DatabaseConnectionException {
-        Connection conn = null;
+    private <T> T runWithDeadlockRetry(Connection conn, Isolation isolation, TransactionWork<T> work)
+            throws DatabaseConnectionException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return runTransaction(conn, isolation, work);
+            } catch (DatabaseConnectionException e) {
+                if (attempt > MAX_DEADLOCK_RETRIES || !isDeadlockVictim(e)) {
+                    throw e;
+                }
+                log.atWarn().message("Deadlock victim, retrying transaction").with("attempt", attempt).log();
+                try {
+                    Thread.sleep(ThreadLocalRandom.current().nextLong(5, 20L << attempt));
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+    private <T> T runTransaction(Connection conn, Isolation isolation, TransactionWork<T> work)
+            throws DatabaseConnectionException {
+        int previousIsolation = -1;
+        Deque<List<Runnable>> actions = pendingActions.get();
+        actions.push(new ArrayList<>());
         try {
-            conn = getConnection();
+            if (isolation != Isolation.DEFAULT) {
+                previousIsolation = conn.getTransactionIsolation();
+                conn.setTransactionIsolation(isolation == Isolation.SNAPSHOT
+                        ? dialect.snapshotIsolationLevel() : isolation.level);
+            }
+            conn.setAutoCommit(false);
+            T result = work.execute(conn);
             conn.commit();
-            conn.setAutoCommit(true);
+            runCommitted(actions.peek());
+            return result;
+        } catch (SQLException e) {
+            rollbackTransaction(conn);
+            throw new DatabaseConnectionException("Transaction failed: " + e.getMessage(), e);
+        } catch (Throwable t) {
+            rollbackTransaction(conn);
+            throw t;
+        } finally {
+            actions.pop();
+            restoreAutoCommit(conn);
+            if (previousIsolation != -1) {
+                try {
+                    conn.setTransactionIsolation(previousIsolation);
+                } catch (SQLException e) {
+                    log.atWarn().message("Failed to restore isolation level").error(e).log();
+                }
+            }
+        }
+    }
+    private <T> T runInSavepoint(Connection conn, TransactionWork<T> work) throws DatabaseConnectionException {
+        List<Runnable> actions = pendingActions.get().peek();
+        int mark = actions == null ? 0 : actions.size();
+        Savepoint savepoint;
+        try {
+            savepoint = conn.setSavepoint();
+        } catch (SQLException e) {
+            throw new DatabaseConnectionException("Failed to create savepoint", e);
+        }
+        try {
+            return work.execute(conn);
         } catch (SQLException e) {
-            throw new DatabaseConnectionException("Commit failed", e);
+            rollbackToSavepoint(conn, savepoint);
+            discardActionsAfter(actions, mark);
+            throw new DatabaseConnectionException("Transaction failed: " + e.getMessage(), e);
+        } catch (Throwable t) {
+            rollbackToSavepoint(conn, savepoint);
+            discardActionsAfter(actions, mark);
+            throw t;
+        }
+    }
+    // The transaction has committed, so a failing action is logged rather than thrown
+    private static void runCommitted(List<Runnable> actions) {
+        for (Runnable action : actions) {
+            try {
+                action.run();
+            } catch (RuntimeException e) {
+                log.atError().message("Post-commit action failed").error(e).log();
+            }
         }
     }
-    public void rollbackTransaction() throws DatabaseConnectionException {
-        Connection conn = null;
+    private static void discardActionsAfter(List<Runnable> actions, int mark) {
+        if (actions != null) {
+            actions.subList(mark, actions.size()).clear();
+        }
+    }
+    // Inside inTransaction the action waits for the outermost commit (or the REQUIRES_NEW
+    // commit it belongs to) and is dropped on rollback; outside one it runs at once.
+    // Transactions opened with beginTransaction are not tracked, so their actions run
+    // before the commit.
+    private static void afterCommit(Runnable action) {
+        List<Runnable> actions = pendingActions.get().peek();
+        if (actions != null) {
+            actions.add(action);
+        } else {
+            action.run();
+        }
+    }
+    private static void publishEvent(DomainEvent event) {
+        if (EventBus.isEnabled()) {
+            afterCommit(() -> EventBus.getInstance().publish(event));
+        }
+    }
+    private void rollbackToSavepoint(Connection conn, Savepoint savepoint) {
         try {
-            conn = getConnection();
-            conn.rollback();
-            conn.setAutoCommit(true);
+            conn.rollback(savepoint);
         } catch (SQLException e) {
-            throw new DatabaseConnectionException("Rollback failed", e);
+            log.atError().message("Savepoint rollback failed").with("sqlState", e.getSQLState()).error(e).log();
         }
     }
-    private void rollbackTransaction(Connection conn) {
-        if (conn != null) {
-            try {
-                conn.rollback();
-            } catch (SQLException ex) {
-                // Log this critical error
-                System.err.println("Transaction rollback failed: " + ex.getMessage());
+    private static boolean isTransactionActive(Connection conn) throws DatabaseConnectionException {
+        try {
+            return !conn.getAutoCommit();
+        } catch (SQLException e) {
+            throw new DatabaseConnectionException("Connection failed", e);
+        }
+    }
+    private static boolean isDeadlockVictim(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException e
+                    && dialect.isDeadlockVictim(e)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Degraded Reads
+    @FunctionalInterface
+    private interface Read<T> {
+        T execute() throws DatabaseConnectionException;
+    }
+    // Remembers the result of a successful read; while the database is unavailable the
+    // last snapshot (or the fallback) is returned instead of failing. Every such answer
+    // is counted and flagged on the thread, since the breaker may still be closed when
+    // the first ones go out; see takeStaleRead().
+    private static final ThreadLocal<Boolean> staleRead = new ThreadLocal<>();
+    private <T> T readThrough(String key, Read<T> read) throws DatabaseConnectionException {
+        return readThrough(key, read, () -> null);
+    }
+    private <T> T readThrough(String key, Read<T> read, Supplier<T> fallback)
+            throws DatabaseConnectionException {
+        try {
+            T value = read.execute();
+            if (value != null) {
+                snapshots.put(key, value);
+            }
+            return value;
+        } catch (DatabaseConnectionException e) {
+            if (!(e instanceof DatabaseUnavailableException)) {
+                if (!isConnectionFailure(e)) {
+                    throw e;
+                }
+                // The thread's connection broke: drop it and let the breaker count the failure
+                closeConnection();
+                DatabaseConfig.onConnectionLost();
+            }
+            T stale = snapshots.get(key);
+            if (stale == null) {
+                stale = fallback.get();
+            }
+            if (stale == null) {
+                throw e;
+            }
+            snapshots.countStaleRead();
+            staleRead.set(Boolean.TRUE);
+            return stale;
+        }
+    }
+    // True when a read on this thread was answered from a snapshot since the last call
+    public static boolean takeStaleRead() {
+        if (staleRead.get() == null) {
+            return false;
+        }
+        staleRead.remove();
+        return true;
+    }
+    private static boolean isConnectionFailure(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLRecoverableException || cause instanceof SQLNonTransientConnectionException
+                    || cause instanceof SQLTransientConnectionException) {
+                return true;
+            }
+            if (cause instanceof SQLException e && e.getSQLState() != null && e.getSQLState().startsWith("08")) {
+                return true;
+            }
+        }
+        return false;
+    }
+    // Worth retrying later: the database was unreachable, the connection broke, or a
+    // statement timed out or lost a deadlock. Any other failure is about the request.
+    public static boolean isTransientFailure(Throwable error) {
+        if (isConnectionFailure(error)) {
+            return true;
+        }
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof DatabaseUnavailableException || cause instanceof SQLTransientException) {
+                return true;
             }
         }
+        return false;
+    }
+    // True while reads may be answered from snapshots and writes fail fast
+    public static boolean isDegraded() {
+        return DatabaseConfig.isDegraded();
+    }
+    public static long getStaleReadCount() {
+        return snapshots.getStaleReadCount();
     }
 
     // Generic Execute Methods
@@ -95,59 +417,77 @@ public class DatabaseManager {
         }
     }
     public boolean executeUpdate(String sql, Object... params) throws DatabaseConnectionException {
-        try (PreparedStatement pstmt = prepareStatement(sql)) {
-            for (int i = 0; i < params.length; i++) {
-                pstmt.setObject(i + 1, params[i]);
+        return TIMERS.time("executeUpdate", () -> {
+            try (PreparedStatement pstmt = prepareStatement(sql)) {
+                for (int i = 0; i < params.length; i++) {
+                    pstmt.setObject(i + 1, params[i]);
+                }
+                int rowsAffected = pstmt.executeUpdate();
+                return rowsAffected > 0;  // Returns true if at least one row was updated
+            } catch (SQLException e) {
+                throw new DatabaseConnectionException("Failed to execute update", e);
             }
-            int rowsAffected = pstmt.executeUpdate();
-            return rowsAffected > 0;  // Returns true if at least one row was updated
-        } catch (SQLException e) {
-            throw new DatabaseConnectionException("Failed to execute update", e);
-        }
+        });
     }
 
     // Resource Cleanup
     public void closeResources(AutoCloseable... resources) {
-        for (AutoCloseable resource : resources) {
-            try {
-                if (resource != null) {
-                    resource.close();
+        TIMERS.run("closeResources", () -> {
+            for (AutoCloseable resource : resources) {
+                try {
+                    if (resource != null) {
+                        resource.close();
+                    }
+                } catch (Exception e) {
+                    // Log error
                 }
-            } catch (Exception e) {
-                // Log error
             }
-        }
+        });
     }
 
     // Connection Cleanup
     public void closeConnection() {
-        Connection conn = connectionHolder.get();
-        if (conn != null) {
-            try {
-                conn.close();
+        TIMERS.run("closeConnection", () -> {
+            Connection conn = connectionHolder.get();
+            if (conn != null) {
                 connectionHolder.remove();
-            } catch (SQLException e) {
-                // Log error
+                try {
+                    conn.close();
+                } catch (SQLException e) {
+                    log.atWarn().message("Connection close failed").error(e).log();
+                }
             }
-        }
+        });
     }
-    private void closeConnection(Connection conn) {
+    // Ends a transaction; the thread's connection stays open for reuse
+    private void restoreAutoCommit(Connection conn) {
         if (conn != null) {
             try {
                 if (!conn.getAutoCommit()) {
                     conn.setAutoCommit(true);
                 }
-                conn.close();
             } catch (SQLException e) {
-                System.err.println("Connection close failed: " + e.getMessage());
+                log.atWarn().message("Failed to restore auto-commit").error(e).log();
             }
         }
     }
     private void logDatabaseError(SQLException e) {
-        System.err.println("Database Error Details:");
-        System.err.println("Error Code: " + e.getErrorCode());
-        System.err.println("SQL State: " + e.getSQLState());
-        System.err.println("Error Message: " + e.getMessage());
+        log.atError().message("Database error")
+                .with("code", e.getErrorCode())
+                .with("sqlState", e.getSQLState())
+                .error(e)
+                .log();
+    }
+    // SQL failures inside a create are logged and reported with the detailed message
+    private DatabaseConnectionException creationFailure(String entity, DatabaseConnectionException e) {
+        if (!(e.getCause() instanceof SQLException sqlError)) {
+            return e;
+        }
+        if (isUniqueViolation(sqlError)) {
+            return new ConflictException(entity + " already exists", sqlError);
+        }
+        logDatabaseError(sqlError);
+        return new DatabaseConnectionException(entity + " creation failed: " + getDetailedErrorMessage(sqlError), sqlError);
     }
     private String getDetailedErrorMessage(SQLException e) {
         // Could be expanded to map specific error codes to more meaningful messages
@@ -164,328 +504,372 @@ public class DatabaseManager {
 
     // CURD Operations
     public int createCustomer(Customer customer, String username, String passwordHash, String salt) throws DatabaseConnectionException {
-        Connection conn = null;
-        try {
+        return TIMERS.time("createCustomer", () -> {
             // 1. Validate input
             validateCustomerInput(customer, username, passwordHash, salt);
 
-            // 2. Get connection and start transaction
-            conn = getConnection();
-            conn.setAutoCommit(false);
-
-            // 3. Insert customer
-            String customerSql = "INSERT INTO Customers " +
-                    "(FirstName, LastName, Email, PhoneNumber, PreferredCuisine, Allergies) " +
-                    "VALUES (?, ?, ?, ?, ?, ?)";
-            int customerId;
-
-            try (PreparedStatement pstmt = conn.prepareStatement(customerSql, Statement.RETURN_GENERATED_KEYS)) {
-                pstmt.setString(1, trimToMaxLength(customer.getFirstName(), MAX_NAME_LENGTH));
-                pstmt.setString(2, trimToMaxLength(customer.getLastName(), MAX_NAME_LENGTH));
-                pstmt.setString(3, trimToMaxLength(customer.getEmail(), MAX_EMAIL_LENGTH));
-                pstmt.setString(4, trimToMaxLength(customer.getPhoneNumber(), MAX_PHONE_LENGTH));
-                pstmt.setString(5, trimToMaxLength(customer.getPreferredCuisine(), MAX_CUISINE_LENGTH));
-                pstmt.setString(6, customer.getAllergies());
-
-                int rowsAffected = pstmt.executeUpdate();
-                if (rowsAffected == 0) {
-                    throw new DatabaseConnectionException("No rows inserted for customer");
-                }
+            // 2. Insert customer and credentials in one transaction
+            try {
+                return inTransaction(conn -> insertCustomerWithCredentials(conn, customer, username, passwordHash, salt));
+            } catch (DatabaseConnectionException e) {
+                throw creationFailure("Customer", e);
+            }
+        });
+    }
+    private int insertCustomerWithCredentials(Connection conn, Customer customer, String username, String passwordHash,
+                                              String salt) throws SQLException, DatabaseConnectionException {
+        // Insert customer
+        String customerSql = "INSERT INTO Customers " +
+                "(FirstName, LastName, Email, PhoneNumber, PreferredCuisine, Allergies) " +
+                "VALUES (?, ?, ?, ?, ?, ?)";
+        int customerId;
+
+        try (PreparedStatement pstmt = conn.prepareStatement(customerSql, Statement.RETURN_GENERATED_KEYS)) {
+            pstmt.setString(1, trimToMaxLength(customer.getFirstName(), MAX_NAME_LENGTH));
+            pstmt.setString(2, trimToMaxLength(customer.getLastName(), MAX_NAME_LENGTH));
+            pstmt.setString(3, trimToMaxLength(customer.getEmail(), MAX_EMAIL_LENGTH));
+            pstmt.setString(4, trimToMaxLength(customer.getPhoneNumber(), MAX_PHONE_LENGTH));
+            pstmt.setString(5, trimToMaxLength(customer.getPreferredCuisine(), MAX_CUISINE_LENGTH));
+            pstmt.setString(6, customer.getAllergies());
 
-                try (ResultSet rs = pstmt.getGeneratedKeys()) {
-                    if (!rs.next()) {
-                        throw new DatabaseConnectionException("Failed to retrieve generated customer ID");
-                    }
-                    customerId = rs.getInt(1);
-                }
+            int rowsAffected = pstmt.executeUpdate();
+            if (rowsAffected == 0) {
+                throw new DatabaseConnectionException("No rows inserted for customer");
             }
 
-            // 4. Insert credentials with all fields properly initialized
-            String credentialsSql = "INSERT INTO UserCredentials " +
-                    "(UserID, Username, PasswordHash, Salt, LastLoginDate, LoginAttempts, AccountLocked) " +
-                    "VALUES (?, ?, ?, ?, NULL, 0, 0)";
-            try (PreparedStatement pstmt = conn.prepareStatement(credentialsSql)) {
-                pstmt.setInt(1, customerId);
-                pstmt.setString(2, username);
-                pstmt.setString(3, passwordHash);
-                pstmt.setString(4, salt);
-
-                int credentialRows = pstmt.executeUpdate();
-                if (credentialRows == 0) {
-                    throw new DatabaseConnectionException("Failed to insert customer credentials");
+            try (ResultSet rs = pstmt.getGeneratedKeys()) {
+                if (!rs.next()) {
+                    throw new DatabaseConnectionException("Failed to retrieve generated customer ID");
                 }
+                customerId = rs.getInt(1);
             }
+        }
 
-            // 5. Commit transaction
-            conn.commit();
-            return customerId;
-
-        } catch (SQLException e) {
-            // Rollback transaction on any SQL error
-            rollbackTransaction(conn);
-
-            // Log detailed error
-            logDatabaseError(e);
+        // Insert credentials with all fields properly initialized
+        String credentialsSql = "INSERT INTO UserCredentials " +
+                "(UserID, Username, PasswordHash, Salt, LastLoginDate, LoginAttempts, AccountLocked) " +
+                "VALUES (?, ?, ?, ?, NULL, 0, 0)";
+        try (PreparedStatement pstmt = conn.prepareStatement(credentialsSql)) {
+            pstmt.setInt(1, customerId);
+            pstmt.setString(2, username);
+            pstmt.setString(3, passwordHash);
+            pstmt.setString(4, salt);
 
-            throw new DatabaseConnectionException(
-                    "Customer creation failed: " + getDetailedErrorMessage(e),
-                    e
-            );
-        } finally {
-            // Ensure connection is always closed and reset to auto-commit
-            closeConnection(conn);
+            int credentialRows = pstmt.executeUpdate();
+            if (credentialRows == 0) {
+                throw new DatabaseConnectionException("Failed to insert customer credentials");
+            }
         }
+
+        return customerId;
     }
     public void updateCustomerPassword(int customerId, String newPasswordHash, String newSalt) throws DatabaseConnectionException {
-        String sql = "UPDATE UserCredentials SET PasswordHash = ?, LastLoginDate = CURRENT_TIMESTAMP " +
-                "WHERE UserID = ?";
-        try (PreparedStatement pstmt = prepareStatement(sql)) {
-            pstmt.setString(1, newPasswordHash);
-            pstmt.setInt(2, customerId);
-            if (pstmt.executeUpdate() == 0) {
-                throw new DatabaseConnectionException("Password update failed");
+        TIMERS.run("updateCustomerPassword", () -> {
+            String sql = "UPDATE UserCredentials SET PasswordHash = ?, LastLoginDate = CURRENT_TIMESTAMP " +
+                    "WHERE UserID = ?";
+            try (PreparedStatement pstmt = prepareStatement(sql)) {
+                pstmt.setString(1, newPasswordHash);
+                pstmt.setInt(2, customerId);
+                if (pstmt.executeUpdate() == 0) {
+                    throw new RecordNotFoundException("Password update failed");
+                }
+            } catch (SQLException e) {
+                throw new DatabaseConnectionException("Failed to update password", e);
             }
-        } catch (SQLException e) {
-            throw new DatabaseConnectionException("Failed to update password", e);
-        }
+        });
     }
     public void updateCustomer(Customer customer) throws DatabaseConnectionException {
-        String sql = "UPDATE Customers SET FirstName = ?, LastName = ?, Email = ?, " +
-                "PhoneNumber = ?, PreferredCuisine = ?, Allergies = ? WHERE CustomerID = ?";
-        try (PreparedStatement pstmt = prepareStatement(sql)) {
-            pstmt.setString(1, customer.getFirstName());
-            pstmt.setString(2, customer.getLastName());
-            pstmt.setString(3, customer.getEmail());
-            pstmt.setString(4, customer.getPhoneNumber());
-            pstmt.setString(5, customer.getPreferredCuisine());
-            pstmt.setString(6, customer.getAllergies());
-            pstmt.setInt(7, customer.getCustomerID());
+        TIMERS.run("updateCustomer", () -> {
+            String sql = "UPDATE Customers SET FirstName = ?, LastName = ?, Email = ?, " +
+                    "PhoneNumber = ?, PreferredCuisine = ?, Allergies = ? WHERE CustomerID = ?";
+            try (PreparedStatement pstmt = prepareStatement(sql)) {
+                pstmt.setString(1, customer.getFirstName());
+                pstmt.setString(2, customer.getLastName());
+                pstmt.setString(3, customer.getEmail());
+                pstmt.setString(4, customer.getPhoneNumber());
+                pstmt.setString(5, customer.getPreferredCuisine());
+                pstmt.setString(6, customer.getAllergies());
+                pstmt.setInt(7, customer.getCustomerID());
 
-            if (pstmt.executeUpdate() == 0) {
-                throw new DatabaseConnectionException("Customer update failed");
+                if (pstmt.executeUpdate() == 0) {
+                    throw new RecordNotFoundException("Customer update failed");
+                }
+            } catch (SQLException e) {
+                throw new DatabaseConnectionException("Failed to update customer", e);
             }
-        } catch (SQLException e) {
-            throw new DatabaseConnectionException("Failed to update customer", e);
-        }
+        });
     }
     public void createCustomer(Customer customer) throws DatabaseConnectionException {
-        String sql = "INSERT INTO Customers (FirstName, LastName, Email, PhoneNumber, " +
-                "PreferredCuisine, Allergies) VALUES (?, ?, ?, ?, ?, ?)";
+        TIMERS.run("createCustomer", () -> {
+            PreparedStatement pstmt = null;
+            ResultSet rs = null;
 
-        PreparedStatement pstmt = null;
-        ResultSet rs = null;
+            try {
+                pstmt = prepareStatementWithKeys(INSERT_CUSTOMER_PROFILE_SQL);
+                bindCustomerProfile(pstmt, customer);
 
-        try {
-            pstmt = prepareStatementWithKeys(sql);
-            pstmt.setString(1, customer.getFirstName());
-            pstmt.setString(2, customer.getLastName());
-            pstmt.setString(3, customer.getEmail());
-            pstmt.setString(4, customer.getPhoneNumber());
-            pstmt.setString(5, customer.getPreferredCuisine());
-            pstmt.setString(6, customer.getAllergies());
+                int affectedRows = pstmt.executeUpdate();
+                if (affectedRows == 0) {
+                    throw new DatabaseConnectionException("Creating customer failed");
+                }
 
-            int affectedRows = pstmt.executeUpdate();
-            if (affectedRows == 0) {
-                throw new DatabaseConnectionException("Creating customer failed");
+                rs = pstmt.getGeneratedKeys();
+                if (rs.next()) {
+                    customer.setCustomerID(rs.getInt(1));
+                }
+            } catch (SQLException e) {
+                throw new DatabaseConnectionException("Error creating customer", e);
+            } finally {
+                closeResources(rs, pstmt);
             }
+        });
+    }
+    private static final String INSERT_CUSTOMER_PROFILE_SQL = "INSERT INTO Customers (FirstName, LastName, Email, " +
+            "PhoneNumber, PreferredCuisine, Allergies) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final List<String> CUSTOMER_PROFILE_INSERT_COLUMNS = List.of("FirstName", "LastName", "Email",
+            "PhoneNumber", "PreferredCuisine", "Allergies");
 
-            rs = pstmt.getGeneratedKeys();
-            if (rs.next()) {
-                customer.setCustomerID(rs.getInt(1));
-            }
-        } catch (SQLException e) {
-            throw new DatabaseConnectionException("Error creating customer", e);
-        } finally {
-            closeResources(rs, pstmt);
-        }
+    private static void bindCustomerProfile(PreparedStatement pstmt, Customer customer) throws SQLException {
+        bindCustomerProfile(pstmt, 1, customer);
+    }
+    private static void bindCustomerProfile(PreparedStatement pstmt, int first, Customer customer) throws SQLException {
+        pstmt.setString(first, customer.getFirstName());
+        pstmt.setString(first + 1, customer.getLastName());
+        pstmt.setString(first + 2, customer.getEmail());
+        pstmt.setString(first + 3, customer.getPhoneNumber());
+        pstmt.setString(first + 4, customer.getPreferredCuisine());
+        pstmt.setString(first + 5, customer.getAllergies());
     }
     public void deleteCustomer(int customerId) throws DatabaseConnectionException {
-        Connection conn = getConnection();
-        try {
-            conn.setAutoCommit(false);
-
-            // Delete credentials first due to foreign key constraint
-            String credentialsSql = "DELETE FROM UserCredentials WHERE UserID = ?";
-            try (PreparedStatement pstmt = conn.prepareStatement(credentialsSql)) {
-                pstmt.setInt(1, customerId);
-                pstmt.executeUpdate();
-            }
-
-            // Delete customer record
-            String customerSql = "DELETE FROM Customers WHERE CustomerID = ?";
-            try (PreparedStatement pstmt = conn.prepareStatement(customerSql)) {
-                pstmt.setInt(1, customerId);
-                if (pstmt.executeUpdate() == 0) {
-                    throw new DatabaseConnectionException("Customer not found");
+        TIMERS.run("deleteCustomer", () -> {
+            inTransaction(conn -> {
+                // Delete credentials first due to foreign key constraint
+                String credentialsSql = "DELETE FROM UserCredentials WHERE UserID = ?";
+                try (PreparedStatement pstmt = conn.prepareStatement(credentialsSql)) {
+                    pstmt.setInt(1, customerId);
+                    pstmt.executeUpdate();
                 }
-            }
 
-            conn.commit();
-        } catch (SQLException e) {
-            try {
-                conn.rollback();
-            } catch (SQLException ex) {
-                throw new DatabaseConnectionException("Rollback failed", ex);
-            }
-            throw new DatabaseConnectionException("Failed to delete customer", e);
-        } finally {
-            try {
-                conn.setAutoCommit(true);
-            } catch (SQLException e) {
-                throw new DatabaseConnectionException("Failed to reset auto-commit", e);
-            }
-        }
+                // Delete customer record
+                String customerSql = "DELETE FROM Customers WHERE CustomerID = ?";
+                try (PreparedStatement pstmt = conn.prepareStatement(customerSql)) {
+                    pstmt.setInt(1, customerId);
+                    if (pstmt.executeUpdate() == 0) {
+                        throw new RecordNotFoundException("Customer not found");
+                    }
+                }
+                return null;
+            });
+        });
     }
     public void updateCustomerLoginAttempts(String username, int attempts) throws DatabaseConnectionException {
-        String sql = "UPDATE UserCredentials SET LoginAttempts = ? WHERE Username = ? AND UserType = 'CUSTOMER'";
-        executeUpdate(sql, attempts, username);
+        TIMERS.run("updateCustomerLoginAttempts", () -> {
+            String sql = "UPDATE UserCredentials SET LoginAttempts = ? WHERE Username = ? AND UserType = 'CUSTOMER'";
+            executeUpdate(sql, attempts, username);
+        });
     }
 
     // Search Operations
     public List<Customer> getAllCustomers() throws DatabaseConnectionException {
-        String sql = "SELECT * FROM Customers ORDER BY LastName, FirstName";
-        List<Customer> customers = new ArrayList<>();
+        return TIMERS.time("getAllCustomers", () -> {
+            String sql = "SELECT * FROM Customers ORDER BY LastName, FirstName";
+            List<Customer> customers = new ArrayList<>();
 
-        try (PreparedStatement pstmt = prepareStatement(sql);
-             ResultSet rs = pstmt.executeQuery()) {
-            while (rs.next()) {
-                customers.add(mapResultSetToCustomer(rs));
+            try (PreparedStatement pstmt = prepareStatement(sql);
+                 ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    customers.add(mapResultSetToCustomer(rs));
+                }
+                return customers;
+            } catch (SQLException e) {
+                throw new DatabaseConnectionException("Failed to retrieve customers", e);
             }
-            return customers;
-        } catch (SQLException e) {
-            throw new DatabaseConnectionException("Failed to retrieve customers", e);
-        }
+        });
     }
     public int getCustomerIdByUsername(String username) throws DatabaseConnectionException {
-        String sql = "SELECT UserID FROM UserCredentials WHERE Username = ?";
-        try (PreparedStatement pstmt = prepareStatement(sql)) {
-            pstmt.setString(1, username);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getInt("UserID");
+        return TIMERS.time("getCustomerIdByUsername", () -> {
+            String sql = "SELECT UserID FROM UserCredentials WHERE Username = ?";
+            try (PreparedStatement pstmt = prepareStatement(sql)) {
+                pstmt.setString(1, username);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (rs.next()) {
+                        return rs.getInt("UserID");
+                    }
+                    throw new DatabaseConnectionException("Failed to retrieve customer ID");
                 }
-                throw new DatabaseConnectionException("Failed to retrieve customer ID");
+            } catch (SQLException e) {
+                throw new DatabaseConnectionException("Failed to retrieve customer ID", e);
             }
-        } catch (SQLException e) {
-            throw new DatabaseConnectionException("Failed to retrieve customer ID", e);
-        }
+        });
     }
     public String getCustomerSalt(String username) throws DatabaseConnectionException {
-        String sql = "SELECT Salt FROM UserCredentials WHERE Username = ?";
-        try (PreparedStatement pstmt = prepareStatement(sql)) {
-            pstmt.setString(1, username);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                return rs.next() ? rs.getString("Salt") : null;
+        return TIMERS.time("getCustomerSalt", () -> {
+            String sql = "SELECT Salt FROM UserCredentials WHERE Username = ?";
+            try (PreparedStatement pstmt = prepareStatement(sql)) {
+                pstmt.setString(1, username);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    return rs.next() ? rs.getString("Salt") : null;
+                }
+            } catch (SQLException e) {
+                throw new DatabaseConnectionException("Failed to retrieve customer salt", e);
             }
-        } catch (SQLException e) {
-            throw new DatabaseConnectionException("Failed to retrieve customer salt", e);
-        }
+        });
     }
     public Customer getCustomerById(int customerId) throws DatabaseConnectionException {
-        String sql = "SELECT * FROM Customers WHERE CustomerID = ?";
-        try (PreparedStatement pstmt = prepareStatement(sql)) {
-            pstmt.setInt(1, customerId);
-            // Execute query after setting parameters
-            try (ResultSet rs = pstmt.executeQuery()) {
-                return rs.next() ? mapResultSetToCustomer(rs) : null;
-            }
-        } catch (SQLException e) {
-            throw new DatabaseConnectionException("Failed to retrieve customer", e);
-        }
+        return TIMERS.time("getCustomerById", () -> {
+            return readThrough("customer:" + customerId, () -> {
+                String sql = "SELECT * FROM Customers WHERE CustomerID = ?";
+                try (PreparedStatement pstmt = prepareStatement(sql)) {
+                    pstmt.setInt(1, customerId);
+                    // Execute query after setting parameters
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        return rs.next() ? mapResultSetToCustomer(rs) : null;
+                    }
+                } catch (SQLException e) {
+                    throw new DatabaseConnectionException("Failed to retrieve customer", e);
+                }
+            });
+        });
     }
     public Customer getCustomerByEmail(String email) throws DatabaseConnectionException {
-        String sql = "SELECT * FROM Customers WHERE Email = ?";
-        try (PreparedStatement pstmt = prepareStatement(sql)) {
-            pstmt.setString(1, email);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                return rs.next() ? mapResultSetToCustomer(rs) : null;
-            }
-        } catch (SQLException e) {
-            throw new DatabaseConnectionException("Failed to retrieve customer by email", e);
-        }
+        return TIMERS.time("getCustomerByEmail", () -> {
+            return readThrough("customerEmail:" + email, () -> {
+                String sql = "SELECT * FROM Customers WHERE Email = ?";
+                try (PreparedStatement pstmt = prepareStatement(sql)) {
+                    pstmt.setString(1, email);
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        return rs.next() ? mapResultSetToCustomer(rs) : null;
+                    }
+                } catch (SQLException e) {
+                    throw new DatabaseConnectionException("Failed to retrieve customer by email", e);
+                }
+            });
+        });
     }
     public List<Customer> searchCustomersByName(String searchTerm) throws DatabaseConnectionException {
-        String sql = "SELECT * FROM Customers WHERE FirstName LIKE ? OR LastName LIKE ?";
-        List<Customer> customers = new ArrayList<>();
+        return TIMERS.time("searchCustomersByName", () -> {
+            String sql = "SELECT * FROM Customers WHERE FirstName LIKE ? OR LastName LIKE ?";
+            List<Customer> customers = new ArrayList<>();
 
-        try (PreparedStatement pstmt = prepareStatement(sql)) {
-            String searchPattern = "%" + searchTerm + "%";
-            pstmt.setString(1, searchPattern);
-            pstmt.setString(2, searchPattern);
+            try (PreparedStatement pstmt = prepareStatement(sql)) {
+                String searchPattern = "%" + searchTerm + "%";
+                pstmt.setString(1, searchPattern);
+                pstmt.setString(2, searchPattern);
 
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    customers.add(mapResultSetToCustomer(rs));
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        customers.add(mapResultSetToCustomer(rs));
+                    }
                 }
+                return customers;
+            } catch (SQLException e) {
+                throw new DatabaseConnectionException("Failed to search customers", e);
             }
-            return customers;
-        } catch (SQLException e) {
-            throw new DatabaseConnectionException("Failed to search customers", e);
-        }
+        });
     }
     public int getCustomerLoginAttempts(String username) throws DatabaseConnectionException {
-        String sql = "SELECT LoginAttempts FROM UserCredentials WHERE Username = ? AND UserType = 'CUSTOMER'";
-        try (PreparedStatement pstmt = prepareStatement(sql)) {
-            pstmt.setString(1, username);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                return rs.next() ? rs.getInt("LoginAttempts") : 0;
+        return TIMERS.time("getCustomerLoginAttempts", () -> {
+            String sql = "SELECT LoginAttempts FROM UserCredentials WHERE Username = ? AND UserType = 'CUSTOMER'";
+            try (PreparedStatement pstmt = prepareStatement(sql)) {
+                pstmt.setString(1, username);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    return rs.next() ? rs.getInt("LoginAttempts") : 0;
+                }
+            } catch (SQLException e) {
+                throw new DatabaseConnectionException("Failed to get login attempts", e);
             }
-        } catch (SQLException e) {
-            throw new DatabaseConnectionException("Failed to get login attempts", e);
-        }
+        });
     }
     public void lockCustomerAccount(String username) throws DatabaseConnectionException {
-        String sql = "UPDATE UserCredentials SET AccountLocked = 1 WHERE Username = ? AND UserType = 'CUSTOMER'";
-        executeUpdate(sql, username);
+        TIMERS.run("lockCustomerAccount", () -> {
+            String sql = "UPDATE UserCredentials SET AccountLocked = 1 WHERE Username = ? AND UserType = 'CUSTOMER'";
+            executeUpdate(sql, username);
+        });
     }
     public String getCustomerPasswordHash(String username) throws DatabaseConnectionException {
-        String sql = "SELECT PasswordHash FROM UserCredentials WHERE Username = ?";
-        try (PreparedStatement pstmt = prepareStatement(sql)) {
-            pstmt.setString(1, username);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                return rs.next() ? rs.getString("PasswordHash") : null;
+        return TIMERS.time("getCustomerPasswordHash", () -> {
+            String sql = "SELECT PasswordHash FROM UserCredentials WHERE Username = ?";
+            try (PreparedStatement pstmt = prepareStatement(sql)) {
+                pstmt.setString(1, username);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    return rs.next() ? rs.getString("PasswordHash") : null;
+                }
+            } catch (SQLException e) {
+                throw new DatabaseConnectionException("Failed to get password hash", e);
             }
-        } catch (SQLException e) {
-            throw new DatabaseConnectionException("Failed to get password hash", e);
-        }
+        });
     }
     public boolean isCustomerAccountLocked(String username) throws DatabaseConnectionException {
-        String sql = "SELECT AccountLocked FROM UserCredentials WHERE Username = ?";
-        try (PreparedStatement pstmt = prepareStatement(sql)) {
-            pstmt.setString(1, username);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                return rs.next() && rs.getBoolean("AccountLocked");
+        return TIMERS.time("isCustomerAccountLocked", () -> {
+            String sql = "SELECT AccountLocked FROM UserCredentials WHERE Username = ?";
+            try (PreparedStatement pstmt = prepareStatement(sql)) {
+                pstmt.setString(1, username);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    return rs.next() && rs.getBoolean("AccountLocked");
+                }
+            } catch (SQLException e) {
+                throw new DatabaseConnectionException("Failed to check account lock status", e);
             }
-        } catch (SQLException e) {
-            throw new DatabaseConnectionException("Failed to check account lock status", e);
-        }
+        });
     }
     public String getCustomerUsername(int customerId) throws DatabaseConnectionException {
-        String sql = "SELECT Username FROM UserCredentials WHERE UserID = ?";
-        try (PreparedStatement pstmt = prepareStatement(sql)) {
-            pstmt.setInt(1, customerId);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                return rs.next() ? rs.getString("Username") : null;
+        return TIMERS.time("getCustomerUsername", () -> {
+            String sql = "SELECT Username FROM UserCredentials WHERE UserID = ?";
+            try (PreparedStatement pstmt = prepareStatement(sql)) {
+                pstmt.setInt(1, customerId);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    return rs.next() ? rs.getString("Username") : null;
+                }
+            } catch (SQLException e) {
+                throw new DatabaseConnectionException("Failed to get username", e);
             }
-        } catch (SQLException e) {
-            throw new DatabaseConnectionException("Failed to get username", e);
-        }
+        });
     }
 
     // Statistics Operations
+    // Buffered by VisitCounterBuffer unless -Ddb.visits.buffered=false, in which case the
+    // visit is written immediately and an unknown customer is an error
     public void updateCustomerVisits(int customerId) throws DatabaseConnectionException {
-        String sql = "UPDATE Customers SET TotalVisits = TotalVisits + 1, " +
-                "LastVisitDate = CURRENT_TIMESTAMP WHERE CustomerID = ?";
-        try (PreparedStatement pstmt = prepareStatement(sql)) {
-            pstmt.setInt(1, customerId);
-            if (pstmt.executeUpdate() == 0) {
-                throw new DatabaseConnectionException("Failed to update visit count");
+        TIMERS.run("updateCustomerVisits", () -> {
+            if (VisitCounterBuffer.isEnabled()) {
+                VisitCounterBuffer.getInstance().record(customerId, LocalDateTime.now());
+                return;
+            }
+            String sql = "UPDATE Customers SET TotalVisits = TotalVisits + 1, " +
+                    "LastVisitDate = CURRENT_TIMESTAMP WHERE CustomerID = ?";
+            try (PreparedStatement pstmt = prepareStatement(sql)) {
+                pstmt.setInt(1, customerId);
+                if (pstmt.executeUpdate() == 0) {
+                    throw new DatabaseConnectionException("Failed to update visit count");
+                }
+            } catch (SQLException e) {
+                throw new DatabaseConnectionException("Failed to update customer visits", e);
             }
-        } catch (SQLException e) {
-            throw new DatabaseConnectionException("Failed to update customer visits", e);
-        }
+        });
+    }
+    // Applies one drained set of visit counts in a single transaction, recording flushId
+    // as an idempotency key; false when that flush was already applied
+    public boolean applyVisitDeltas(String flushId, Map<Integer, VisitCounterBuffer.VisitDelta> deltas)
+            throws DatabaseConnectionException {
+        return TIMERS.time("applyVisitDeltas", () -> {
+            ensureIdempotencyTable();
+            try {
+                inTransaction(conn -> {
+                    insertIdempotencyKey(conn, flushId, IDEMPOTENT_VISITS, deltas.size());
+                    addVisits(conn, deltas);
+                    return null;
+                });
+                return true;
+            } catch (DatabaseConnectionException e) {
+                if (e.getCause() instanceof SQLException sqlError && isUniqueViolation(sqlError)
+                        && findIdempotentResult(IDEMPOTENT_VISITS, flushId) != null) {
+                    return false;
+                }
+                throw e;
+            }
+        });
     }
-    private Customer mapResultSetToCustomer(ResultSet rs) throws SQLException {
+    public static Customer mapResultSetToCustomer(ResultSet rs) throws SQLException {
         Customer customer = new Customer();
         customer.setCustomerID(rs.getInt("CustomerID"));
         customer.setFirstName(rs.getString("FirstName"));
@@ -513,46 +897,26 @@ public class DatabaseManager {
 
     // CURD Operations
     public int createManager(Manager manager, String username, String passwordHash, String salt) throws DatabaseConnectionException {
-        Connection conn = null;
-        try {
+        return TIMERS.time("createManager", () -> {
             // 1. Validate input before any database operation
             validateManagerInput(manager, username, passwordHash, salt);
 
-            // 2. Establish database connection
-            conn = getConnection();
-            conn.setAutoCommit(false); // Begin transaction
-
-            // 3. Insert manager record
-            int managerId = insertManagerRecord(conn, manager);
-
-            // 4. Insert manager credentials
-            insertManagerCredentials(conn, managerId, username, passwordHash, salt);
-
-            // 5. Commit transaction
-            conn.commit();
-            return managerId;
-
-        } catch (SQLException e) {
-            // Rollback transaction on any SQL error
-            rollbackTransaction(conn);
-
-            // Log detailed error for system administrators
-            logDatabaseError(e);
-
-            // Throw a meaningful exception to caller
-            throw new DatabaseConnectionException(
-                    "Manager creation failed: " + getDetailedErrorMessage(e),
-                    e
-            );
-        } finally {
-            // Ensure connection is always closed and reset to auto-commit
-            closeConnection(conn);
-        }
+            // 2. Insert manager record and credentials in one transaction
+            try {
+                return inTransaction(conn -> {
+                    int managerId = insertManagerRecord(conn, manager);
+                    insertManagerCredentials(conn, managerId, username, passwordHash, salt);
+                    return managerId;
+                });
+            } catch (DatabaseConnectionException e) {
+                throw creationFailure("Manager", e);
+            }
+        });
     }
     private int insertManagerRecord(Connection conn, Manager manager) throws SQLException, DatabaseConnectionException {
         String managerSql = "INSERT INTO Managers " +
                 "(FirstName, LastName, Email, PhoneNumber, IsActive, CreatedDate) " +
-                "VALUES (?, ?, ?, ?, ?, SYSDATETIME())";
+                "VALUES (?, ?, ?, ?, ?, " + dialect.currentTimestamp() + ")";
 
         try (PreparedStatement pstmt = conn.prepareStatement(
                 managerSql, Statement.RETURN_GENERATED_KEYS)) {
@@ -581,7 +945,7 @@ public class DatabaseManager {
     private void insertManagerCredentials(Connection conn, int managerId, String username, String passwordHash, String salt) throws SQLException, DatabaseConnectionException {
         String credentialsSql = "INSERT INTO ManagerCredentials " +
                 "(ManagerID, Username, PasswordHash, Salt, CreatedDate) " +
-                "VALUES (?, ?, ?, ?, SYSDATETIME())";
+                "VALUES (?, ?, ?, ?, " + dialect.currentTimestamp() + ")";
 
         try (PreparedStatement pstmt = conn.prepareStatement(credentialsSql)) {
             pstmt.setInt(1, managerId);
@@ -596,156 +960,182 @@ public class DatabaseManager {
         }
     }
     public void updateManager(Manager manager) throws DatabaseConnectionException {
-        String sql = "UPDATE Managers SET FirstName = ?, LastName = ?, Email = ?, " +
-                "PhoneNumber = ?, IsActive = ? WHERE ManagerID = ?";
-        try (PreparedStatement pstmt = prepareStatement(sql)) {
-            pstmt.setString(1, manager.getFirstName());
-            pstmt.setString(2, manager.getLastName());
-            pstmt.setString(3, manager.getEmail());
-            pstmt.setString(4, manager.getPhoneNumber());
-            pstmt.setBoolean(5, manager.isActive());
-            pstmt.setInt(6, manager.getManagerID());
+        TIMERS.run("updateManager", () -> {
+            String sql = "UPDATE Managers SET FirstName = ?, LastName = ?, Email = ?, " +
+                    "PhoneNumber = ?, IsActive = ? WHERE ManagerID = ?";
+            try (PreparedStatement pstmt = prepareStatement(sql)) {
+                pstmt.setString(1, manager.getFirstName());
+                pstmt.setString(2, manager.getLastName());
+                pstmt.setString(3, manager.getEmail());
+                pstmt.setString(4, manager.getPhoneNumber());
+                pstmt.setBoolean(5, manager.isActive());
+                pstmt.setInt(6, manager.getManagerID());
 
-            if (pstmt.executeUpdate() == 0) {
-                throw new DatabaseConnectionException("Manager update failed");
+                if (pstmt.executeUpdate() == 0) {
+                    throw new RecordNotFoundException("Manager update failed");
+                }
+            } catch (SQLException e) {
+                throw new DatabaseConnectionException("Failed to update manager", e);
             }
-        } catch (SQLException e) {
-            throw new DatabaseConnectionException("Failed to update manager", e);
-        }
+        });
     }
     public void updateManagerLoginAttempts(String username, int attempts) throws DatabaseConnectionException {
-        String sql = "UPDATE UserCredentials SET LoginAttempts = ? WHERE Username = ? AND UserType = 'MANAGER'";
-        executeUpdate(sql, attempts, username);
+        TIMERS.run("updateManagerLoginAttempts", () -> {
+            String sql = "UPDATE UserCredentials SET LoginAttempts = ? WHERE Username = ? AND UserType = 'MANAGER'";
+            executeUpdate(sql, attempts, username);
+        });
     }
     public void updateManagerPassword(int managerId, String hashedPassword, String salt) throws DatabaseConnectionException {
-        String sql = "UPDATE ManagerCredentials SET PasswordHash = ?, Salt = ?, " +
-                "LastModified = CURRENT_TIMESTAMP WHERE ManagerID = ?";
-        try (PreparedStatement pstmt = prepareStatement(sql)) {
-            pstmt.setString(1, hashedPassword);
-            pstmt.setString(2, salt);
-            pstmt.setInt(3, managerId);
+        TIMERS.run("updateManagerPassword", () -> {
+            String sql = "UPDATE ManagerCredentials SET PasswordHash = ?, Salt = ?, " +
+                    "LastModified = CURRENT_TIMESTAMP WHERE ManagerID = ?";
+            try (PreparedStatement pstmt = prepareStatement(sql)) {
+                pstmt.setString(1, hashedPassword);
+                pstmt.setString(2, salt);
+                pstmt.setInt(3, managerId);
 
-            if (pstmt.executeUpdate() == 0) {
-                throw new DatabaseConnectionException("Failed to update manager password");
+                if (pstmt.executeUpdate() == 0) {
+                    throw new RecordNotFoundException("Failed to update manager password");
+                }
+            } catch (SQLException e) {
+                throw new DatabaseConnectionException("Error updating manager password", e);
             }
-        } catch (SQLException e) {
-            throw new DatabaseConnectionException("Error updating manager password", e);
-        }
+        });
     }
 
     // Search Operations
     public String getManagerSalt(String username) throws DatabaseConnectionException {
-        String sql = "SELECT Salt FROM ManagerCredentials WHERE Username = ?";
-        try (PreparedStatement pstmt = prepareStatement(sql)) {
-            pstmt.setString(1, username);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                return rs.next() ? rs.getString("Salt") : null;
+        return TIMERS.time("getManagerSalt", () -> {
+            String sql = "SELECT Salt FROM ManagerCredentials WHERE Username = ?";
+            try (PreparedStatement pstmt = prepareStatement(sql)) {
+                pstmt.setString(1, username);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    return rs.next() ? rs.getString("Salt") : null;
+                }
+            } catch (SQLException e) {
+                throw new DatabaseConnectionException("Failed to retrieve manager salt", e);
             }
-        } catch (SQLException e) {
-            throw new DatabaseConnectionException("Failed to retrieve manager salt", e);
-        }
+        });
     }
     public int getManagerIdByUsername(String username) throws DatabaseConnectionException {
-        String sql = "SELECT ManagerID FROM ManagerCredentials WHERE Username = ?";
-        try (PreparedStatement pstmt = prepareStatement(sql)) {
-            pstmt.setString(1, username);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getInt("ManagerID");
+        return TIMERS.time("getManagerIdByUsername", () -> {
+            String sql = "SELECT ManagerID FROM ManagerCredentials WHERE Username = ?";
+            try (PreparedStatement pstmt = prepareStatement(sql)) {
+                pstmt.setString(1, username);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (rs.next()) {
+                        return rs.getInt("ManagerID");
+                    }
+                    throw new DatabaseConnectionException("Failed to retrieve manager ID");
                 }
-                throw new DatabaseConnectionException("Failed to retrieve manager ID");
+            } catch (SQLException e) {
+                throw new DatabaseConnectionException("Failed to retrieve manager ID", e);
             }
-        } catch (SQLException e) {
-            throw new DatabaseConnectionException("Failed to retrieve manager ID", e);
-        }
+        });
     }
     public Manager getManagerById(int managerId) throws DatabaseConnectionException {
-        String sql = "SELECT * FROM Managers WHERE ManagerID = ?";
-        try (PreparedStatement pstmt = prepareStatement(sql)) {
-            pstmt.setInt(1, managerId);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                return rs.next() ? mapResultSetToManager(rs) : null;
+        return TIMERS.time("getManagerById", () -> {
+            String sql = "SELECT * FROM Managers WHERE ManagerID = ?";
+            try (PreparedStatement pstmt = prepareStatement(sql)) {
+                pstmt.setInt(1, managerId);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    return rs.next() ? mapResultSetToManager(rs) : null;
+                }
+            } catch (SQLException e) {
+                throw new DatabaseConnectionException("Failed to retrieve manager", e);
             }
-        } catch (SQLException e) {
-            throw new DatabaseConnectionException("Failed to retrieve manager", e);
-        }
+        });
     }
     public List<Manager> getAllManagers() throws DatabaseConnectionException {
-        String sql = "SELECT * FROM Managers ORDER BY LastName, FirstName";
-        List<Manager> managers = new ArrayList<>();
+        return TIMERS.time("getAllManagers", () -> {
+            String sql = "SELECT * FROM Managers ORDER BY LastName, FirstName";
+            List<Manager> managers = new ArrayList<>();
 
-        try (PreparedStatement pstmt = prepareStatement(sql);
-             ResultSet rs = pstmt.executeQuery()) {
-            while (rs.next()) {
-                managers.add(mapResultSetToManager(rs));
+            try (PreparedStatement pstmt = prepareStatement(sql);
+                 ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    managers.add(mapResultSetToManager(rs));
+                }
+                return managers;
+            } catch (SQLException e) {
+                throw new DatabaseConnectionException("Failed to retrieve managers", e);
             }
-            return managers;
-        } catch (SQLException e) {
-            throw new DatabaseConnectionException("Failed to retrieve managers", e);
-        }
+        });
     }
     public Manager getManagerByEmail(String email) throws DatabaseConnectionException {
-        String sql = "SELECT * FROM Managers WHERE Email = ?";
-        try (PreparedStatement pstmt = prepareStatement(sql)) {
-            pstmt.setString(1, email);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                return rs.next() ? mapResultSetToManager(rs) : null;
+        return TIMERS.time("getManagerByEmail", () -> {
+            String sql = "SELECT * FROM Managers WHERE Email = ?";
+            try (PreparedStatement pstmt = prepareStatement(sql)) {
+                pstmt.setString(1, email);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    return rs.next() ? mapResultSetToManager(rs) : null;
+                }
+            } catch (SQLException e) {
+                throw new DatabaseConnectionException("Failed to retrieve manager by email", e);
             }
-        } catch (SQLException e) {
-            throw new DatabaseConnectionException("Failed to retrieve manager by email", e);
-        }
+        });
     }
     public int getManagerLoginAttempts(String username) throws DatabaseConnectionException {
-        String sql = "SELECT LoginAttempts FROM UserCredentials WHERE Username = ? AND UserType = 'MANAGER'";
-        try (PreparedStatement pstmt = prepareStatement(sql)) {
-            pstmt.setString(1, username);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                return rs.next() ? rs.getInt("LoginAttempts") : 0;
+        return TIMERS.time("getManagerLoginAttempts", () -> {
+            String sql = "SELECT LoginAttempts FROM UserCredentials WHERE Username = ? AND UserType = 'MANAGER'";
+            try (PreparedStatement pstmt = prepareStatement(sql)) {
+                pstmt.setString(1, username);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    return rs.next() ? rs.getInt("LoginAttempts") : 0;
+                }
+            } catch (SQLException e) {
+                throw new DatabaseConnectionException("Failed to get login attempts", e);
             }
-        } catch (SQLException e) {
-            throw new DatabaseConnectionException("Failed to get login attempts", e);
-        }
+        });
     }
     public void lockManagerAccount(String username) throws DatabaseConnectionException {
-        String sql = "UPDATE UserCredentials SET AccountLocked = 1 WHERE Username = ? AND UserType = 'MANAGER'";
-        executeUpdate(sql, username);
+        TIMERS.run("lockManagerAccount", () -> {
+            String sql = "UPDATE UserCredentials SET AccountLocked = 1 WHERE Username = ? AND UserType = 'MANAGER'";
+            executeUpdate(sql, username);
+        });
     }
     public String getManagerPasswordHash(String username) throws DatabaseConnectionException {
-        String sql = "SELECT PasswordHash FROM ManagerCredentials WHERE Username = ?";
-        try (PreparedStatement pstmt = prepareStatement(sql)) {
-            pstmt.setString(1, username);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                return rs.next() ? rs.getString("PasswordHash") : null;
+        return TIMERS.time("getManagerPasswordHash", () -> {
+            String sql = "SELECT PasswordHash FROM ManagerCredentials WHERE Username = ?";
+            try (PreparedStatement pstmt = prepareStatement(sql)) {
+                pstmt.setString(1, username);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    return rs.next() ? rs.getString("PasswordHash") : null;
+                }
+            } catch (SQLException e) {
+                throw new DatabaseConnectionException("Failed to get manager password hash", e);
             }
-        } catch (SQLException e) {
-            throw new DatabaseConnectionException("Failed to get manager password hash", e);
-        }
+        });
     }
     public boolean isManagerAccountLocked(String username) throws DatabaseConnectionException {
-        String sql = "SELECT AccountLocked FROM ManagerCredentials WHERE Username = ?";
-        try (PreparedStatement pstmt = prepareStatement(sql)) {
-            pstmt.setString(1, username);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                return rs.next() && rs.getBoolean("AccountLocked");
+        return TIMERS.time("isManagerAccountLocked", () -> {
+            String sql = "SELECT AccountLocked FROM ManagerCredentials WHERE Username = ?";
+            try (PreparedStatement pstmt = prepareStatement(sql)) {
+                pstmt.setString(1, username);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    return rs.next() && rs.getBoolean("AccountLocked");
+                }
+            } catch (SQLException e) {
+                throw new DatabaseConnectionException("Failed to check manager account lock status", e);
             }
-        } catch (SQLException e) {
-            throw new DatabaseConnectionException("Failed to check manager account lock status", e);
-        }
+        });
     }
     public String getManagerUsername(int managerId) throws DatabaseConnectionException {
-        String sql = "SELECT Username FROM ManagerCredentials WHERE ManagerID = ?";
-        try (PreparedStatement pstmt = prepareStatement(sql)) {
-            pstmt.setInt(1, managerId);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                return rs.next() ? rs.getString("Username") : null;
+        return TIMERS.time("getManagerUsername", () -> {
+            String sql = "SELECT Username FROM ManagerCredentials WHERE ManagerID = ?";
+            try (PreparedStatement pstmt = prepareStatement(sql)) {
+                pstmt.setInt(1, managerId);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    return rs.next() ? rs.getString("Username") : null;
+                }
+            } catch (SQLException e) {
+                throw new DatabaseConnectionException("Failed to get manager username", e);
             }
-        } catch (SQLException e) {
-            throw new DatabaseConnectionException("Failed to get manager username", e);
-        }
+        });
     }
 
     // Statistics Operations
-    private Manager mapResultSetToManager(ResultSet rs) throws SQLException {
+    public static Manager mapResultSetToManager(ResultSet rs) throws SQLException {
         Manager manager = new Manager();
         manager.setManagerID(rs.getInt("ManagerID"));
         manager.setFirstName(rs.getString("FirstName"));
@@ -770,43 +1160,51 @@ public class DatabaseManager {
 
     // CURD Operations
     public int createTable(Table table) throws DatabaseConnectionException {
-        // First check if table number already exists
-        if (isTableNumberExists(table.getTableNumber())) {
-            throw new DatabaseConnectionException("Table number already exists");
-        }
+        return TIMERS.time("createTable", () -> {
+            // First check if table number already exists
+            if (isTableNumberExists(table.getTableNumber())) {
+                throw new ConflictException("Table number already exists");
+            }
 
-        String sql = "INSERT INTO RestaurantTables (CategoryID, TableNumber, Capacity, Status, " +
-                "Location, HasWindow, IsPrivate, LastModifiedBy, LastModifiedDate) " +
-                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, SYSDATETIME())";
+            String sql = "INSERT INTO RestaurantTables (CategoryID, TableNumber, Capacity, Status, " +
+                    "Location, HasWindow, IsPrivate, LastModifiedBy, LastModifiedDate) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?, " + dialect.currentTimestamp() + ")";
 
-        try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            try (PreparedStatement pstmt = getConnection().prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
 
-            pstmt.setInt(1, table.getCategoryID());
-            pstmt.setString(2, table.getTableNumber());
-            pstmt.setInt(3, table.getCapacity());
-            pstmt.setString(4, String.valueOf(table.getStatus()));
-            pstmt.setString(5, table.getLocation());
-            pstmt.setBoolean(6, table.isHasWindow());
-            pstmt.setBoolean(7, table.isPrivate());
-            pstmt.setInt(8, table.getLastModifiedBy());
+                pstmt.setInt(1, table.getCategoryID());
+                pstmt.setString(2, table.getTableNumber());
+                pstmt.setInt(3, table.getCapacity());
+                pstmt.setString(4, String.valueOf(table.getStatus()));
+                pstmt.setString(5, table.getLocation());
+                pstmt.setBoolean(6, table.isHasWindow());
+                pstmt.setBoolean(7, table.isPrivate());
+                pstmt.setInt(8, table.getLastModifiedBy());
 
-            int affectedRows = pstmt.executeUpdate();
+                int affectedRows = pstmt.executeUpdate();
 
-            if (affectedRows == 0) {
-                throw new DatabaseConnectionException("Creating table failed, no rows affected.");
-            }
+                if (affectedRows == 0) {
+                    throw new DatabaseConnectionException("Creating table failed, no rows affected.");
+                }
 
-            try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
-                if (generatedKeys.next()) {
-                    return generatedKeys.getInt(1);
-                } else {
-                    throw new DatabaseConnectionException("Creating table failed, no ID obtained.");
+                try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
+                    if (generatedKeys.next()) {
+                        int tableId = generatedKeys.getInt(1);
+                        if (BookingIndex.isEnabled()) {
+                            Table created = getTableById(tableId);
+                            if (created != null) {
+                                afterCommit(() -> BookingIndex.getInstance().tableSaved(created));
+                            }
+                        }
+                        return tableId;
+                    } else {
+                        throw new DatabaseConnectionException("Creating table failed, no ID obtained.");
+                    }
                 }
+            } catch (SQLException e) {
+                throw new DatabaseConnectionException("Table creation failed: " + e.getMessage());
             }
-        } catch (SQLException e) {
-            throw new DatabaseConnectionException("Table creation failed: " + e.getMessage());
-        }
+        });
     }
 
     // Validations Methods
@@ -814,8 +1212,7 @@ public class DatabaseManager {
     // Search Operations
     private boolean isTableNumberExists(String tableNumber) throws DatabaseConnectionException {
         String sql = "SELECT COUNT(*) FROM RestaurantTables WHERE TableNumber = ?";
-        try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try (PreparedStatement pstmt = getConnection().prepareStatement(sql)) {
 
             pstmt.setString(1, tableNumber);
             try (ResultSet rs = pstmt.executeQuery()) {
@@ -829,156 +1226,207 @@ public class DatabaseManager {
         }
     }
     public Table getTableById(int tableId) throws DatabaseConnectionException {
-        String sql = "SELECT t.*, tc.CategoryName, tc.MinCapacity, tc.MaxCapacity, tc.Description " +
-                "FROM RestaurantTables t " +
-                "JOIN TableCategories tc ON t.CategoryID = tc.CategoryID " +
-                "WHERE t.TableID = ?";
-
-        try (PreparedStatement pstmt = prepareStatement(sql)) {
-            pstmt.setInt(1, tableId);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                return rs.next() ? mapResultSetToTable(rs) : null;
-            }
-        } catch (SQLException e) {
-            throw new DatabaseConnectionException("Failed to retrieve table", e);
-        }
+        return TIMERS.time("getTableById", () -> {
+            return readThrough("table:" + tableId, () -> {
+                String sql = "SELECT t.*, tc.CategoryName, tc.MinCapacity, tc.MaxCapacity, tc.Description " +
+                        "FROM RestaurantTables t " +
+                        "JOIN TableCategories tc ON t.CategoryID = tc.CategoryID " +
+                        "WHERE t.TableID = ?";
+
+                try (PreparedStatement pstmt = prepareStatement(sql)) {
+                    pstmt.setInt(1, tableId);
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        return rs.next() ? mapResultSetToTable(rs) : null;
+                    }
+                } catch (SQLException e) {
+                    throw new DatabaseConnectionException("Failed to retrieve table", e);
+                }
+            });
+        });
     }
     public List<Table> getAvailableTables(int partySize, LocalDateTime dateTime) throws DatabaseConnectionException {
-        String sql = """
-        SELECT t.*, tc.CategoryName, tc.MinCapacity, tc.MaxCapacity, tc.Description 
-        FROM RestaurantTables t 
-        JOIN TableCategories tc ON t.CategoryID = tc.CategoryID 
-        WHERE t.Capacity >= ? 
-        AND t.Status = 'Available' 
-        AND t.TableID NOT IN (
-            SELECT TableID 
-            FROM Reservations 
-            WHERE CAST(ReservationDate AS DATE) = CAST(? AS DATE) 
-            AND CAST(ReservationTime AS TIME) = CAST(? AS TIME)
-            AND Status IN ('Pending', 'Confirmed')
-        )
-        ORDER BY t.Capacity ASC""";
-
-        List<Table> tables = new ArrayList<>();
-
-        try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-
-            // Set parameters with explicit casting
-            pstmt.setInt(1, partySize);
-            pstmt.setTimestamp(2, Timestamp.valueOf(dateTime)); // Full datetime value for consistent casting
-            pstmt.setTimestamp(3, Timestamp.valueOf(dateTime)); // Full datetime value for consistent casting
-
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    tables.add(mapResultSetToTable(rs));
+        return TIMERS.time("getAvailableTables", () -> {
+            return readThrough("available:" + partySize + "@" + dateTime, () -> {
+                String sql = """
+                SELECT t.*, tc.CategoryName, tc.MinCapacity, tc.MaxCapacity, tc.Description
+                FROM RestaurantTables t
+                JOIN TableCategories tc ON t.CategoryID = tc.CategoryID
+                WHERE t.Capacity >= ?
+                AND t.Status = 'Available'
+                AND t.TableID NOT IN (
+                    SELECT TableID
+                    FROM Reservations
+                    WHERE CAST(ReservationDate AS DATE) = CAST(? AS DATE)
+                    AND CAST(ReservationTime AS TIME) = CAST(? AS TIME)
+                    AND Status IN ('Pending', 'Confirmed')
+                )
+                ORDER BY t.Capacity ASC""";
+
+                List<Table> tables = new ArrayList<>();
+
+                try (PreparedStatement pstmt = getConnection().prepareStatement(sql)) {
+
+                    // Set parameters with explicit casting
+                    pstmt.setInt(1, partySize);
+                    pstmt.setTimestamp(2, Timestamp.valueOf(dateTime)); // Full datetime value for consistent casting
+                    pstmt.setTimestamp(3, Timestamp.valueOf(dateTime)); // Full datetime value for consistent casting
+
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            tables.add(mapResultSetToTable(rs));
+                        }
+                    }
+                    return tables;
+                } catch (SQLException e) {
+                    throw new DatabaseConnectionException("Failed to retrieve available tables: " + e.getMessage());
                 }
-            }
-            return tables;
-        } catch (SQLException e) {
-            throw new DatabaseConnectionException("Failed to retrieve available tables: " + e.getMessage());
-        }
+            }, () -> availableFromSnapshot(partySize, dateTime.toLocalDate(), dateTime.toLocalTime()));
+        });
     }
     public void updateTableStatus(int tableId, Table.TableStatus status, int modifiedBy) throws DatabaseConnectionException {
-        String sql = "UPDATE RestaurantTables SET Status = ?, LastModifiedBy = ?, " +
-                "LastModifiedDate = CURRENT_TIMESTAMP WHERE TableID = ?";
+        TIMERS.run("updateTableStatus", () -> {
+            String sql = "UPDATE RestaurantTables SET Status = ?, LastModifiedBy = ?, " +
+                    "LastModifiedDate = CURRENT_TIMESTAMP WHERE TableID = ?";
 
-        try (PreparedStatement pstmt = prepareStatement(sql)) {
-            pstmt.setString(1, status.toString());
-            pstmt.setInt(2, modifiedBy);
-            pstmt.setInt(3, tableId);
+            try (PreparedStatement pstmt = prepareStatement(sql)) {
+                pstmt.setString(1, status.toString());
+                pstmt.setInt(2, modifiedBy);
+                pstmt.setInt(3, tableId);
 
-            if (pstmt.executeUpdate() == 0) {
-                throw new DatabaseConnectionException("Table status update failed");
+                if (pstmt.executeUpdate() == 0) {
+                    throw new RecordNotFoundException("Table status update failed");
+                }
+                if (BookingIndex.isEnabled()) {
+                    afterCommit(() -> BookingIndex.getInstance().tableStatusChanged(tableId, status));
+                }
+                publishEvent(new DomainEvent.TableStatusChanged(Instant.now(), tableId, status));
+            } catch (SQLException e) {
+                throw new DatabaseConnectionException("Failed to update table status", e);
             }
-        } catch (SQLException e) {
-            throw new DatabaseConnectionException("Failed to update table status", e);
-        }
+        });
     }
     public List<Table> getAvailableTables(int partySize, LocalDate date, LocalTime time) throws DatabaseConnectionException {
-        String sql = """
-        SELECT t.*, tc.CategoryName, tc.MinCapacity, tc.MaxCapacity, tc.Description 
-        FROM RestaurantTables t 
-        JOIN TableCategories tc ON t.CategoryID = tc.CategoryID 
-        WHERE t.Capacity >= ? 
-        AND t.Status = 'Available' 
-        AND t.TableID NOT IN (
-            SELECT TableID 
-            FROM Reservations 
-            WHERE ReservationDate = ?
-            AND ReservationTime = ?
-            AND Status IN ('Pending', 'Confirmed')
-        )
-        ORDER BY t.Capacity ASC""";
-
-        List<Table> tables = new ArrayList<>();
-
-        try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-
-            pstmt.setInt(1, partySize);
-            pstmt.setDate(2, Date.valueOf(date));
-            pstmt.setTime(3, Time.valueOf(time));
-
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    tables.add(mapResultSetToTable(rs));
+        return TIMERS.time("getAvailableTables", () -> {
+            return readThrough("available:" + partySize + "@" + LocalDateTime.of(date, time), () -> {
+                String sql = """
+                SELECT t.*, tc.CategoryName, tc.MinCapacity, tc.MaxCapacity, tc.Description
+                FROM RestaurantTables t
+                JOIN TableCategories tc ON t.CategoryID = tc.CategoryID
+                WHERE t.Capacity >= ?
+                AND t.Status = 'Available'
+                AND t.TableID NOT IN (
+                    SELECT TableID
+                    FROM Reservations
+                    WHERE ReservationDate = ?
+                    AND ReservationTime = ?
+                    AND Status IN ('Pending', 'Confirmed')
+                )
+                ORDER BY t.Capacity ASC""";
+
+                List<Table> tables = new ArrayList<>();
+
+                try (PreparedStatement pstmt = getConnection().prepareStatement(sql)) {
+
+                    pstmt.setInt(1, partySize);
+                    pstmt.setDate(2, Date.valueOf(date));
+                    pstmt.setTime(3, Time.valueOf(time));
+
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            tables.add(mapResultSetToTable(rs));
+                        }
+                    }
+                    return tables;
+                } catch (SQLException e) {
+                    throw new DatabaseConnectionException("Failed to retrieve available tables: " + e.getMessage());
                 }
-            }
-            return tables;
-        } catch (SQLException e) {
-            throw new DatabaseConnectionException("Failed to retrieve available tables: " + e.getMessage());
+            }, () -> availableFromSnapshot(partySize, date, time));
+        });
+    }
+    // Without a snapshot for the slot, answer from the booking index, or failing that
+    // fall back to tables that are free right now
+    private List<Table> availableFromSnapshot(int partySize, LocalDate date, LocalTime time) {
+        if (BookingIndex.isEnabled() && BookingIndex.getInstance().isLoaded()) {
+            return BookingIndex.getInstance().getAvailableTables(partySize, date, time);
+        }
+        List<Table> tables = snapshots.get("tables");
+        if (tables == null) {
+            return null;
         }
+        tables.removeIf(table -> table.getCapacity() < partySize || table.getStatus() != Table.TableStatus.AVAILABLE);
+        tables.sort(Comparator.comparingInt(Table::getCapacity));
+        return tables;
     }
     public List<Table> getAllTables() throws DatabaseConnectionException {
-        String sql = "SELECT t.*, tc.CategoryName, tc.MinCapacity, tc.MaxCapacity, tc.Description " +
-                "FROM RestaurantTables t " +
-                "JOIN TableCategories tc ON t.CategoryID = tc.CategoryID " +
-                "ORDER BY t.TableNumber";
-
-        List<Table> tables = new ArrayList<>();
-        try (PreparedStatement pstmt = prepareStatement(sql);
-             ResultSet rs = pstmt.executeQuery()) {
-            while (rs.next()) {
-                tables.add(mapResultSetToTable(rs));
-            }
-            return tables;
-        } catch (SQLException e) {
-            throw new DatabaseConnectionException("Failed to retrieve tables", e);
-        }
+        return TIMERS.time("getAllTables", () -> {
+            return readThrough("tables", () -> {
+                String sql = "SELECT t.*, tc.CategoryName, tc.MinCapacity, tc.MaxCapacity, tc.Description " +
+                        "FROM RestaurantTables t " +
+                        "JOIN TableCategories tc ON t.CategoryID = tc.CategoryID " +
+                        "ORDER BY t.TableNumber";
+
+                List<Table> tables = new ArrayList<>();
+                try (PreparedStatement pstmt = prepareStatement(sql);
+                     ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        tables.add(mapResultSetToTable(rs));
+                    }
+                    return tables;
+                } catch (SQLException e) {
+                    throw new DatabaseConnectionException("Failed to retrieve tables", e);
+                }
+            });
+        });
     }
     public boolean checkTableAvailability(int tableId, LocalDate date, LocalTime time) throws DatabaseConnectionException {
-        String sql = "SELECT COUNT(*) FROM Reservations WHERE TableID = ? " +
-                "AND ReservationDate = ? " +
-                "AND CAST(CAST(ReservationDate AS DATETIME) + ' ' + CAST(ReservationTime AS VARCHAR(8)) AS DATETIME) = ? " +  // Combine DATE and TIME into DATETIME
-                "AND Status IN ('PENDING', 'CONFIRMED', 'RESERVED')";
+        return TIMERS.time("checkTableAvailability", () -> {
+            String sql = "SELECT COUNT(*) FROM Reservations WHERE TableID = ? " +
+                    "AND ReservationDate = ? " +
+                    "AND ReservationTime = ? " +
+                    "AND Status IN ('PENDING', 'CONFIRMED', 'RESERVED')";
 
-        try (PreparedStatement pstmt = prepareStatement(sql)) {
-            pstmt.setInt(1, tableId);
-            pstmt.setDate(2, Date.valueOf(date));  // Pass the date properly
-            pstmt.setTimestamp(3, Timestamp.valueOf(date.atTime(time)));  // Pass LocalDateTime as a Timestamp
+            try (PreparedStatement pstmt = prepareStatement(sql)) {
+                pstmt.setInt(1, tableId);
+                pstmt.setDate(2, Date.valueOf(date));
+                pstmt.setTime(3, Time.valueOf(time));
 
-            System.out.println("Executing SQL Query: " + sql); // Debugging log
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    // If no reservations are found, table is available
+                    return rs.next() && rs.getInt(1) == 0;
+                }
+            } catch (SQLException e) {
+                throw new DatabaseConnectionException("Failed to check table availability", e);
+            }
+        });
+    }
+    public record BookingCheck(boolean customerExists, boolean tableFree) {}
+    // Customer lookup and slot check for one booking as a single statement
+    public BookingCheck checkBooking(int customerId, int tableId, LocalDate date, LocalTime time) throws DatabaseConnectionException {
+        return TIMERS.time("checkBooking", () -> {
+            String sql = "SELECT (SELECT COUNT(*) FROM Customers WHERE CustomerID = ?), " +
+                    "(SELECT COUNT(*) FROM Reservations WHERE TableID = ? AND ReservationDate = ? " +
+                    "AND ReservationTime = ? AND Status IN ('PENDING', 'CONFIRMED', 'RESERVED'))";
 
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    int count = rs.getInt(1);
-                    System.out.println("Table availability check result: " + count); // Debugging log
-                    return count == 0;  // If no reservations are found, table is available
-                } else {
-                    System.out.println("No results from query."); // Debugging log
-                    return false;
+            try (PreparedStatement pstmt = prepareStatement(sql)) {
+                pstmt.setInt(1, customerId);
+                pstmt.setInt(2, tableId);
+                pstmt.setDate(3, Date.valueOf(date));
+                pstmt.setTime(4, Time.valueOf(time));
+
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (!rs.next()) {
+                        throw new DatabaseConnectionException("Booking check returned no row");
+                    }
+                    return new BookingCheck(rs.getInt(1) > 0, rs.getInt(2) == 0);
                 }
+            } catch (SQLException e) {
+                throw new DatabaseConnectionException("Failed to check booking", e);
             }
-        } catch (SQLException e) {
-            System.err.println("SQL Error: " + e.getMessage());
-            e.printStackTrace();
-            throw new DatabaseConnectionException("Failed to check table availability", e);
-        }
+        });
     }
 
     // Statistics Operations
-    private Table mapResultSetToTable(ResultSet rs) throws SQLException {
+    public static Table mapResultSetToTable(ResultSet rs) throws SQLException {
         Table table = new Table();
         table.setTableID(rs.getInt("TableID"));
         table.setCategoryID(rs.getInt("CategoryID"));
@@ -1020,29 +1468,103 @@ public class DatabaseManager {
 
     // CURD Operations
     public int createReservation(Reservation reservation) throws DatabaseConnectionException {
+        return TIMERS.time("createReservation", () -> {
+            validateReservation(reservation);
+
+            // Booking and table status commit together
+            int reservationId = inTransaction(conn -> {
+                int id = insertReservation(conn, reservation);
+                updateTableStatus(reservation.getTableID(), Table.TableStatus.RESERVED,
+                        reservation.getCustomerID());
+                return id;
+            });
+            reservationCreated(reservation, reservationId);
+            return reservationId;
+        });
+    }
+    public int createReservation(Reservation reservation, String idempotencyKey) throws DatabaseConnectionException {
+        return TIMERS.time("createReservation", () -> {
+            if (idempotencyKey == null) {
+                return createReservation(reservation);
+            }
+            validateReservation(reservation);
+            ensureIdempotencyTable();
+
+            SQLException keyConflict;
+            try {
+                int reservationId = inTransaction(conn -> {
+                    int id = insertReservation(conn, reservation);
+                    insertIdempotencyKey(conn, idempotencyKey, IDEMPOTENT_RESERVATION, reservation.getCustomerID(),
+                            requestHash(reservation), id);
+                    updateTableStatus(reservation.getTableID(), Table.TableStatus.RESERVED,
+                            reservation.getCustomerID());
+                    return id;
+                });
+                reservationCreated(reservation, reservationId);
+                return reservationId;
+            } catch (DatabaseConnectionException e) {
+                if (!(e.getCause() instanceof SQLException sqlError) || !isUniqueViolation(sqlError)) {
+                    throw e;
+                }
+                keyConflict = sqlError;
+            }
+
+            // A concurrent retry won the race for this key: hand back its reservation
+            Integer existingId = findIdempotentResult(IDEMPOTENT_RESERVATION, reservation.getCustomerID(),
+                    idempotencyKey, requestHash(reservation));
+            if (existingId != null) {
+                return existingId;
+            }
+            throw new DatabaseConnectionException("Reservation creation failed: " + keyConflict.getMessage(), keyConflict);
+        });
+    }
+    // After commit: index the booking and tell subscribers
+    private static void reservationCreated(Reservation reservation, int reservationId) {
+        publishEvent(new DomainEvent.ReservationCreated(Instant.now(), reservationId, reservation.getCustomerID(),
+                reservation.getTableID(), reservation.getReservationDate(), reservation.getReservationTime(),
+                reservation.getPartySize()));
+        if (BookingIndex.isEnabled()) {
+            Reservation saved = new Reservation(reservation.getCustomerID(), reservation.getTableID(),
+                    reservation.getReservationDate(), reservation.getReservationTime(), reservation.getPartySize());
+            saved.setReservationID(reservationId);
+            saved.setStatus(Reservation.ReservationStatus.CONFIRMED);
+            saved.setSpecialRequests(reservation.getSpecialRequests());
+            saved.setEstimatedDuration(reservation.getEstimatedDuration());
+            afterCommit(() -> BookingIndex.getInstance().reservationSaved(saved));
+        }
+    }
+    // Checks that need no database, so callers can reject a bad booking before they decide
+    // whether to write it or journal it
+    public static void validateReservation(Reservation reservation) throws DatabaseConnectionException {
+        if (reservation.getCustomerID() <= 0 || reservation.getTableID() <= 0) {
+            throw new ValidationException("Customer and table are required");
+        }
+        if (reservation.getReservationDate() == null || reservation.getReservationTime() == null) {
+            throw new ValidationException("Reservation date and time are required");
+        }
+        if (reservation.getPartySize() <= 0 || reservation.getPartySize() > 20) {
+            throw new ValidationException("Party size must be between 1 and 20");
+        }
+        if (reservation.getSpecialRequests() != null && reservation.getSpecialRequests().length() > 500) {
+            throw new ValidationException("Special requests must be 500 characters or less");
+        }
         // Validate reservation time is in the future
         if (LocalDateTime.of(reservation.getReservationDate(), reservation.getReservationTime())
                 .isBefore(LocalDateTime.now())) {
-            throw new DatabaseConnectionException("Cannot create reservation for past date/time");
+            throw new ValidationException("Cannot create reservation for past date/time");
         }
-
-        String sql = """
-        INSERT INTO Reservations 
-        (CustomerID, TableID, ReservationDate, ReservationTime, PartySize, 
-         Status, SpecialRequests, EstimatedDuration) 
+    }
+    private static final String INSERT_RESERVATION_SQL = """
+        INSERT INTO Reservations
+        (CustomerID, TableID, ReservationDate, ReservationTime, PartySize,
+         Status, SpecialRequests, EstimatedDuration)
         VALUES (?, ?, ?, ?, ?, ?, ?, ?)""";
+    private static final List<String> RESERVATION_INSERT_COLUMNS = List.of("CustomerID", "TableID", "ReservationDate",
+            "ReservationTime", "PartySize", "Status", "SpecialRequests", "EstimatedDuration");
 
-        try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-
-            pstmt.setInt(1, reservation.getCustomerID());
-            pstmt.setInt(2, reservation.getTableID());
-            pstmt.setDate(3, Date.valueOf(reservation.getReservationDate()));
-            pstmt.setTime(4, Time.valueOf(reservation.getReservationTime()));
-            pstmt.setInt(5, reservation.getPartySize());
-            pstmt.setString(6, "Confirmed"); // Default status for new reservations
-            pstmt.setString(7, reservation.getSpecialRequests());
-            pstmt.setInt(8, reservation.getEstimatedDuration());
+    private int insertReservation(Connection conn, Reservation reservation) throws SQLException, DatabaseConnectionException {
+        try (PreparedStatement pstmt = conn.prepareStatement(INSERT_RESERVATION_SQL, Statement.RETURN_GENERATED_KEYS)) {
+            bindReservation(pstmt, reservation);
 
             int affectedRows = pstmt.executeUpdate();
             if (affectedRows == 0) {
@@ -1051,36 +1573,67 @@ public class DatabaseManager {
 
             try (ResultSet rs = pstmt.getGeneratedKeys()) {
                 if (rs.next()) {
-                    // Update table status after successful reservation
-                    updateTableStatus(reservation.getTableID(), Table.TableStatus.RESERVED,
-                            reservation.getCustomerID());
                     return rs.getInt(1);
                 }
                 throw new DatabaseConnectionException("Failed to get reservation ID");
             }
-        } catch (SQLException e) {
-            throw new DatabaseConnectionException("Reservation creation failed: " + e.getMessage());
         }
     }
+    private static void bindReservation(PreparedStatement pstmt, Reservation reservation) throws SQLException {
+        bindReservation(pstmt, 1, reservation);
+    }
+    private static void bindReservation(PreparedStatement pstmt, int first, Reservation reservation) throws SQLException {
+        pstmt.setInt(first, reservation.getCustomerID());
+        pstmt.setInt(first + 1, reservation.getTableID());
+        pstmt.setDate(first + 2, Date.valueOf(reservation.getReservationDate()));
+        pstmt.setTime(first + 3, Time.valueOf(reservation.getReservationTime()));
+        pstmt.setInt(first + 4, reservation.getPartySize());
+        pstmt.setString(first + 5, "Confirmed"); // Default status for new reservations
+        pstmt.setString(first + 6, reservation.getSpecialRequests());
+        pstmt.setInt(first + 7, reservation.getEstimatedDuration());
+    }
     public void updateReservationStatus(int reservationId, Reservation.ReservationStatus status) throws DatabaseConnectionException {
-        String sql = "UPDATE Reservations SET Status = ? WHERE ReservationID = ?";
-        try (PreparedStatement pstmt = prepareStatement(sql)) {
-            pstmt.setString(1, status.toString());
-            pstmt.setInt(2, reservationId);
-
-            if (pstmt.executeUpdate() == 0) {
-                throw new DatabaseConnectionException("Reservation status update failed");
-            }
+        TIMERS.run("updateReservationStatus", () -> {
+            // Customer to credit with a visit, or 0
+            int visitor = inTransaction(conn -> {
+                boolean closing = status == Reservation.ReservationStatus.CANCELLED ||
+                        status == Reservation.ReservationStatus.COMPLETED;
+                Reservation previous = closing ? getReservationById(reservationId) : null;
+                String sql = "UPDATE Reservations SET Status = ? WHERE ReservationID = ?";
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setString(1, status.toString());
+                    pstmt.setInt(2, reservationId);
+
+                    if (pstmt.executeUpdate() == 0) {
+                        throw new RecordNotFoundException("Reservation status update failed");
+                    }
 
-            // Update table status if reservation is cancelled or completed
-            if (status == Reservation.ReservationStatus.CANCELLED ||
-                    status == Reservation.ReservationStatus.COMPLETED) {
-                Reservation reservation = getReservationById(reservationId);
-                updateTableStatus(reservation.getTableID(), Table.TableStatus.AVAILABLE, 0);
+                    // Update table status if reservation is cancelled or completed
+                    if (previous != null) {
+                        updateTableStatus(previous.getTableID(), Table.TableStatus.AVAILABLE, 0);
+                        if (status == Reservation.ReservationStatus.COMPLETED &&
+                                previous.getStatus() != Reservation.ReservationStatus.COMPLETED) {
+                            return previous.getCustomerID();
+                        }
+                    }
+                } catch (SQLException e) {
+                    throw new DatabaseConnectionException("Failed to update reservation status", e);
+                }
+                return 0;
+            });
+            if (BookingIndex.isEnabled()) {
+                afterCommit(() -> BookingIndex.getInstance().reservationStatusChanged(reservationId, status));
+            }
+            publishEvent(new DomainEvent.ReservationStatusChanged(Instant.now(), reservationId, status));
+            if (visitor > 0) {
+                try {
+                    updateCustomerVisits(visitor);
+                } catch (DatabaseConnectionException e) {
+                    // The status change is committed; a missed visit count is not worth failing it
+                    log.atWarn().message("Failed to record customer visit").with("customerId", visitor).error(e).log();
+                }
             }
-        } catch (SQLException e) {
-            throw new DatabaseConnectionException("Failed to update reservation status", e);
-        }
+        });
     }
 
     // Validations Methods
@@ -1088,28 +1641,26 @@ public class DatabaseManager {
     // Search Operations
     private boolean hasOverlappingReservations(int tableId, LocalDate date, LocalTime time, int estimatedDuration) throws DatabaseConnectionException {
         String sql = """
-        SELECT COUNT(*) FROM Reservations 
-        WHERE TableID = ? 
-        AND ReservationDate = ? 
+        SELECT COUNT(*) FROM Reservations
+        WHERE TableID = ?
+        AND ReservationDate = ?
         AND Status IN ('Pending', 'Confirmed')
         AND (
-            (ReservationTime BETWEEN ? AND DATEADD(MINUTE, ?, ?))
-            OR (DATEADD(MINUTE, EstimatedDuration, ReservationTime) 
-                BETWEEN ? AND DATEADD(MINUTE, ?, ?))
-        )""";
+            (ReservationTime BETWEEN ? AND ?)
+            OR (%s BETWEEN ? AND ?)
+        )""".formatted(dialect.addMinutes("EstimatedDuration", "ReservationTime"));
 
-        try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try (PreparedStatement pstmt = getConnection().prepareStatement(sql)) {
 
+            // The window end is computed here so the statement has no untyped date arithmetic
             Time startTime = Time.valueOf(time);
+            Time endTime = Time.valueOf(time.plusMinutes(estimatedDuration));
             pstmt.setInt(1, tableId);
             pstmt.setDate(2, Date.valueOf(date));
             pstmt.setTime(3, startTime);
-            pstmt.setInt(4, estimatedDuration);
+            pstmt.setTime(4, endTime);
             pstmt.setTime(5, startTime);
-            pstmt.setTime(6, startTime);
-            pstmt.setInt(7, estimatedDuration);
-            pstmt.setTime(8, startTime);
+            pstmt.setTime(6, endTime);
 
             try (ResultSet rs = pstmt.executeQuery()) {
                 return rs.next() && rs.getInt(1) > 0;
@@ -1119,148 +1670,182 @@ public class DatabaseManager {
         }
     }
     public Reservation getReservationById(int reservationId) throws DatabaseConnectionException {
-        String sql = "SELECT * FROM Reservations WHERE ReservationID = ?";
-        try (PreparedStatement pstmt = prepareStatement(sql)) {
-            pstmt.setInt(1, reservationId);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                return rs.next() ? mapResultSetToReservation(rs) : null;
+        return TIMERS.time("getReservationById", () -> {
+            String sql = "SELECT * FROM Reservations WHERE ReservationID = ?";
+            try (PreparedStatement pstmt = prepareStatement(sql)) {
+                pstmt.setInt(1, reservationId);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    return rs.next() ? mapResultSetToReservation(rs) : null;
+                }
+            } catch (SQLException e) {
+                throw new DatabaseConnectionException("Failed to retrieve reservation", e);
             }
-        } catch (SQLException e) {
-            throw new DatabaseConnectionException("Failed to retrieve reservation", e);
-        }
+        });
     }
     public List<Reservation> getReservationsByCustomer(int customerId) throws DatabaseConnectionException {
-        String sql = "SELECT * FROM Reservations WHERE CustomerID = ? ORDER BY ReservationDate, ReservationTime";
-        List<Reservation> reservations = new ArrayList<>();
+        return TIMERS.time("getReservationsByCustomer", () -> {
+            String sql = "SELECT * FROM Reservations WHERE CustomerID = ? ORDER BY ReservationDate, ReservationTime";
+            List<Reservation> reservations = new ArrayList<>();
 
-        try (PreparedStatement pstmt = prepareStatement(sql)) {
-            pstmt.setInt(1, customerId);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    reservations.add(mapResultSetToReservation(rs));
+            try (PreparedStatement pstmt = prepareStatement(sql)) {
+                pstmt.setInt(1, customerId);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        reservations.add(mapResultSetToReservation(rs));
+                    }
                 }
+                return reservations;
+            } catch (SQLException e) {
+                throw new DatabaseConnectionException("Failed to retrieve customer reservations", e);
             }
-            return reservations;
-        } catch (SQLException e) {
-            throw new DatabaseConnectionException("Failed to retrieve customer reservations", e);
-        }
+        });
     }
     public List<Reservation> getActiveReservations() throws DatabaseConnectionException {
-        String sql = "SELECT * FROM Reservations WHERE Status IN ('PENDING', 'CONFIRMED') " +
-                "AND ReservationDate >= CAST(GETDATE() AS DATE) ORDER BY ReservationDate, ReservationTime";
-        List<Reservation> reservations = new ArrayList<>();
-
-        try (PreparedStatement pstmt = prepareStatement(sql);
-             ResultSet rs = pstmt.executeQuery()) {
-            while (rs.next()) {
-                reservations.add(mapResultSetToReservation(rs));
+        return TIMERS.time("getActiveReservations", () -> {
+            return readThrough("activeReservations", () -> {
+                String sql = "SELECT * FROM Reservations WHERE Status IN ('PENDING', 'CONFIRMED') " +
+                        "AND ReservationDate >= " + dialect.currentDate() + " ORDER BY ReservationDate, ReservationTime";
+                List<Reservation> reservations = new ArrayList<>();
+
+                try (PreparedStatement pstmt = prepareStatement(sql);
+                     ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        reservations.add(mapResultSetToReservation(rs));
+                    }
+                    return reservations;
+                } catch (SQLException e) {
+                    throw new DatabaseConnectionException("Failed to retrieve active reservations", e);
+                }
+            }, this::activeReservationsFromIndex);
+        });
+    }
+    public List<Reservation> getActiveReservationsBetween(LocalDate from, LocalDate to) throws DatabaseConnectionException {
+        return TIMERS.time("getActiveReservationsBetween", () -> {
+            String sql = "SELECT * FROM Reservations WHERE Status IN ('PENDING', 'CONFIRMED') " +
+                    "AND ReservationDate BETWEEN ? AND ?";
+            List<Reservation> reservations = new ArrayList<>();
+            try (PreparedStatement pstmt = prepareStatement(sql)) {
+                pstmt.setDate(1, Date.valueOf(from));
+                pstmt.setDate(2, Date.valueOf(to));
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        reservations.add(mapResultSetToReservation(rs));
+                    }
+                }
+                return reservations;
+            } catch (SQLException e) {
+                throw new DatabaseConnectionException("Failed to retrieve active reservations", e);
             }
-            return reservations;
-        } catch (SQLException e) {
-            System.err.println("SQL Exception: " + e.getMessage());  // Debugging print
-            throw new DatabaseConnectionException("Failed to retrieve active reservations", e);
-        }
+        });
+    }
+    private List<Reservation> activeReservationsFromIndex() {
+        return BookingIndex.isEnabled() && BookingIndex.getInstance().isLoaded()
+                ? BookingIndex.getInstance().getActiveReservations() : null;
     }
     public List<Reservation> getReservationsByDate(LocalDate date) throws InvalidStatusException {
-        // Input validation
-        if (date == null) {
-            throw new IllegalArgumentException("Reservation date cannot be null");
-        }
-
-        // List to store reservations for the specified date
-        List<Reservation> reservationsOnDate = new ArrayList<>();
-
-        try (Connection conn = getConnection()) {
-            // SQL query matching the ActiveReservations view structure
-            String sql = "SELECT " +
-                    "ReservationID, CustomerID, TableID, " +
-                    "ReservationDate, ReservationTime, PartySize, " +
-                    "Status, SpecialRequests, EstimatedDuration " +
-                    "FROM Reservations " +
-                    "WHERE ReservationDate = ?";
-
-            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-                // Set the date parameter
-                pstmt.setDate(1, Date.valueOf(date));
-
-                // Execute the query
-                try (ResultSet rs = pstmt.executeQuery()) {
-                    // Process each row in the result set
-                    while (rs.next()) {
-                        Reservation reservation = new Reservation();
-
-                        // Populate reservation object from database result
-                        reservation.setReservationID(rs.getInt("ReservationID"));
-                        reservation.setCustomerID(rs.getInt("CustomerID"));
-                        reservation.setTableID(rs.getInt("TableID"));
-
-                        // Convert java.sql.Date to LocalDate
-                        reservation.setReservationDate(rs.getDate("ReservationDate").toLocalDate());
-
-                        // Convert java.sql.Time to LocalTime
-                        reservation.setReservationTime(rs.getTime("ReservationTime").toLocalTime());
-
-                        reservation.setPartySize(rs.getInt("PartySize"));
+        return TIMERS.time("getReservationsByDate", () -> {
+            // Input validation
+            if (date == null) {
+                throw new IllegalArgumentException("Reservation date cannot be null");
+            }
 
-                        // Get and normalize status
-                        String statusStr = rs.getString("Status").trim().toUpperCase();  // Normalize the status string
-                        try {
-                            reservation.setStatus(Reservation.ReservationStatus.valueOf(statusStr));
-                        } catch (IllegalArgumentException e) {
-                            // Throw exception instead of logging
-                            throw new InvalidStatusException("Invalid status value found in the database: " + statusStr);
-                        }
+            // List to store reservations for the specified date
+            List<Reservation> reservationsOnDate = new ArrayList<>();
 
-                        // Handle potential null values
-                        String specialRequests = rs.getString("SpecialRequests");
-                        if (specialRequests != null) {
-                            reservation.setSpecialRequests(specialRequests);
+            try {
+                Connection conn = getConnection();
+                // SQL query matching the ActiveReservations view structure
+                String sql = "SELECT " +
+                        "ReservationID, CustomerID, TableID, " +
+                        "ReservationDate, ReservationTime, PartySize, " +
+                        "Status, SpecialRequests, EstimatedDuration " +
+                        "FROM Reservations " +
+                        "WHERE ReservationDate = ?";
+
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    // Set the date parameter
+                    pstmt.setDate(1, Date.valueOf(date));
+
+                    // Execute the query
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        // Process each row in the result set
+                        while (rs.next()) {
+                            Reservation reservation = new Reservation();
+
+                            // Populate reservation object from database result
+                            reservation.setReservationID(rs.getInt("ReservationID"));
+                            reservation.setCustomerID(rs.getInt("CustomerID"));
+                            reservation.setTableID(rs.getInt("TableID"));
+
+                            // Convert java.sql.Date to LocalDate
+                            reservation.setReservationDate(rs.getDate("ReservationDate").toLocalDate());
+
+                            // Convert java.sql.Time to LocalTime
+                            reservation.setReservationTime(rs.getTime("ReservationTime").toLocalTime());
+
+                            reservation.setPartySize(rs.getInt("PartySize"));
+
+                            // Get and normalize status
+                            String statusStr = rs.getString("Status").trim().toUpperCase();  // Normalize the status string
+                            try {
+                                reservation.setStatus(Reservation.ReservationStatus.valueOf(statusStr));
+                            } catch (IllegalArgumentException e) {
+                                // Throw exception instead of logging
+                                throw new InvalidStatusException("Invalid status value found in the database: " + statusStr);
+                            }
+
+                            // Handle potential null values
+                            String specialRequests = rs.getString("SpecialRequests");
+                            if (specialRequests != null) {
+                                reservation.setSpecialRequests(specialRequests);
+                            }
+
+                            reservation.setEstimatedDuration(rs.getInt("EstimatedDuration"));
+
+                            // Add to the list of reservations
+                            reservationsOnDate.add(reservation);
                         }
-
-                        reservation.setEstimatedDuration(rs.getInt("EstimatedDuration"));
-
-                        // Add to the list of reservations
-                        reservationsOnDate.add(reservation);
                     }
                 }
+            } catch (SQLException | DatabaseConnectionException e) {
+                // Rethrow the exception to be handled by the calling code
+                throw new RuntimeException("Error retrieving reservations for date: " + date, e);
             }
-        } catch (SQLException | DatabaseConnectionException e) {
-            // Rethrow the exception to be handled by the calling code
-            throw new RuntimeException("Error retrieving reservations for date: " + date, e);
-        }
 
-        return reservationsOnDate;
+            return reservationsOnDate;
+        });
     }
     public int getTableReservationCount(int tableId, LocalDate date) throws DatabaseConnectionException {
-        String sql = "SELECT COUNT(*) AS ReservationCount " +
-                "FROM Reservations " +
-                "WHERE TableID = ? AND ReservationDate = ? " +
-                "AND Status NOT IN ('Cancelled', 'Expired')";
+        return TIMERS.time("getTableReservationCount", () -> {
+            String sql = "SELECT COUNT(*) AS ReservationCount " +
+                    "FROM Reservations " +
+                    "WHERE TableID = ? AND ReservationDate = ? " +
+                    "AND Status NOT IN ('Cancelled', 'Expired')";
 
-        try (Connection conn = DatabaseConfig.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            try (PreparedStatement pstmt = getConnection().prepareStatement(sql)) {
 
-            // Set parameters
-            pstmt.setInt(1, tableId);
-            pstmt.setDate(2, Date.valueOf(date));
+                // Set parameters
+                pstmt.setInt(1, tableId);
+                pstmt.setDate(2, Date.valueOf(date));
 
-            // Execute query
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getInt("ReservationCount");
+                // Execute query
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (rs.next()) {
+                        return rs.getInt("ReservationCount");
+                    }
+                    return 0;
                 }
-                return 0;
+            } catch (SQLException e) {
+                // Log the error and throw a custom exception
+                throw new DatabaseConnectionException(
+                        "Failed to retrieve reservation count for table " + tableId, e
+                );
             }
-        } catch (SQLException e) {
-            // Log the error and throw a custom exception
-            throw new DatabaseConnectionException(
-                    "Failed to retrieve reservation count for table " + tableId, e
-            );
-        }
+        });
     }
 
     // Statistics Operations
-    private Reservation mapResultSetToReservation(ResultSet rs) throws SQLException {
+    public static Reservation mapResultSetToReservation(ResultSet rs) throws SQLException {
         Reservation reservation = new Reservation();
         reservation.setReservationID(rs.getInt("ReservationID"));
         reservation.setCustomerID(rs.getInt("CustomerID"));
@@ -1274,7 +1859,7 @@ public class DatabaseManager {
         try {
             reservation.setStatus(Reservation.ReservationStatus.valueOf(statusStr));
         } catch (IllegalArgumentException e) {
-            System.err.println("Invalid status value found in the database: " + statusStr);
+            log.atWarn().message("Invalid reservation status in database").with("status", statusStr).log();
             reservation.setStatus(Reservation.ReservationStatus.PENDING);  // Default status
         }
 
@@ -1290,17 +1875,69 @@ public class DatabaseManager {
 
     //  CURD Operations
     public int createWaitlistEntry(Waitlist waitlist) throws DatabaseConnectionException {
-        String sql = "INSERT INTO Waitlist (CustomerID, RequestedDate, RequestedTime, " +
-                "PartySize, Status, QueuePosition, WaitTime) VALUES (?, ?, ?, ?, ?, ?, ?)";
-
-        try (PreparedStatement pstmt = prepareStatementWithKeys(sql)) {
-            pstmt.setInt(1, waitlist.getCustomerID());
-            pstmt.setDate(2, Date.valueOf(waitlist.getRequestedDate()));
-            pstmt.setTime(3, Time.valueOf(waitlist.getRequestedTime()));
-            pstmt.setInt(4, waitlist.getPartySize());
-            pstmt.setString(5, waitlist.getStatus().toString());
-            pstmt.setInt(6, getNextQueuePosition());
-            pstmt.setInt(7, waitlist.getWaitTime());
+        return TIMERS.time("createWaitlistEntry", () -> {
+            try {
+                int waitlistId = insertWaitlistEntry(getConnection(), waitlist);
+                waitlistEntryCreated(waitlist, waitlistId);
+                return waitlistId;
+            } catch (SQLException e) {
+                throw new DatabaseConnectionException("Waitlist entry creation failed", e);
+            }
+        });
+    }
+    public int createWaitlistEntry(Waitlist waitlist, String idempotencyKey) throws DatabaseConnectionException {
+        return TIMERS.time("createWaitlistEntry", () -> {
+            if (idempotencyKey == null) {
+                return createWaitlistEntry(waitlist);
+            }
+            ensureIdempotencyTable();
+
+            SQLException keyConflict;
+            try {
+                int waitlistId = inTransaction(conn -> {
+                    int id = insertWaitlistEntry(conn, waitlist);
+                    insertIdempotencyKey(conn, idempotencyKey, IDEMPOTENT_WAITLIST, waitlist.getCustomerID(),
+                            requestHash(waitlist), id);
+                    return id;
+                });
+                waitlistEntryCreated(waitlist, waitlistId);
+                return waitlistId;
+            } catch (DatabaseConnectionException e) {
+                if (!(e.getCause() instanceof SQLException sqlError) || !isUniqueViolation(sqlError)) {
+                    throw e;
+                }
+                keyConflict = sqlError;
+            }
+
+            Integer existingId = findIdempotentResult(IDEMPOTENT_WAITLIST, waitlist.getCustomerID(), idempotencyKey,
+                    requestHash(waitlist));
+            if (existingId != null) {
+                return existingId;
+            }
+            throw new DatabaseConnectionException("Waitlist entry creation failed", keyConflict);
+        });
+    }
+    // After commit: index the entry and tell subscribers
+    private static void waitlistEntryCreated(Waitlist waitlist, int waitlistId) {
+        publishEvent(new DomainEvent.WaitlistChanged(Instant.now(), waitlistId,
+                DomainEvent.WaitlistChanged.Change.ADDED, waitlist.getStatus()));
+        if (BookingIndex.isEnabled()) {
+            Waitlist saved = new Waitlist(waitlist.getCustomerID(), waitlist.getRequestedDate(),
+                    waitlist.getRequestedTime(), waitlist.getPartySize(), waitlist.getQueuePosition());
+            saved.setWaitlistID(waitlistId);
+            saved.setStatus(waitlist.getStatus());
+            saved.setWaitTime(waitlist.getWaitTime());
+            afterCommit(() -> BookingIndex.getInstance().waitlistSaved(saved));
+        }
+    }
+    private static final String INSERT_WAITLIST_SQL = "INSERT INTO Waitlist (CustomerID, RequestedDate, RequestedTime, " +
+            "PartySize, Status, QueuePosition, WaitTime) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final List<String> WAITLIST_INSERT_COLUMNS = List.of("CustomerID", "RequestedDate", "RequestedTime",
+            "PartySize", "Status", "QueuePosition", "WaitTime");
+
+    private int insertWaitlistEntry(Connection conn, Waitlist waitlist) throws SQLException, DatabaseConnectionException {
+        try (PreparedStatement pstmt = conn.prepareStatement(INSERT_WAITLIST_SQL, Statement.RETURN_GENERATED_KEYS)) {
+            bindWaitlistEntry(pstmt, waitlist, getNextQueuePosition());
 
             if (pstmt.executeUpdate() == 0) {
                 throw new DatabaseConnectionException("Failed to create waitlist entry");
@@ -1309,53 +1946,91 @@ public class DatabaseManager {
             try (ResultSet rs = pstmt.getGeneratedKeys()) {
                 return rs.next() ? rs.getInt(1) : -1;
             }
-        } catch (SQLException e) {
-            throw new DatabaseConnectionException("Waitlist entry creation failed", e);
         }
     }
+    private static void bindWaitlistEntry(PreparedStatement pstmt, Waitlist waitlist, int queuePosition) throws SQLException {
+        bindWaitlistEntry(pstmt, 1, waitlist, queuePosition);
+    }
+    private static void bindWaitlistEntry(PreparedStatement pstmt, int first, Waitlist waitlist, int queuePosition)
+            throws SQLException {
+        pstmt.setInt(first, waitlist.getCustomerID());
+        pstmt.setDate(first + 1, Date.valueOf(waitlist.getRequestedDate()));
+        pstmt.setTime(first + 2, Time.valueOf(waitlist.getRequestedTime()));
+        pstmt.setInt(first + 3, waitlist.getPartySize());
+        pstmt.setString(first + 4, waitlist.getStatus().toString());
+        pstmt.setInt(first + 5, queuePosition);
+        pstmt.setInt(first + 6, waitlist.getWaitTime());
+    }
     public void updateWaitlistStatus(int waitlistId, Waitlist.WaitlistStatus status) throws DatabaseConnectionException {
-        String sql = "UPDATE Waitlist SET Status = ? WHERE WaitlistID = ?";
+        TIMERS.run("updateWaitlistStatus", () -> {
+            inTransaction(conn -> {
+                String sql = "UPDATE Waitlist SET Status = ? WHERE WaitlistID = ?";
 
-        try (PreparedStatement pstmt = prepareStatement(sql)) {
-            pstmt.setString(1, status.toString());
-            pstmt.setInt(2, waitlistId);
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setString(1, status.toString());
+                    pstmt.setInt(2, waitlistId);
 
-            if (pstmt.executeUpdate() == 0) {
-                throw new DatabaseConnectionException("Waitlist status update failed");
-            }
+                    if (pstmt.executeUpdate() == 0) {
+                        throw new RecordNotFoundException("Waitlist status update failed");
+                    }
 
-            if (status != Waitlist.WaitlistStatus.ACTIVE) {
-                reorderQueuePositions();
+                    if (status != Waitlist.WaitlistStatus.ACTIVE) {
+                        reorderQueuePositions();
+                    }
+                } catch (SQLException e) {
+                    throw new DatabaseConnectionException("Failed to update waitlist status", e);
+                }
+                return null;
+            });
+            if (BookingIndex.isEnabled()) {
+                afterCommit(() -> BookingIndex.getInstance().waitlistStatusChanged(waitlistId, status));
             }
-        } catch (SQLException e) {
-            throw new DatabaseConnectionException("Failed to update waitlist status", e);
-        }
+            publishEvent(new DomainEvent.WaitlistChanged(Instant.now(), waitlistId,
+                    DomainEvent.WaitlistChanged.Change.STATUS, status));
+        });
     }
     public void updateWaitTime(int waitlistId, int newWaitTime) throws DatabaseConnectionException {
-        String sql = "UPDATE Waitlist SET WaitTime = ? WHERE WaitlistID = ?";
-        try (PreparedStatement pstmt = prepareStatement(sql)) {
-            pstmt.setInt(1, newWaitTime);
-            pstmt.setInt(2, waitlistId);
+        TIMERS.run("updateWaitTime", () -> {
+            String sql = "UPDATE Waitlist SET WaitTime = ? WHERE WaitlistID = ?";
+            try (PreparedStatement pstmt = prepareStatement(sql)) {
+                pstmt.setInt(1, newWaitTime);
+                pstmt.setInt(2, waitlistId);
 
-            if (pstmt.executeUpdate() == 0) {
-                throw new DatabaseConnectionException("Wait time update failed");
+                if (pstmt.executeUpdate() == 0) {
+                    throw new RecordNotFoundException("Wait time update failed");
+                }
+                if (BookingIndex.isEnabled()) {
+                    afterCommit(() -> BookingIndex.getInstance().waitTimeChanged(waitlistId, newWaitTime));
+                }
+                publishEvent(new DomainEvent.WaitlistChanged(Instant.now(), waitlistId,
+                        DomainEvent.WaitlistChanged.Change.WAIT_TIME, null));
+            } catch (SQLException e) {
+                throw new DatabaseConnectionException("Failed to update wait time", e);
             }
-        } catch (SQLException e) {
-            throw new DatabaseConnectionException("Failed to update wait time", e);
-        }
+        });
     }
     public void removeFromWaitlist(int waitlistId) throws DatabaseConnectionException {
-        String sql = "DELETE FROM Waitlist WHERE WaitlistID = ?";
-        try (PreparedStatement pstmt = prepareStatement(sql)) {
-            pstmt.setInt(1, waitlistId);
-
-            if (pstmt.executeUpdate() == 0) {
-                throw new DatabaseConnectionException("Failed to remove from waitlist");
+        TIMERS.run("removeFromWaitlist", () -> {
+            inTransaction(conn -> {
+                String sql = "DELETE FROM Waitlist WHERE WaitlistID = ?";
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setInt(1, waitlistId);
+
+                    if (pstmt.executeUpdate() == 0) {
+                        throw new RecordNotFoundException("Failed to remove from waitlist");
+                    }
+                    reorderQueuePositions();
+                } catch (SQLException e) {
+                    throw new DatabaseConnectionException("Failed to remove from waitlist", e);
+                }
+                return null;
+            });
+            if (BookingIndex.isEnabled()) {
+                afterCommit(() -> BookingIndex.getInstance().waitlistRemoved(waitlistId));
             }
-            reorderQueuePositions();
-        } catch (SQLException e) {
-            throw new DatabaseConnectionException("Failed to remove from waitlist", e);
-        }
+            publishEvent(new DomainEvent.WaitlistChanged(Instant.now(), waitlistId,
+                    DomainEvent.WaitlistChanged.Change.REMOVED, null));
+        });
     }
 
     // Validations Methods
@@ -1369,61 +2044,65 @@ public class DatabaseManager {
         }
     }
     public List<Waitlist> getActiveWaitlist() throws DatabaseConnectionException {
-        String sql = "SELECT w.*, c.FirstName, c.LastName FROM Waitlist w " +
-                "JOIN Customers c ON w.CustomerID = c.CustomerID " +
-                "WHERE w.Status = 'ACTIVE' ORDER BY w.QueuePosition";
-
-        List<Waitlist> waitlist = new ArrayList<>();
-        try (PreparedStatement pstmt = prepareStatement(sql);
-             ResultSet rs = pstmt.executeQuery()) {
-            while (rs.next()) {
-                waitlist.add(mapResultSetToWaitlist(rs));
-            }
-            return waitlist;
-        } catch (SQLException e) {
-            throw new DatabaseConnectionException("Failed to retrieve active waitlist", e);
-        }
+        return TIMERS.time("getActiveWaitlist", () -> {
+            return readThrough("activeWaitlist", () -> {
+                String sql = "SELECT w.*, c.FirstName, c.LastName FROM Waitlist w " +
+                        "JOIN Customers c ON w.CustomerID = c.CustomerID " +
+                        "WHERE w.Status = 'ACTIVE' ORDER BY w.QueuePosition";
+
+                List<Waitlist> waitlist = new ArrayList<>();
+                try (PreparedStatement pstmt = prepareStatement(sql);
+                     ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        waitlist.add(mapResultSetToWaitlist(rs));
+                    }
+                    return waitlist;
+                } catch (SQLException e) {
+                    throw new DatabaseConnectionException("Failed to retrieve active waitlist", e);
+                }
+            }, this::activeWaitlistFromIndex);
+        });
+    }
+    private List<Waitlist> activeWaitlistFromIndex() {
+        return BookingIndex.isEnabled() && BookingIndex.getInstance().isLoaded()
+                ? BookingIndex.getInstance().getActiveWaitlist() : null;
     }
     private void reorderQueuePositions() throws SQLException {
-        String sql = "UPDATE Waitlist SET QueuePosition = newPosition.rownum " +
-                "FROM (SELECT WaitlistID, ROW_NUMBER() OVER (ORDER BY QueuePosition) AS rownum " +
-                "FROM Waitlist WHERE Status = 'ACTIVE') AS newPosition " +
-                "WHERE Waitlist.WaitlistID = newPosition.WaitlistID";
-
-        try (PreparedStatement pstmt = prepareStatement(sql)) {
+        try (PreparedStatement pstmt = prepareStatement(dialect.renumberActiveWaitlistSql())) {
             pstmt.executeUpdate();
         } catch (DatabaseConnectionException e) {
             throw new RuntimeException(e);
         }
     }
     public int getHighestQueuePosition(LocalDate date, LocalTime time) throws DatabaseConnectionException {
-        String query = "SELECT ISNULL(MAX(QueuePosition), 1) " +
-                "FROM Waitlist " +
-                "WHERE RequestedDate = ? " +
-                "AND DATEPART(HOUR, RequestedTime) = DATEPART(HOUR, ?) " +
-                "AND DATEPART(MINUTE, RequestedTime) = DATEPART(MINUTE, ?)";
-
-        try (Connection connection = getConnection();
-             PreparedStatement stmt = connection.prepareStatement(query)) {
-
-            // Set parameters for PreparedStatement
-            stmt.setDate(1, java.sql.Date.valueOf(date));
-            stmt.setTime(2, java.sql.Time.valueOf(time));
-            stmt.setTime(3, java.sql.Time.valueOf(time));
-
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getInt(1);  // Returns the next available QueuePosition
+        return TIMERS.time("getHighestQueuePosition", () -> {
+            String query = "SELECT " + dialect.coalesce("MAX(QueuePosition)", "1") + " " +
+                    "FROM Waitlist " +
+                    "WHERE RequestedDate = ? " +
+                    "AND " + dialect.hourOf("RequestedTime") + " = " + dialect.hourOf("?") + " " +
+                    "AND " + dialect.minuteOf("RequestedTime") + " = " + dialect.minuteOf("?");
+
+            try (PreparedStatement stmt = getConnection().prepareStatement(query)) {
+
+                // Set parameters for PreparedStatement
+                stmt.setDate(1, java.sql.Date.valueOf(date));
+                stmt.setTime(2, java.sql.Time.valueOf(time));
+                stmt.setTime(3, java.sql.Time.valueOf(time));
+
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        return rs.getInt(1);  // Returns the next available QueuePosition
+                    }
+                    return 1;  // Default to 1 if no rows are found
                 }
-                return 1;  // Default to 1 if no rows are found
+            } catch (SQLException e) {
+                throw new DatabaseConnectionException("Database error while fetching highest queue position", e);
             }
-        } catch (SQLException e) {
-            throw new DatabaseConnectionException("Database error while fetching highest queue position", e);
-        }
+        });
     }
 
     // Statistics Operations
-    private Waitlist mapResultSetToWaitlist(ResultSet rs) throws SQLException {
+    public static Waitlist mapResultSetToWaitlist(ResultSet rs) throws SQLException {
         Waitlist waitlist = new Waitlist();
         waitlist.setWaitlistID(rs.getInt("WaitlistID"));
         waitlist.setCustomerID(rs.getInt("CustomerID"));
@@ -1437,5 +2116,1046 @@ public class DatabaseManager {
     }
 
 
-}
+    //                                    Idempotency Operations
+
+    public static final String IDEMPOTENT_RESERVATION = "RESERVATION";
+    public static final String IDEMPOTENT_WAITLIST = "WAITLIST";
+    public static final String IDEMPOTENT_VISITS = "VISITS";
+    // Keyed by BookingJournal.provisionalKey: the ID a journaled booking got on replay
+    public static final String IDEMPOTENT_JOURNAL_RESERVATION = "JOURNAL_RES";
+    public static final String IDEMPOTENT_JOURNAL_WAITLIST = "JOURNAL_WAIT";
+    // CustomerID of the keys the application records for itself rather than for a client
+    public static final int SYSTEM_SCOPE = 0;
+    private static volatile boolean idempotencyTableReady;
+
+    private void ensureIdempotencyTable() throws DatabaseConnectionException {
+        if (idempotencyTableReady) {
+            return;
+        }
+        try (PreparedStatement pstmt = prepareStatement(dialect.createIdempotencyTableSql())) {
+            pstmt.executeUpdate();
+            idempotencyTableReady = true;
+        } catch (SQLException e) {
+            throw new DatabaseConnectionException("Failed to create idempotency key table", e);
+        }
+    }
+    private void insertIdempotencyKey(Connection conn, String idempotencyKey, String operation, int resultId) throws SQLException {
+        insertIdempotencyKey(conn, idempotencyKey, operation, SYSTEM_SCOPE, null, resultId);
+    }
+    private void insertIdempotencyKey(Connection conn, String idempotencyKey, String operation, int customerId,
+                                      String requestHash, int resultId) throws SQLException {
+        String sql = "INSERT INTO IdempotencyKeys (IdempotencyKey, Operation, CustomerID, RequestHash, ResultID) " +
+                "VALUES (?, ?, ?, ?, ?)";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, idempotencyKey);
+            pstmt.setString(2, operation);
+            pstmt.setInt(3, customerId);
+            pstmt.setString(4, requestHash);
+            pstmt.setInt(5, resultId);
+            pstmt.executeUpdate();
+        }
+    }
+    // Stores a result outside the transaction that produced it; recording the same key
+    // again (a replay retried after a crash) is a no-op
+    public void recordIdempotentResult(String operation, String idempotencyKey, int resultId)
+            throws DatabaseConnectionException {
+        TIMERS.run("recordIdempotentResult", () -> {
+            ensureIdempotencyTable();
+            try {
+                insertIdempotencyKey(getConnection(), idempotencyKey, operation, resultId);
+            } catch (SQLException e) {
+                if (!isUniqueViolation(e)) {
+                    throw new DatabaseConnectionException("Failed to record idempotency key", e);
+                }
+            }
+        });
+    }
+    public Integer findIdempotentResult(String operation, String idempotencyKey) throws DatabaseConnectionException {
+        return findIdempotentResult(operation, SYSTEM_SCOPE, idempotencyKey, null);
+    }
+    // Client keys only match within the customer that sent them, and only for the same
+    // request: reusing one for a different booking is a conflict rather than a replay
+    public Integer findIdempotentResult(String operation, int customerId, String idempotencyKey, String requestHash)
+            throws DatabaseConnectionException {
+        return TIMERS.time("findIdempotentResult", () -> {
+            ensureIdempotencyTable();
+            String sql = "SELECT ResultID, RequestHash FROM IdempotencyKeys " +
+                    "WHERE Operation = ? AND CustomerID = ? AND IdempotencyKey = ?";
+            try (PreparedStatement pstmt = prepareStatement(sql)) {
+                pstmt.setString(1, operation);
+                pstmt.setInt(2, customerId);
+                pstmt.setString(3, idempotencyKey);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (!rs.next()) {
+                        return null;
+                    }
+                    if (!Objects.equals(rs.getString("RequestHash"), requestHash)) {
+                        throw new ConflictException("Idempotency key " + idempotencyKey +
+                                " was already used for a different request");
+                    }
+                    return rs.getInt("ResultID");
+                }
+            } catch (SQLException e) {
+                throw new DatabaseConnectionException("Failed to look up idempotency key", e);
+            }
+        });
+    }
+    // Fingerprint of the fields a client sends, stored with the key to spot a reused key
+    public static String requestHash(Reservation reservation) {
+        return requestHash(reservation.getCustomerID(), reservation.getTableID(), reservation.getReservationDate(),
+                reservation.getReservationTime(), reservation.getPartySize(), reservation.getSpecialRequests());
+    }
+    public static String requestHash(Waitlist waitlist) {
+        return requestHash(waitlist.getCustomerID(), waitlist.getRequestedDate(), waitlist.getRequestedTime(),
+                waitlist.getPartySize());
+    }
+    private static String requestHash(Object... fields) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (Object field : fields) {
+                digest.update(String.valueOf(field).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+    // The journal's provisional-ID mappings go only with includeJournalMappings: a record
+    // still waiting for replay may refer to a provisional ID that one of them resolves
+    public int purgeIdempotencyKeys(LocalDateTime olderThan, boolean includeJournalMappings)
+            throws DatabaseConnectionException {
+        return TIMERS.time("purgeIdempotencyKeys", () -> {
+            ensureIdempotencyTable();
+            String sql = "DELETE FROM IdempotencyKeys WHERE CreatedDate < ?" +
+                    (includeJournalMappings ? "" : " AND Operation NOT IN (?, ?)");
+            try (PreparedStatement pstmt = prepareStatement(sql)) {
+                pstmt.setTimestamp(1, Timestamp.valueOf(olderThan));
+                if (!includeJournalMappings) {
+                    pstmt.setString(2, IDEMPOTENT_JOURNAL_RESERVATION);
+                    pstmt.setString(3, IDEMPOTENT_JOURNAL_WAITLIST);
+                }
+                return pstmt.executeUpdate();
+            } catch (SQLException e) {
+                throw new DatabaseConnectionException("Failed to purge idempotency keys", e);
+            }
+        });
+    }
+    private boolean isUniqueViolation(SQLException e) {
+        return dialect.isUniqueViolation(e);
+    }
+
+
+    //                                    Index Catch-up Operations
+
+    // Tables created above the ID mark or modified at/after the timestamp (null: only the ID mark)
+    public List<Table> getTablesChangedSince(LocalDateTime modifiedSince, int afterTableId) throws DatabaseConnectionException {
+        return TIMERS.time("getTablesChangedSince", () -> {
+            String sql = "SELECT t.*, tc.CategoryName, tc.MinCapacity, tc.MaxCapacity, tc.Description " +
+                    "FROM RestaurantTables t " +
+                    "JOIN TableCategories tc ON t.CategoryID = tc.CategoryID " +
+                    "WHERE t.TableID > ?" + (modifiedSince != null ? " OR t.LastModifiedDate >= ?" : "");
+
+            List<Table> tables = new ArrayList<>();
+            try (PreparedStatement pstmt = prepareStatement(sql)) {
+                pstmt.setInt(1, afterTableId);
+                if (modifiedSince != null) {
+                    pstmt.setTimestamp(2, Timestamp.valueOf(modifiedSince));
+                }
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        tables.add(mapResultSetToTable(rs));
+                    }
+                }
+                return tables;
+            } catch (SQLException e) {
+                throw new DatabaseConnectionException("Failed to retrieve changed tables", e);
+            }
+        });
+    }
+    public Set<Integer> getTableIds(int upToTableId) throws DatabaseConnectionException {
+        return TIMERS.time("getTableIds", () -> {
+            return queryIds("SELECT TableID FROM RestaurantTables WHERE TableID <= ?", upToTableId, null);
+        });
+    }
+    public List<Reservation> getActiveReservationsAfter(int afterReservationId, LocalDate fromDate) throws DatabaseConnectionException {
+        return TIMERS.time("getActiveReservationsAfter", () -> {
+            String sql = "SELECT * FROM Reservations WHERE ReservationID > ? AND ReservationDate >= ? " +
+                    "AND Status IN ('PENDING', 'CONFIRMED')";
+
+            List<Reservation> reservations = new ArrayList<>();
+            try (PreparedStatement pstmt = prepareStatement(sql)) {
+                pstmt.setInt(1, afterReservationId);
+                pstmt.setDate(2, Date.valueOf(fromDate));
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        reservations.add(mapResultSetToReservation(rs));
+                    }
+                }
+                return reservations;
+            } catch (SQLException e) {
+                throw new DatabaseConnectionException("Failed to retrieve new reservations", e);
+            }
+        });
+    }
+    public Set<Integer> getActiveReservationIds(int upToReservationId, LocalDate fromDate) throws DatabaseConnectionException {
+        return TIMERS.time("getActiveReservationIds", () -> {
+            return queryIds("SELECT ReservationID FROM Reservations WHERE ReservationID <= ? " +
+                    "AND ReservationDate >= ? AND Status IN ('PENDING', 'CONFIRMED')", upToReservationId, fromDate);
+        });
+    }
+    public List<Waitlist> getActiveWaitlistAfter(int afterWaitlistId) throws DatabaseConnectionException {
+        return TIMERS.time("getActiveWaitlistAfter", () -> {
+            String sql = "SELECT * FROM Waitlist WHERE WaitlistID > ? AND Status = 'ACTIVE'";
 
+            List<Waitlist> waitlist = new ArrayList<>();
+            try (PreparedStatement pstmt = prepareStatement(sql)) {
+                pstmt.setInt(1, afterWaitlistId);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        waitlist.add(mapResultSetToWaitlist(rs));
+                    }
+                }
+                return waitlist;
+            } catch (SQLException e) {
+                throw new DatabaseConnectionException("Failed to retrieve new waitlist entries", e);
+            }
+        });
+    }
+    public Set<Integer> getActiveWaitlistIds(int upToWaitlistId) throws DatabaseConnectionException {
+        return TIMERS.time("getActiveWaitlistIds", () -> {
+            return queryIds("SELECT WaitlistID FROM Waitlist WHERE WaitlistID <= ? AND Status = 'ACTIVE'",
+                    upToWaitlistId, null);
+        });
+    }
+    private Set<Integer> queryIds(String sql, int upToId, LocalDate fromDate) throws DatabaseConnectionException {
+        Set<Integer> ids = new HashSet<>();
+        try (PreparedStatement pstmt = prepareStatement(sql)) {
+            pstmt.setInt(1, upToId);
+            if (fromDate != null) {
+                pstmt.setDate(2, Date.valueOf(fromDate));
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    ids.add(rs.getInt(1));
+                }
+            }
+            return ids;
+        } catch (SQLException e) {
+            throw new DatabaseConnectionException("Failed to retrieve live IDs", e);
+        }
+    }
+
+
+    //                                    Batch Operations
+
+    public enum BatchStatus { CREATED, REJECTED, FAILED }
+    // One per input row, in input order; id is only set for CREATED rows
+    public record BatchOutcome(int row, BatchStatus status, int id, String message) {
+        public static BatchOutcome created(int row, int id) {
+            return new BatchOutcome(row, BatchStatus.CREATED, id, null);
+        }
+        public static BatchOutcome rejected(int row, String message) {
+            return new BatchOutcome(row, BatchStatus.REJECTED, 0, message);
+        }
+        public static BatchOutcome failed(int row, String message) {
+            return new BatchOutcome(row, BatchStatus.FAILED, 0, message);
+        }
+        public BatchOutcome atRow(int row) {
+            return new BatchOutcome(row, status, id, message);
+        }
+    }
+    private interface ChunkWriter<T> {
+        int[] insertAll(Connection conn, List<T> items) throws SQLException, DatabaseConnectionException;
+        int insertOne(Connection conn, T item) throws SQLException, DatabaseConnectionException;
+        void committed(T item, int id);
+    }
+    private static final int BATCH_CHUNK_SIZE = Integer.getInteger("db.batch.chunkSize", 500);
+    private static final int MAX_IN_LIST = 1_000;
+    // SQL Server accepts at most 2,100 parameters per statement
+    private static final int MAX_BIND_PARAMETERS = 2_000;
+
+    // Rows only get the database-free checks here; availability is checked by the caller.
+    // The table status updates for a chunk commit with its bookings.
+    public List<BatchOutcome> createReservations(List<Reservation> reservations) throws DatabaseConnectionException {
+        return TIMERS.time("createReservations", () -> {
+            BatchOutcome[] outcomes = new BatchOutcome[reservations.size()];
+            List<Integer> rows = new ArrayList<>(reservations.size());
+            for (int row = 0; row < reservations.size(); row++) {
+                try {
+                    validateReservation(reservations.get(row));
+                    rows.add(row);
+                } catch (DatabaseConnectionException e) {
+                    outcomes[row] = BatchOutcome.rejected(row, e.getMessage());
+                }
+            }
+            writeInChunks(reservations, rows, outcomes, new ChunkWriter<>() {
+                @Override
+                public int[] insertAll(Connection conn, List<Reservation> items) throws SQLException, DatabaseConnectionException {
+                    int[] ids = insertReservationBatch(conn, items);
+                    markTablesReserved(conn, items);
+                    return ids;
+                }
+                @Override
+                public int insertOne(Connection conn, Reservation item) throws SQLException, DatabaseConnectionException {
+                    int id = insertReservation(conn, item);
+                    markTablesReserved(conn, List.of(item));
+                    return id;
+                }
+                @Override
+                public void committed(Reservation item, int id) {
+                    reservationCreated(item, id);
+                    if (BookingIndex.isEnabled()) {
+                        afterCommit(() -> BookingIndex.getInstance().tableStatusChanged(item.getTableID(),
+                                Table.TableStatus.RESERVED));
+                    }
+                    publishEvent(new DomainEvent.TableStatusChanged(Instant.now(), item.getTableID(),
+                            Table.TableStatus.RESERVED));
+                }
+            });
+            return Arrays.asList(outcomes);
+        });
+    }
+    // Queue positions are handed out per chunk, continuing from the current end of the queue
+    public List<BatchOutcome> createWaitlistEntries(List<Waitlist> entries) throws DatabaseConnectionException {
+        return TIMERS.time("createWaitlistEntries", () -> {
+            BatchOutcome[] outcomes = new BatchOutcome[entries.size()];
+            List<Integer> rows = new ArrayList<>(entries.size());
+            for (int row = 0; row < entries.size(); row++) {
+                rows.add(row);
+            }
+            writeInChunks(entries, rows, outcomes, new ChunkWriter<>() {
+                @Override
+                public int[] insertAll(Connection conn, List<Waitlist> items) throws SQLException, DatabaseConnectionException {
+                    return insertWaitlistBatch(conn, items);
+                }
+                @Override
+                public int insertOne(Connection conn, Waitlist item) throws SQLException, DatabaseConnectionException {
+                    return insertWaitlistEntry(conn, item);
+                }
+                @Override
+                public void committed(Waitlist item, int id) {
+                    waitlistEntryCreated(item, id);
+                }
+            });
+            return Arrays.asList(outcomes);
+        });
+    }
+    // Profiles only, as createCustomer(Customer) does; duplicate emails fail their own row
+    public List<BatchOutcome> createCustomers(List<Customer> customers) throws DatabaseConnectionException {
+        return TIMERS.time("createCustomers", () -> {
+            BatchOutcome[] outcomes = new BatchOutcome[customers.size()];
+            List<Integer> rows = new ArrayList<>(customers.size());
+            for (int row = 0; row < customers.size(); row++) {
+                rows.add(row);
+            }
+            writeInChunks(customers, rows, outcomes, new ChunkWriter<>() {
+                @Override
+                public int[] insertAll(Connection conn, List<Customer> items) throws SQLException, DatabaseConnectionException {
+                    return insertCustomerBatch(conn, items);
+                }
+                @Override
+                public int insertOne(Connection conn, Customer item) throws SQLException, DatabaseConnectionException {
+                    try (PreparedStatement pstmt = conn.prepareStatement(INSERT_CUSTOMER_PROFILE_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                        bindCustomerProfile(pstmt, item);
+                        pstmt.executeUpdate();
+                        return generatedKeys(pstmt, 1)[0];
+                    }
+                }
+                @Override
+                public void committed(Customer item, int id) {
+                    item.setCustomerID(id);
+                }
+            });
+            return Arrays.asList(outcomes);
+        });
+    }
+    // Keys of the result are lower-cased emails
+    public Map<String, Integer> findCustomerIdsByEmail(Collection<String> emails) throws DatabaseConnectionException {
+        return TIMERS.time("findCustomerIdsByEmail", () -> {
+            List<String> distinct = new ArrayList<>(new HashSet<>(emails));
+            Map<String, Integer> ids = new HashMap<>();
+            for (int from = 0; from < distinct.size(); from += MAX_IN_LIST) {
+                List<String> chunk = distinct.subList(from, Math.min(distinct.size(), from + MAX_IN_LIST));
+                String sql = "SELECT CustomerID, Email FROM Customers WHERE Email IN (" +
+                        String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")";
+                try (PreparedStatement pstmt = prepareStatement(sql)) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        pstmt.setString(i + 1, chunk.get(i));
+                    }
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            ids.put(rs.getString("Email").toLowerCase(Locale.ROOT), rs.getInt("CustomerID"));
+                        }
+                    }
+                } catch (SQLException e) {
+                    throw new DatabaseConnectionException("Failed to look up customers", e);
+                }
+            }
+            return ids;
+        });
+    }
+    public Set<Integer> findExistingCustomerIds(Collection<Integer> customerIds) throws DatabaseConnectionException {
+        return TIMERS.time("findExistingCustomerIds", () -> {
+            List<Integer> ids = new ArrayList<>(new HashSet<>(customerIds));
+            Set<Integer> existing = new HashSet<>();
+            for (int from = 0; from < ids.size(); from += MAX_IN_LIST) {
+                List<Integer> chunk = ids.subList(from, Math.min(ids.size(), from + MAX_IN_LIST));
+                String sql = "SELECT CustomerID FROM Customers WHERE CustomerID IN (" +
+                        String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")";
+                try (PreparedStatement pstmt = prepareStatement(sql)) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        pstmt.setInt(i + 1, chunk.get(i));
+                    }
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            existing.add(rs.getInt(1));
+                        }
+                    }
+                } catch (SQLException e) {
+                    throw new DatabaseConnectionException("Failed to look up customers", e);
+                }
+            }
+            return existing;
+        });
+    }
+
+    // Each chunk is one transaction and one executeBatch. When a chunk's batch fails it is
+    // re-run row by row under savepoints, so a bad row costs only itself; once the database
+    // is unavailable the remaining rows are reported as failed without being attempted.
+    private <T> void writeInChunks(List<T> items, List<Integer> rows, BatchOutcome[] outcomes,
+                                   ChunkWriter<T> writer) throws DatabaseConnectionException {
+        for (int from = 0; from < rows.size(); from += BATCH_CHUNK_SIZE) {
+            List<Integer> chunk = rows.subList(from, Math.min(rows.size(), from + BATCH_CHUNK_SIZE));
+            List<T> batch = new ArrayList<>(chunk.size());
+            for (int row : chunk) {
+                batch.add(items.get(row));
+            }
+            String[] errors = new String[batch.size()];
+            int[] ids;
+            try {
+                try {
+                    ids = inTransaction(conn -> writer.insertAll(conn, batch));
+                } catch (DatabaseUnavailableException e) {
+                    throw e;
+                } catch (DatabaseConnectionException e) {
+                    log.atWarn().message("Batch insert failed, retrying rows individually")
+                            .with("rows", batch.size()).error(e).log();
+                    ids = inTransaction(conn -> insertEach(batch, writer, errors));
+                }
+            } catch (DatabaseUnavailableException e) {
+                for (int row : rows.subList(from, rows.size())) {
+                    outcomes[row] = BatchOutcome.failed(row, e.getMessage());
+                }
+                return;
+            } catch (DatabaseConnectionException e) {
+                for (int row : chunk) {
+                    outcomes[row] = BatchOutcome.failed(row, e.getMessage());
+                }
+                continue;
+            }
+            for (int i = 0; i < batch.size(); i++) {
+                int row = chunk.get(i);
+                if (errors[i] != null) {
+                    outcomes[row] = BatchOutcome.failed(row, errors[i]);
+                } else {
+                    outcomes[row] = BatchOutcome.created(row, ids[i]);
+                    writer.committed(batch.get(i), ids[i]);
+                }
+            }
+        }
+    }
+    private <T> int[] insertEach(List<T> batch, ChunkWriter<T> writer, String[] errors) throws DatabaseConnectionException {
+        int[] ids = new int[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            T item = batch.get(i);
+            try {
+                ids[i] = inTransaction(Propagation.NESTED, Isolation.DEFAULT, conn -> writer.insertOne(conn, item));
+            } catch (DatabaseUnavailableException e) {
+                throw e;
+            } catch (DatabaseConnectionException e) {
+                errors[i] = e.getMessage();
+            }
+        }
+        return ids;
+    }
+    private int[] insertReservationBatch(Connection conn, List<Reservation> batch) throws SQLException, DatabaseConnectionException {
+        if (insertOutput != null) {
+            return insertReturningIds(conn, "Reservations", "ReservationID", RESERVATION_INSERT_COLUMNS, batch,
+                    (pstmt, first, reservation, row) -> bindReservation(pstmt, first, reservation));
+        }
+        try (PreparedStatement pstmt = conn.prepareStatement(INSERT_RESERVATION_SQL, Statement.RETURN_GENERATED_KEYS)) {
+            for (Reservation reservation : batch) {
+                bindReservation(pstmt, reservation);
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+            return generatedKeys(pstmt, batch.size());
+        }
+    }
+    private int[] insertWaitlistBatch(Connection conn, List<Waitlist> batch) throws SQLException, DatabaseConnectionException {
+        int nextPosition = getNextQueuePosition();
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).setQueuePosition(nextPosition + i);
+        }
+        if (insertOutput != null) {
+            return insertReturningIds(conn, "Waitlist", "WaitlistID", WAITLIST_INSERT_COLUMNS, batch,
+                    (pstmt, first, entry, row) -> bindWaitlistEntry(pstmt, first, entry, nextPosition + row));
+        }
+        try (PreparedStatement pstmt = conn.prepareStatement(INSERT_WAITLIST_SQL, Statement.RETURN_GENERATED_KEYS)) {
+            for (int i = 0; i < batch.size(); i++) {
+                bindWaitlistEntry(pstmt, batch.get(i), nextPosition + i);
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+            return generatedKeys(pstmt, batch.size());
+        }
+    }
+    private int[] insertCustomerBatch(Connection conn, List<Customer> batch) throws SQLException, DatabaseConnectionException {
+        if (insertOutput != null) {
+            return insertReturningIds(conn, "Customers", "CustomerID", CUSTOMER_PROFILE_INSERT_COLUMNS, batch,
+                    (pstmt, first, customer, row) -> bindCustomerProfile(pstmt, first, customer));
+        }
+        try (PreparedStatement pstmt = conn.prepareStatement(INSERT_CUSTOMER_PROFILE_SQL, Statement.RETURN_GENERATED_KEYS)) {
+            for (Customer customer : batch) {
+                bindCustomerProfile(pstmt, customer);
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+            return generatedKeys(pstmt, batch.size());
+        }
+    }
+    @FunctionalInterface
+    private interface RowBinder<T> {
+        void bind(PreparedStatement pstmt, int first, T item, int row) throws SQLException;
+    }
+    // The chunk goes in as multi-row statements that report which source row got which ID,
+    // so nothing has to be matched back against rows other sessions insert
+    private <T> int[] insertReturningIds(Connection conn, String table, String idColumn, List<String> columns,
+                                         List<T> batch, RowBinder<T> binder) throws SQLException, DatabaseConnectionException {
+        int[] ids = new int[batch.size()];
+        int rowsPerStatement = Math.max(1, MAX_BIND_PARAMETERS / columns.size());
+        for (int from = 0; from < batch.size(); from += rowsPerStatement) {
+            int rows = Math.min(rowsPerStatement, batch.size() - from);
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    insertOutput.insertRowsReturningIdsSql(table, idColumn, columns, rows))) {
+                for (int i = 0; i < rows; i++) {
+                    binder.bind(pstmt, i * columns.size() + 1, batch.get(from + i), from + i);
+                }
+                int returned = 0;
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        ids[from + rs.getInt(1)] = rs.getInt(2);
+                        returned++;
+                    }
+                }
+                if (returned != rows) {
+                    throw new DatabaseConnectionException("Expected " + rows + " inserted IDs, got " + returned);
+                }
+            }
+        }
+        return ids;
+    }
+    private void markTablesReserved(Connection conn, List<Reservation> batch) throws SQLException {
+        Map<Integer, Integer> modifiedBy = new LinkedHashMap<>();
+        for (Reservation reservation : batch) {
+            modifiedBy.put(reservation.getTableID(), reservation.getCustomerID());
+        }
+        String sql = "UPDATE RestaurantTables SET Status = ?, LastModifiedBy = ?, " +
+                "LastModifiedDate = CURRENT_TIMESTAMP WHERE TableID = ?";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            for (Map.Entry<Integer, Integer> table : modifiedBy.entrySet()) {
+                pstmt.setString(1, Table.TableStatus.RESERVED.toString());
+                pstmt.setInt(2, table.getValue());
+                pstmt.setInt(3, table.getKey());
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+        }
+    }
+    private static int[] generatedKeys(PreparedStatement pstmt, int expected) throws SQLException, DatabaseConnectionException {
+        int[] ids = new int[expected];
+        int count = 0;
+        try (ResultSet rs = pstmt.getGeneratedKeys()) {
+            while (rs.next() && count < expected) {
+                ids[count++] = rs.getInt(1);
+            }
+        }
+        if (count != expected) {
+            throw new DatabaseConnectionException("Expected " + expected + " generated keys, got " + count);
+        }
+        return ids;
+    }
+
+
+    //                                    Export Operations
+
+    @FunctionalInterface
+    public interface RowHandler {
+        void handle(ResultSet row) throws SQLException, IOException;
+    }
+    // Reads the whole table on the thread's connection with a forward-only, read-only
+    // cursor, handing each row to the handler without collecting them. Run it inside a
+    // SNAPSHOT transaction to read several tables as of one point in time. The handler
+    // sees the metadata through row.getMetaData() before the first row; returns the row count.
+    public long streamTable(String table, String keyColumn, int fetchSize, RowHandler handler)
+            throws DatabaseConnectionException, IOException {
+        Timer timer = TIMERS.get("streamTable");
+        long start = timer.start();
+        try {
+            String sql = "SELECT * FROM " + table + " ORDER BY " + keyColumn;
+            try (PreparedStatement pstmt = getConnection().prepareStatement(sql,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                pstmt.setFetchSize(fetchSize);
+                long rows = 0;
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        handler.handle(rs);
+                        rows++;
+                    }
+                }
+                return rows;
+            } catch (SQLException e) {
+                throw new DatabaseConnectionException("Failed to read " + table, e);
+            }
+        } catch (Throwable t) {
+            timer.failed();
+            throw t;
+        } finally {
+            timer.stop(start);
+        }
+    }
+
+
+    //                                    Archive Operations
+
+    // Finished reservations move to one table per month of ReservationDate, named
+    // ReservationsArchive_yyyyMM. ReservationArchives lists the months present with the
+    // range of IDs each holds. Rows keep their ReservationID, so the history reads below
+    // can union the hot table with whichever archive months can contain matches.
+    private static final String RESERVATION_COLUMNS = "ReservationID, CustomerID, TableID, ReservationDate, " +
+            "ReservationTime, PartySize, Status, SpecialRequests, EstimatedDuration";
+    private static final String ARCHIVABLE = "Status IN ('COMPLETED', 'CANCELLED') AND ReservationDate < ?";
+    private static volatile boolean archiveCatalogReady;
+    private static final Set<YearMonth> archiveTablesReady = ConcurrentHashMap.newKeySet();
+
+    public static String archiveTable(YearMonth month) {
+        return String.format("ReservationsArchive_%04d%02d", month.getYear(), month.getMonthValue());
+    }
+    private static int archiveKey(YearMonth month) {
+        return month.getYear() * 100 + month.getMonthValue();
+    }
+    private void ensureArchiveCatalog() throws DatabaseConnectionException {
+        if (archiveCatalogReady) {
+            return;
+        }
+        try (PreparedStatement pstmt = prepareStatement(dialect.createArchiveCatalogSql())) {
+            pstmt.executeUpdate();
+            archiveCatalogReady = true;
+        } catch (SQLException e) {
+            throw new DatabaseConnectionException("Failed to create reservation archive catalog", e);
+        }
+    }
+    // Runs outside the moving transaction, since H2 commits on DDL
+    private void ensureArchiveTable(YearMonth month) throws DatabaseConnectionException {
+        if (archiveTablesReady.contains(month)) {
+            return;
+        }
+        ensureArchiveCatalog();
+        try {
+            for (String ddl : dialect.createReservationArchiveSql(archiveTable(month))) {
+                try (PreparedStatement pstmt = prepareStatement(ddl)) {
+                    pstmt.executeUpdate();
+                }
+            }
+            try (PreparedStatement pstmt = prepareStatement("INSERT INTO ReservationArchives (ArchiveMonth) VALUES (?)")) {
+                pstmt.setInt(1, archiveKey(month));
+                pstmt.executeUpdate();
+            } catch (SQLException e) {
+                if (!dialect.isUniqueViolation(e)) {
+                    throw e;
+                }
+            }
+            archiveTablesReady.add(month);
+        } catch (SQLException e) {
+            throw new DatabaseConnectionException("Failed to create archive table " + archiveTable(month), e);
+        }
+    }
+    // Moves up to limit COMPLETED or CANCELLED reservations dated before cutoff, oldest ID
+    // first, into their monthly archive tables with one transaction per month. Returns the
+    // number moved; fewer than limit means nothing else is due.
+    public int archiveReservations(LocalDate cutoff, int limit) throws DatabaseConnectionException {
+        return TIMERS.time("archiveReservations", () -> {
+            Map<YearMonth, List<Integer>> byMonth = new TreeMap<>();
+            String sql = "SELECT ReservationID, ReservationDate FROM Reservations WHERE " + ARCHIVABLE +
+                    " ORDER BY ReservationID";
+            try (PreparedStatement pstmt = prepareStatement(sql)) {
+                pstmt.setMaxRows(Math.min(limit, MAX_IN_LIST));
+                pstmt.setDate(1, Date.valueOf(cutoff));
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        byMonth.computeIfAbsent(YearMonth.from(rs.getDate("ReservationDate").toLocalDate()),
+                                month -> new ArrayList<>()).add(rs.getInt("ReservationID"));
+                    }
+                }
+            } catch (SQLException e) {
+                throw new DatabaseConnectionException("Failed to find reservations to archive", e);
+            }
+            int moved = 0;
+            for (Map.Entry<YearMonth, List<Integer>> month : byMonth.entrySet()) {
+                ensureArchiveTable(month.getKey());
+                moved += inTransaction(conn -> moveToArchive(conn, month.getKey(), month.getValue(), cutoff));
+            }
+            return moved;
+        });
+    }
+    // Copy and delete repeat the archivable predicate, so a row reopened in between is
+    // left alone; if the two counts disagree the whole month is rolled back
+    private int moveToArchive(Connection conn, YearMonth month, List<Integer> ids, LocalDate cutoff)
+            throws SQLException, DatabaseConnectionException {
+        String table = archiveTable(month);
+        String idList = " AND ReservationID IN (" + String.join(", ", Collections.nCopies(ids.size(), "?")) + ")";
+        int copied;
+        try (PreparedStatement pstmt = conn.prepareStatement("INSERT INTO " + table + " (" + RESERVATION_COLUMNS +
+                ") SELECT " + RESERVATION_COLUMNS + " FROM Reservations WHERE " + ARCHIVABLE + idList)) {
+            bindArchivable(pstmt, cutoff, ids);
+            copied = pstmt.executeUpdate();
+        }
+        int deleted;
+        try (PreparedStatement pstmt = conn.prepareStatement("DELETE FROM Reservations WHERE " + ARCHIVABLE + idList)) {
+            bindArchivable(pstmt, cutoff, ids);
+            deleted = pstmt.executeUpdate();
+        }
+        if (copied != deleted) {
+            throw new DatabaseConnectionException("Archiving " + table + " copied " + copied + " rows but deleted " + deleted);
+        }
+        String sql = "UPDATE ReservationArchives SET ReservationCount = ReservationCount + ?, " +
+                "MinReservationID = CASE WHEN MinReservationID IS NULL OR MinReservationID > ? THEN ? ELSE MinReservationID END, " +
+                "MaxReservationID = CASE WHEN MaxReservationID IS NULL OR MaxReservationID < ? THEN ? ELSE MaxReservationID END, " +
+                "LastArchivedDate = " + dialect.currentTimestamp() + " WHERE ArchiveMonth = ?";
+        int min = Collections.min(ids);
+        int max = Collections.max(ids);
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, deleted);
+            pstmt.setInt(2, min);
+            pstmt.setInt(3, min);
+            pstmt.setInt(4, max);
+            pstmt.setInt(5, max);
+            pstmt.setInt(6, archiveKey(month));
+            pstmt.executeUpdate();
+        }
+        return deleted;
+    }
+    private static void bindArchivable(PreparedStatement pstmt, LocalDate cutoff, List<Integer> ids) throws SQLException {
+        pstmt.setDate(1, Date.valueOf(cutoff));
+        for (int i = 0; i < ids.size(); i++) {
+            pstmt.setInt(i + 2, ids.get(i));
+        }
+    }
+    // Months holding at least one archived row, oldest first; only those whose ID range
+    // covers reservationId when it is given
+    private List<YearMonth> archivedMonths(Integer reservationId) throws DatabaseConnectionException {
+        ensureArchiveCatalog();
+        String sql = "SELECT ArchiveMonth FROM ReservationArchives WHERE ReservationCount > 0" +
+                (reservationId != null ? " AND ? BETWEEN MinReservationID AND MaxReservationID" : "") +
+                " ORDER BY ArchiveMonth";
+        List<YearMonth> months = new ArrayList<>();
+        try (PreparedStatement pstmt = prepareStatement(sql)) {
+            if (reservationId != null) {
+                pstmt.setInt(1, reservationId);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    int key = rs.getInt(1);
+                    months.add(YearMonth.of(key / 100, key % 100));
+                }
+            }
+            return months;
+        } catch (SQLException e) {
+            throw new DatabaseConnectionException("Failed to read reservation archive catalog", e);
+        }
+    }
+    // Monthly archive tables holding at least one row, oldest first
+    public List<String> getArchiveTables() throws DatabaseConnectionException {
+        return TIMERS.time("getArchiveTables", () -> {
+            List<String> tables = new ArrayList<>();
+            for (YearMonth month : archivedMonths(null)) {
+                tables.add(archiveTable(month));
+            }
+            return tables;
+        });
+    }
+    // One UNION ALL over the hot table and the given months, each branch filtered by the
+    // same condition. A row moved while the statement runs may appear twice; the first wins.
+    private List<Reservation> queryWithArchive(String condition, Object parameter, List<YearMonth> months)
+            throws DatabaseConnectionException {
+        StringBuilder sql = new StringBuilder("SELECT ").append(RESERVATION_COLUMNS)
+                .append(" FROM Reservations WHERE ").append(condition);
+        for (YearMonth month : months) {
+            sql.append(" UNION ALL SELECT ").append(RESERVATION_COLUMNS).append(" FROM ")
+                    .append(archiveTable(month)).append(" WHERE ").append(condition);
+        }
+        sql.append(" ORDER BY ReservationDate, ReservationTime");
+        Map<Integer, Reservation> reservations = new LinkedHashMap<>();
+        try (PreparedStatement pstmt = prepareStatement(sql.toString())) {
+            for (int i = 0; i <= months.size(); i++) {
+                pstmt.setObject(i + 1, parameter);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    Reservation reservation = mapResultSetToReservation(rs);
+                    reservations.putIfAbsent(reservation.getReservationID(), reservation);
+                }
+            }
+            return new ArrayList<>(reservations.values());
+        } catch (SQLException e) {
+            throw new DatabaseConnectionException("Failed to retrieve reservation history", e);
+        }
+    }
+    public List<Reservation> getReservationHistoryByCustomer(int customerId) throws DatabaseConnectionException {
+        return TIMERS.time("getReservationHistoryByCustomer", () -> {
+            return queryWithArchive("CustomerID = ?", customerId, archivedMonths(null));
+        });
+    }
+    public List<Reservation> getReservationHistoryByDate(LocalDate date) throws DatabaseConnectionException {
+        return TIMERS.time("getReservationHistoryByDate", () -> {
+            List<YearMonth> months = archivedMonths(null).contains(YearMonth.from(date))
+                    ? List.of(YearMonth.from(date)) : List.of();
+            return queryWithArchive("ReservationDate = ?", Date.valueOf(date), months);
+        });
+    }
+    public Reservation getReservationHistoryById(int reservationId) throws DatabaseConnectionException {
+        return TIMERS.time("getReservationHistoryById", () -> {
+            Reservation reservation = getReservationById(reservationId);
+            if (reservation != null) {
+                return reservation;
+            }
+            List<YearMonth> months = archivedMonths(reservationId);
+            if (months.isEmpty()) {
+                return null;
+            }
+            List<Reservation> archived = queryWithArchive("ReservationID = ?", reservationId, months);
+            return archived.isEmpty() ? null : archived.get(0);
+        });
+    }
+
+
+    //                                    Lifecycle Operations
+
+    // Set-based state transitions for the lifecycle scheduler. Each call handles up to one
+    // IN list of rows in a single transaction: the due rows are selected once and every
+    // follow-up (status, visit counts, table release) is one statement or one batch over
+    // that set, then the booking index is told after commit.
+    public record ClosedReservations(int completed, int lapsed, int customersVisited, int tablesReleased) {
+        public int total() {
+            return completed + lapsed;
+        }
+    }
+    // Minutes since midnight of a TIME column, for comparing start + duration with now
+    private String minuteOfDay(String timeColumn) {
+        return "(" + dialect.hourOf(timeColumn) + " * 60 + " + dialect.minuteOf(timeColumn) + ")";
+    }
+    // Closes active reservations whose start + EstimatedDuration is at or before now:
+    // CONFIRMED becomes COMPLETED and counts as a visit, PENDING that was never confirmed
+    // becomes CANCELLED. Only yesterday and today are checked minute by minute, so a
+    // booking longer than a day is closed on the second day after it started.
+    public ClosedReservations closeFinishedReservations(LocalDateTime now, int limit) throws DatabaseConnectionException {
+        return TIMERS.time("closeFinishedReservations", () -> {
+            List<Reservation> due = new ArrayList<>();
+            List<Integer> released = new ArrayList<>();
+            ClosedReservations closed = inTransaction(conn -> {
+                due.clear();
+                released.clear();
+                LocalDate today = now.toLocalDate();
+                int nowMinute = now.getHour() * 60 + now.getMinute();
+                String end = minuteOfDay("ReservationTime") + " + EstimatedDuration";
+                String sql = "SELECT ReservationID, CustomerID, TableID, ReservationDate, ReservationTime, Status " +
+                        "FROM Reservations WHERE Status IN ('PENDING', 'CONFIRMED') AND (ReservationDate < ? " +
+                        "OR ReservationDate = ? AND " + end + " <= ? OR ReservationDate = ? AND " + end + " <= ?) " +
+                        "ORDER BY ReservationID";
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setMaxRows(Math.min(limit, MAX_IN_LIST));
+                    pstmt.setDate(1, Date.valueOf(today.minusDays(1)));
+                    pstmt.setDate(2, Date.valueOf(today.minusDays(1)));
+                    pstmt.setInt(3, nowMinute + 24 * 60);
+                    pstmt.setDate(4, Date.valueOf(today));
+                    pstmt.setInt(5, nowMinute);
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            Reservation reservation = new Reservation();
+                            reservation.setReservationID(rs.getInt("ReservationID"));
+                            reservation.setCustomerID(rs.getInt("CustomerID"));
+                            reservation.setTableID(rs.getInt("TableID"));
+                            reservation.setReservationDate(rs.getDate("ReservationDate").toLocalDate());
+                            reservation.setReservationTime(rs.getTime("ReservationTime").toLocalTime());
+                            reservation.setStatus(Reservation.ReservationStatus.valueOf(
+                                    rs.getString("Status").trim().toUpperCase(Locale.ROOT)));
+                            due.add(reservation);
+                        }
+                    }
+                }
+                if (due.isEmpty()) {
+                    return new ClosedReservations(0, 0, 0, 0);
+                }
+                List<Integer> confirmed = new ArrayList<>();
+                List<Integer> pending = new ArrayList<>();
+                Map<Integer, VisitCounterBuffer.VisitDelta> visits = new HashMap<>();
+                Set<Integer> tableIds = new TreeSet<>();
+                for (Reservation reservation : due) {
+                    tableIds.add(reservation.getTableID());
+                    if (reservation.getStatus() == Reservation.ReservationStatus.CONFIRMED) {
+                        confirmed.add(reservation.getReservationID());
+                        visits.merge(reservation.getCustomerID(), new VisitCounterBuffer.VisitDelta(1,
+                                LocalDateTime.of(reservation.getReservationDate(), reservation.getReservationTime())),
+                                (a, b) -> new VisitCounterBuffer.VisitDelta(a.visits() + b.visits(),
+                                        a.lastVisit().isAfter(b.lastVisit()) ? a.lastVisit() : b.lastVisit()));
+                    } else {
+                        pending.add(reservation.getReservationID());
+                    }
+                }
+                int completed = setStatusWhere(conn, confirmed, Reservation.ReservationStatus.COMPLETED, "CONFIRMED");
+                int lapsed = setStatusWhere(conn, pending, Reservation.ReservationStatus.CANCELLED, "PENDING");
+                if (completed != confirmed.size() || lapsed != pending.size()) {
+                    // A row changed under us; roll back and let the next sweep pick the set up again
+                    throw new DatabaseConnectionException("Reservations changed during sweep");
+                }
+                addVisits(conn, visits);
+                released.addAll(releaseIdleTables(conn, tableIds, today));
+                return new ClosedReservations(completed, lapsed, visits.size(), released.size());
+            });
+            BookingIndex index = BookingIndex.isEnabled() ? BookingIndex.getInstance() : null;
+            Instant closedAt = Instant.now();
+            for (Reservation reservation : due) {
+                Reservation.ReservationStatus status = reservation.getStatus() == Reservation.ReservationStatus.CONFIRMED
+                        ? Reservation.ReservationStatus.COMPLETED : Reservation.ReservationStatus.CANCELLED;
+                if (index != null) {
+                    index.reservationStatusChanged(reservation.getReservationID(), status);
+                }
+                publishEvent(new DomainEvent.ReservationStatusChanged(closedAt, reservation.getReservationID(), status));
+            }
+            for (int tableId : released) {
+                if (index != null) {
+                    index.tableStatusChanged(tableId, Table.TableStatus.AVAILABLE);
+                }
+                publishEvent(new DomainEvent.TableStatusChanged(closedAt, tableId, Table.TableStatus.AVAILABLE));
+            }
+            return closed;
+        });
+    }
+    private static int setStatusWhere(Connection conn, List<Integer> ids, Reservation.ReservationStatus status,
+                                      String currentStatus) throws SQLException {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        String sql = "UPDATE Reservations SET Status = ? WHERE Status = ? AND ReservationID IN (" +
+                String.join(", ", Collections.nCopies(ids.size(), "?")) + ")";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, status.toString());
+            pstmt.setString(2, currentStatus);
+            for (int i = 0; i < ids.size(); i++) {
+                pstmt.setInt(i + 3, ids.get(i));
+            }
+            return pstmt.executeUpdate();
+        }
+    }
+    // One batched statement for all customers in the set, in CustomerID order so concurrent
+    // writers lock rows in the same order; LastVisitDate only moves forward
+    private static void addVisits(Connection conn, Map<Integer, VisitCounterBuffer.VisitDelta> visits) throws SQLException {
+        if (visits.isEmpty()) {
+            return;
+        }
+        String sql = "UPDATE Customers SET TotalVisits = TotalVisits + ?, LastVisitDate = CASE " +
+                "WHEN LastVisitDate IS NULL OR LastVisitDate < ? THEN ? ELSE LastVisitDate END WHERE CustomerID = ?";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            for (Map.Entry<Integer, VisitCounterBuffer.VisitDelta> entry : new TreeMap<>(visits).entrySet()) {
+                Timestamp visited = Timestamp.valueOf(entry.getValue().lastVisit());
+                pstmt.setInt(1, entry.getValue().visits());
+                pstmt.setTimestamp(2, visited);
+                pstmt.setTimestamp(3, visited);
+                pstmt.setInt(4, entry.getKey());
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+        }
+    }
+    // Frees RESERVED or OCCUPIED tables with nothing else active on them today
+    private List<Integer> releaseIdleTables(Connection conn, Set<Integer> tableIds, LocalDate today) throws SQLException {
+        String idList = String.join(", ", Collections.nCopies(tableIds.size(), "?"));
+        String sql = "SELECT TableID FROM RestaurantTables WHERE Status IN ('RESERVED', 'OCCUPIED') AND TableID IN (" +
+                idList + ") AND NOT EXISTS (SELECT 1 FROM Reservations r WHERE r.TableID = RestaurantTables.TableID " +
+                "AND r.Status IN ('PENDING', 'CONFIRMED') AND r.ReservationDate = ?)";
+        List<Integer> idle = new ArrayList<>();
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            int index = 1;
+            for (int tableId : tableIds) {
+                pstmt.setInt(index++, tableId);
+            }
+            pstmt.setDate(index, Date.valueOf(today));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    idle.add(rs.getInt(1));
+                }
+            }
+        }
+        if (idle.isEmpty()) {
+            return idle;
+        }
+        sql = "UPDATE RestaurantTables SET Status = 'AVAILABLE', LastModifiedBy = 0, LastModifiedDate = " +
+                dialect.currentTimestamp() + " WHERE TableID IN (" +
+                String.join(", ", Collections.nCopies(idle.size(), "?")) + ")";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < idle.size(); i++) {
+                pstmt.setInt(i + 1, idle.get(i));
+            }
+            pstmt.executeUpdate();
+        }
+        return idle;
+    }
+    // Marks ACTIVE entries whose requested time is more than graceMinutes past as EXPIRED
+    // and renumbers the queue once; returns the number expired
+    public int expireStaleWaitlist(LocalDateTime now, int graceMinutes, int limit) throws DatabaseConnectionException {
+        return TIMERS.time("expireStaleWaitlist", () -> {
+            LocalDateTime cutoff = now.minusMinutes(graceMinutes);
+            List<Integer> ids = new ArrayList<>();
+            int expired = inTransaction(conn -> {
+                ids.clear();
+                String sql = "SELECT WaitlistID FROM Waitlist WHERE Status = 'ACTIVE' AND (RequestedDate < ? " +
+                        "OR RequestedDate = ? AND RequestedTime <= ?) ORDER BY WaitlistID";
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setMaxRows(Math.min(limit, MAX_IN_LIST));
+                    pstmt.setDate(1, Date.valueOf(cutoff.toLocalDate()));
+                    pstmt.setDate(2, Date.valueOf(cutoff.toLocalDate()));
+                    pstmt.setTime(3, Time.valueOf(cutoff.toLocalTime()));
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            ids.add(rs.getInt(1));
+                        }
+                    }
+                }
+                if (ids.isEmpty()) {
+                    return 0;
+                }
+                sql = "UPDATE Waitlist SET Status = 'EXPIRED' WHERE Status = 'ACTIVE' AND WaitlistID IN (" +
+                        String.join(", ", Collections.nCopies(ids.size(), "?")) + ")";
+                int updated;
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    for (int i = 0; i < ids.size(); i++) {
+                        pstmt.setInt(i + 1, ids.get(i));
+                    }
+                    updated = pstmt.executeUpdate();
+                }
+                reorderQueuePositions();
+                return updated;
+            });
+            Instant expiredAt = Instant.now();
+            for (int waitlistId : ids) {
+                if (BookingIndex.isEnabled()) {
+                    afterCommit(() -> BookingIndex.getInstance().waitlistStatusChanged(waitlistId, Waitlist.WaitlistStatus.EXPIRED));
+                }
+                publishEvent(new DomainEvent.WaitlistChanged(expiredAt, waitlistId,
+                        DomainEvent.WaitlistChanged.Change.STATUS, Waitlist.WaitlistStatus.EXPIRED));
+            }
+            return expired;
+        });
+    }
+}
@@ -0,0 +1,214 @@
+package Database;
+
+import java.sql.SQLException;
+import java.util.List;
+
+// Embedded H2, so DatabaseManager and the load tests can run in-process without a SQL
+// Server instance. Text columns are VARCHAR_IGNORECASE to match SQL Server's default
+// case-insensitive collation, which the status comparisons rely on. An empty database
+// gets the schema and a small floor plan on the first connection.
+final class H2Dialect implements SqlDialect {
+    private static final String UNIQUE_VIOLATION_STATE = "23505";
+    private static final String DEADLOCK_STATE = "40001";
+    private static final int SNAPSHOT_ISOLATION = 6;
+
+    @Override
+    public String name() {
+        return "h2";
+    }
+    @Override
+    public String defaultUrl(String host, String database) {
+        return "jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1";
+    }
+
+    // Fragments
+    @Override
+    public String currentTimestamp() {
+        return "LOCALTIMESTAMP";
+    }
+    @Override
+    public String currentDate() {
+        return "CURRENT_DATE";
+    }
+    @Override
+    public String addMinutes(String minutesExpression, String timeExpression) {
+        return "DATEADD(MINUTE, " + minutesExpression + ", " + timeExpression + ")";
+    }
+    @Override
+    public String coalesce(String expression, String fallback) {
+        return "COALESCE(" + expression + ", " + fallback + ")";
+    }
+    @Override
+    public String hourOf(String timeExpression) {
+        return "EXTRACT(HOUR FROM CAST(" + timeExpression + " AS TIME))";
+    }
+    @Override
+    public String minuteOf(String timeExpression) {
+        return "EXTRACT(MINUTE FROM CAST(" + timeExpression + " AS TIME))";
+    }
+
+    // Statements
+    @Override
+    public String renumberActiveWaitlistSql() {
+        return "MERGE INTO Waitlist USING (SELECT WaitlistID, ROW_NUMBER() OVER (ORDER BY QueuePosition) AS NewPosition " +
+                "FROM Waitlist WHERE Status = 'ACTIVE') AS Renumbered " +
+                "ON Waitlist.WaitlistID = Renumbered.WaitlistID " +
+                "WHEN MATCHED THEN UPDATE SET QueuePosition = Renumbered.NewPosition";
+    }
+    @Override
+    public String createIdempotencyTableSql() {
+        return """
+        CREATE TABLE IF NOT EXISTS IdempotencyKeys (
+            IdempotencyKey VARCHAR_IGNORECASE(64) NOT NULL,
+            Operation VARCHAR_IGNORECASE(16) NOT NULL,
+            CustomerID INT NOT NULL,
+            RequestHash CHAR(64),
+            ResultID INT NOT NULL,
+            CreatedDate TIMESTAMP NOT NULL DEFAULT LOCALTIMESTAMP,
+            CONSTRAINT PK_IdempotencyKeys PRIMARY KEY (Operation, CustomerID, IdempotencyKey)
+        )""";
+    }
+    @Override
+    public String createArchiveCatalogSql() {
+        return """
+        CREATE TABLE IF NOT EXISTS ReservationArchives (
+            ArchiveMonth INT NOT NULL PRIMARY KEY,
+            MinReservationID INT,
+            MaxReservationID INT,
+            ReservationCount INT NOT NULL DEFAULT 0,
+            LastArchivedDate TIMESTAMP
+        )""";
+    }
+    @Override
+    public List<String> createReservationArchiveSql(String table) {
+        return List.of("""
+                CREATE TABLE IF NOT EXISTS %1$s (
+                    ReservationID INT NOT NULL PRIMARY KEY,
+                    CustomerID INT NOT NULL,
+                    TableID INT NOT NULL,
+                    ReservationDate DATE NOT NULL,
+                    ReservationTime TIME NOT NULL,
+                    PartySize INT NOT NULL,
+                    Status VARCHAR_IGNORECASE(20) NOT NULL,
+                    SpecialRequests VARCHAR_IGNORECASE(500),
+                    EstimatedDuration INT NOT NULL
+                )""".formatted(table),
+                "CREATE INDEX IF NOT EXISTS IX_%1$s_Customer ON %1$s (CustomerID)".formatted(table),
+                "CREATE INDEX IF NOT EXISTS IX_%1$s_Date ON %1$s (ReservationDate)".formatted(table));
+    }
+    @Override
+    public List<String> schemaStatements() {
+        return List.of("""
+                CREATE TABLE IF NOT EXISTS Customers (
+                    CustomerID INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+                    FirstName VARCHAR_IGNORECASE(50) NOT NULL,
+                    LastName VARCHAR_IGNORECASE(50) NOT NULL,
+                    Email VARCHAR_IGNORECASE(100) NOT NULL UNIQUE,
+                    PhoneNumber VARCHAR_IGNORECASE(20),
+                    RegistrationDate TIMESTAMP NOT NULL DEFAULT LOCALTIMESTAMP,
+                    LastVisitDate TIMESTAMP,
+                    TotalVisits INT NOT NULL DEFAULT 0,
+                    PreferredCuisine VARCHAR_IGNORECASE(50),
+                    Allergies VARCHAR_IGNORECASE(1000)
+                )""", """
+                CREATE TABLE IF NOT EXISTS UserCredentials (
+                    UserID INT NOT NULL,
+                    Username VARCHAR_IGNORECASE(50) NOT NULL PRIMARY KEY,
+                    PasswordHash VARCHAR(255) NOT NULL,
+                    Salt VARCHAR(255) NOT NULL,
+                    UserType VARCHAR_IGNORECASE(10) NOT NULL DEFAULT 'CUSTOMER',
+                    LastLoginDate TIMESTAMP,
+                    LoginAttempts INT NOT NULL DEFAULT 0,
+                    AccountLocked BOOLEAN NOT NULL DEFAULT FALSE
+                )""", """
+                CREATE TABLE IF NOT EXISTS Managers (
+                    ManagerID INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+                    FirstName VARCHAR_IGNORECASE(50) NOT NULL,
+                    LastName VARCHAR_IGNORECASE(50) NOT NULL,
+                    Email VARCHAR_IGNORECASE(100) NOT NULL UNIQUE,
+                    PhoneNumber VARCHAR_IGNORECASE(20),
+                    IsActive BOOLEAN NOT NULL DEFAULT TRUE,
+                    CreatedDate TIMESTAMP NOT NULL DEFAULT LOCALTIMESTAMP,
+                    LastModifiedDate TIMESTAMP
+                )""", """
+                CREATE TABLE IF NOT EXISTS ManagerCredentials (
+                    ManagerID INT NOT NULL PRIMARY KEY,
+                    Username VARCHAR_IGNORECASE(50) NOT NULL UNIQUE,
+                    PasswordHash VARCHAR(255) NOT NULL,
+                    Salt VARCHAR(255) NOT NULL,
+                    CreatedDate TIMESTAMP NOT NULL DEFAULT LOCALTIMESTAMP,
+                    LastModified TIMESTAMP,
+                    LoginAttempts INT NOT NULL DEFAULT 0,
+                    AccountLocked BOOLEAN NOT NULL DEFAULT FALSE
+                )""", """
+                CREATE TABLE IF NOT EXISTS TableCategories (
+                    CategoryID INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+                    CategoryName VARCHAR_IGNORECASE(50) NOT NULL,
+                    MinCapacity INT NOT NULL,
+                    MaxCapacity INT NOT NULL,
+                    Description VARCHAR_IGNORECASE(200)
+                )""", """
+                CREATE TABLE IF NOT EXISTS RestaurantTables (
+                    TableID INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+                    CategoryID INT NOT NULL REFERENCES TableCategories (CategoryID),
+                    TableNumber VARCHAR_IGNORECASE(10) NOT NULL UNIQUE,
+                    Capacity INT NOT NULL,
+                    Status VARCHAR_IGNORECASE(20) NOT NULL DEFAULT 'AVAILABLE',
+                    Location VARCHAR_IGNORECASE(50),
+                    HasWindow BOOLEAN NOT NULL DEFAULT FALSE,
+                    IsPrivate BOOLEAN NOT NULL DEFAULT FALSE,
+                    LastModifiedBy INT,
+                    LastModifiedDate TIMESTAMP
+                )""", """
+                CREATE TABLE IF NOT EXISTS Reservations (
+                    ReservationID INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+                    CustomerID INT NOT NULL,
+                    TableID INT NOT NULL,
+                    ReservationDate DATE NOT NULL,
+                    ReservationTime TIME NOT NULL,
+                    PartySize INT NOT NULL,
+                    Status VARCHAR_IGNORECASE(20) NOT NULL,
+                    SpecialRequests VARCHAR_IGNORECASE(500),
+                    EstimatedDuration INT NOT NULL DEFAULT 120
+                )""",
+                "CREATE INDEX IF NOT EXISTS IX_Reservations_Slot ON Reservations (ReservationDate, ReservationTime, TableID)",
+                "CREATE INDEX IF NOT EXISTS IX_Reservations_Customer ON Reservations (CustomerID)", """
+                CREATE TABLE IF NOT EXISTS Waitlist (
+                    WaitlistID INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+                    CustomerID INT NOT NULL,
+                    RequestedDate DATE NOT NULL,
+                    RequestedTime TIME NOT NULL,
+                    PartySize INT NOT NULL,
+                    Status VARCHAR_IGNORECASE(20) NOT NULL,
+                    QueuePosition INT NOT NULL,
+                    WaitTime INT
+                )""",
+                createIdempotencyTableSql(), """
+                INSERT INTO TableCategories (CategoryName, MinCapacity, MaxCapacity, Description)
+                SELECT * FROM (VALUES ('Two-top', 1, 2, 'Tables for two'),
+                                      ('Four-top', 2, 4, 'Standard tables'),
+                                      ('Large', 4, 8, 'Group tables'))
+                WHERE NOT EXISTS (SELECT 1 FROM TableCategories)""", """
+                INSERT INTO RestaurantTables (CategoryID, TableNumber, Capacity, Status, Location, HasWindow, IsPrivate,
+                                              LastModifiedBy, LastModifiedDate)
+                SELECT CASE WHEN X <= 8 THEN 1 WHEN X <= 16 THEN 2 ELSE 3 END, 'T' || X,
+                       CASE WHEN X <= 8 THEN 2 WHEN X <= 16 THEN 4 ELSE 8 END, 'AVAILABLE', 'Main',
+                       MOD(X, 4) = 0, X > 18, 0, LOCALTIMESTAMP
+                FROM SYSTEM_RANGE(1, 20)
+                WHERE NOT EXISTS (SELECT 1 FROM RestaurantTables)""");
+    }
+    @Override
+    public int snapshotIsolationLevel() {
+        return SNAPSHOT_ISOLATION;
+    }
+
+    // Errors
+    @Override
+    public boolean isUniqueViolation(SQLException e) {
+        return UNIQUE_VIOLATION_STATE.equals(e.getSQLState());
+    }
+    @Override
+    public boolean isDeadlockVictim(SQLException e) {
+        return DEADLOCK_STATE.equals(e.getSQLState());
+    }
+}
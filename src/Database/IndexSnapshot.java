@@ -0,0 +1,251 @@
+package Database;
+
+import Models.*;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+// Binary image of BookingIndex: a fixed 64 byte header followed by the tables, active
+// reservations and active waitlist entries as length-free field sequences. Enums are
+// stored by ordinal, so any change to the model enums must bump VERSION. Files are
+// written to a sibling and moved into place; reads map the file read-only and check a
+// CRC32C over the body before decoding anything.
+final class IndexSnapshot {
+    private static final int MAGIC = 0x52525331; // "RRS1"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final long NO_TIMESTAMP = Long.MIN_VALUE;
+
+    record Contents(long writtenAtMillis, int tableHighWater, int reservationHighWater, int waitlistHighWater,
+                    LocalDateTime tablesModifiedAt, List<Table> tables, List<Reservation> reservations,
+                    List<Waitlist> waitlist) {}
+
+    private IndexSnapshot() {}
+
+    // Returns null when there is no snapshot yet; IOException for anything unreadable
+    static Contents read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) {
+                throw new IOException("Snapshot truncated");
+            }
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (in.getInt() != MAGIC || in.getInt() != VERSION) {
+                throw new IOException("Not a version " + VERSION + " booking index snapshot");
+            }
+            long writtenAt = in.getLong();
+            int tableHighWater = in.getInt();
+            int reservationHighWater = in.getInt();
+            int waitlistHighWater = in.getInt();
+            LocalDateTime tablesModifiedAt = getTimestamp(in);
+            int tableCount = in.getInt();
+            int reservationCount = in.getInt();
+            int waitlistCount = in.getInt();
+            int bodyLength = in.getInt();
+            int checksum = in.getInt();
+            if ((long) HEADER_SIZE + bodyLength != channel.size()) {
+                throw new IOException("Snapshot truncated");
+            }
+            ByteBuffer body = in.slice(HEADER_SIZE, bodyLength);
+            CRC32C crc = new CRC32C();
+            crc.update(body.duplicate());
+            if ((int) crc.getValue() != checksum) {
+                throw new IOException("Snapshot checksum mismatch");
+            }
+
+            List<Table> tables = new ArrayList<>(tableCount);
+            List<Reservation> reservations = new ArrayList<>(reservationCount);
+            List<Waitlist> waitlist = new ArrayList<>(waitlistCount);
+            try {
+                for (int i = 0; i < tableCount; i++) {
+                    tables.add(readTable(body));
+                }
+                for (int i = 0; i < reservationCount; i++) {
+                    reservations.add(readReservation(body));
+                }
+                for (int i = 0; i < waitlistCount; i++) {
+                    waitlist.add(readWaitlist(body));
+                }
+            } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+                throw new IOException("Snapshot body malformed", e);
+            }
+            return new Contents(writtenAt, tableHighWater, reservationHighWater, waitlistHighWater,
+                    tablesModifiedAt, tables, reservations, waitlist);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+    // Returns the size of the file written
+    static long write(Path file, Contents contents) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 * 1024);
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (Table table : contents.tables()) {
+            writeTable(out, table);
+        }
+        for (Reservation reservation : contents.reservations()) {
+            writeReservation(out, reservation);
+        }
+        for (Waitlist entry : contents.waitlist()) {
+            writeWaitlist(out, entry);
+        }
+        out.flush();
+        ByteBuffer body = ByteBuffer.wrap(bytes.toByteArray());
+        CRC32C crc = new CRC32C();
+        crc.update(body.duplicate());
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION)
+                .putLong(contents.writtenAtMillis())
+                .putInt(contents.tableHighWater())
+                .putInt(contents.reservationHighWater())
+                .putInt(contents.waitlistHighWater());
+        putTimestamp(header, contents.tablesModifiedAt());
+        header.putInt(contents.tables().size())
+                .putInt(contents.reservations().size())
+                .putInt(contents.waitlist().size())
+                .putInt(body.remaining())
+                .putInt((int) crc.getValue());
+        header.clear();
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer[] buffers = {header, body};
+            while (body.hasRemaining()) {
+                channel.write(buffers);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return HEADER_SIZE + (long) body.capacity();
+    }
+
+    // Rows
+    private static void writeTable(DataOutputStream out, Table table) throws IOException {
+        out.writeInt(table.getTableID());
+        out.writeInt(table.getCategoryID());
+        writeString(out, table.getTableNumber());
+        out.writeInt(table.getCapacity());
+        out.writeByte(table.getStatus().ordinal());
+        writeString(out, table.getLocation());
+        out.writeBoolean(table.isHasWindow());
+        out.writeBoolean(table.isPrivate());
+        out.writeInt(table.getLastModifiedBy());
+        LocalDateTime modified = table.getLastModifiedDate();
+        out.writeLong(modified == null ? NO_TIMESTAMP : modified.toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(modified == null ? 0 : modified.getNano());
+        writeString(out, table.getCategoryName());
+        out.writeInt(table.getMinCapacity());
+        out.writeInt(table.getMaxCapacity());
+        writeString(out, table.getDescription());
+    }
+    private static Table readTable(ByteBuffer in) {
+        Table table = new Table();
+        table.setTableID(in.getInt());
+        table.setCategoryID(in.getInt());
+        table.setTableNumber(getString(in));
+        table.setCapacity(in.getInt());
+        table.setStatus(Table.TableStatus.values()[in.get()]);
+        table.setLocation(getString(in));
+        table.setHasWindow(in.get() != 0);
+        table.setPrivate(in.get() != 0);
+        table.setLastModifiedBy(in.getInt());
+        table.setLastModifiedDate(getTimestamp(in));
+        table.setCategoryName(getString(in));
+        table.setMinCapacity(in.getInt());
+        table.setMaxCapacity(in.getInt());
+        table.setDescription(getString(in));
+        return table;
+    }
+    private static void writeReservation(DataOutputStream out, Reservation reservation) throws IOException {
+        out.writeInt(reservation.getReservationID());
+        out.writeInt(reservation.getCustomerID());
+        out.writeInt(reservation.getTableID());
+        out.writeInt((int) reservation.getReservationDate().toEpochDay());
+        out.writeInt(reservation.getReservationTime().toSecondOfDay());
+        out.writeInt(reservation.getPartySize());
+        out.writeByte(reservation.getStatus().ordinal());
+        writeString(out, reservation.getSpecialRequests());
+        out.writeInt(reservation.getEstimatedDuration());
+    }
+    private static Reservation readReservation(ByteBuffer in) {
+        Reservation reservation = new Reservation();
+        reservation.setReservationID(in.getInt());
+        reservation.setCustomerID(in.getInt());
+        reservation.setTableID(in.getInt());
+        reservation.setReservationDate(LocalDate.ofEpochDay(in.getInt()));
+        reservation.setReservationTime(LocalTime.ofSecondOfDay(in.getInt()));
+        reservation.setPartySize(in.getInt());
+        reservation.setStatus(Reservation.ReservationStatus.values()[in.get()]);
+        reservation.setSpecialRequests(getString(in));
+        reservation.setEstimatedDuration(in.getInt());
+        return reservation;
+    }
+    private static void writeWaitlist(DataOutputStream out, Waitlist entry) throws IOException {
+        out.writeInt(entry.getWaitlistID());
+        out.writeInt(entry.getCustomerID());
+        out.writeInt((int) entry.getRequestedDate().toEpochDay());
+        out.writeInt(entry.getRequestedTime().toSecondOfDay());
+        out.writeInt(entry.getPartySize());
+        out.writeByte(entry.getStatus().ordinal());
+        out.writeInt(entry.getQueuePosition());
+        out.writeInt(entry.getWaitTime());
+    }
+    private static Waitlist readWaitlist(ByteBuffer in) {
+        Waitlist entry = new Waitlist();
+        entry.setWaitlistID(in.getInt());
+        entry.setCustomerID(in.getInt());
+        entry.setRequestedDate(LocalDate.ofEpochDay(in.getInt()));
+        entry.setRequestedTime(LocalTime.ofSecondOfDay(in.getInt()));
+        entry.setPartySize(in.getInt());
+        entry.setStatus(Waitlist.WaitlistStatus.values()[in.get()]);
+        entry.setQueuePosition(in.getInt());
+        entry.setWaitTime(in.getInt());
+        return entry;
+    }
+
+    // Fields
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+    private static String getString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    private static void putTimestamp(ByteBuffer out, LocalDateTime value) {
+        out.putLong(value == null ? NO_TIMESTAMP : value.toEpochSecond(ZoneOffset.UTC));
+        out.putInt(value == null ? 0 : value.getNano());
+    }
+    private static LocalDateTime getTimestamp(ByteBuffer in) {
+        long seconds = in.getLong();
+        int nanos = in.getInt();
+        return seconds == NO_TIMESTAMP ? null : LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,12 @@
+package Database;
+
+import java.util.List;
+
+// A dialect whose multi-row INSERT can report the ID generated for each source row. Batch
+// inserts use it when the dialect implements it and fall back to getGeneratedKeys after
+// executeBatch otherwise, which some drivers (SQL Server's) answer with the last key only.
+interface InsertOutputDialect extends SqlDialect {
+    // Inserts rows rows of columns (one parameter each, row by row) in one statement whose
+    // result set pairs each source row number, counted from 0, with the ID generated for it
+    String insertRowsReturningIdsSql(String table, String idColumn, List<String> columns, int rows);
+}
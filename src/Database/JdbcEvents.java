@@ -0,0 +1,69 @@
+package Database;
+
+import jdk.jfr.*;
+
+// Flight Recorder events for each phase of a database call. Enable with
+//   -XX:StartFlightRecording:settings=profile
+// or per event, e.g. jfr configure +RestaurantReservationSystem.StatementExecute#threshold=10ms.
+// Stack traces are off by default to keep always-on recording cheap.
+public final class JdbcEvents {
+    private static final EventType STATEMENT_EXECUTE_TYPE = EventType.getEventType(StatementExecute.class);
+
+    private JdbcEvents() {}
+
+    // Statement proxies are only installed while something is recording these events
+    static boolean isStatementTracingEnabled() {
+        return STATEMENT_EXECUTE_TYPE.isEnabled();
+    }
+
+    @Name("RestaurantReservationSystem.ConnectionAcquire")
+    @Label("Connection Acquire")
+    @Category({"Restaurant Reservation System", "Database"})
+    @Description("Borrowing a connection from the pool, including opening or validating a physical connection")
+    @StackTrace(false)
+    public static class ConnectionAcquire extends Event {
+        @Label("New Connection")
+        public boolean newConnection;
+        @Label("Validated")
+        public boolean validated;
+        @Label("Idle Connections")
+        public int idleConnections;
+    }
+
+    @Name("RestaurantReservationSystem.StatementPrepare")
+    @Label("Statement Prepare")
+    @Category({"Restaurant Reservation System", "Database"})
+    @StackTrace(false)
+    public static class StatementPrepare extends Event {
+        @Label("SQL Fingerprint")
+        public String fingerprint;
+    }
+
+    @Name("RestaurantReservationSystem.StatementExecute")
+    @Label("Statement Execute")
+    @Category({"Restaurant Reservation System", "Database"})
+    @Description("Round trip of an execute call; row count is the update count, or -1 for queries")
+    @StackTrace(false)
+    public static class StatementExecute extends Event {
+        @Label("SQL Fingerprint")
+        public String fingerprint;
+        @Label("Method")
+        public String method;
+        @Label("Row Count")
+        public long rowCount;
+        @Label("Failed")
+        public boolean failed;
+    }
+
+    @Name("RestaurantReservationSystem.ResultMapping")
+    @Label("Result Mapping")
+    @Category({"Restaurant Reservation System", "Database"})
+    @Description("Time from the query returning until its result set is exhausted or closed")
+    @StackTrace(false)
+    public static class ResultMapping extends Event {
+        @Label("SQL Fingerprint")
+        public String fingerprint;
+        @Label("Row Count")
+        public long rowCount;
+    }
+}
@@ -0,0 +1,47 @@
+package Database;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+// Last successful result of selected read queries, keyed by query and arguments, so
+// those reads can still be answered (stale) while the database is unavailable. Lists
+// are copied in and out so callers can't modify a snapshot. Least recently used
+// entries are evicted past -Ddb.snapshot.maxEntries.
+class ReadSnapshotCache {
+    private static final int MAX_ENTRIES = Integer.getInteger("db.snapshot.maxEntries", 4_096);
+
+    private final Map<String, Object> entries = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Object> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+    private final LongAdder staleReads = new LongAdder();
+
+    void put(String key, Object value) {
+        Object snapshot = value instanceof List<?> list ? List.copyOf(list) : value;
+        synchronized (entries) {
+            entries.put(key, snapshot);
+        }
+    }
+    @SuppressWarnings("unchecked")
+    <T> T get(String key) {
+        Object snapshot;
+        synchronized (entries) {
+            snapshot = entries.get(key);
+        }
+        if (snapshot == null) {
+            return null;
+        }
+        return (T) (snapshot instanceof List<?> list ? new ArrayList<>(list) : snapshot);
+    }
+    void countStaleRead() {
+        staleReads.increment();
+    }
+    long getStaleReadCount() {
+        return staleReads.sum();
+    }
+}
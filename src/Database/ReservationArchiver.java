@@ -0,0 +1,126 @@
+package Database;
+
+import Exceptions.DatabaseConnectionException;
+import Logging.Logger;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.LongAdder;
+
+// Background mover of finished reservations into the monthly archive tables (see
+// DatabaseManager.archiveReservations). Every interval it archives COMPLETED and
+// CANCELLED rows older than the retention window in batches, sleeping between batches
+// for at least as long as the last batch took, so archiving never holds more than about
+// half of the database's attention and a slow database slows the archiver down with it.
+// Sweeps are skipped while the database is degraded. Off unless -Ddb.archive.enabled=true.
+public class ReservationArchiver {
+    private static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("db.archive.enabled", "false"));
+    private static final int RETENTION_DAYS = Integer.getInteger("db.archive.retentionDays", 90);
+    // A batch is one IN list, which DatabaseManager caps at 1000 IDs
+    private static final int BATCH_SIZE = Math.min(Integer.getInteger("db.archive.batchSize", 500), 1_000);
+    private static final long PAUSE_MILLIS = Long.getLong("db.archive.pauseMillis", 200);
+    private static final long INTERVAL_MILLIS = Long.getLong("db.archive.intervalMillis", 3_600_000);
+    private static final Logger log = Logger.get(ReservationArchiver.class);
+    private static ReservationArchiver instance;
+
+    private final LongAdder archived = new LongAdder();
+    private final LongAdder sweeps = new LongAdder();
+    private volatile long lastSweepMillis;
+    private Thread sweeper;
+
+    private ReservationArchiver() {}
+    public static ReservationArchiver getInstance() {
+        if (instance == null) {
+            synchronized (ReservationArchiver.class) {
+                if (instance == null) {
+                    instance = new ReservationArchiver();
+                }
+            }
+        }
+        return instance;
+    }
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    // Lifecycle
+    public synchronized void start() {
+        if (sweeper != null) {
+            return;
+        }
+        sweeper = new Thread(this::sweepLoop, "reservation-archiver");
+        sweeper.setDaemon(true);
+        sweeper.start();
+    }
+    public static void shutdown() {
+        ReservationArchiver archiver = instance;
+        if (archiver != null) {
+            synchronized (archiver) {
+                if (archiver.sweeper != null) {
+                    archiver.sweeper.interrupt();
+                    archiver.sweeper = null;
+                }
+            }
+        }
+    }
+    private void sweepLoop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            if (!DatabaseManager.isDegraded()) {
+                try {
+                    sweep(LocalDate.now().minusDays(RETENTION_DAYS));
+                } catch (DatabaseConnectionException e) {
+                    log.atWarn().message("Reservation archive sweep failed").error(e).log();
+                } catch (InterruptedException e) {
+                    return;
+                } finally {
+                    DatabaseManager.getInstance().closeConnection();
+                }
+            }
+            try {
+                Thread.sleep(INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    // Sweeping
+    // Archives everything due before cutoff on the calling thread; returns the rows moved
+    public long sweep(LocalDate cutoff) throws DatabaseConnectionException, InterruptedException {
+        DatabaseManager dbManager = DatabaseManager.getInstance();
+        long begin = System.nanoTime();
+        long moved = 0;
+        int batches = 0;
+        while (true) {
+            long batchStart = System.nanoTime();
+            int count = dbManager.archiveReservations(cutoff, BATCH_SIZE);
+            moved += count;
+            archived.add(count);
+            batches++;
+            if (count < BATCH_SIZE || DatabaseManager.isDegraded()) {
+                break;
+            }
+            Thread.sleep(Math.max(PAUSE_MILLIS, (System.nanoTime() - batchStart) / 1_000_000));
+        }
+        sweeps.increment();
+        lastSweepMillis = (System.nanoTime() - begin) / 1_000_000;
+        if (moved > 0) {
+            log.atInfo().message("Reservations archived")
+                    .with("cutoff", cutoff)
+                    .with("rows", moved)
+                    .with("batches", batches)
+                    .with("millis", lastSweepMillis)
+                    .log();
+        }
+        return moved;
+    }
+
+    // Statistics
+    public long getArchivedCount() {
+        return archived.sum();
+    }
+    public long getSweepCount() {
+        return sweeps.sum();
+    }
+    public long getLastSweepMillis() {
+        return lastSweepMillis;
+    }
+}
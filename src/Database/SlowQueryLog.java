@@ -0,0 +1,165 @@
+package Database;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Per-fingerprint statement timings over a rolling window of recent executions, plus an
+// asynchronous log of statements that were slow (-Ddb.slowQuery.thresholdMillis), failed,
+// or were picked by sampling (-Ddb.slowQuery.sampleRate, 0..1). Request threads only
+// update counters and offer to a bounded queue; formatting and I/O happen on a daemon
+// writer thread, and entries are dropped rather than blocking when it falls behind.
+public class SlowQueryLog {
+    private static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("db.slowQuery.enabled", "true"));
+    private static final long THRESHOLD_NANOS =
+            TimeUnit.MILLISECONDS.toNanos(Long.getLong("db.slowQuery.thresholdMillis", 250));
+    private static final double SAMPLE_RATE = Double.parseDouble(System.getProperty("db.slowQuery.sampleRate", "0"));
+    private static final int WINDOW = 1_024;
+    private static final int QUEUE_CAPACITY = 4_096;
+    private static SlowQueryLog instance;
+
+    private final Map<String, FingerprintStats> stats = new ConcurrentHashMap<>();
+    private final BlockingQueue<Entry> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final LongAdder dropped = new LongAdder();
+    private final PrintStream out;
+
+    private record Entry(long epochMillis, String fingerprint, long nanos, long rows, String thread,
+                         SQLException failure, FingerprintStats stats) {}
+    public record Summary(String fingerprint, long count, long failures,
+                          double p50Millis, double p99Millis, double p999Millis, double maxMillis) {}
+
+    private SlowQueryLog() {
+        this.out = openOutput(System.getProperty("db.slowQuery.file"));
+        Thread writer = new Thread(this::drain, "slow-query-log");
+        writer.setDaemon(true);
+        writer.start();
+    }
+    public static SlowQueryLog getInstance() {
+        if (instance == null) {
+            synchronized (SlowQueryLog.class) {
+                if (instance == null) {
+                    instance = new SlowQueryLog();
+                }
+            }
+        }
+        return instance;
+    }
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    // Recording
+    public void record(String sql, long nanos, long rows, Throwable failure) {
+        String fingerprint = SqlFingerprint.of(sql);
+        FingerprintStats fingerprintStats = stats.computeIfAbsent(fingerprint, key -> new FingerprintStats());
+        fingerprintStats.record(nanos, failure != null);
+
+        boolean log = failure != null || nanos >= THRESHOLD_NANOS
+                || (SAMPLE_RATE > 0 && ThreadLocalRandom.current().nextDouble() < SAMPLE_RATE);
+        if (log && !queue.offer(new Entry(System.currentTimeMillis(), fingerprint, nanos, rows,
+                Thread.currentThread().getName(), failure instanceof SQLException e ? e : null, fingerprintStats))) {
+            dropped.increment();
+        }
+    }
+
+    // Statistics
+    public List<Summary> getSummaries() {
+        List<Summary> summaries = new ArrayList<>();
+        for (Map.Entry<String, FingerprintStats> entry : stats.entrySet()) {
+            summaries.add(entry.getValue().summarize(entry.getKey()));
+        }
+        summaries.sort(Comparator.comparingDouble(Summary::p99Millis).reversed());
+        return summaries;
+    }
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    private void drain() {
+        while (true) {
+            try {
+                write(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                // Never let a formatting problem kill the writer
+            }
+        }
+    }
+    private void write(Entry entry) {
+        Summary summary = entry.stats().summarize(entry.fingerprint());
+        StringBuilder line = new StringBuilder(256)
+                .append(Instant.ofEpochMilli(entry.epochMillis()))
+                .append(entry.failure() != null ? " FAILED " : entry.nanos() >= THRESHOLD_NANOS ? " SLOW " : " SAMPLED ")
+                .append(String.format("%.3f ms", entry.nanos() / 1e6))
+                .append(" rows=").append(entry.rows())
+                .append(" thread=").append(entry.thread())
+                .append(String.format(" window[n=%d p50=%.3f p99=%.3f max=%.3f ms]",
+                        summary.count(), summary.p50Millis(), summary.p99Millis(), summary.maxMillis()));
+        if (entry.failure() != null) {
+            line.append(" sqlState=").append(entry.failure().getSQLState())
+                    .append(" code=").append(entry.failure().getErrorCode())
+                    .append(" error=\"").append(String.valueOf(entry.failure().getMessage()).replace('\n', ' ')).append('"');
+        }
+        line.append(" sql=\"").append(entry.fingerprint()).append('"');
+        long droppedSoFar = dropped.sumThenReset();
+        if (droppedSoFar > 0) {
+            line.append(" (").append(droppedSoFar).append(" entries dropped)");
+        }
+        out.println(line);
+    }
+    private static PrintStream openOutput(String file) {
+        if (file != null) {
+            try {
+                return new PrintStream(new FileOutputStream(file, true), true);
+            } catch (IOException e) {
+                System.err.println("Cannot open slow query log " + file + ", using stderr: " + e.getMessage());
+            }
+        }
+        return System.err;
+    }
+
+    // Rolling window: the last WINDOW durations, overwritten in arrival order
+    private static final class FingerprintStats {
+        private final AtomicLongArray samples = new AtomicLongArray(WINDOW);
+        private final AtomicLong cursor = new AtomicLong();
+        private final LongAdder failures = new LongAdder();
+
+        private void record(long nanos, boolean failed) {
+            samples.set((int) (cursor.getAndIncrement() % WINDOW), nanos);
+            if (failed) {
+                failures.increment();
+            }
+        }
+        private Summary summarize(String fingerprint) {
+            long count = cursor.get();
+            int size = (int) Math.min(count, WINDOW);
+            long[] window = new long[size];
+            for (int i = 0; i < size; i++) {
+                window[i] = samples.get(i);
+            }
+            Arrays.sort(window);
+            return new Summary(fingerprint, count, failures.sum(),
+                    percentile(window, 50), percentile(window, 99), percentile(window, 99.9),
+                    size == 0 ? 0 : window[size - 1] / 1e6);
+        }
+        private static double percentile(long[] sorted, double percentile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e6;
+        }
+    }
+}
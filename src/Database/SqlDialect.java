@@ -0,0 +1,50 @@
+package Database;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Locale;
+
+// The parts of DatabaseManager's SQL that differ between database products. Statements
+// stay in DatabaseManager; a dialect supplies vendor-specific fragments, the few whole
+// statements whose syntax diverges, the schema for databases the application creates
+// itself, and the error classification used for retries and idempotent inserts.
+// Selected with -Ddb.dialect=sqlserver|h2, or inferred from -Ddb.url.
+public interface SqlDialect {
+    String name();
+    // Connection URL used when -Ddb.url is not set
+    String defaultUrl(String host, String database);
+
+    // Fragments
+    String currentTimestamp();
+    String currentDate();
+    String addMinutes(String minutesExpression, String timeExpression);
+    String coalesce(String expression, String fallback);
+    String hourOf(String timeExpression);
+    String minuteOf(String timeExpression);
+
+    // Statements
+    String renumberActiveWaitlistSql();
+    String createIdempotencyTableSql();
+    // Catalog of the monthly reservation archive tables
+    String createArchiveCatalogSql();
+    // One monthly archive table: the Reservations columns without identity, plus its indexes
+    List<String> createReservationArchiveSql(String table);
+    // DDL run once on the first connection; empty when the schema is managed outside the app
+    List<String> schemaStatements();
+    // JDBC isolation level giving one consistent view across statements
+    int snapshotIsolationLevel();
+
+    // Errors
+    boolean isUniqueViolation(SQLException e);
+    boolean isDeadlockVictim(SQLException e);
+
+    static SqlDialect select(String configured, String url) {
+        String name = configured != null ? configured.toLowerCase(Locale.ROOT)
+                : url != null && url.startsWith("jdbc:h2:") ? "h2" : "sqlserver";
+        return switch (name) {
+            case "sqlserver", "mssql" -> new SqlServerDialect();
+            case "h2" -> new H2Dialect();
+            default -> throw new IllegalArgumentException("Unknown SQL dialect: " + configured);
+        };
+    }
+}
@@ -0,0 +1,79 @@
+package Database;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Normalizes SQL text so every execution of the same statement shape maps to one key:
+// literals become ?, IN lists collapse to (?+) and whitespace is squeezed. The statements
+// in this codebase are constants, so fingerprints are cached by SQL text.
+public final class SqlFingerprint {
+    private static final int MAX_CACHED = 4_096;
+    private static final Map<String, String> cache = new ConcurrentHashMap<>();
+
+    private SqlFingerprint() {}
+
+    public static String of(String sql) {
+        if (sql == null) {
+            return "";
+        }
+        String fingerprint = cache.get(sql);
+        if (fingerprint == null) {
+            fingerprint = normalize(sql);
+            if (cache.size() < MAX_CACHED) {
+                cache.put(sql, fingerprint);
+            }
+        }
+        return fingerprint;
+    }
+
+    static String normalize(String sql) {
+        StringBuilder out = new StringBuilder(sql.length());
+        int length = sql.length();
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (c == '\'') {
+                // String literal, '' escapes a quote
+                i++;
+                while (i < length) {
+                    if (sql.charAt(i) == '\'') {
+                        if (i + 1 < length && sql.charAt(i + 1) == '\'') {
+                            i += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    i++;
+                }
+                i++;
+                out.append('?');
+            } else if (Character.isDigit(c) && !isIdentifierPart(out)) {
+                while (i < length && (Character.isDigit(sql.charAt(i)) || sql.charAt(i) == '.')) {
+                    i++;
+                }
+                out.append('?');
+            } else if (Character.isWhitespace(c)) {
+                while (i < length && Character.isWhitespace(sql.charAt(i))) {
+                    i++;
+                }
+                if (out.length() > 0 && i < length) {
+                    out.append(' ');
+                }
+            } else {
+                out.append(c);
+                i++;
+            }
+        }
+        return collapseInLists(out.toString());
+    }
+    private static boolean isIdentifierPart(StringBuilder out) {
+        if (out.length() == 0) {
+            return false;
+        }
+        char previous = out.charAt(out.length() - 1);
+        return Character.isLetterOrDigit(previous) || previous == '_' || previous == '@' || previous == '#';
+    }
+    private static String collapseInLists(String sql) {
+        return sql.replaceAll("\\((\\s*\\?\\s*,)+\\s*\\?\\s*\\)", "(?+)");
+    }
+}
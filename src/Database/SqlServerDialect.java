@@ -0,0 +1,142 @@
+package Database;
+
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+import java.util.StringJoiner;
+
+// T-SQL as used against the production SQL Server instance. The schema there is managed
+// by the DBA scripts, so nothing is created on connect.
+final class SqlServerDialect implements InsertOutputDialect {
+    private static final int DEADLOCK_VICTIM_ERROR = 1205;
+    private static final int UNIQUE_CONSTRAINT_ERROR = 2627;
+    private static final int UNIQUE_INDEX_ERROR = 2601;
+    // SQLServerConnection.TRANSACTION_SNAPSHOT; needs ALLOW_SNAPSHOT_ISOLATION ON for the database
+    private static final int SNAPSHOT_ISOLATION = 0x1000;
+
+    @Override
+    public String name() {
+        return "sqlserver";
+    }
+    @Override
+    public String defaultUrl(String host, String database) {
+        return "jdbc:sqlserver://" + host + ";databaseName=" + database + ";integratedSecurity=true;encrypt=false;";
+    }
+
+    // Fragments
+    @Override
+    public String currentTimestamp() {
+        return "SYSDATETIME()";
+    }
+    @Override
+    public String currentDate() {
+        return "CAST(GETDATE() AS DATE)";
+    }
+    @Override
+    public String addMinutes(String minutesExpression, String timeExpression) {
+        return "DATEADD(MINUTE, " + minutesExpression + ", " + timeExpression + ")";
+    }
+    @Override
+    public String coalesce(String expression, String fallback) {
+        return "ISNULL(" + expression + ", " + fallback + ")";
+    }
+    @Override
+    public String hourOf(String timeExpression) {
+        return "DATEPART(HOUR, " + timeExpression + ")";
+    }
+    @Override
+    public String minuteOf(String timeExpression) {
+        return "DATEPART(MINUTE, " + timeExpression + ")";
+    }
+
+    // Statements
+    @Override
+    public String renumberActiveWaitlistSql() {
+        return "UPDATE Waitlist SET QueuePosition = newPosition.rownum " +
+                "FROM (SELECT WaitlistID, ROW_NUMBER() OVER (ORDER BY QueuePosition) AS rownum " +
+                "FROM Waitlist WHERE Status = 'ACTIVE') AS newPosition " +
+                "WHERE Waitlist.WaitlistID = newPosition.WaitlistID";
+    }
+    @Override
+    public String createIdempotencyTableSql() {
+        return """
+        IF OBJECT_ID('IdempotencyKeys', 'U') IS NULL
+        CREATE TABLE IdempotencyKeys (
+            IdempotencyKey NVARCHAR(64) NOT NULL,
+            Operation VARCHAR(16) NOT NULL,
+            CustomerID INT NOT NULL,
+            RequestHash CHAR(64) NULL,
+            ResultID INT NOT NULL,
+            CreatedDate DATETIME2 NOT NULL DEFAULT SYSDATETIME(),
+            CONSTRAINT PK_IdempotencyKeys PRIMARY KEY (Operation, CustomerID, IdempotencyKey)
+        )""";
+    }
+    @Override
+    public String createArchiveCatalogSql() {
+        return """
+        IF OBJECT_ID('ReservationArchives', 'U') IS NULL
+        CREATE TABLE ReservationArchives (
+            ArchiveMonth INT NOT NULL PRIMARY KEY,
+            MinReservationID INT NULL,
+            MaxReservationID INT NULL,
+            ReservationCount INT NOT NULL DEFAULT 0,
+            LastArchivedDate DATETIME2 NULL
+        )""";
+    }
+    @Override
+    public List<String> createReservationArchiveSql(String table) {
+        return List.of("""
+                IF OBJECT_ID('%1$s', 'U') IS NULL
+                CREATE TABLE %1$s (
+                    ReservationID INT NOT NULL PRIMARY KEY,
+                    CustomerID INT NOT NULL,
+                    TableID INT NOT NULL,
+                    ReservationDate DATE NOT NULL,
+                    ReservationTime TIME NOT NULL,
+                    PartySize INT NOT NULL,
+                    Status VARCHAR(20) NOT NULL,
+                    SpecialRequests NVARCHAR(500) NULL,
+                    EstimatedDuration INT NOT NULL
+                )""".formatted(table),
+                ("IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'IX_%1$s_Customer') " +
+                        "CREATE INDEX IX_%1$s_Customer ON %1$s (CustomerID)").formatted(table),
+                ("IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'IX_%1$s_Date') " +
+                        "CREATE INDEX IX_%1$s_Date ON %1$s (ReservationDate)").formatted(table));
+    }
+    @Override
+    public List<String> schemaStatements() {
+        return List.of();
+    }
+    // A MERGE that never matches inserts every source row, and unlike INSERT its OUTPUT can
+    // name source columns, so each new ID comes back with the row it was generated for
+    @Override
+    public String insertRowsReturningIdsSql(String table, String idColumn, List<String> columns, int rows) {
+        String placeholders = String.join(", ", Collections.nCopies(columns.size(), "?"));
+        StringJoiner values = new StringJoiner(", ");
+        for (int row = 0; row < rows; row++) {
+            values.add("(" + placeholders + ", " + row + ")");
+        }
+        StringJoiner sourceColumns = new StringJoiner(", ");
+        for (String column : columns) {
+            sourceColumns.add("Source." + column);
+        }
+        return "MERGE INTO " + table + " USING (VALUES " + values + ") AS Source (" + String.join(", ", columns) +
+                ", SourceRow) ON 1 = 0 WHEN NOT MATCHED THEN INSERT (" + String.join(", ", columns) + ") VALUES (" +
+                sourceColumns + ") OUTPUT Source.SourceRow, INSERTED." + idColumn + ";";
+    }
+    @Override
+    public int snapshotIsolationLevel() {
+        return SNAPSHOT_ISOLATION;
+    }
+
+    // Errors
+    @Override
+    public boolean isUniqueViolation(SQLException e) {
+        // Not SQLState class 23: that also covers foreign key (547) and NOT NULL (515) errors
+        return e.getErrorCode() == UNIQUE_CONSTRAINT_ERROR || e.getErrorCode() == UNIQUE_INDEX_ERROR;
+    }
+    @Override
+    public boolean isDeadlockVictim(SQLException e) {
+        return e.getErrorCode() == DEADLOCK_VICTIM_ERROR || "40001".equals(e.getSQLState());
+    }
+}
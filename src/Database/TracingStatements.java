@@ -0,0 +1,186 @@
+package Database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+// Statement and ResultSet proxies that time every execute call for the SlowQueryLog and
+// emit JdbcEvents while a recording has them enabled. With both turned off the driver's
+// statement is returned as is.
+final class TracingStatements {
+    private TracingStatements() {}
+
+    static Object prepare(Object connection, Method method, Object[] args) throws Throwable {
+        String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : null;
+        if (!(SlowQueryLog.isEnabled() || JdbcEvents.isStatementTracingEnabled())
+                || !Statement.class.isAssignableFrom(method.getReturnType())) {
+            return invoke(method, connection, args);
+        }
+        JdbcEvents.StatementPrepare event = new JdbcEvents.StatementPrepare();
+        long startNanos = System.nanoTime();
+        event.begin();
+        Object statement;
+        try {
+            statement = invoke(method, connection, args);
+        } catch (Throwable t) {
+            // Invalid SQL or a missing object fails here, before any execute call
+            if (SlowQueryLog.isEnabled()) {
+                SlowQueryLog.getInstance().record(sql, System.nanoTime() - startNanos, -1, t);
+            }
+            throw t;
+        }
+        event.fingerprint = SqlFingerprint.of(sql);
+        event.commit();
+        return Proxy.newProxyInstance(TracingStatements.class.getClassLoader(),
+                new Class<?>[]{method.getReturnType()}, new StatementHandler(statement, sql));
+    }
+
+    private static Object invoke(Method method, Object target, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static final class StatementHandler implements InvocationHandler {
+        private final Object statement;
+        private final String sql;
+
+        private StatementHandler(Object statement, String sql) {
+            this.statement = statement;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "unwrap", "isWrapperFor" -> {
+                    return TracingStatements.invoke(method, statement, args);
+                }
+                default -> {
+                    if (!name.startsWith("execute")) {
+                        return TracingStatements.invoke(method, statement, args);
+                    }
+                }
+            }
+
+            // Plain Statement.execute*(sql) carries its SQL as the first argument
+            String text = args != null && args.length > 0 && args[0] instanceof String argument ? argument : sql;
+            JdbcEvents.StatementExecute event = new JdbcEvents.StatementExecute();
+            Throwable failure = null;
+            long startNanos = System.nanoTime();
+            event.begin();
+            try {
+                Object result = TracingStatements.invoke(method, statement, args);
+                event.rowCount = rowCount(result);
+                if (result instanceof ResultSet resultSet && JdbcEvents.isStatementTracingEnabled()) {
+                    return Proxy.newProxyInstance(TracingStatements.class.getClassLoader(),
+                            new Class<?>[]{ResultSet.class}, new ResultSetHandler(resultSet, text));
+                }
+                return result;
+            } catch (Throwable t) {
+                failure = t;
+                event.failed = true;
+                throw t;
+            } finally {
+                event.end();
+                if (SlowQueryLog.isEnabled()) {
+                    SlowQueryLog.getInstance().record(text, System.nanoTime() - startNanos, event.rowCount, failure);
+                }
+                if (event.shouldCommit()) {
+                    event.fingerprint = SqlFingerprint.of(text);
+                    event.method = name;
+                    event.commit();
+                }
+            }
+        }
+        private static long rowCount(Object result) {
+            if (result instanceof Integer count) {
+                return count;
+            }
+            if (result instanceof Long count) {
+                return count;
+            }
+            if (result instanceof int[] counts) {
+                long total = 0;
+                for (int count : counts) {
+                    total += Math.max(count, 0);
+                }
+                return total;
+            }
+            if (result instanceof long[] counts) {
+                long total = 0;
+                for (long count : counts) {
+                    total += Math.max(count, 0);
+                }
+                return total;
+            }
+            return -1;
+        }
+    }
+
+    private static final class ResultSetHandler implements InvocationHandler {
+        private final ResultSet resultSet;
+        private final String sql;
+        private final JdbcEvents.ResultMapping event = new JdbcEvents.ResultMapping();
+        private long rows;
+        private boolean finished;
+
+        private ResultSetHandler(ResultSet resultSet, String sql) {
+            this.resultSet = resultSet;
+            this.sql = sql;
+            event.begin();
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "next" -> {
+                    boolean hasRow = (Boolean) TracingStatements.invoke(method, resultSet, args);
+                    if (hasRow) {
+                        rows++;
+                    } else {
+                        finish();
+                    }
+                    return hasRow;
+                }
+                case "close" -> {
+                    finish();
+                    return TracingStatements.invoke(method, resultSet, args);
+                }
+                default -> {
+                    return TracingStatements.invoke(method, resultSet, args);
+                }
+            }
+        }
+        private void finish() {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            event.end();
+            if (event.shouldCommit()) {
+                event.fingerprint = SqlFingerprint.of(sql);
+                event.rowCount = rows;
+                event.commit();
+            }
+        }
+    }
+}
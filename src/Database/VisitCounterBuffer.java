@@ -0,0 +1,296 @@
+package Database;
+
+import Exceptions.DatabaseConnectionException;
+import Logging.Logger;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Coalesces customer visit counts in memory so updateCustomerVisits costs an adder
+// increment instead of a single-row UPDATE. Each customer has its own striped adder and
+// latest-visit accumulator; a flusher drains them every -Ddb.visits.flushIntervalMillis
+// and applies the deltas as one batched statement, and shutdown drains what is left.
+// Every drained set gets a flush ID that is recorded in IdempotencyKeys in the same
+// transaction as the UPDATEs, and is written to -Ddb.visits.pendingFile before it is
+// applied. A flush whose outcome is unknown (commit lost, process killed) is re-applied
+// under the same ID on the next attempt or the next start, and the key makes the second
+// attempt a no-op. A flush the database rejects for any reason other than being
+// unavailable is moved aside to <pendingFile>.quarantine-<flushId> so later visits still
+// flush; an operator applies or discards it. Visits recorded since the last drain are
+// lost on a hard crash.
+public class VisitCounterBuffer {
+    private static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("db.visits.buffered", "true"));
+    private static final long FLUSH_INTERVAL_MILLIS = Long.getLong("db.visits.flushIntervalMillis", 5_000);
+    private static final Path PENDING_FILE = Path.of(System.getProperty("db.visits.pendingFile", "visit-flush.pending"));
+    private static final int PENDING_MAGIC = 0x52525631; // "RRV1"
+    private static final Logger log = Logger.get(VisitCounterBuffer.class);
+    private static VisitCounterBuffer instance;
+
+    public record VisitDelta(int visits, LocalDateTime lastVisit) {}
+    private record Flush(String flushId, Map<Integer, VisitDelta> deltas) {}
+
+    // Recorded time first, then the visit; drain reads them in the same order
+    private static final class Cell {
+        final LongAccumulator lastVisit = new LongAccumulator(Math::max, Long.MIN_VALUE);
+        final LongAdder visits = new LongAdder();
+    }
+
+    // Cells stay in the map once created; removing one could drop a concurrent increment,
+    // and there is at most one per customer
+    private final Map<Integer, Cell> cells = new ConcurrentHashMap<>();
+    private final String flushPrefix = "visits-" + Long.toString(System.currentTimeMillis(), 36) + "-";
+    private final AtomicLong nextFlush = new AtomicLong();
+    private final LongAdder recorded = new LongAdder();
+    private final LongAdder flushed = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder failedFlushes = new LongAdder();
+    private final LongAdder replayedFlushes = new LongAdder();
+    private final LongAdder quarantinedFlushes = new LongAdder();
+    // Only touched under the flush lock
+    private Flush pending;
+
+    private VisitCounterBuffer() {
+        pending = readPending();
+        Thread flusher = new Thread(this::flushLoop, "visit-counter-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+    public static VisitCounterBuffer getInstance() {
+        if (instance == null) {
+            synchronized (VisitCounterBuffer.class) {
+                if (instance == null) {
+                    instance = new VisitCounterBuffer();
+                }
+            }
+        }
+        return instance;
+    }
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+    // Drains what is buffered; the caller still owns closing the thread's connection
+    public static void shutdown() {
+        VisitCounterBuffer buffer = instance;
+        if (buffer != null) {
+            try {
+                buffer.flush();
+            } catch (DatabaseConnectionException e) {
+                log.atWarn().message("Final visit flush failed; kept for the next start")
+                        .with("file", PENDING_FILE)
+                        .error(e)
+                        .log();
+            }
+        }
+    }
+
+    // Recording
+    public void record(int customerId, LocalDateTime visitedAt) {
+        Cell cell = cells.computeIfAbsent(customerId, id -> new Cell());
+        cell.lastVisit.accumulate(visitedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        cell.visits.increment();
+        recorded.increment();
+    }
+
+    // Flushing
+    private void flushLoop() {
+        while (true) {
+            try {
+                Thread.sleep(FLUSH_INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (DatabaseManager.isDegraded()) {
+                continue;
+            }
+            try {
+                flush();
+            } catch (DatabaseConnectionException e) {
+                log.atWarn().message("Visit flush failed, will retry").error(e).log();
+            } finally {
+                DatabaseManager.getInstance().closeConnection();
+            }
+        }
+    }
+    // Retries an unresolved flush under its own ID first, then drains and applies the
+    // visits buffered since; returns the number of visits applied
+    public synchronized long flush() throws DatabaseConnectionException {
+        long applied = 0;
+        if (pending != null) {
+            applied += apply(pending);
+        }
+        Map<Integer, VisitDelta> deltas = drain();
+        if (deltas.isEmpty()) {
+            return applied;
+        }
+        pending = new Flush(flushPrefix + nextFlush.incrementAndGet(), deltas);
+        writePending(pending);
+        return applied + apply(pending);
+    }
+    private long apply(Flush flush) throws DatabaseConnectionException {
+        long visits = 0;
+        for (VisitDelta delta : flush.deltas().values()) {
+            visits += delta.visits();
+        }
+        boolean fresh;
+        try {
+            fresh = DatabaseManager.getInstance().applyVisitDeltas(flush.flushId(), flush.deltas());
+        } catch (DatabaseConnectionException | RuntimeException e) {
+            failedFlushes.increment();
+            if (DatabaseManager.isTransientFailure(e)) {
+                throw e;
+            }
+            // Retrying would fail the same way and hold back every later visit
+            quarantine(flush, e);
+            return 0;
+        }
+        pending = null;
+        deletePending();
+        if (!fresh) {
+            // Committed by an earlier attempt whose outcome we never saw
+            replayedFlushes.increment();
+            return 0;
+        }
+        flushes.increment();
+        flushed.add(visits);
+        return visits;
+    }
+    private void quarantine(Flush flush, Exception cause) {
+        Path target = PENDING_FILE.resolveSibling(PENDING_FILE.getFileName() + ".quarantine-" + flush.flushId());
+        try {
+            writeFlush(flush, target);
+        } catch (IOException e) {
+            cause.addSuppressed(e);
+        }
+        log.atError().message("Visit flush rejected by the database; quarantined")
+                .with("flushId", flush.flushId())
+                .with("customers", flush.deltas().size())
+                .with("file", target)
+                .error(cause)
+                .log();
+        quarantinedFlushes.increment();
+        pending = null;
+        deletePending();
+    }
+    private Map<Integer, VisitDelta> drain() {
+        Map<Integer, VisitDelta> deltas = new HashMap<>();
+        for (Map.Entry<Integer, Cell> entry : cells.entrySet()) {
+            Cell cell = entry.getValue();
+            long lastVisit = cell.lastVisit.getThenReset();
+            long visits = cell.visits.sumThenReset();
+            if (visits == 0) {
+                if (lastVisit != Long.MIN_VALUE) {
+                    // Time of a visit whose increment lands in the next drain
+                    cell.lastVisit.accumulate(lastVisit);
+                }
+                continue;
+            }
+            if (lastVisit == Long.MIN_VALUE) {
+                // Every visit counted here stored its time after the read above, or inside
+                // getThenReset's window where the reset loses it; either way it is just now
+                lastVisit = Math.max(cell.lastVisit.get(), System.currentTimeMillis());
+            }
+            deltas.put(entry.getKey(), new VisitDelta((int) visits,
+                    LocalDateTime.ofInstant(Instant.ofEpochMilli(lastVisit), ZoneId.systemDefault())));
+        }
+        return deltas;
+    }
+
+    // Pending File
+    private static void writePending(Flush flush) {
+        try {
+            writeFlush(flush, PENDING_FILE);
+        } catch (IOException e) {
+            // Still apply it; only a crash before commit would lose this flush
+            log.atWarn().message("Failed to persist pending visit flush").with("file", PENDING_FILE).error(e).log();
+        }
+    }
+    private static void writeFlush(Flush flush, Path target) throws IOException {
+        byte[] id = flush.flushId().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(10 + id.length + flush.deltas().size() * 16);
+        buffer.putInt(PENDING_MAGIC).putShort((short) id.length).put(id).putInt(flush.deltas().size());
+        for (Map.Entry<Integer, VisitDelta> entry : flush.deltas().entrySet()) {
+            buffer.putInt(entry.getKey())
+                    .putInt(entry.getValue().visits())
+                    .putLong(entry.getValue().lastVisit().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        }
+        buffer.flip();
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    private Flush readPending() {
+        if (!Files.exists(PENDING_FILE)) {
+            return null;
+        }
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(PENDING_FILE));
+            if (buffer.getInt() != PENDING_MAGIC) {
+                throw new IOException("Bad magic");
+            }
+            byte[] id = new byte[buffer.getShort()];
+            buffer.get(id);
+            int count = buffer.getInt();
+            Map<Integer, VisitDelta> deltas = new HashMap<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                deltas.put(buffer.getInt(), new VisitDelta(buffer.getInt(),
+                        LocalDateTime.ofInstant(Instant.ofEpochMilli(buffer.getLong()), ZoneId.systemDefault())));
+            }
+            log.atInfo().message("Recovered pending visit flush").with("customers", count).log();
+            return new Flush(new String(id, StandardCharsets.UTF_8), deltas);
+        } catch (IOException | RuntimeException e) {
+            log.atWarn().message("Ignoring unreadable pending visit flush").with("file", PENDING_FILE).error(e).log();
+            return null;
+        }
+    }
+    private static void deletePending() {
+        try {
+            Files.deleteIfExists(PENDING_FILE);
+        } catch (IOException e) {
+            // Harmless: re-applying it later is a no-op under its flush ID
+            log.atWarn().message("Failed to delete pending visit flush").with("file", PENDING_FILE).error(e).log();
+        }
+    }
+
+    // Statistics
+    public long getRecordedCount() {
+        return recorded.sum();
+    }
+    public long getFlushedCount() {
+        return flushed.sum();
+    }
+    public long getFlushCount() {
+        return flushes.sum();
+    }
+    public long getFailedFlushCount() {
+        return failedFlushes.sum();
+    }
+    public long getReplayedFlushCount() {
+        return replayedFlushes.sum();
+    }
+    public long getQuarantinedFlushCount() {
+        return quarantinedFlushes.sum();
+    }
+    public int getBufferedCustomers() {
+        return cells.size();
+    }
+}
@@ -0,0 +1,116 @@
+package Events;
+
+import Models.Reservation;
+import Models.Waitlist;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Running counts of what happened each day, kept by an EventBus subscriber instead of a
+// query over Reservations and Waitlist. Days are the day the change committed, not the
+// booked date, and only the last -Devents.activity.days days are kept. Counts start at
+// zero when the process starts and miss whatever the bus dropped.
+public class BookingActivity implements EventBus.Subscriber {
+    private static final int RETAINED_DAYS = Integer.getInteger("events.activity.days", 7);
+    private static BookingActivity instance;
+
+    public record DailyActivity(LocalDate date, long reservationsCreated, long covers, long completed,
+                                long cancelled, long tableStatusChanges, long waitlistAdded, long waitlistSeated,
+                                long waitlistExpired, long waitlistRemoved) {}
+
+    private static final class Day {
+        final LongAdder reservationsCreated = new LongAdder();
+        final LongAdder covers = new LongAdder();
+        final LongAdder completed = new LongAdder();
+        final LongAdder cancelled = new LongAdder();
+        final LongAdder tableStatusChanges = new LongAdder();
+        final LongAdder waitlistAdded = new LongAdder();
+        final LongAdder waitlistSeated = new LongAdder();
+        final LongAdder waitlistExpired = new LongAdder();
+        final LongAdder waitlistRemoved = new LongAdder();
+    }
+
+    private final ConcurrentSkipListMap<LocalDate, Day> days = new ConcurrentSkipListMap<>();
+    private EventBus.Subscription subscription;
+
+    private BookingActivity() {}
+    public static BookingActivity getInstance() {
+        if (instance == null) {
+            synchronized (BookingActivity.class) {
+                if (instance == null) {
+                    instance = new BookingActivity();
+                }
+            }
+        }
+        return instance;
+    }
+
+    // Lifecycle
+    public synchronized void start() {
+        if (subscription == null && EventBus.isEnabled()) {
+            subscription = EventBus.getInstance().subscribe("booking-activity", this);
+        }
+    }
+
+    // Projection
+    @Override
+    public void onEvents(List<DomainEvent> events) {
+        for (DomainEvent event : events) {
+            Day day = days.computeIfAbsent(LocalDate.ofInstant(event.occurredAt(), ZoneId.systemDefault()), d -> new Day());
+            switch (event) {
+                case DomainEvent.ReservationCreated created -> {
+                    day.reservationsCreated.increment();
+                    day.covers.add(created.partySize());
+                }
+                case DomainEvent.ReservationStatusChanged changed -> {
+                    if (changed.status() == Reservation.ReservationStatus.COMPLETED) {
+                        day.completed.increment();
+                    } else if (changed.status() == Reservation.ReservationStatus.CANCELLED) {
+                        day.cancelled.increment();
+                    }
+                }
+                case DomainEvent.TableStatusChanged changed -> day.tableStatusChanges.increment();
+                case DomainEvent.WaitlistChanged changed -> {
+                    switch (changed.change()) {
+                        case ADDED -> day.waitlistAdded.increment();
+                        case REMOVED -> day.waitlistRemoved.increment();
+                        case STATUS -> {
+                            if (changed.status() == Waitlist.WaitlistStatus.SEATED) {
+                                day.waitlistSeated.increment();
+                            } else if (changed.status() == Waitlist.WaitlistStatus.EXPIRED) {
+                                day.waitlistExpired.increment();
+                            }
+                        }
+                        case WAIT_TIME -> {
+                        }
+                    }
+                }
+            }
+        }
+        while (days.size() > RETAINED_DAYS) {
+            days.pollFirstEntry();
+        }
+    }
+
+    // Queries
+    public DailyActivity getActivity(LocalDate date) {
+        Day day = days.get(date);
+        if (day == null) {
+            return new DailyActivity(date, 0, 0, 0, 0, 0, 0, 0, 0, 0);
+        }
+        return new DailyActivity(date, day.reservationsCreated.sum(), day.covers.sum(), day.completed.sum(),
+                day.cancelled.sum(), day.tableStatusChanges.sum(), day.waitlistAdded.sum(), day.waitlistSeated.sum(),
+                day.waitlistExpired.sum(), day.waitlistRemoved.sum());
+    }
+    public Map<LocalDate, DailyActivity> getRecentActivity() {
+        Map<LocalDate, DailyActivity> recent = new LinkedHashMap<>();
+        for (LocalDate date : days.keySet()) {
+            recent.put(date, getActivity(date));
+        }
+        return recent;
+    }
+}
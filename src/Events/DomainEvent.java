@@ -0,0 +1,25 @@
+package Events;
+
+import Models.Reservation;
+import Models.Table;
+import Models.Waitlist;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+// Facts about committed changes, published by DatabaseManager once the transaction that
+// made them has committed
+public sealed interface DomainEvent {
+    Instant occurredAt();
+
+    record ReservationCreated(Instant occurredAt, int reservationId, int customerId, int tableId,
+                              LocalDate date, LocalTime time, int partySize) implements DomainEvent {}
+    record ReservationStatusChanged(Instant occurredAt, int reservationId,
+                                    Reservation.ReservationStatus status) implements DomainEvent {}
+    record TableStatusChanged(Instant occurredAt, int tableId, Table.TableStatus status) implements DomainEvent {}
+    // status is null for REMOVED and WAIT_TIME
+    record WaitlistChanged(Instant occurredAt, int waitlistId, Change change,
+                           Waitlist.WaitlistStatus status) implements DomainEvent {
+        public enum Change { ADDED, STATUS, WAIT_TIME, REMOVED }
+    }
+}
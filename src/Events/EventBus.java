@@ -0,0 +1,257 @@
+package Events;
+
+import Logging.Logger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// In-process dispatcher for DomainEvents over a preallocated ring of slots. A producer
+// claims a sequence with one CAS on the cursor, fills the slot and marks it published;
+// it never waits on a subscriber. Each subscriber has its own daemon thread that follows
+// the cursor and takes every contiguous published run (up to -Devents.maxBatch) as one
+// batch, so a subscriber that falls behind catches up in bigger batches rather than more
+// wakeups. When the slowest subscriber is a whole ring behind, new events are dropped and
+// counted instead of blocking the write path; a subscriber that cannot miss anything
+// should rebuild from the database when getDroppedCount() moves. Publishing with no
+// subscribers is a no-op. Off with -Devents.enabled=false.
+public class EventBus {
+    private static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("events.enabled", "true"));
+    private static final int RING_SIZE = ceilingPowerOfTwo(Math.max(Integer.getInteger("events.ringSize", 8_192), 64));
+    private static final int MASK = RING_SIZE - 1;
+    private static final int MAX_BATCH = Math.max(Integer.getInteger("events.maxBatch", 256), 1);
+    private static final int IDLE_SPINS = 200;
+    private static final long IDLE_PARK_NANOS = 1_000_000;
+    private static final Logger log = Logger.get(EventBus.class);
+    private static EventBus instance;
+
+    @FunctionalInterface
+    public interface Subscriber {
+        // Called on the subscription's thread with events in publish order; the list is
+        // reused once the call returns
+        void onEvents(List<DomainEvent> events);
+    }
+    public record SubscriptionStats(String name, long delivered, long batches, int maxBatch, long lag, long failures) {}
+
+    // The event is written before the sequence and read after it, so a consumer that sees
+    // its sequence sees the event
+    private static final class Slot {
+        volatile long sequence = -1;
+        DomainEvent event;
+    }
+
+    public final class Subscription {
+        private final String name;
+        private final Subscriber subscriber;
+        private final LongAdder delivered = new LongAdder();
+        private final LongAdder batches = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private volatile int maxBatch;
+        // Last sequence handed to the subscriber; producers may reuse every slot up to it
+        private volatile long sequence = Long.MAX_VALUE;
+        private volatile boolean parked;
+        private volatile boolean running = true;
+        private Thread thread;
+
+        private Subscription(String name, Subscriber subscriber) {
+            this.name = name;
+            this.subscriber = subscriber;
+        }
+        public String getName() {
+            return name;
+        }
+        public SubscriptionStats stats() {
+            return new SubscriptionStats(name, delivered.sum(), batches.sum(), maxBatch,
+                    Math.max(0, cursor.get() - sequence), failures.sum());
+        }
+        // Delivers what is already published, then stops the thread
+        public void close() {
+            running = false;
+            LockSupport.unpark(thread);
+        }
+        private void join(long millis) throws InterruptedException {
+            thread.join(millis);
+        }
+    }
+
+    private final Slot[] ring = new Slot[RING_SIZE];
+    private final AtomicLong cursor = new AtomicLong(-1);
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final LongAdder published = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    // Lowest subscriber sequence seen by the last producer that looked; refreshed only when
+    // the ring looks full
+    private volatile long gatingSequence = -1;
+
+    private EventBus() {
+        for (int i = 0; i < RING_SIZE; i++) {
+            ring[i] = new Slot();
+        }
+    }
+    public static EventBus getInstance() {
+        if (instance == null) {
+            synchronized (EventBus.class) {
+                if (instance == null) {
+                    instance = new EventBus();
+                }
+            }
+        }
+        return instance;
+    }
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+    // Stops every subscription after it has taken what is already published
+    public static void shutdown() {
+        EventBus bus = instance;
+        if (bus != null) {
+            for (Subscription subscription : bus.subscriptions) {
+                subscription.close();
+                try {
+                    subscription.join(1_000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    // Subscribing
+    // Starts a consumer thread that sees every event published from now on
+    public synchronized Subscription subscribe(String name, Subscriber subscriber) {
+        Subscription subscription = new Subscription(name, subscriber);
+        // Gate producers on the new subscription before choosing where it starts
+        subscriptions.add(subscription);
+        subscription.sequence = cursor.get();
+        gatingSequence = Math.min(gatingSequence, subscription.sequence);
+        subscription.thread = new Thread(() -> consume(subscription), "event-" + name);
+        subscription.thread.setDaemon(true);
+        subscription.thread.start();
+        return subscription;
+    }
+
+    // Publishing
+    // Returns false when nobody is subscribed or the ring is full
+    public boolean publish(DomainEvent event) {
+        if (!ENABLED || subscriptions.isEmpty()) {
+            return false;
+        }
+        long next;
+        while (true) {
+            long current = cursor.get();
+            next = current + 1;
+            long wrapPoint = next - RING_SIZE;
+            if (wrapPoint > gatingSequence) {
+                long gating = minimumSequence(current);
+                gatingSequence = gating;
+                if (wrapPoint > gating) {
+                    dropped.increment();
+                    return false;
+                }
+            }
+            if (cursor.compareAndSet(current, next)) {
+                break;
+            }
+        }
+        Slot slot = ring[(int) (next & MASK)];
+        slot.event = event;
+        slot.sequence = next;
+        published.increment();
+        for (Subscription subscription : subscriptions) {
+            if (subscription.parked) {
+                LockSupport.unpark(subscription.thread);
+            }
+        }
+        return true;
+    }
+    private long minimumSequence(long fallback) {
+        long minimum = fallback;
+        for (Subscription subscription : subscriptions) {
+            minimum = Math.min(minimum, subscription.sequence);
+        }
+        return minimum;
+    }
+
+    // Consuming
+    private void consume(Subscription subscription) {
+        List<DomainEvent> batch = new ArrayList<>(MAX_BATCH);
+        int idle = 0;
+        while (true) {
+            long next = subscription.sequence + 1;
+            while (batch.size() < MAX_BATCH) {
+                Slot slot = ring[(int) ((next + batch.size()) & MASK)];
+                if (slot.sequence != next + batch.size()) {
+                    break;
+                }
+                batch.add(slot.event);
+            }
+            if (batch.isEmpty()) {
+                if (!subscription.running) {
+                    // Stays gating producers until here, so nothing it was reading is reused
+                    subscriptions.remove(subscription);
+                    return;
+                }
+                idle = waitForEvents(subscription, next, idle);
+                continue;
+            }
+            idle = 0;
+            try {
+                subscription.subscriber.onEvents(batch);
+            } catch (RuntimeException e) {
+                // The batch is not redelivered; a subscriber that needs it should resync
+                subscription.failures.increment();
+                log.atError().message("Event subscriber failed")
+                        .with("subscriber", subscription.name)
+                        .with("events", batch.size())
+                        .error(e)
+                        .log();
+            }
+            subscription.delivered.add(batch.size());
+            subscription.batches.increment();
+            if (batch.size() > subscription.maxBatch) {
+                subscription.maxBatch = batch.size();
+            }
+            subscription.sequence = next + batch.size() - 1;
+            batch.clear();
+        }
+    }
+    // Spins briefly for the next event, then parks until a producer unparks it or the
+    // park times out
+    private int waitForEvents(Subscription subscription, long next, int idle) {
+        if (idle < IDLE_SPINS) {
+            Thread.onSpinWait();
+            return idle + 1;
+        }
+        subscription.parked = true;
+        if (ring[(int) (next & MASK)].sequence != next && subscription.running) {
+            LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+        }
+        subscription.parked = false;
+        return idle;
+    }
+
+    // Statistics
+    public long getPublishedCount() {
+        return published.sum();
+    }
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+    public int getCapacity() {
+        return RING_SIZE;
+    }
+    public List<SubscriptionStats> getSubscriptions() {
+        List<SubscriptionStats> stats = new ArrayList<>();
+        for (Subscription subscription : subscriptions) {
+            stats.add(subscription.stats());
+        }
+        return stats;
+    }
+
+    private static int ceilingPowerOfTwo(int value) {
+        return Integer.highestOneBit(value - 1) << 1;
+    }
+}
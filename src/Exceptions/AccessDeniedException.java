@@ -0,0 +1,8 @@
+package Exceptions;
+
+// The caller is logged in but the operation belongs to another role or another customer
+public class AccessDeniedException extends Exception {
+    public AccessDeniedException(String message) {
+        super(message);
+    }
+}
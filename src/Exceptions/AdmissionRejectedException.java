@@ -0,0 +1,7 @@
+package Exceptions;
+
+public class AdmissionRejectedException extends Exception {
+    public AdmissionRejectedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package Exceptions;
+
+// The request is well formed but clashes with data already stored, e.g. a duplicate key
+public class ConflictException extends DatabaseConnectionException {
+    public ConflictException(String message, Throwable cause) {
+        super(message, cause);
+    }
+    public ConflictException(String message) {
+        super(message);
+    }
+}
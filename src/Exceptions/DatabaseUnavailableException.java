@@ -0,0 +1,7 @@
+package Exceptions;
+
+public class DatabaseUnavailableException extends DatabaseConnectionException {
+    public DatabaseUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,13 @@
+package Exceptions;
+
+public class LoginThrottledException extends AuthenticationException {
+    private final long retryAfterSeconds;
+
+    public LoginThrottledException(long retryAfterSeconds) {
+        super("Too many failed logins; try again in " + retryAfterSeconds + " seconds");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,7 @@
+package Exceptions;
+
+public class RecordNotFoundException extends DatabaseConnectionException {
+    public RecordNotFoundException(String message) {
+        super(message);
+    }
+}
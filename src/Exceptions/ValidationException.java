@@ -0,0 +1,8 @@
+package Exceptions;
+
+// Input that can never succeed as sent; retrying the same request is pointless
+public class ValidationException extends DatabaseConnectionException {
+    public ValidationException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,342 @@
+package Export;
+
+import Api.JsonWriter;
+import Database.DatabaseManager;
+import Exceptions.DatabaseConnectionException;
+import Logging.Logger;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.*;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+// Dumps the core tables to a directory as gzip'd CSV or a compact typed binary format,
+// plus a manifest.json with the row count, size and SHA-256 of every file. Reservations
+// moved out by archiving come along: the ReservationArchives catalog and every monthly
+// ReservationsArchive_yyyyMM table it lists are exported after the core tables. All tables
+// are read in one SNAPSHOT transaction, so the files agree with each other, and each
+// table is streamed through a forward-only cursor straight into the file channel, so
+// memory use does not depend on table size. Credentials are deliberately not exported.
+// Usage: DatasetExporter <directory> [csv|binary]
+public final class DatasetExporter {
+    private static final Logger log = Logger.get(DatasetExporter.class);
+    private static final int FETCH_SIZE = Integer.getInteger("export.fetchSize", 5_000);
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // Table and the key it is exported in order of
+    private static final String[][] TABLES = {
+            {"RestaurantTables", "TableID"},
+            {"Customers", "CustomerID"},
+            {"Reservations", "ReservationID"},
+            {"Waitlist", "WaitlistID"},
+            {"ReservationArchives", "ArchiveMonth"},
+    };
+
+    public enum Format {
+        CSV("csv.gz"),
+        BINARY("bin.gz");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+    }
+
+    public record TableExport(String table, String file, long rows, long bytes, String sha256) {}
+    public record Manifest(Format format, Instant startedAt, Instant finishedAt, List<TableExport> tables) {
+        public long totalRows() {
+            return tables.stream().mapToLong(TableExport::rows).sum();
+        }
+    }
+
+    private final DatabaseManager dbManager;
+
+    public DatasetExporter() {
+        this.dbManager = DatabaseManager.getInstance();
+    }
+
+    public Manifest export(Path directory, Format format) throws DatabaseConnectionException, IOException {
+        Files.createDirectories(directory);
+        Instant startedAt = Instant.now();
+        // Files are rewritten from scratch if the transaction is retried
+        List<TableExport> exports = dbManager.inTransaction(DatabaseManager.Propagation.REQUIRES_NEW,
+                DatabaseManager.Isolation.SNAPSHOT, conn -> {
+                    // Listed inside the snapshot, so rows archived meanwhile are exported
+                    // once, from Reservations
+                    List<String[]> tables = new ArrayList<>(List.of(TABLES));
+                    for (String archive : dbManager.getArchiveTables()) {
+                        tables.add(new String[] {archive, "ReservationID"});
+                    }
+                    List<TableExport> exported = new ArrayList<>(tables.size());
+                    for (String[] table : tables) {
+                        try {
+                            exported.add(exportTable(directory, format, table[0], table[1]));
+                        } catch (IOException e) {
+                            throw new DatabaseConnectionException("Failed to write export of " + table[0], e);
+                        }
+                    }
+                    return exported;
+                });
+        Manifest manifest = new Manifest(format, startedAt, Instant.now(), exports);
+        writeManifest(directory, manifest);
+        log.atInfo().message("Export finished").with("directory", directory).with("format", format)
+                .with("rows", manifest.totalRows())
+                .with("elapsedMillis", manifest.finishedAt().toEpochMilli() - startedAt.toEpochMilli()).log();
+        return manifest;
+    }
+
+    // Tables
+    private TableExport exportTable(Path directory, Format format, String table, String keyColumn)
+            throws DatabaseConnectionException, IOException {
+        String fileName = table + "." + format.extension;
+        MessageDigest digest = sha256();
+        long rows;
+        try (FileChannel channel = FileChannel.open(directory.resolve(fileName), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             DigestOutputStream hashed = new DigestOutputStream(Channels.newOutputStream(channel), digest);
+             GZIPOutputStream gzip = new GZIPOutputStream(hashed, BUFFER_SIZE);
+             OutputStream out = new BufferedOutputStream(gzip, BUFFER_SIZE)) {
+            RowWriter writer = format == Format.CSV ? new CsvRowWriter(out) : new BinaryRowWriter(out, table);
+            rows = dbManager.streamTable(table, keyColumn, FETCH_SIZE, writer::write);
+            writer.finish();
+            out.flush();
+            gzip.finish();
+            hashed.flush();
+            channel.force(false);
+        }
+        long bytes = Files.size(directory.resolve(fileName));
+        log.atInfo().message("Table exported").with("table", table).with("rows", rows).with("bytes", bytes).log();
+        return new TableExport(table, fileName, rows, bytes, HexFormat.of().formatHex(digest.digest()));
+    }
+    private static void writeManifest(Path directory, Manifest manifest) throws IOException {
+        JsonWriter json = new JsonWriter().beginObject()
+                .field("format", manifest.format())
+                .field("isolation", "SNAPSHOT")
+                .field("startedAt", manifest.startedAt())
+                .field("finishedAt", manifest.finishedAt())
+                .name("tables").beginArray();
+        for (TableExport table : manifest.tables()) {
+            json.beginObject()
+                    .field("table", table.table())
+                    .field("file", table.file())
+                    .field("rows", table.rows())
+                    .field("bytes", table.bytes())
+                    .field("sha256", table.sha256())
+                    .endObject();
+        }
+        json.endArray().endObject();
+        Path temp = directory.resolve("manifest.json.tmp");
+        Files.writeString(temp, json.toString(), StandardCharsets.UTF_8);
+        Files.move(temp, directory.resolve("manifest.json"), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    // Row Writers
+    private interface RowWriter {
+        void write(ResultSet row) throws SQLException, IOException;
+        void finish() throws IOException;
+    }
+    // Header line of column names, then one line per row; NULL is an empty field
+    private static final class CsvRowWriter implements RowWriter {
+        private final OutputStream out;
+        private final StringBuilder line = new StringBuilder(256);
+        private int columns = -1;
+
+        CsvRowWriter(OutputStream out) {
+            this.out = out;
+        }
+        @Override
+        public void write(ResultSet row) throws SQLException, IOException {
+            if (columns < 0) {
+                ResultSetMetaData meta = row.getMetaData();
+                columns = meta.getColumnCount();
+                for (int i = 1; i <= columns; i++) {
+                    append(meta.getColumnLabel(i), i);
+                }
+                flushLine();
+            }
+            for (int i = 1; i <= columns; i++) {
+                Object value = row.getObject(i);
+                append(value == null ? null : format(value), i);
+            }
+            flushLine();
+        }
+        @Override
+        public void finish() {}
+        private static String format(Object value) {
+            if (value instanceof Timestamp timestamp) {
+                return timestamp.toLocalDateTime().toString();
+            }
+            if (value instanceof Date date) {
+                return date.toLocalDate().toString();
+            }
+            if (value instanceof Time time) {
+                return time.toLocalTime().toString();
+            }
+            return value.toString();
+        }
+        private void append(String value, int column) {
+            if (column > 1) {
+                line.append(',');
+            }
+            if (value == null) {
+                return;
+            }
+            if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+                line.append('"').append(value.replace("\"", "\"\"")).append('"');
+            } else {
+                line.append(value);
+            }
+        }
+        private void flushLine() throws IOException {
+            line.append('\n');
+            out.write(line.toString().getBytes(StandardCharsets.UTF_8));
+            line.setLength(0);
+        }
+    }
+    // "RRX1", table name, column count, then name and type tag per column. Each row is
+    // a 1 byte marker, a null bitmap and the non-null values; a 0 marker ends the file.
+    private static final class BinaryRowWriter implements RowWriter {
+        private static final int MAGIC = 0x52525831; // "RRX1"
+        private static final byte INT = 1, LONG = 2, BOOLEAN = 3, TEXT = 4, DATE = 5, TIME = 6, TIMESTAMP = 7,
+                DOUBLE = 8, DECIMAL = 9;
+
+        private final DataOutputStream out;
+        private final String table;
+        private byte[] types;
+        private byte[] nulls;
+
+        BinaryRowWriter(OutputStream out, String table) {
+            this.out = new DataOutputStream(out);
+            this.table = table;
+        }
+        @Override
+        public void write(ResultSet row) throws SQLException, IOException {
+            if (types == null) {
+                writeHeader(row.getMetaData());
+            }
+            Object[] values = new Object[types.length];
+            java.util.Arrays.fill(nulls, (byte) 0);
+            for (int i = 0; i < types.length; i++) {
+                values[i] = read(row, i + 1, types[i]);
+                if (values[i] == null) {
+                    nulls[i >> 3] |= (byte) (1 << (i & 7));
+                }
+            }
+            out.writeByte(1);
+            out.write(nulls);
+            for (int i = 0; i < types.length; i++) {
+                if (values[i] != null) {
+                    writeValue(types[i], values[i]);
+                }
+            }
+        }
+        @Override
+        public void finish() throws IOException {
+            if (types == null) {
+                // Empty table: still write a header so the file is self-describing
+                out.writeInt(MAGIC);
+                out.writeUTF(table);
+                out.writeShort(0);
+            }
+            out.writeByte(0);
+            out.flush();
+        }
+        private void writeHeader(ResultSetMetaData meta) throws SQLException, IOException {
+            int columns = meta.getColumnCount();
+            types = new byte[columns];
+            nulls = new byte[(columns + 7) / 8];
+            out.writeInt(MAGIC);
+            out.writeUTF(table);
+            out.writeShort(columns);
+            for (int i = 0; i < columns; i++) {
+                types[i] = typeOf(meta.getColumnType(i + 1));
+                out.writeUTF(meta.getColumnLabel(i + 1));
+                out.writeByte(types[i]);
+            }
+        }
+        private static byte typeOf(int sqlType) {
+            return switch (sqlType) {
+                case Types.TINYINT, Types.SMALLINT, Types.INTEGER -> INT;
+                case Types.BIGINT -> LONG;
+                case Types.BIT, Types.BOOLEAN -> BOOLEAN;
+                case Types.DATE -> DATE;
+                case Types.TIME, Types.TIME_WITH_TIMEZONE -> TIME;
+                case Types.TIMESTAMP, Types.TIMESTAMP_WITH_TIMEZONE -> TIMESTAMP;
+                case Types.REAL, Types.FLOAT, Types.DOUBLE -> DOUBLE;
+                case Types.DECIMAL, Types.NUMERIC -> DECIMAL;
+                default -> TEXT;
+            };
+        }
+        private static Object read(ResultSet row, int column, byte type) throws SQLException {
+            Object value = switch (type) {
+                case INT -> row.getInt(column);
+                case LONG -> row.getLong(column);
+                case BOOLEAN -> row.getBoolean(column);
+                case DATE -> row.getDate(column);
+                case TIME -> row.getTime(column);
+                case TIMESTAMP -> row.getTimestamp(column);
+                case DOUBLE -> row.getDouble(column);
+                case DECIMAL -> row.getBigDecimal(column);
+                default -> row.getString(column);
+            };
+            return row.wasNull() ? null : value;
+        }
+        private void writeValue(byte type, Object value) throws IOException {
+            switch (type) {
+                case INT -> out.writeInt((Integer) value);
+                case LONG -> out.writeLong((Long) value);
+                case BOOLEAN -> out.writeBoolean((Boolean) value);
+                case DATE -> out.writeInt((int) ((Date) value).toLocalDate().toEpochDay());
+                case TIME -> out.writeLong(((Time) value).toLocalTime().toNanoOfDay());
+                case TIMESTAMP -> {
+                    Instant instant = ((Timestamp) value).toLocalDateTime().toInstant(java.time.ZoneOffset.UTC);
+                    out.writeLong(instant.getEpochSecond());
+                    out.writeInt(instant.getNano());
+                }
+                case DOUBLE -> out.writeDouble((Double) value);
+                default -> {
+                    byte[] bytes = value.toString().getBytes(StandardCharsets.UTF_8);
+                    out.writeInt(bytes.length);
+                    out.write(bytes);
+                }
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: DatasetExporter <directory> [csv|binary]");
+            System.exit(2);
+        }
+        Format format = args.length > 1 ? Format.valueOf(args[1].toUpperCase()) : Format.CSV;
+        Manifest manifest = new DatasetExporter().export(Path.of(args[0]), format);
+        for (TableExport table : manifest.tables()) {
+            System.out.printf("%-26s %10d rows %12d bytes  %s%n", table.table(), table.rows(), table.bytes(), table.sha256());
+        }
+        System.exit(0);
+    }
+}
@@ -0,0 +1,200 @@
+package Import;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// Tokenizes a CSV file in place. The file is mapped read-only and a row is just the
+// offsets of its fields in the mapping; a field is decoded to a String only when it is
+// asked for, on whichever thread asks. RFC 4180 quoting is supported, including ""
+// escapes and line breaks inside quotes. A row with a malformed quoted field comes back
+// with error() set, and reading resumes at the line after the bad one. Not thread-safe;
+// the rows it hands out are.
+public final class CsvReader {
+    private static final byte COMMA = ',';
+    private static final byte QUOTE = '"';
+    private static final byte CR = '\r';
+    private static final byte LF = '\n';
+
+    private final ByteBuffer data;
+    private final int limit;
+    private int pos;
+    private long line = 1;
+    private int[] scratch = new int[32];
+    private String malformed;
+
+    public static final class Row {
+        private final ByteBuffer data;
+        private final long line;
+        private final int start;
+        private final int end;
+        private final int[] bounds; // start, end and quoted flag per field
+        private final String error;
+
+        private Row(ByteBuffer data, long line, int start, int end, int[] bounds, String error) {
+            this.data = data;
+            this.line = line;
+            this.start = start;
+            this.end = end;
+            this.bounds = bounds;
+            this.error = error;
+        }
+
+        // Physical line the row starts on, counting the header as line 1
+        public long line() {
+            return line;
+        }
+        public int size() {
+            return bounds.length / 3;
+        }
+        // Why the row could not be tokenized, or null; such a row has no fields
+        public String error() {
+            return error;
+        }
+        // Null for a missing or empty field
+        public String get(int field) {
+            if (field < 0 || field >= size()) {
+                return null;
+            }
+            int from = bounds[field * 3];
+            int to = bounds[field * 3 + 1];
+            if (from == to) {
+                return null;
+            }
+            String value = decode(from, to);
+            return bounds[field * 3 + 2] != 0 && value.indexOf('"') >= 0 ? value.replace("\"\"", "\"") : value;
+        }
+        // The row as it appears in the file, for reject reports
+        public String text() {
+            return decode(start, end);
+        }
+        private String decode(int from, int to) {
+            byte[] bytes = new byte[to - from];
+            data.get(from, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    private CsvReader(ByteBuffer data) {
+        this.data = data;
+        this.limit = data.limit();
+        // Skip a UTF-8 byte order mark
+        if (limit >= 3 && data.get(0) == (byte) 0xEF && data.get(1) == (byte) 0xBB && data.get(2) == (byte) 0xBF) {
+            pos = 3;
+        }
+    }
+    public static CsvReader open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("CSV file larger than 2 GB; split it before importing");
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new CsvReader(mapped);
+        }
+    }
+    public long size() {
+        return limit;
+    }
+    public long position() {
+        return pos;
+    }
+
+    // Next non-blank row, or null at the end of the file
+    public Row next() {
+        while (pos < limit && isLineBreak(data.get(pos))) {
+            consumeLineBreak();
+        }
+        if (pos >= limit) {
+            return null;
+        }
+        long rowLine = line;
+        int rowStart = pos;
+        int count = 0;
+        while (true) {
+            if (count + 3 > scratch.length) {
+                scratch = Arrays.copyOf(scratch, scratch.length * 2);
+            }
+            if (pos < limit && data.get(pos) == QUOTE) {
+                int from = ++pos;
+                int to = scanQuoted(rowLine);
+                if (to < 0) {
+                    return malformedRow(rowLine, rowStart);
+                }
+                scratch[count++] = from;
+                scratch[count++] = to;
+                scratch[count++] = 1;
+            } else {
+                int from = pos;
+                while (pos < limit && data.get(pos) != COMMA && !isLineBreak(data.get(pos))) {
+                    pos++;
+                }
+                scratch[count++] = from;
+                scratch[count++] = pos;
+                scratch[count++] = 0;
+            }
+            if (pos < limit && data.get(pos) == COMMA) {
+                pos++;
+                continue;
+            }
+            int rowEnd = pos;
+            if (pos < limit) {
+                consumeLineBreak();
+            }
+            return new Row(data, rowLine, rowStart, rowEnd, Arrays.copyOf(scratch, count), null);
+        }
+    }
+    // Leaves pos after the closing quote and returns the offset of it, or -1 with malformed
+    // set when the field is broken
+    private int scanQuoted(long rowLine) {
+        while (pos < limit) {
+            byte b = data.get(pos);
+            if (b == QUOTE) {
+                if (pos + 1 < limit && data.get(pos + 1) == QUOTE) {
+                    pos += 2;
+                    continue;
+                }
+                int closing = pos++;
+                if (pos < limit && data.get(pos) != COMMA && !isLineBreak(data.get(pos))) {
+                    malformed = "Unexpected character after closing quote on line " + line;
+                    return -1;
+                }
+                return closing;
+            }
+            if (b == LF) {
+                line++;
+            }
+            pos++;
+        }
+        malformed = "Unterminated quoted field starting on line " + rowLine;
+        return -1;
+    }
+    // Gives up on the row at its first physical line. A quote that never closes would
+    // otherwise swallow the rest of the file, so the lines after it are read again as rows.
+    private Row malformedRow(long rowLine, int rowStart) {
+        pos = rowStart;
+        line = rowLine;
+        while (pos < limit && !isLineBreak(data.get(pos))) {
+            pos++;
+        }
+        int rowEnd = pos;
+        if (pos < limit) {
+            consumeLineBreak();
+        }
+        return new Row(data, rowLine, rowStart, rowEnd, new int[0], malformed);
+    }
+    private void consumeLineBreak() {
+        if (data.get(pos) == CR && pos + 1 < limit && data.get(pos + 1) == LF) {
+            pos++;
+        }
+        pos++;
+        line++;
+    }
+    private static boolean isLineBreak(byte b) {
+        return b == LF || b == CR;
+    }
+}
@@ -0,0 +1,303 @@
+package Import;
+
+import Database.DatabaseManager;
+import Exceptions.DatabaseConnectionException;
+import Exceptions.ValidationException;
+import Logging.Logger;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DateTimeException;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Three stages joined by bounded queues: the calling thread tokenizes the mapped file
+// into blocks of rows, a pool of validator threads turns rows into records, and a single
+// writer thread inserts them in batches. A full queue blocks the stage feeding it, so a
+// slow database throttles parsing instead of filling the heap. Rows that fail parsing,
+// validation or the insert are written to the reject file with their line and reason.
+// Usage: ImportPipeline customers|reservations <file.csv> [rejects.csv]
+public final class ImportPipeline<T> {
+    private static final Logger log = Logger.get(ImportPipeline.class);
+    private static final int BLOCK_ROWS = Integer.getInteger("import.blockRows", 256);
+    private static final int QUEUE_BLOCKS = Integer.getInteger("import.queueBlocks", 16);
+    private static final int BATCH_SIZE = Integer.getInteger("import.batchSize", 500);
+    private static final int VALIDATORS =
+            Integer.getInteger("import.validators", Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+
+    // Turns a row into a record, throwing with the reason when the row is unusable
+    public interface RecordType<T> {
+        String name();
+        List<String> requiredColumns();
+        T parse(Columns columns, CsvReader.Row row) throws DatabaseConnectionException;
+        // One outcome per record, in order
+        List<DatabaseManager.BatchOutcome> write(List<T> records) throws DatabaseConnectionException;
+    }
+
+    public record Result(String type, long rows, long imported, long rejected, long failed, long bytes,
+                         long elapsedMillis, long readerStalls, long validatorStalls) {
+        public double rowsPerSecond() {
+            return elapsedMillis == 0 ? rows : rows * 1000.0 / elapsedMillis;
+        }
+        public double megabytesPerSecond() {
+            return elapsedMillis == 0 ? 0 : bytes / 1048.576 / elapsedMillis;
+        }
+    }
+
+    // Header names, matched case-insensitively
+    public static final class Columns {
+        private final Map<String, Integer> index = new HashMap<>();
+
+        private Columns(CsvReader.Row header) {
+            for (int i = 0; i < header.size(); i++) {
+                String name = header.get(i);
+                if (name != null) {
+                    index.put(name.trim().toLowerCase(Locale.ROOT), i);
+                }
+            }
+        }
+        public String get(CsvReader.Row row, String column) {
+            Integer field = index.get(column.toLowerCase(Locale.ROOT));
+            String value = field == null ? null : row.get(field);
+            return value == null || value.isBlank() ? null : value.trim();
+        }
+        public String require(CsvReader.Row row, String column) throws DatabaseConnectionException {
+            String value = get(row, column);
+            if (value == null) {
+                throw new ValidationException(column + " is required");
+            }
+            return value;
+        }
+        boolean has(String column) {
+            return index.containsKey(column.toLowerCase(Locale.ROOT));
+        }
+    }
+
+    private record Parsed<T>(CsvReader.Row row, T record) {}
+
+    private final RecordType<T> type;
+    private final BlockingQueue<List<CsvReader.Row>> rowQueue = new ArrayBlockingQueue<>(QUEUE_BLOCKS);
+    private final BlockingQueue<List<Parsed<T>>> recordQueue = new ArrayBlockingQueue<>(QUEUE_BLOCKS);
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong imported = new AtomicLong();
+    private final AtomicLong readerStalls = new AtomicLong();
+    private final AtomicLong validatorStalls = new AtomicLong();
+    private BufferedWriter rejects;
+    private Columns columns;
+
+    public ImportPipeline(RecordType<T> type) {
+        this.type = type;
+    }
+
+    public static Result importCustomers(Path csv, Path rejectFile) throws IOException, InterruptedException {
+        return new ImportPipeline<>(ImportRecords.customers()).run(csv, rejectFile);
+    }
+    public static Result importReservations(Path csv, Path rejectFile) throws IOException, InterruptedException {
+        return new ImportPipeline<>(ImportRecords.reservations()).run(csv, rejectFile);
+    }
+
+    public Result run(Path csv, Path rejectFile) throws IOException, InterruptedException {
+        long started = System.nanoTime();
+        CsvReader reader = CsvReader.open(csv);
+        CsvReader.Row header = reader.next();
+        if (header == null) {
+            throw new IOException("CSV file is empty: " + csv);
+        }
+        if (header.error() != null) {
+            throw new IOException("CSV header is malformed: " + header.error());
+        }
+        columns = new Columns(header);
+        for (String column : type.requiredColumns()) {
+            if (!columns.has(column)) {
+                throw new IOException("CSV header is missing column " + column);
+            }
+        }
+
+        long rows = 0;
+        try (BufferedWriter rejectWriter = Files.newBufferedWriter(rejectFile, StandardCharsets.UTF_8)) {
+            rejects = rejectWriter;
+            rejects.write("line,reason,record");
+            rejects.newLine();
+
+            List<Thread> validators = startValidators();
+            Thread writer = new Thread(this::writeLoop, "import-writer");
+            writer.setDaemon(true);
+            writer.start();
+
+            try {
+                List<CsvReader.Row> block = new ArrayList<>(BLOCK_ROWS);
+                for (CsvReader.Row row = reader.next(); row != null; row = reader.next()) {
+                    rows++;
+                    if (row.error() != null) {
+                        reject(row, row.error(), rejected);
+                        continue;
+                    }
+                    block.add(row);
+                    if (block.size() == BLOCK_ROWS) {
+                        put(rowQueue, block, readerStalls);
+                        block = new ArrayList<>(BLOCK_ROWS);
+                    }
+                }
+                if (!block.isEmpty()) {
+                    put(rowQueue, block, readerStalls);
+                }
+            } finally {
+                // An empty block tells one validator to stop
+                for (int i = 0; i < validators.size(); i++) {
+                    rowQueue.put(List.of());
+                }
+                for (Thread validator : validators) {
+                    validator.join();
+                }
+                recordQueue.put(List.of());
+                writer.join();
+            }
+        }
+
+        Result result = new Result(type.name(), rows, imported.get(), rejected.get(), failed.get(), reader.size(),
+                (System.nanoTime() - started) / 1_000_000, readerStalls.get(), validatorStalls.get());
+        log.atInfo().message("Import finished").with("type", result.type()).with("rows", result.rows())
+                .with("imported", result.imported()).with("rejected", result.rejected())
+                .with("failed", result.failed()).with("elapsedMillis", result.elapsedMillis())
+                .with("rowsPerSecond", (long) result.rowsPerSecond()).log();
+        return result;
+    }
+
+    // Stages
+    private List<Thread> startValidators() {
+        List<Thread> validators = new ArrayList<>(VALIDATORS);
+        for (int i = 0; i < VALIDATORS; i++) {
+            Thread validator = new Thread(this::validateLoop, "import-validate-" + i);
+            validator.setDaemon(true);
+            validator.start();
+            validators.add(validator);
+        }
+        return validators;
+    }
+    private void validateLoop() {
+        try {
+            while (true) {
+                List<CsvReader.Row> block = rowQueue.take();
+                if (block.isEmpty()) {
+                    return;
+                }
+                List<Parsed<T>> records = new ArrayList<>(block.size());
+                for (CsvReader.Row row : block) {
+                    try {
+                        records.add(new Parsed<>(row, type.parse(columns, row)));
+                    } catch (DatabaseConnectionException | IllegalArgumentException | DateTimeException e) {
+                        reject(row, e.getMessage(), rejected);
+                    } catch (RuntimeException e) {
+                        // A bug in a record type; a validator that died here would hang the reader
+                        log.atError().message("Import row failed").with("type", type.name())
+                                .with("line", row.line()).error(e).log();
+                        reject(row, e.toString(), failed);
+                    }
+                }
+                if (!records.isEmpty()) {
+                    put(recordQueue, records, validatorStalls);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    private void writeLoop() {
+        List<Parsed<T>> batch = new ArrayList<>(BATCH_SIZE);
+        try {
+            while (true) {
+                List<Parsed<T>> records = recordQueue.take();
+                if (records.isEmpty()) {
+                    break;
+                }
+                for (Parsed<T> record : records) {
+                    batch.add(record);
+                    if (batch.size() == BATCH_SIZE) {
+                        write(batch);
+                        batch.clear();
+                    }
+                }
+            }
+            if (!batch.isEmpty()) {
+                write(batch);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            DatabaseManager.getInstance().closeConnection();
+        }
+    }
+    private void write(List<Parsed<T>> batch) {
+        List<T> records = new ArrayList<>(batch.size());
+        for (Parsed<T> parsed : batch) {
+            records.add(parsed.record());
+        }
+        List<DatabaseManager.BatchOutcome> outcomes;
+        try {
+            outcomes = type.write(records);
+        } catch (DatabaseConnectionException | RuntimeException e) {
+            log.atError().message("Import batch failed").with("type", type.name()).with("rows", batch.size()).error(e).log();
+            for (Parsed<T> parsed : batch) {
+                reject(parsed.row(), e.getMessage(), failed);
+            }
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            DatabaseManager.BatchOutcome outcome = outcomes.get(i);
+            switch (outcome.status()) {
+                case CREATED -> imported.incrementAndGet();
+                case REJECTED -> reject(batch.get(i).row(), outcome.message(), rejected);
+                case FAILED -> reject(batch.get(i).row(), outcome.message(), failed);
+            }
+        }
+    }
+    private static <E> void put(BlockingQueue<E> queue, E item, AtomicLong stalls) throws InterruptedException {
+        if (!queue.offer(item)) {
+            stalls.incrementAndGet();
+            queue.put(item);
+        }
+    }
+
+    // Rejects
+    private void reject(CsvReader.Row row, String reason, AtomicLong counter) {
+        counter.incrementAndGet();
+        String line = row.line() + "," + quote(reason) + "," + quote(row.text());
+        synchronized (this) {
+            try {
+                rejects.write(line);
+                rejects.newLine();
+            } catch (IOException e) {
+                // Keep importing; the counters still account for the row
+                log.atError().message("Failed to write reject file").with("line", row.line()).error(e).log();
+            }
+        }
+    }
+    private static String quote(String value) {
+        return value == null ? "" : "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: ImportPipeline customers|reservations <file.csv> [rejects.csv]");
+            System.exit(2);
+        }
+        Path csv = Path.of(args[1]);
+        Path rejectFile = args.length > 2 ? Path.of(args[2]) : csv.resolveSibling(csv.getFileName() + ".rejects.csv");
+        Result result = switch (args[0]) {
+            case "customers" -> importCustomers(csv, rejectFile);
+            case "reservations" -> importReservations(csv, rejectFile);
+            default -> throw new IllegalArgumentException("Unknown import type: " + args[0]);
+        };
+        System.out.printf("%s: %d rows, %d imported, %d rejected, %d failed in %d ms (%.0f rows/s, %.1f MB/s)%n",
+                result.type(), result.rows(), result.imported(), result.rejected(), result.failed(),
+                result.elapsedMillis(), result.rowsPerSecond(), result.megabytesPerSecond());
+        System.out.printf("backpressure: reader stalled %d times, validators stalled %d times; rejects in %s%n",
+                result.readerStalls(), result.validatorStalls(), rejectFile);
+        System.exit(0);
+    }
+}
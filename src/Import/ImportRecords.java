@@ -0,0 +1,130 @@
+package Import;
+
+import Core.ReservationManager;
+import Database.DatabaseManager;
+import Exceptions.DatabaseConnectionException;
+import Exceptions.ValidationException;
+import Models.*;
+import Utils.ValidationUtils;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// The record types the import pipeline understands.
+//   customers:    firstName,lastName,email,phone[,preferredCuisine,allergies]
+//   reservations: customerEmail,tableNumber,date,time,partySize[,specialRequests,duration]
+// Reservations refer to customers by email and to tables by number, so a location can
+// be loaded from its own exports before it has any IDs in this system.
+public final class ImportRecords {
+    private ImportRecords() {}
+
+    public static ImportPipeline.RecordType<Customer> customers() {
+        return new ImportPipeline.RecordType<>() {
+            private final DatabaseManager dbManager = DatabaseManager.getInstance();
+            private final Set<String> seenEmails = ConcurrentHashMap.newKeySet();
+
+            @Override
+            public String name() {
+                return "customers";
+            }
+            @Override
+            public List<String> requiredColumns() {
+                return List.of("firstName", "lastName", "email", "phone");
+            }
+            @Override
+            public Customer parse(ImportPipeline.Columns columns, CsvReader.Row row) throws DatabaseConnectionException {
+                Customer customer = new Customer(columns.get(row, "firstName"), columns.get(row, "lastName"),
+                        columns.get(row, "email"), columns.get(row, "phone"));
+                customer.setPreferredCuisine(ValidationUtils.trimToMaxLength(columns.get(row, "preferredCuisine"),
+                        ValidationUtils.MAX_CUISINE_LENGTH));
+                customer.setAllergies(columns.get(row, "allergies"));
+                ValidationUtils.validateCustomerRecord(customer);
+                // Registration leaves this to the column width; an import rejects the row instead
+                if (customer.getEmail().length() > ValidationUtils.MAX_EMAIL_LENGTH) {
+                    throw new ValidationException("Email must be " + ValidationUtils.MAX_EMAIL_LENGTH +
+                            " characters or less");
+                }
+                if (!seenEmails.add(customer.getEmail().toLowerCase(Locale.ROOT))) {
+                    throw new ValidationException("Duplicate email in file");
+                }
+                return customer;
+            }
+            @Override
+            public List<DatabaseManager.BatchOutcome> write(List<Customer> records) throws DatabaseConnectionException {
+                return dbManager.createCustomers(records);
+            }
+        };
+    }
+
+    public static ImportPipeline.RecordType<ReservationRecord> reservations() {
+        return new ImportPipeline.RecordType<>() {
+            private final DatabaseManager dbManager = DatabaseManager.getInstance();
+            private final ReservationManager reservationManager = new ReservationManager();
+            private final Map<String, Integer> customerIds = new HashMap<>();
+            private Map<String, Integer> tableIds;
+
+            @Override
+            public String name() {
+                return "reservations";
+            }
+            @Override
+            public List<String> requiredColumns() {
+                return List.of("customerEmail", "tableNumber", "date", "time", "partySize");
+            }
+            @Override
+            public ReservationRecord parse(ImportPipeline.Columns columns, CsvReader.Row row) throws DatabaseConnectionException {
+                String email = columns.require(row, "customerEmail");
+                LocalDate date = LocalDate.parse(columns.require(row, "date"));
+                LocalTime time = LocalTime.parse(columns.require(row, "time"));
+                int partySize = Integer.parseInt(columns.require(row, "partySize"));
+                if (!ValidationUtils.isValidEmail(email)) {
+                    throw new ValidationException("Invalid email format");
+                }
+                if (partySize <= 0) {
+                    throw new ValidationException("Party size must be positive");
+                }
+                if (LocalDateTime.of(date, time).isBefore(LocalDateTime.now())) {
+                    throw new ValidationException("Cannot create reservation for past date/time");
+                }
+                Reservation reservation = new Reservation(0, 0, date, time, partySize);
+                reservation.setSpecialRequests(columns.get(row, "specialRequests"));
+                String duration = columns.get(row, "duration");
+                if (duration != null) {
+                    reservation.setEstimatedDuration(Integer.parseInt(duration));
+                }
+                return new ReservationRecord(email.toLowerCase(Locale.ROOT), columns.require(row, "tableNumber"), reservation);
+            }
+            // Resolves emails and table numbers, then hands the batch to the bulk booking path
+            @Override
+            public List<DatabaseManager.BatchOutcome> write(List<ReservationRecord> records) throws DatabaseConnectionException {
+                if (tableIds == null) {
+                    tableIds = new HashMap<>();
+                    for (Table table : dbManager.getAllTables()) {
+                        tableIds.put(table.getTableNumber().toLowerCase(Locale.ROOT), table.getTableID());
+                    }
+                }
+                // Only emails not resolved by an earlier batch are looked up
+                Set<String> emails = new HashSet<>();
+                for (ReservationRecord record : records) {
+                    if (!customerIds.containsKey(record.customerEmail())) {
+                        emails.add(record.customerEmail());
+                    }
+                }
+                if (!emails.isEmpty()) {
+                    customerIds.putAll(dbManager.findCustomerIdsByEmail(emails));
+                }
+                List<Reservation> reservations = new ArrayList<>(records.size());
+                for (ReservationRecord record : records) {
+                    Reservation reservation = record.reservation();
+                    reservation.setCustomerID(customerIds.getOrDefault(record.customerEmail(), 0));
+                    reservation.setTableID(tableIds.getOrDefault(record.tableNumber().toLowerCase(Locale.ROOT), 0));
+                    reservations.add(reservation);
+                }
+                return reservationManager.createReservations(reservations);
+            }
+        };
+    }
+    public record ReservationRecord(String customerEmail, String tableNumber, Reservation reservation) {}
+}
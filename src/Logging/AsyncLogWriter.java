@@ -0,0 +1,289 @@
+package Logging;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Multi-producer, single-consumer ring buffer of preallocated log slots drained by one
+// daemon thread. Producers claim a sequence with a CAS and publish the filled slot; when
+// the ring is full the event is dropped and counted instead of blocking the caller.
+// Lines are logfmt: timestamp level logger msg="..." key=value ... thread=...
+// Configuration: -Dlog.level (INFO), -Dlog.file (stderr), -Dlog.bufferSize (8192).
+// The LogEvents callers build lines in come from a small pool here rather than a
+// ThreadLocal, which would allocate one per virtual thread.
+public class AsyncLogWriter {
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final int EVENT_POOL_SIZE = 256;
+    private static final int EVENT_POOL_PROBES = 8;
+    private static AsyncLogWriter instance;
+
+    private final LogEvent[] eventPool = new LogEvent[EVENT_POOL_SIZE];
+    private final Slot[] slots;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong();
+    private volatile long tail;
+    private final LongAdder dropped = new LongAdder();
+    private final Writer out;
+    private final Thread writerThread;
+    private volatile Level level;
+    private volatile boolean running = true;
+
+    // Writer-thread state, reused for every line
+    private final StringBuilder line = new StringBuilder(512);
+    private char[] chars = new char[512];
+    private long cachedEpochDay = Long.MIN_VALUE;
+    private String cachedDatePrefix;
+
+    private static final class Slot {
+        private volatile long published = -1;
+        private long epochMillis;
+        private Level level;
+        private String logger;
+        private String message;
+        private String thread;
+        private long threadId;
+        private Throwable error;
+        private int fieldCount;
+        private final String[] keys = new String[LogEvent.MAX_FIELDS];
+        private final Object[] objectValues = new Object[LogEvent.MAX_FIELDS];
+        private final long[] longValues = new long[LogEvent.MAX_FIELDS];
+    }
+
+    private AsyncLogWriter() {
+        int capacity = Integer.highestOneBit(Math.max(64, Integer.getInteger("log.bufferSize", 8_192)));
+        this.slots = new Slot[capacity];
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Slot();
+        }
+        this.mask = capacity - 1;
+        for (int i = 0; i < EVENT_POOL_SIZE; i++) {
+            eventPool[i] = new LogEvent();
+        }
+        this.level = Level.valueOf(System.getProperty("log.level", "INFO").toUpperCase());
+        this.out = openOutput(System.getProperty("log.file"));
+        this.writerThread = new Thread(this::drain, "async-log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, "async-log-shutdown"));
+    }
+    public static AsyncLogWriter getInstance() {
+        if (instance == null) {
+            synchronized (AsyncLogWriter.class) {
+                if (instance == null) {
+                    instance = new AsyncLogWriter();
+                }
+            }
+        }
+        return instance;
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+    public void setLevel(Level level) {
+        this.level = level;
+    }
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    // Producer side
+    // Probes a few pool entries starting at one picked from the thread id, so concurrent
+    // threads rarely contend for the same event. When they are all out, a fresh event is
+    // used once and left to the GC.
+    LogEvent borrowEvent() {
+        int first = (int) ((Thread.currentThread().threadId() * 0x9E3779B97F4A7C15L) >>> 40);
+        for (int i = 0; i < EVENT_POOL_PROBES; i++) {
+            LogEvent event = eventPool[(first + i) & (EVENT_POOL_SIZE - 1)];
+            if (!event.borrowed.get() && event.borrowed.compareAndSet(false, true)) {
+                return event;
+            }
+        }
+        return new LogEvent();
+    }
+    void returnEvent(LogEvent event) {
+        event.borrowed.set(false);
+    }
+    void publish(LogEvent event) {
+        long sequence;
+        do {
+            sequence = head.get();
+            if (sequence - tail >= slots.length) {
+                dropped.increment();
+                return;
+            }
+        } while (!head.compareAndSet(sequence, sequence + 1));
+
+        Slot slot = slots[(int) (sequence & mask)];
+        slot.epochMillis = System.currentTimeMillis();
+        slot.level = event.level;
+        slot.logger = event.logger;
+        slot.message = event.message;
+        Thread current = Thread.currentThread();
+        slot.thread = current.getName();
+        slot.threadId = current.threadId();
+        slot.error = event.error;
+        slot.fieldCount = event.fieldCount;
+        for (int i = 0; i < event.fieldCount; i++) {
+            slot.keys[i] = event.keys[i];
+            slot.objectValues[i] = event.objectValues[i];
+            slot.longValues[i] = event.longValues[i];
+        }
+        slot.published = sequence;
+    }
+
+    // Consumer side
+    private void drain() {
+        long sequence = tail;
+        while (running || sequence < head.get()) {
+            Slot slot = slots[(int) (sequence & mask)];
+            if (slot.published != sequence) {
+                flush();
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+            try {
+                write(slot);
+            } catch (IOException | RuntimeException e) {
+                // Nothing sensible to report to; keep draining
+            }
+            release(slot);
+            tail = ++sequence;
+        }
+        flush();
+    }
+    private void write(Slot slot) throws IOException {
+        line.setLength(0);
+        appendTimestamp(slot.epochMillis);
+        line.append(' ').append(slot.level.name());
+        for (int pad = slot.level.name().length(); pad < 5; pad++) {
+            line.append(' ');
+        }
+        line.append(' ').append(slot.logger);
+        if (slot.message != null) {
+            line.append(" msg=");
+            appendValue(slot.message);
+        }
+        for (int i = 0; i < slot.fieldCount; i++) {
+            line.append(' ').append(slot.keys[i]).append('=');
+            if (slot.objectValues[i] == null) {
+                line.append(slot.longValues[i]);
+            } else if (slot.objectValues[i] == LogEvent.NULL) {
+                line.append("null");
+            } else {
+                appendValue(slot.objectValues[i]);
+            }
+        }
+        if (slot.error != null) {
+            line.append(" error=");
+            appendValue(slot.error.getClass().getSimpleName() + ": " + slot.error.getMessage());
+        }
+        // Virtual threads are usually unnamed
+        line.append(" thread=");
+        if (slot.thread.isEmpty()) {
+            line.append(slot.threadId);
+        } else {
+            line.append(slot.thread);
+        }
+        long droppedSoFar = dropped.sumThenReset();
+        if (droppedSoFar > 0) {
+            line.append(" dropped=").append(droppedSoFar);
+        }
+        line.append(System.lineSeparator());
+
+        if (chars.length < line.length()) {
+            chars = new char[Math.max(line.length(), chars.length * 2)];
+        }
+        line.getChars(0, line.length(), chars, 0);
+        out.write(chars, 0, line.length());
+        if (slot.error != null && slot.level == Level.ERROR) {
+            PrintWriter trace = new PrintWriter(out);
+            slot.error.printStackTrace(trace);
+            trace.flush();
+        }
+    }
+    private void appendTimestamp(long epochMillis) {
+        long epochDay = Math.floorDiv(epochMillis, 86_400_000L);
+        if (epochDay != cachedEpochDay) {
+            cachedEpochDay = epochDay;
+            cachedDatePrefix = LocalDate.ofEpochDay(epochDay) + "T";
+        }
+        int millisOfDay = (int) Math.floorMod(epochMillis, 86_400_000L);
+        line.append(cachedDatePrefix);
+        appendPadded(millisOfDay / 3_600_000, 2).append(':');
+        appendPadded(millisOfDay / 60_000 % 60, 2).append(':');
+        appendPadded(millisOfDay / 1_000 % 60, 2).append('.');
+        appendPadded(millisOfDay % 1_000, 3).append('Z');
+    }
+    private StringBuilder appendPadded(int value, int width) {
+        for (int limit = width == 3 ? 100 : 10; limit > 1 && value < limit; limit /= 10) {
+            line.append('0');
+        }
+        return line.append(value);
+    }
+    private void appendValue(Object value) {
+        CharSequence text = value instanceof CharSequence sequence ? sequence : String.valueOf(value);
+        boolean quote = text.isEmpty();
+        for (int i = 0; i < text.length() && !quote; i++) {
+            char c = text.charAt(i);
+            quote = c == ' ' || c == '"' || c == '=' || c < ' ';
+        }
+        if (!quote) {
+            line.append(text);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"' -> line.append("\\\"");
+                case '\\' -> line.append("\\\\");
+                case '\n' -> line.append("\\n");
+                case '\r' -> line.append("\\r");
+                case '\t' -> line.append("\\t");
+                default -> line.append(c);
+            }
+        }
+        line.append('"');
+    }
+    private static void release(Slot slot) {
+        for (int i = 0; i < slot.fieldCount; i++) {
+            slot.keys[i] = null;
+            slot.objectValues[i] = null;
+        }
+        slot.message = null;
+        slot.error = null;
+        slot.thread = null;
+    }
+    private void flush() {
+        try {
+            out.flush();
+        } catch (IOException ignored) {
+            // Output is gone; nothing left to do
+        }
+    }
+    private void shutdown() {
+        running = false;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join(2_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    private static Writer openOutput(String file) {
+        OutputStream stream = System.err;
+        if (file != null) {
+            try {
+                stream = new FileOutputStream(file, true);
+            } catch (IOException e) {
+                System.err.println("Cannot open log file " + file + ", using stderr: " + e.getMessage());
+            }
+        }
+        return new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8), 16 * 1024);
+    }
+}
@@ -0,0 +1,9 @@
+package Logging;
+
+public enum Level {
+    TRACE,
+    DEBUG,
+    INFO,
+    WARN,
+    ERROR
+}
@@ -0,0 +1,80 @@
+package Logging;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Builder for one log line, borrowed from AsyncLogWriter's event pool and handed back by
+// log(). Values are kept as references or primitives and only formatted on the writer
+// thread. Extra fields beyond MAX_FIELDS are ignored. A line logged while another is
+// being built on the same thread borrows its own event, so the outer one is untouched.
+// An event must not be used after log(); by then it may belong to another thread.
+public final class LogEvent {
+    static final int MAX_FIELDS = 8;
+    static final LogEvent DISABLED = new LogEvent();
+    // Stands in for a null object value; a null slot means the field holds a long
+    static final Object NULL = new Object();
+
+    Level level;
+    String logger;
+    String message;
+    Throwable error;
+    int fieldCount;
+    final String[] keys = new String[MAX_FIELDS];
+    final Object[] objectValues = new Object[MAX_FIELDS];
+    final long[] longValues = new long[MAX_FIELDS];
+    final AtomicBoolean borrowed = new AtomicBoolean();
+
+    LogEvent() {}
+
+    static LogEvent start(Level level, String logger) {
+        LogEvent event = AsyncLogWriter.getInstance().borrowEvent();
+        event.level = level;
+        event.logger = logger;
+        return event;
+    }
+
+    public LogEvent message(String message) {
+        if (this != DISABLED) {
+            this.message = message;
+        }
+        return this;
+    }
+    public LogEvent with(String key, Object value) {
+        if (this != DISABLED && fieldCount < MAX_FIELDS) {
+            keys[fieldCount] = key;
+            objectValues[fieldCount++] = value != null ? value : NULL;
+        }
+        return this;
+    }
+    public LogEvent with(String key, long value) {
+        if (this != DISABLED && fieldCount < MAX_FIELDS) {
+            keys[fieldCount] = key;
+            objectValues[fieldCount] = null;
+            longValues[fieldCount++] = value;
+        }
+        return this;
+    }
+    public LogEvent error(Throwable error) {
+        if (this != DISABLED) {
+            this.error = error;
+        }
+        return this;
+    }
+    public void log() {
+        if (this != DISABLED) {
+            AsyncLogWriter writer = AsyncLogWriter.getInstance();
+            writer.publish(this);
+            clear();
+            writer.returnEvent(this);
+        }
+    }
+
+    private void clear() {
+        for (int i = 0; i < fieldCount; i++) {
+            keys[i] = null;
+            objectValues[i] = null;
+        }
+        fieldCount = 0;
+        message = null;
+        error = null;
+    }
+}
@@ -0,0 +1,50 @@
+package Logging;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Named entry point for structured, asynchronous logging:
+//   log.atWarn().message("Commit failed").with("sqlState", e.getSQLState()).with("code", e.getErrorCode()).log();
+// Events are built in a pooled LogEvent and copied into AsyncLogWriter's ring buffer,
+// so a disabled level costs one comparison and an enabled one normally allocates nothing.
+public final class Logger {
+    private static final Map<String, Logger> loggers = new ConcurrentHashMap<>();
+
+    private final String name;
+
+    private Logger(String name) {
+        this.name = name;
+    }
+    public static Logger get(Class<?> type) {
+        return loggers.computeIfAbsent(type.getSimpleName(), Logger::new);
+    }
+
+    public boolean isEnabled(Level level) {
+        return level.compareTo(AsyncLogWriter.getInstance().getLevel()) >= 0;
+    }
+    public LogEvent at(Level level) {
+        return isEnabled(level) ? LogEvent.start(level, name) : LogEvent.DISABLED;
+    }
+    public LogEvent atDebug() {
+        return at(Level.DEBUG);
+    }
+    public LogEvent atInfo() {
+        return at(Level.INFO);
+    }
+    public LogEvent atWarn() {
+        return at(Level.WARN);
+    }
+    public LogEvent atError() {
+        return at(Level.ERROR);
+    }
+
+    public void info(String message) {
+        atInfo().message(message).log();
+    }
+    public void warn(String message) {
+        atWarn().message(message).log();
+    }
+    public void error(String message, Throwable error) {
+        atError().message(message).error(error).log();
+    }
+}
@@ -0,0 +1,98 @@
+package Metrics;
+
+import Logging.Logger;
+import javax.management.*;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Process-wide set of operation timers. Every timer is published as an MBean under
+// RestaurantReservationSystem:type=Timer,component=<class>,name=<method>, and the
+// registry itself (type=MetricsRegistry) offers dump() and reset() operations.
+public class MetricsRegistry implements MetricsRegistryMBean {
+    public static final String JMX_DOMAIN = "RestaurantReservationSystem";
+    private static final Logger log = Logger.get(MetricsRegistry.class);
+    private static MetricsRegistry instance;
+
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final MBeanServer mbeanServer;
+
+    private MetricsRegistry() {
+        this.mbeanServer = Boolean.parseBoolean(System.getProperty("metrics.jmx", "true"))
+                ? ManagementFactory.getPlatformMBeanServer()
+                : null;
+        registerMBean(this, "type=MetricsRegistry");
+    }
+    public static MetricsRegistry getInstance() {
+        if (instance == null) {
+            synchronized (MetricsRegistry.class) {
+                if (instance == null) {
+                    instance = new MetricsRegistry();
+                }
+            }
+        }
+        return instance;
+    }
+
+    // Timers
+    public static Timer timer(String component, String operation) {
+        return getInstance().getTimer(component, operation);
+    }
+    public static Timers timers(String component) {
+        return new Timers(component);
+    }
+    public Timer getTimer(String component, String operation) {
+        return timers.computeIfAbsent(component + "." + operation, key -> {
+            Timer timer = new Timer(component, operation);
+            registerMBean(timer, "type=Timer,component=" + component + ",name=" + operation);
+            return timer;
+        });
+    }
+    public List<Timer> getTimers() {
+        List<Timer> sorted = new ArrayList<>(timers.values());
+        sorted.sort(Comparator.comparing(Timer::getComponent).thenComparing(Timer::getOperation));
+        return sorted;
+    }
+
+    // MBean
+    @Override
+    public int getTimerCount() {
+        return timers.size();
+    }
+    @Override
+    public String dump() {
+        StringBuilder out = new StringBuilder(String.format("%-50s %10s %8s %10s %10s %10s %10s %10s%n",
+                "Operation", "Count", "Failed", "Mean ms", "p50 ms", "p99 ms", "p999 ms", "Max ms"));
+        for (Timer timer : getTimers()) {
+            if (timer.getCount() == 0) {
+                continue;
+            }
+            out.append(String.format("%-50s %10d %8d %10.3f %10.3f %10.3f %10.3f %10.3f%n",
+                    timer.getComponent() + "." + timer.getOperation(), timer.getCount(), timer.getFailureCount(),
+                    timer.getMeanMillis(), timer.getP50Millis(), timer.getP99Millis(), timer.getP999Millis(),
+                    timer.getMaxMillis()));
+        }
+        return out.toString();
+    }
+    @Override
+    public void reset() {
+        for (Timer timer : timers.values()) {
+            timer.reset();
+        }
+    }
+
+    // Also used by other components to publish their own MBeans under JMX_DOMAIN
+    public void registerMBean(Object mbean, String properties) {
+        if (mbeanServer == null) {
+            return;
+        }
+        try {
+            ObjectName name = new ObjectName(JMX_DOMAIN + ":" + properties);
+            if (!mbeanServer.isRegistered(name)) {
+                mbeanServer.registerMBean(mbean, name);
+            }
+        } catch (JMException e) {
+            log.atWarn().message("Failed to register MBean").with("name", properties).error(e).log();
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package Metrics;
+
+public interface MetricsRegistryMBean {
+    int getTimerCount();
+    String dump();
+    void reset();
+}
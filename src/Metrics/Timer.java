@@ -0,0 +1,127 @@
+package Metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Call count, failure count, latency total/max and a latency histogram for one operation.
+// Recording is lock-free: two LongAdders, one histogram bucket increment and a max CAS
+// only when a new maximum is seen. Callers normally go through Timers:
+//   return TIMERS.time("getCustomerById", () -> { ... });
+// start()/failed()/stop() remain for the few bodies that throw two unrelated checked
+// exceptions, which one exception type parameter cannot carry, or that record a JFR
+// event alongside the timing.
+public class Timer implements TimerMBean {
+    @FunctionalInterface
+    public interface Work<T, E extends Exception> {
+        T run() throws E;
+    }
+    @FunctionalInterface
+    public interface Action<E extends Exception> {
+        void run() throws E;
+    }
+
+    private final String component;
+    private final String operation;
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+    Timer(String component, String operation) {
+        this.component = component;
+        this.operation = operation;
+    }
+
+    // Recording
+    // Runs work, counting it as failed when it throws
+    public <T, E extends Exception> T time(Work<T, E> work) throws E {
+        long start = start();
+        try {
+            return work.run();
+        } catch (Throwable t) {
+            failed();
+            throw t;
+        } finally {
+            stop(start);
+        }
+    }
+    public <E extends Exception> void run(Action<E> action) throws E {
+        long start = start();
+        try {
+            action.run();
+        } catch (Throwable t) {
+            failed();
+            throw t;
+        } finally {
+            stop(start);
+        }
+    }
+    public long start() {
+        return System.nanoTime();
+    }
+    public void stop(long startNanos) {
+        long elapsed = System.nanoTime() - startNanos;
+        calls.increment();
+        totalNanos.add(elapsed);
+        histogram.record(elapsed);
+        long max = maxNanos.get();
+        while (elapsed > max && !maxNanos.compareAndSet(max, elapsed)) {
+            max = maxNanos.get();
+        }
+    }
+    public void failed() {
+        failures.increment();
+    }
+
+    // Statistics
+    @Override
+    public String getComponent() {
+        return component;
+    }
+    @Override
+    public String getOperation() {
+        return operation;
+    }
+    @Override
+    public long getCount() {
+        return calls.sum();
+    }
+    @Override
+    public long getFailureCount() {
+        return failures.sum();
+    }
+    @Override
+    public double getMeanMillis() {
+        long count = calls.sum();
+        return count == 0 ? 0 : toMillis(totalNanos.sum()) / count;
+    }
+    @Override
+    public double getMaxMillis() {
+        return toMillis(maxNanos.get());
+    }
+    @Override
+    public double getP50Millis() {
+        return toMillis(histogram.percentile(50));
+    }
+    @Override
+    public double getP99Millis() {
+        return toMillis(histogram.percentile(99));
+    }
+    @Override
+    public double getP999Millis() {
+        return toMillis(histogram.percentile(99.9));
+    }
+    @Override
+    public void reset() {
+        calls.reset();
+        failures.reset();
+        totalNanos.reset();
+        maxNanos.set(0);
+        histogram.reset();
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
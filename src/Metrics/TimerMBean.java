@@ -0,0 +1,14 @@
+package Metrics;
+
+public interface TimerMBean {
+    String getComponent();
+    String getOperation();
+    long getCount();
+    long getFailureCount();
+    double getMeanMillis();
+    double getMaxMillis();
+    double getP50Millis();
+    double getP99Millis();
+    double getP999Millis();
+    void reset();
+}
@@ -0,0 +1,32 @@
+package Metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// The timers of one component, created on first use by operation name so a class needs
+// no Timer field per method:
+//   private static final Timers TIMERS = MetricsRegistry.timers("DatabaseManager");
+//   TIMERS.run("cancelReservation", () -> { ... });
+// Operation names are literals, so the lookup is one hash probe on a cached hash code.
+public class Timers {
+    private final String component;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    Timers(String component) {
+        this.component = component;
+    }
+
+    public Timer get(String operation) {
+        Timer timer = timers.get(operation);
+        if (timer == null) {
+            timer = timers.computeIfAbsent(operation, name -> MetricsRegistry.timer(component, name));
+        }
+        return timer;
+    }
+    public <T, E extends Exception> T time(String operation, Timer.Work<T, E> work) throws E {
+        return get(operation).time(work);
+    }
+    public <E extends Exception> void run(String operation, Timer.Action<E> action) throws E {
+        get(operation).run(action);
+    }
+}
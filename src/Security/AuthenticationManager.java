@@ -3,6 +3,9 @@ package Security;
 import Database.*;
 import Models.*;
 import Exceptions.*;
+import Metrics.MetricsRegistry;
+import Metrics.Timer;
+import Metrics.Timers;
 
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -15,137 +18,183 @@ public class AuthenticationManager {
     private final DatabaseManager dbManager;
     private static final int MAX_LOGIN_ATTEMPTS = 3;
 
+    // Metrics
+    private static final Timers TIMERS = MetricsRegistry.timers("AuthenticationManager");
+
     public AuthenticationManager() {
         this.dbManager = DatabaseManager.getInstance();
     }
 
     // Authentication
     public Manager authenticateManager(String username, String password) throws AuthenticationException {
+        Timer timer = TIMERS.get("authenticateManager");
+        long start = timer.start();
+        LoginEvent event = new LoginEvent();
+        event.begin();
         try {
-            if (isAccountLocked(username, "manager")) {
-                throw new AuthenticationException("Account is locked. Please contact admin.");
-            }
+            try {
+                if (isAccountLocked(username, "manager")) {
+                    throw new AuthenticationException("Account is locked. Please contact admin.");
+                }
 
-            String storedSalt = dbManager.getManagerSalt(username);
-            if (storedSalt == null) {
-                throw new AuthenticationException("Invalid username or password");
-            }
+                String storedSalt = dbManager.getManagerSalt(username);
+                if (storedSalt == null) {
+                    throw new AuthenticationException("Invalid username or password");
+                }
 
-            String hashedPassword = PasswordEncryptor.hashPassword(password, storedSalt);
-            if (validateManagerCredentials(username, hashedPassword)) {
-                resetLoginAttempts(username, "manager");
-                int managerId = dbManager.getManagerIdByUsername(username);
-                return dbManager.getManagerById(managerId);
-            }
+                String hashedPassword = PasswordEncryptor.hashPassword(password, storedSalt);
+                if (validateManagerCredentials(username, hashedPassword)) {
+                    resetLoginAttempts(username, "manager");
+                    int managerId = dbManager.getManagerIdByUsername(username);
+                    return dbManager.getManagerById(managerId);
+                }
 
-            incrementLoginAttempts(username, "manager");
-            throw new AuthenticationException("Invalid username or password");
-        } catch (DatabaseConnectionException e) {
-            throw new AuthenticationException("Authentication failed: " + e.getMessage());
+                incrementLoginAttempts(username, "manager");
+                throw new AuthenticationException("Invalid username or password");
+            } catch (DatabaseConnectionException e) {
+                throw new AuthenticationException("Authentication failed: " + e.getMessage(), e);
+            }
+        } catch (Throwable t) {
+            timer.failed();
+            event.failureReason = t.getMessage() != null ? t.getMessage() : t.getClass().getSimpleName();
+            throw t;
+        } finally {
+            timer.stop(start);
+            commitLoginEvent(event, "MANAGER", username);
         }
     }
     public Customer authenticateCustomer(String username, String password) throws AuthenticationException {
+        Timer timer = TIMERS.get("authenticateCustomer");
+        long start = timer.start();
+        LoginEvent event = new LoginEvent();
+        event.begin();
         try {
-            if (username == null || password == null || username.trim().isEmpty() || password.trim().isEmpty()) {
-                throw new AuthenticationException("Username and password are required");
-            }
+            try {
+                if (username == null || password == null || username.trim().isEmpty() || password.trim().isEmpty()) {
+                    throw new AuthenticationException("Username and password are required");
+                }
 
-            if (isAccountLocked(username, "customer")) {
-                throw new AuthenticationException("Account is locked. Please contact support.");
-            }
+                if (isAccountLocked(username, "customer")) {
+                    throw new AuthenticationException("Account is locked. Please contact support.");
+                }
 
-            String storedSalt = dbManager.getCustomerSalt(username);
-            if (storedSalt == null) {
-                incrementLoginAttempts(username, "customer");
-                throw new AuthenticationException("Invalid username or password");
-            }
+                String storedSalt = dbManager.getCustomerSalt(username);
+                if (storedSalt == null) {
+                    incrementLoginAttempts(username, "customer");
+                    throw new AuthenticationException("Invalid username or password");
+                }
 
-            String hashedPassword = PasswordEncryptor.hashPassword(password, storedSalt);
-            if (!validateCustomerCredentials(username, hashedPassword)) {
-                incrementLoginAttempts(username, "customer");
-                throw new AuthenticationException("Invalid username or password");
-            }
+                String hashedPassword = PasswordEncryptor.hashPassword(password, storedSalt);
+                if (!validateCustomerCredentials(username, hashedPassword)) {
+                    incrementLoginAttempts(username, "customer");
+                    throw new AuthenticationException("Invalid username or password");
+                }
 
-            resetLoginAttempts(username, "customer");
-            int customerId = dbManager.getCustomerIdByUsername(username);
-            Customer customer = dbManager.getCustomerById(customerId);
+                resetLoginAttempts(username, "customer");
+                int customerId = dbManager.getCustomerIdByUsername(username);
+                Customer customer = dbManager.getCustomerById(customerId);
 
-            if (customer == null) {
-                throw new AuthenticationException("Customer account not found");
-            }
+                if (customer == null) {
+                    throw new AuthenticationException("Customer account not found");
+                }
 
-            return customer;
+                return customer;
 
-        } catch (DatabaseConnectionException e) {
-            throw new AuthenticationException("Authentication failed: Database error");
+            } catch (DatabaseConnectionException e) {
+                throw new AuthenticationException("Authentication failed: Database error", e);
+            }
+        } catch (Throwable t) {
+            timer.failed();
+            event.failureReason = t.getMessage() != null ? t.getMessage() : t.getClass().getSimpleName();
+            throw t;
+        } finally {
+            timer.stop(start);
+            commitLoginEvent(event, "CUSTOMER", username);
+        }
+    }
+    private static void commitLoginEvent(LoginEvent event, String userType, String username) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.userType = userType;
+            event.username = username;
+            event.success = event.failureReason == null;
+            event.commit();
         }
     }
 
     // Registration Methods
     public void registerCustomer(Customer customer, String username, String password) throws AuthenticationException {
-        try {
-            if (dbManager.getCustomerSalt(username) != null) {
-                throw new AuthenticationException("Username already exists");
-            }
+        TIMERS.run("registerCustomer", () -> {
+            try {
+                if (dbManager.getCustomerSalt(username) != null) {
+                    throw new AuthenticationException("Username already exists");
+                }
 
-            String salt = PasswordEncryptor.generateSalt();
-            String hashedPassword = PasswordEncryptor.hashPassword(password, salt);
-            dbManager.createCustomer(customer, username, hashedPassword, salt);
-        } catch (DatabaseConnectionException e) {
-            throw new AuthenticationException("Registration failed: " + e.getMessage());
-        }
+                String salt = PasswordEncryptor.generateSalt();
+                String hashedPassword = PasswordEncryptor.hashPassword(password, salt);
+                dbManager.createCustomer(customer, username, hashedPassword, salt);
+            } catch (DatabaseConnectionException e) {
+                throw new AuthenticationException("Registration failed: " + e.getMessage());
+            }
+        });
     }
     public void registerManager(Manager manager, String username, String password) throws AuthenticationException {
+        TIMERS.run("registerManager", () -> {
 
-        try {
-            if (dbManager.getManagerSalt(username) != null) {
-                throw new AuthenticationException("Username already exists");
-            }
+            try {
+                if (dbManager.getManagerSalt(username) != null) {
+                    throw new AuthenticationException("Username already exists");
+                }
 
-            String salt = PasswordEncryptor.generateSalt();
-            String hashedPassword = PasswordEncryptor.hashPassword(password, salt);
-            dbManager.createManager(manager, username, hashedPassword, salt);
-        } catch (DatabaseConnectionException e) {
-            throw new AuthenticationException("Manager registration failed: " + e.getMessage());
-        }
+                String salt = PasswordEncryptor.generateSalt();
+                String hashedPassword = PasswordEncryptor.hashPassword(password, salt);
+                dbManager.createManager(manager, username, hashedPassword, salt);
+            } catch (DatabaseConnectionException e) {
+                throw new AuthenticationException("Manager registration failed: " + e.getMessage());
+            }
+        });
     }
 
     // Password Management
     public void updateCustomerPassword(int customerId, String oldPassword, String newPassword) throws AuthenticationException {
+        TIMERS.run("updateCustomerPassword", () -> {
 
-        try {
-            String username = dbManager.getCustomerUsername(customerId);
-            String storedSalt = dbManager.getCustomerSalt(username);
+            try {
+                String username = dbManager.getCustomerUsername(customerId);
+                String storedSalt = dbManager.getCustomerSalt(username);
 
-            if (!PasswordEncryptor.verifyPassword(oldPassword, storedSalt,
-                    dbManager.getCustomerPasswordHash(username))) {
-                throw new AuthenticationException("Current password is incorrect");
-            }
+                if (!PasswordEncryptor.verifyPassword(oldPassword, storedSalt,
+                        dbManager.getCustomerPasswordHash(username))) {
+                    throw new AuthenticationException("Current password is incorrect");
+                }
 
-            String newSalt = PasswordEncryptor.generateSalt();
-            String newHashedPassword = PasswordEncryptor.hashPassword(newPassword, newSalt);
-            dbManager.updateCustomerPassword(customerId, newHashedPassword, newSalt);
-        } catch (DatabaseConnectionException e) {
-            throw new AuthenticationException("Password update failed: " + e.getMessage());
-        }
+                String newSalt = PasswordEncryptor.generateSalt();
+                String newHashedPassword = PasswordEncryptor.hashPassword(newPassword, newSalt);
+                dbManager.updateCustomerPassword(customerId, newHashedPassword, newSalt);
+            } catch (DatabaseConnectionException e) {
+                throw new AuthenticationException("Password update failed: " + e.getMessage());
+            }
+        });
     }
     public void updateManagerPassword(int managerId, String oldPassword, String newPassword) throws AuthenticationException {
+        TIMERS.run("updateManagerPassword", () -> {
 
-        try {
-            String username = dbManager.getManagerUsername(managerId);
-            String storedSalt = dbManager.getManagerSalt(username);
+            try {
+                String username = dbManager.getManagerUsername(managerId);
+                String storedSalt = dbManager.getManagerSalt(username);
 
-            if (!PasswordEncryptor.verifyPassword(oldPassword, storedSalt,
-                    dbManager.getManagerPasswordHash(username))) {
-                throw new AuthenticationException("Current password is incorrect");
-            }
+                if (!PasswordEncryptor.verifyPassword(oldPassword, storedSalt,
+                        dbManager.getManagerPasswordHash(username))) {
+                    throw new AuthenticationException("Current password is incorrect");
+                }
 
-            String newSalt = PasswordEncryptor.generateSalt();
-            String newHashedPassword = PasswordEncryptor.hashPassword(newPassword, newSalt);
-            dbManager.updateManagerPassword(managerId, newHashedPassword, newSalt);
-        } catch (DatabaseConnectionException e) {
-            throw new AuthenticationException("Password update failed: " + e.getMessage());
-        }
+                String newSalt = PasswordEncryptor.generateSalt();
+                String newHashedPassword = PasswordEncryptor.hashPassword(newPassword, newSalt);
+                dbManager.updateManagerPassword(managerId, newHashedPassword, newSalt);
+            } catch (DatabaseConnectionException e) {
+                throw new AuthenticationException("Password update failed: " + e.getMessage());
+            }
+        });
     }
 
 
@@ -160,8 +209,9 @@ public class AuthenticationManager {
                     "WHERE Username = ?";
         }
 
+        // No row: an unknown username, which has no attempts to count or account to lock
         if (!dbManager.executeUpdate(sql, username)) {
-            throw new DatabaseConnectionException("Failed to update login attempts");
+            return;
         }
 
         // Check if max attempts reached and lock if necessary
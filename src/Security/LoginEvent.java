@@ -0,0 +1,19 @@
+package Security;
+
+import jdk.jfr.*;
+
+// One authentication attempt, including the salt lookup, hashing and lockout checks.
+@Name("RestaurantReservationSystem.Login")
+@Label("Login")
+@Category({"Restaurant Reservation System", "Security"})
+@StackTrace(false)
+public class LoginEvent extends Event {
+    @Label("User Type")
+    public String userType;
+    @Label("Username")
+    public String username;
+    @Label("Success")
+    public boolean success;
+    @Label("Failure Reason")
+    public String failureReason;
+}
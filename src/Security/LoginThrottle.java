@@ -0,0 +1,45 @@
+package Security;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Per-client brake on password guessing. After -Dapi.login.maxFailures failed logins
+// from one address inside -Dapi.login.windowSeconds, that address is refused until the
+// window has passed. The per-account lock in AuthenticationManager still applies; this
+// one also covers guessing across many usernames.
+public class LoginThrottle {
+    private static final int MAX_FAILURES = Integer.getInteger("api.login.maxFailures", 5);
+    private static final Duration WINDOW = Duration.ofSeconds(Long.getLong("api.login.windowSeconds", 300));
+    private static final int MAX_TRACKED_CLIENTS = 10_000;
+
+    private record Failures(int count, long windowEnds) {}
+
+    private final Map<String, Failures> failures = new ConcurrentHashMap<>();
+
+    // Seconds the client must wait before trying again, or 0 when it may try now
+    public long retryAfterSeconds(String client) {
+        Failures current = failures.get(client);
+        if (current == null || current.count() < MAX_FAILURES) {
+            return 0;
+        }
+        long remaining = current.windowEnds() - System.currentTimeMillis();
+        if (remaining <= 0) {
+            failures.remove(client, current);
+            return 0;
+        }
+        return Math.max(1, remaining / 1000);
+    }
+    public void recordFailure(String client) {
+        long now = System.currentTimeMillis();
+        if (failures.size() >= MAX_TRACKED_CLIENTS) {
+            failures.values().removeIf(entry -> entry.windowEnds() < now);
+        }
+        failures.compute(client, (key, current) -> current == null || current.windowEnds() < now
+                ? new Failures(1, now + WINDOW.toMillis())
+                : new Failures(current.count() + 1, current.windowEnds()));
+    }
+    public void recordSuccess(String client) {
+        failures.remove(client);
+    }
+}
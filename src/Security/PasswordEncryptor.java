@@ -7,15 +7,6 @@ import java.security.SecureRandom;
 
 public class PasswordEncryptor {
     private static final SecureRandom RANDOM = new SecureRandom();
-    private static final MessageDigest digest;
-
-    static {
-        try {
-            digest = MessageDigest.getInstance("SHA-256");
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException("SHA-256 algorithm not found", e);
-        }
-    }
 
     private PasswordEncryptor() {}
     public static String generateSalt() {
@@ -29,13 +20,22 @@ public class PasswordEncryptor {
         }
 
         String saltedPassword = salt + password;
-        byte[] hashedBytes = digest.digest(saltedPassword.getBytes());
+        byte[] hashedBytes = newDigest().digest(saltedPassword.getBytes());
         return bytesToHex(hashedBytes);
     }
     public static boolean verifyPassword(String password, String salt, String hashedPassword) throws AuthenticationException {
         String computedHash = hashPassword(password, salt);
         return computedHash.equals(hashedPassword);
     }
+    // MessageDigest is not thread-safe, and a ThreadLocal would still build one per request
+    // since every request runs on a fresh virtual thread; a new instance per call is as cheap
+    private static MessageDigest newDigest() throws AuthenticationException {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new AuthenticationException("SHA-256 algorithm not found", e);
+        }
+    }
     private static String bytesToHex(byte[] bytes) {
         StringBuilder hex = new StringBuilder();
         for (byte b : bytes) {
@@ -0,0 +1,63 @@
+package Security;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Bearer tokens handed out by a successful login. A token is 32 random bytes, lives only
+// in memory and expires -Dapi.session.minutes after login; restarting the server logs
+// everyone out.
+public class SessionManager {
+    public static final Duration DEFAULT_TTL = Duration.ofMinutes(Long.getLong("api.session.minutes", 60));
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    public enum Role { CUSTOMER, MANAGER }
+    public record Session(String token, Role role, int userId, long expiresAt) {
+        public boolean isManager() {
+            return role == Role.MANAGER;
+        }
+    }
+
+    private final long ttlMillis;
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+
+    public SessionManager() {
+        this(DEFAULT_TTL);
+    }
+    public SessionManager(Duration ttl) {
+        this.ttlMillis = ttl.toMillis();
+    }
+
+    public Session open(Role role, int userId) {
+        long now = System.currentTimeMillis();
+        sessions.values().removeIf(session -> session.expiresAt() < now);
+        byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        Session session = new Session(Base64.getUrlEncoder().withoutPadding().encodeToString(bytes),
+                role, userId, now + ttlMillis);
+        sessions.put(session.token(), session);
+        return session;
+    }
+    // Null when the token is unknown or expired
+    public Session find(String token) {
+        if (token == null) {
+            return null;
+        }
+        Session session = sessions.get(token);
+        if (session != null && session.expiresAt() < System.currentTimeMillis()) {
+            sessions.remove(token);
+            return null;
+        }
+        return session;
+    }
+    public void close(String token) {
+        if (token != null) {
+            sessions.remove(token);
+        }
+    }
+    public long getTtlSeconds() {
+        return ttlMillis / 1000;
+    }
+}
@@ -61,6 +61,9 @@ public class ConsoleInterface {
                 }
             } catch (Exception e) {
                 System.out.println("Error: " + e.getMessage());
+            } finally {
+                // Don't hold a pooled connection while waiting for the next input
+                dbManager.closeConnection();
             }
         }
     }
@@ -120,6 +123,7 @@ public class ConsoleInterface {
     }
     private void displayCustomerMenu() {
         System.out.println("\n=== Customer Menu ===");
+        printDegradedNotice();
         System.out.println("1. Make Reservation");
         System.out.println("2. View My Reservations");
         System.out.println("3. Join Waitlist");
@@ -176,9 +180,12 @@ public class ConsoleInterface {
         LocalTime time = getValidTime();
 
         // Get available tables
-        List<Table> availableTables = reservationManager.getAvailableTables(partySize, date, time);
+        ReservationManager.BookingContext booking = reservationManager.prepareBooking(
+                currentCustomer.getCustomerID(), partySize, date, time);
+        List<Table> availableTables = booking.availableTables();
         if (availableTables.isEmpty()) {
-            System.out.println("No tables available. Would you like to join the waitlist? (y/n)");
+            System.out.println("No tables available. You would be number " + booking.nextWaitlistPosition() +
+                    " on the waitlist. Would you like to join the waitlist? (y/n)");
             if (scanner.nextLine().toLowerCase().startsWith("y")) {
                 joinWaitlist();
             }
@@ -197,6 +204,16 @@ public class ConsoleInterface {
         int tableChoice = getValidIntInput("Select table number: ", 1, availableTables.size());
         Table selectedTable = availableTables.get(tableChoice - 1);
 
+        // Hold the table while the customer finishes the booking
+        try {
+            reservationManager.holdTable(selectedTable.getTableID(), date, time,
+                    currentCustomer.getCustomerID());
+        } catch (ReservationException e) {
+            System.out.println("Table " + selectedTable.getTableNumber() +
+                    " was just taken by another customer. Please try again.");
+            return;
+        }
+
         // Get special requests
         System.out.print("Special requests (press Enter if none): ");
         String specialRequests = scanner.nextLine();
@@ -317,11 +334,19 @@ public class ConsoleInterface {
                 }
             } catch (Exception e) {
                 System.out.println("Error: " + e.getMessage());
+            } finally {
+                dbManager.closeConnection();
             }
         }
     }
+    private void printDegradedNotice() {
+        if (DatabaseManager.isDegraded()) {
+            System.out.println("(Database unavailable: showing last known data, changes cannot be saved)");
+        }
+    }
     private void displayManagerMenu() {
         System.out.println("\n=== Manager Menu ===");
+        printDegradedNotice();
         System.out.println("1. Manage Reservations");
         System.out.println("2. Manage Tables");
         System.out.println("3. Manage Waitlist");
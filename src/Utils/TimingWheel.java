@@ -0,0 +1,213 @@
+package Utils;
+
+import Logging.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Hierarchical hashed timing wheel: O(1) schedule/cancel, expiry work proportional
+// to the number of timeouts that actually fire (plus occasional cascades).
+public class TimingWheel {
+    private static final int WHEEL_BITS = 6;
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    private static final int LEVELS = 4;
+    private static final long MAX_TICKS = 1L << (WHEEL_BITS * LEVELS);
+    private static final Logger log = Logger.get(TimingWheel.class);
+
+    private final long tickMillis;
+    private final long startMillis;
+    private final Bucket[][] wheels = new Bucket[LEVELS][WHEEL_SIZE];
+    private long currentTick;
+    private int pending;
+    private ScheduledExecutorService ticker;
+
+    public TimingWheel(long tickDuration, TimeUnit unit) {
+        if (tickDuration <= 0) {
+            throw new IllegalArgumentException("Tick duration must be greater than 0");
+        }
+        this.tickMillis = Math.max(1, unit.toMillis(tickDuration));
+        this.startMillis = System.currentTimeMillis();
+        for (int level = 0; level < LEVELS; level++) {
+            for (int slot = 0; slot < WHEEL_SIZE; slot++) {
+                wheels[level][slot] = new Bucket();
+            }
+        }
+    }
+
+    // Lifecycle
+    public synchronized void start() {
+        if (ticker != null) {
+            return;
+        }
+        ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "timing-wheel");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(() -> advanceTo(System.currentTimeMillis()),
+                tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+    public synchronized void stop() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+            ticker = null;
+        }
+    }
+
+    // Scheduling
+    public synchronized Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        if (task == null) {
+            throw new IllegalArgumentException("Task cannot be null");
+        }
+        long dueMillis = System.currentTimeMillis() - startMillis + unit.toMillis(delay);
+        long deadline = Math.max(currentTick + 1, (dueMillis + tickMillis - 1) / tickMillis);
+        if (deadline - currentTick >= MAX_TICKS) {
+            throw new IllegalArgumentException("Delay exceeds timing wheel range");
+        }
+        Timeout timeout = new Timeout(this, task, deadline);
+        place(timeout);
+        pending++;
+        return timeout;
+    }
+    public synchronized int pendingCount() {
+        return pending;
+    }
+
+    // Advance the wheel up to the given wall-clock time, running every expired task.
+    public void advanceTo(long nowMillis) {
+        List<Timeout> expired = new ArrayList<>();
+        synchronized (this) {
+            long targetTick = (nowMillis - startMillis) / tickMillis;
+            while (currentTick < targetTick) {
+                currentTick++;
+                cascade();
+                Bucket bucket = wheels[0][(int) (currentTick & WHEEL_MASK)];
+                for (Timeout t = bucket.pollFirst(); t != null; t = bucket.pollFirst()) {
+                    t.state = Timeout.EXPIRED;
+                    pending--;
+                    expired.add(t);
+                }
+            }
+        }
+        for (Timeout timeout : expired) {
+            try {
+                timeout.task.run();
+            } catch (RuntimeException e) {
+                log.error("Timing wheel task failed", e);
+            }
+        }
+    }
+
+    private void cascade() {
+        for (int level = LEVELS - 1; level > 0; level--) {
+            long lowerSpan = (1L << (WHEEL_BITS * level)) - 1;
+            if ((currentTick & lowerSpan) != 0) {
+                continue;
+            }
+            Bucket bucket = wheels[level][(int) ((currentTick >>> (WHEEL_BITS * level)) & WHEEL_MASK)];
+            for (Timeout t = bucket.pollFirst(); t != null; t = bucket.pollFirst()) {
+                place(t);
+            }
+        }
+    }
+    private void place(Timeout timeout) {
+        long delta = timeout.deadline - currentTick;
+        if (delta <= 0) {
+            wheels[0][(int) (currentTick & WHEEL_MASK)].add(timeout);
+            return;
+        }
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= (1L << (WHEEL_BITS * (level + 1)))) {
+            level++;
+        }
+        int slot = (int) ((timeout.deadline >>> (WHEEL_BITS * level)) & WHEEL_MASK);
+        wheels[level][slot].add(timeout);
+    }
+    private synchronized boolean cancel(Timeout timeout) {
+        if (timeout.state != Timeout.PENDING) {
+            return false;
+        }
+        timeout.state = Timeout.CANCELLED;
+        timeout.bucket.remove(timeout);
+        pending--;
+        return true;
+    }
+
+    public static final class Timeout {
+        private static final int PENDING = 0;
+        private static final int EXPIRED = 1;
+        private static final int CANCELLED = 2;
+
+        private final TimingWheel wheel;
+        private final Runnable task;
+        private final long deadline;
+        private int state = PENDING;
+        private Bucket bucket;
+        private Timeout prev;
+        private Timeout next;
+
+        private Timeout(TimingWheel wheel, Runnable task, long deadline) {
+            this.wheel = wheel;
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        public boolean cancel() {
+            return wheel.cancel(this);
+        }
+        public boolean isExpired() {
+            synchronized (wheel) {
+                return state == EXPIRED;
+            }
+        }
+        public boolean isCancelled() {
+            synchronized (wheel) {
+                return state == CANCELLED;
+            }
+        }
+    }
+
+    // Intrusive doubly linked list so cancellation never scans a bucket
+    private static final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            timeout.prev = tail;
+            timeout.next = null;
+            if (tail == null) {
+                head = timeout;
+            } else {
+                tail.next = timeout;
+            }
+            tail = timeout;
+        }
+        void remove(Timeout timeout) {
+            if (timeout.prev == null) {
+                head = timeout.next;
+            } else {
+                timeout.prev.next = timeout.next;
+            }
+            if (timeout.next == null) {
+                tail = timeout.prev;
+            } else {
+                timeout.next.prev = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+        Timeout pollFirst() {
+            Timeout first = head;
+            if (first != null) {
+                remove(first);
+            }
+            return first;
+        }
+    }
+}
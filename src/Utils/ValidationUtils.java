@@ -1,6 +1,7 @@
 package Utils;
 
 import Exceptions.DatabaseConnectionException;
+import Exceptions.ValidationException;
 import Models.Customer;
 import Models.Manager;
 
@@ -22,6 +23,8 @@ public class ValidationUtils {
     public static final int MAX_NAME_LENGTH = 50;
     public static final int MAX_EMAIL_LENGTH = 100;
     public static final int MAX_CUISINE_LENGTH = 100;
+    private static final Pattern EMAIL_PATTERN = Pattern.compile("^[A-Za-z0-9+_.-]+@(.+)$");
+    private static final Pattern PHONE_PATTERN = Pattern.compile("^\\+?[0-9]{10,14}$");
 
 
     public static int getValidIntInput(String prompt, int min, int max) {
@@ -126,9 +129,21 @@ public class ValidationUtils {
 
     public static void validateCustomerInput(Customer customer, String username, String passwordHash, String salt) throws DatabaseConnectionException {
         if (customer == null) {
-            throw new DatabaseConnectionException("Customer object cannot be null");
+            throw new ValidationException("Customer object cannot be null");
         }
+        validateCustomerRecord(customer);
 
+        // Credential validations
+        if (username == null || username.trim().isEmpty()) {
+            throw new ValidationException("Username cannot be empty");
+        }
+
+        if (passwordHash == null || salt == null) {
+            throw new ValidationException("Password hash and salt are required");
+        }
+    }
+    // Profile rules shared by registration and bulk import; safe to call from many threads
+    public static void validateCustomerRecord(Customer customer) throws DatabaseConnectionException {
         // Name validations
         validateName(customer.getFirstName(), "First Name", MAX_NAME_LENGTH);
         validateName(customer.getLastName(), "Last Name", MAX_NAME_LENGTH);
@@ -138,20 +153,11 @@ public class ValidationUtils {
 
         // Phone validation (required for customers)
         validatePhoneNumber(customer.getPhoneNumber());
-
-        // Credential validations
-        if (username == null || username.trim().isEmpty()) {
-            throw new DatabaseConnectionException("Username cannot be empty");
-        }
-
-        if (passwordHash == null || salt == null) {
-            throw new DatabaseConnectionException("Password hash and salt are required");
-        }
     }
     public static void validateManagerInput(Manager manager, String username, String passwordHash, String salt) throws DatabaseConnectionException {
         // Comprehensive input validation
         if (manager == null) {
-            throw new DatabaseConnectionException("Manager object cannot be null");
+            throw new ValidationException("Manager object cannot be null");
         }
 
         // Name validations
@@ -170,31 +176,31 @@ public class ValidationUtils {
 
         // Credential validations
         if (username == null || username.trim().isEmpty()) {
-            throw new DatabaseConnectionException("Username cannot be empty");
+            throw new ValidationException("Username cannot be empty");
         }
 
         if (passwordHash == null || salt == null) {
-            throw new DatabaseConnectionException("Password hash and salt are required");
+            throw new ValidationException("Password hash and salt are required");
         }
     }
     private static void validateEmail(String email) throws DatabaseConnectionException {
-        if (!email.matches("^[A-Za-z0-9+_.-]+@(.+)$")) {
-            throw new DatabaseConnectionException("Invalid email format");
+        if (email == null || !EMAIL_PATTERN.matcher(email).matches()) {
+            throw new ValidationException("Invalid email format");
         }
     }
     private static void validateName(String name, String fieldName, int maxLength) throws DatabaseConnectionException {
         if (name == null || name.trim().isEmpty()) {
-            throw new DatabaseConnectionException(fieldName + " cannot be empty");
+            throw new ValidationException(fieldName + " cannot be empty");
         }
         if (name.length() > maxLength) {
-            throw new DatabaseConnectionException(
+            throw new ValidationException(
                     fieldName + " must be " + maxLength + " characters or less"
             );
         }
     }
     private static void validatePhoneNumber(String phone) throws DatabaseConnectionException {
-        if (!phone.matches("^\\+?[0-9]{10,14}$")) {
-            throw new DatabaseConnectionException("Invalid phone number format");
+        if (phone == null || !PHONE_PATTERN.matcher(phone).matches()) {
+            throw new ValidationException("Invalid phone number format");
         }
     }
 